@@ -0,0 +1,112 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+/**
+ * Generators of benchmark inputs. All data is derived from a fixed seed so that
+ * runs of the same benchmark are comparable.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class BenchmarkFixtures {
+
+    private static final String[] WORDS = {
+        "public ", "private ", "static ", "final ", "void ", "int ", "long ", "return ", "if ", "else ",
+        "for ", "while ", "null", "this.", "new ", "String ", "List ", "Map ", "{\n", "}\n", "(", ")",
+        ", ", ";\n", "    ", "        ", "= ", "== ", "myValue", "ourInstance", "getName", "setName",
+        "SVNException", "SVNErrorManager.error(err, SVNLogType.FSFS);\n", "// comment\n",
+    };
+
+    public static Random createRandom() {
+        return new Random(0x5EED);
+    }
+
+    public static byte[] generateText(Random random, int length) {
+        byte[] text = new byte[length];
+        for (int i = 0; i < length;) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            for (int j = 0; j < word.length() && i < length; j++) {
+                text[i++] = (byte) word.charAt(j);
+            }
+        }
+        return text;
+    }
+
+    public static byte[] generateBinary(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    public static byte[] generate(Random random, String kind, int length) {
+        if ("binary".equals(kind)) {
+            return generateBinary(random, length);
+        }
+        return generateText(random, length);
+    }
+
+    /**
+     * Replaces, removes and inserts short runs of bytes at <code>editsCount</code>
+     * random positions.
+     */
+    public static byte[] edit(Random random, byte[] data, int editsCount) {
+        byte[] result = data;
+        for (int i = 0; i < editsCount && result.length > 0; i++) {
+            int position = random.nextInt(result.length);
+            int removed = Math.min(result.length - position, random.nextInt(64));
+            byte[] inserted = generateText(random, random.nextInt(64));
+            byte[] edited = new byte[result.length - removed + inserted.length];
+            System.arraycopy(result, 0, edited, 0, position);
+            System.arraycopy(inserted, 0, edited, position, inserted.length);
+            System.arraycopy(result, position + removed, edited, position + inserted.length, result.length - position - removed);
+            result = edited;
+        }
+        return result;
+    }
+
+    public static File createTempDirectory(String prefix) throws IOException {
+        File dir = File.createTempFile(prefix, ".benchmark");
+        if (!dir.delete() || !dir.mkdirs()) {
+            throw new IOException("Cannot create temporary directory " + dir);
+        }
+        return dir;
+    }
+
+    public static void deleteTempDirectory(File dir) {
+        if (dir != null) {
+            SVNFileUtil.deleteAll(dir, true);
+        }
+    }
+
+    public static void sendContents(ISVNEditor editor, String path, byte[] base, byte[] contents) throws SVNException {
+        editor.applyTextDelta(path, null);
+        SVNDeltaGenerator generator = new SVNDeltaGenerator();
+        String checksum;
+        if (base == null) {
+            checksum = generator.sendDelta(path, new ByteArrayInputStream(contents), editor, true);
+        } else {
+            checksum = generator.sendDelta(path, new ByteArrayInputStream(base), 0, new ByteArrayInputStream(contents), editor, true);
+        }
+        editor.closeFile(path, checksum);
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.dav.http.HTTPConnection;
+import org.tmatesoft.svn.core.internal.io.dav.http.HTTPHeader;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+/**
+ * File contents sent on commit over a bandwidth limited loopback connection: the
+ * delta of a new file is written in svndiff format 0, 1 (zlib) or 2 (LZ4) the way
+ * the DAV commit editor does and sent in a PUT request to a local server that reads
+ * request bodies at <code>bandwidth</code> kilobytes per second.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DAVCommitCompressionBenchmark {
+
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    @Param({"text", "binary"})
+    public String kind;
+
+    @Param({"0", "1", "2"})
+    public int svndiffVersion;
+
+    @Param({"1024", "16384"})
+    public int bandwidth;
+
+    private byte[] myContents;
+    private ThrottledServer myServer;
+    private HTTPConnection myConnection;
+    private ByteArrayOutputStream myDelta;
+
+    @Setup
+    public void setUp() throws Exception {
+        myContents = BenchmarkFixtures.generate(BenchmarkFixtures.createRandom(), kind, FILE_SIZE);
+        myServer = new ThrottledServer(bandwidth * 1024);
+        myServer.start();
+
+        DAVRepositoryFactory.setup();
+        SVNRepository repository = SVNRepositoryFactory.create(SVNURL.parseURIEncoded("http://127.0.0.1:" + myServer.getPort() + "/repos"));
+        myConnection = new HTTPConnection(repository, "UTF-8", null, false);
+        myDelta = new ByteArrayOutputStream(FILE_SIZE + 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        myConnection.close();
+        myServer.close();
+    }
+
+    @Benchmark
+    public int putFile() throws SVNException {
+        myDelta.reset();
+        new SVNDeltaGenerator().sendDelta("file", new ByteArrayInputStream(myContents), new ISVNDeltaConsumer() {
+            private boolean myIsFirstWindow = true;
+
+            public void applyTextDelta(String path, String baseChecksum) {
+            }
+
+            public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+                try {
+                    diffWindow.writeTo(myDelta, myIsFirstWindow, svndiffVersion, Deflater.DEFAULT_COMPRESSION);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                myIsFirstWindow = false;
+                return SVNFileUtil.DUMMY_OUT;
+            }
+
+            public void textDeltaEnd(String path) {
+            }
+        }, false);
+
+        HTTPHeader header = new HTTPHeader();
+        header.setHeaderValue(HTTPHeader.CONTENT_TYPE_HEADER, HTTPHeader.SVNDIFF_MIME_TYPE);
+        myConnection.request("PUT", "/repos/file", header, new ByteArrayInputStream(myDelta.toByteArray()), 201, 204, null, null);
+        return myDelta.size();
+    }
+
+    /**
+     * Answers every request with 201 after reading its body no faster than the given
+     * number of bytes per second.
+     */
+    private static class ThrottledServer extends Thread {
+
+        private final ServerSocket myServerSocket;
+        private final int myBytesPerSecond;
+
+        public ThrottledServer(int bytesPerSecond) throws IOException {
+            super("throttled-http-server");
+            setDaemon(true);
+            myBytesPerSecond = bytesPerSecond;
+            myServerSocket = new ServerSocket();
+            // a small receive window lets the limit slow the sender down.
+            myServerSocket.setReceiveBufferSize(16 * 1024);
+            myServerSocket.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+        }
+
+        public int getPort() {
+            return myServerSocket.getLocalPort();
+        }
+
+        public void close() throws IOException {
+            myServerSocket.close();
+        }
+
+        public void run() {
+            while (!myServerSocket.isClosed()) {
+                Socket socket = null;
+                try {
+                    socket = myServerSocket.accept();
+                    serve(socket);
+                } catch (IOException e) {
+                    // closed by the client or on tear down.
+                } finally {
+                    closeSocket(socket);
+                }
+            }
+        }
+
+        private void serve(Socket socket) throws IOException {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[8 * 1024];
+            while (true) {
+                long contentLength = readHeader(in);
+                if (contentLength < 0) {
+                    return;
+                }
+                long start = System.nanoTime();
+                long received = 0;
+                while (received < contentLength) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, contentLength - received));
+                    if (read < 0) {
+                        return;
+                    }
+                    received += read;
+                    long due = received * 1000000000L / myBytesPerSecond - (System.nanoTime() - start);
+                    if (due > 0) {
+                        try {
+                            Thread.sleep(due / 1000000, (int) (due % 1000000));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+                out.write("HTTP/1.1 201 Created\r\nContent-Length: 0\r\n\r\n".getBytes("US-ASCII"));
+                out.flush();
+            }
+        }
+
+        private static long readHeader(InputStream in) throws IOException {
+            StringBuilder line = new StringBuilder();
+            long contentLength = 0;
+            boolean empty = true;
+            while (true) {
+                int ch = in.read();
+                if (ch < 0) {
+                    return -1;
+                } else if (ch == '\n') {
+                    if (line.length() == 0) {
+                        if (empty) {
+                            continue;
+                        }
+                        return contentLength;
+                    }
+                    String header = line.toString();
+                    if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                        contentLength = Long.parseLong(header.substring(15).trim());
+                    }
+                    line.setLength(0);
+                    empty = false;
+                } else if (ch != '\r') {
+                    line.append((char) ch);
+                }
+            }
+        }
+
+        private static void closeSocket(Socket socket) {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaAlgorithm;
+import org.tmatesoft.svn.core.internal.delta.SVNVDeltaAlgorithm;
+import org.tmatesoft.svn.core.internal.delta.SVNXDeltaAlgorithm;
+
+/**
+ * Delta generation of a single 100K window by each matcher; {@link LegacyXDeltaAlgorithm}
+ * is the matcher used before the primitive hash table.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaGeneratorBenchmark {
+
+    private static final int WINDOW_SIZE = 100 * 1024;
+
+    @Param({"xdelta", "legacy-xdelta", "vdelta"})
+    public String algorithm;
+
+    @Param({"text", "binary"})
+    public String content;
+
+    @Param({"edited", "unrelated"})
+    public String change;
+
+    private SVNDeltaAlgorithm myAlgorithm;
+    private byte[] mySource;
+    private byte[] myTarget;
+
+    @Setup
+    public void setUp() {
+        if ("legacy-xdelta".equals(algorithm)) {
+            myAlgorithm = new LegacyXDeltaAlgorithm();
+        } else if ("vdelta".equals(algorithm)) {
+            myAlgorithm = new SVNVDeltaAlgorithm();
+        } else {
+            myAlgorithm = new SVNXDeltaAlgorithm();
+        }
+        Random random = BenchmarkFixtures.createRandom();
+        mySource = BenchmarkFixtures.generate(random, content, WINDOW_SIZE);
+        myTarget = createTarget(random, mySource);
+    }
+
+    @Benchmark
+    public int computeWindow() {
+        myAlgorithm.computeDelta(mySource, mySource.length, myTarget, myTarget.length);
+        int length = myAlgorithm.getInstructionsLength() + myAlgorithm.getNewDataLength();
+        myAlgorithm.reset();
+        return length;
+    }
+
+    private byte[] createTarget(Random random, byte[] source) {
+        if ("unrelated".equals(change)) {
+            return BenchmarkFixtures.generate(random, content, source.length);
+        }
+        return BenchmarkFixtures.edit(random, source, source.length / 2048);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCombiner;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+/**
+ * Streaming delta generation through {@link SVNDeltaGenerator} and application of
+ * a delta chain with {@link SVNDeltaCombiner}, the way FSFS reconstructs a window
+ * of a deltified representation.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaStreamBenchmark {
+
+    private static final int CONTENT_SIZE = 64 * 1024;
+
+    @Param({"text", "binary"})
+    public String content;
+
+    @Param({"1", "4", "16"})
+    public int chainLength;
+
+    private SVNDiffWindow[] myChain;
+    private SVNDeltaCombiner myCombiner;
+    private byte[] myLargeSource;
+    private byte[] myLargeTarget;
+    private SVNDeltaGenerator myGenerator;
+    private ISVNDeltaConsumer myConsumer;
+
+    @Setup
+    public void setUp() throws SVNException {
+        Random random = BenchmarkFixtures.createRandom();
+        byte[][] versions = new byte[chainLength + 1][];
+        versions[0] = BenchmarkFixtures.generate(random, content, CONTENT_SIZE);
+        for (int i = 1; i < versions.length; i++) {
+            versions[i] = BenchmarkFixtures.edit(random, versions[i - 1], 16);
+        }
+        // newest delta first, the chain ends with the window that has no source.
+        myChain = new SVNDiffWindow[versions.length];
+        SVNDeltaGenerator generator = new SVNDeltaGenerator();
+        for (int i = versions.length - 1; i > 0; i--) {
+            myChain[versions.length - 1 - i] = createWindow(generator, versions[i - 1], versions[i]);
+        }
+        myChain[versions.length - 1] = createWindow(generator, null, versions[0]);
+        myCombiner = new SVNDeltaCombiner();
+
+        myLargeSource = BenchmarkFixtures.generate(random, content, 16 * 100 * 1024);
+        myLargeTarget = BenchmarkFixtures.edit(random, myLargeSource, 256);
+        myGenerator = new SVNDeltaGenerator();
+        myConsumer = new DeltaConsumer(null);
+    }
+
+    @Benchmark
+    public int applyChain() throws SVNException {
+        myCombiner.reset();
+        for (int i = 0; i < myChain.length; i++) {
+            ByteBuffer target = myCombiner.addWindow(myChain[i]);
+            if (target != null) {
+                return target.remaining();
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public String sendDelta() throws SVNException {
+        return myGenerator.sendDelta("file", new ByteArrayInputStream(myLargeSource), 0,
+                new ByteArrayInputStream(myLargeTarget), myConsumer, true);
+    }
+
+    private static SVNDiffWindow createWindow(SVNDeltaGenerator generator, byte[] source, byte[] target) throws SVNException {
+        List<SVNDiffWindow> windows = new ArrayList<SVNDiffWindow>();
+        if (source == null) {
+            generator.sendDelta("file", new ByteArrayInputStream(target), new DeltaConsumer(windows), false);
+        } else {
+            generator.sendDelta("file", new ByteArrayInputStream(source), 0, new ByteArrayInputStream(target), new DeltaConsumer(windows), false);
+        }
+        return windows.get(0);
+    }
+
+    private static class DeltaConsumer implements ISVNDeltaConsumer {
+
+        private final List<SVNDiffWindow> myWindows;
+
+        public DeltaConsumer(List<SVNDiffWindow> windows) {
+            myWindows = windows;
+        }
+
+        public void applyTextDelta(String path, String baseChecksum) {
+        }
+
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) {
+            if (myWindows != null) {
+                myWindows.add(diffWindow.clone(ByteBuffer.allocate(diffWindow.getDataLength())));
+            }
+            return SVNFileUtil.DUMMY_OUT;
+        }
+
+        public void textDeltaEnd(String path) {
+        }
+    }
+}
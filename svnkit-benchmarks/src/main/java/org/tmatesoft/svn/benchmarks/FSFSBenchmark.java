@@ -0,0 +1,171 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCombiner;
+import org.tmatesoft.svn.core.internal.io.fs.FSCache;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSFile;
+import org.tmatesoft.svn.core.internal.io.fs.FSInputStream;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.fs.FSRevisionNode;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+/**
+ * FSFS read path: parsing of node-revision headers and property lists, and fulltext
+ * reconstruction of a file that was changed in every revision of a local repository.
+ * The process-wide {@link FSCache} is disabled while the benchmark runs so that every
+ * read goes to the revision files.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FSFSBenchmark {
+
+    private static final String NODE_REVISION_HEADER =
+            "id: 2-13.0.r13/5912\n" +
+            "type: file\n" +
+            "pred: 2-13.0.r12/4810\n" +
+            "count: 12\n" +
+            "text: 13 4096 1795 262144 0ba4a0b3bc2a8c1b0ee3b0a5f2a71da4 7f1a83ed8b0c55c45cb1a6f1bd3fa5cbb3a0d0f1 12-c/_4\n" +
+            "props: 1 2 53 41 8b2ba4b4fe2d0aefdd2ca2e3bd2d2d73\n" +
+            "cpath: /trunk/src/main/java/org/tmatesoft/svn/core/internal/io/fs/FSFS.java\n" +
+            "copyroot: 0 /\n" +
+            "\n";
+
+    @Param({"1", "16", "64"})
+    public int revisions;
+
+    private byte[] myHeader;
+    private byte[] myProperties;
+    private File myRepositoryRoot;
+    private FSFS myFSFS;
+    private FSRevisionNode myFileNode;
+    private SVNDeltaCombiner myCombiner;
+    private byte[] myBuffer;
+    private long myCacheCapacity;
+
+    @Setup
+    public void setUp() throws SVNException, IOException {
+        myHeader = NODE_REVISION_HEADER.getBytes("UTF-8");
+        StringBuilder properties = new StringBuilder();
+        for (int i = 0; i < 32; i++) {
+            appendHashEntry(properties, "K", "svn:property-" + i);
+            appendHashEntry(properties, "V", "value of the property number " + i + "\nwith two lines");
+        }
+        properties.append("END\n");
+        myProperties = properties.toString().getBytes("UTF-8");
+
+        FSRepositoryFactory.setup();
+        myRepositoryRoot = BenchmarkFixtures.createTempDirectory("fsfs");
+        SVNURL url = SVNRepositoryFactory.createLocalRepository(myRepositoryRoot, true, true);
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        try {
+            Random random = BenchmarkFixtures.createRandom();
+            byte[] contents = BenchmarkFixtures.generateText(random, 256 * 1024);
+            byte[] base = null;
+            for (int i = 0; i < revisions; i++) {
+                ISVNEditor editor = repository.getCommitEditor("revision " + i, null);
+                editor.openRoot(-1);
+                if (base == null) {
+                    editor.addFile("file", null, -1);
+                } else {
+                    editor.openFile("file", -1);
+                }
+                BenchmarkFixtures.sendContents(editor, "file", base, contents);
+                editor.closeDir();
+                editor.closeEdit();
+                base = contents;
+                contents = BenchmarkFixtures.edit(random, contents, 32);
+            }
+        } finally {
+            repository.closeSession();
+        }
+
+        myCacheCapacity = FSCache.getInstance().getCapacity();
+        FSCache.getInstance().setCapacity(0);
+        myFSFS = new FSFS(myRepositoryRoot);
+        myFSFS.open();
+        myFileNode = myFSFS.createRevisionRoot(revisions).getRevisionNode("/file");
+        myCombiner = new SVNDeltaCombiner();
+        myBuffer = new byte[16 * 1024];
+    }
+
+    @TearDown
+    public void tearDown() throws SVNException {
+        if (myFSFS != null) {
+            myFSFS.close();
+        }
+        FSCache.getInstance().setCapacity(myCacheCapacity);
+        BenchmarkFixtures.deleteTempDirectory(myRepositoryRoot);
+    }
+
+    @Benchmark
+    public Map readHeader() throws SVNException {
+        return new FSFile(myHeader).readHeader();
+    }
+
+    @Benchmark
+    public SVNProperties readProperties() throws SVNException {
+        return new FSFile(myProperties).readProperties(false, true);
+    }
+
+    @Benchmark
+    public long reconstructFulltext() throws SVNException, IOException {
+        InputStream stream = FSInputStream.createDeltaStream(myCombiner, myFileNode, myFSFS);
+        long length = 0;
+        try {
+            for (int read = stream.read(myBuffer); read >= 0; read = stream.read(myBuffer)) {
+                length += read;
+            }
+        } finally {
+            SVNFileUtil.closeFile(stream);
+        }
+        return length;
+    }
+
+    private static void appendHashEntry(StringBuilder target, String kind, String value) throws IOException {
+        target.append(kind).append(' ').append(value.getBytes("UTF-8").length).append('\n');
+        target.append(value).append('\n');
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.ISVNLogEntryHandler;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLogEntry;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSCache;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.ISVNAnnotateHandler;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNLogClient;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+
+/**
+ * <code>svn log -v</code> and <code>svn blame</code> on a packed local repository, where
+ * every revision lookup goes through a shard manifest (and, for logical addressing, the
+ * L2P/P2L indexes). Each revision changes one file and adds another one. With
+ * <code>cache</code> set to <code>false</code> the process-wide {@link FSCache} is disabled,
+ * so manifests and index pages are read and decoded on every lookup.
+ *
+ * <p/>
+ * SVNKit does not pack repositories that use logical addressing; to measure the index
+ * caches run against a repository created and packed by <code>svnadmin</code> 1.9 or later
+ * with <code>-p repository=/path/to/repository -p file=path/in/repository</code>.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PackedRepositoryBenchmark {
+
+    private static final int SHARD_SIZE = 100;
+
+    @Param({"2000"})
+    public int revisions;
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    @Param({""})
+    public String repository;
+
+    @Param({"file"})
+    public String file;
+
+    private File myRepositoryRoot;
+    private boolean myIsTemporary;
+    private SVNRepository myRepository;
+    private SVNLogClient myLogClient;
+    private SVNURL myFileUrl;
+    private long myCacheCapacity;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SVNException, IOException {
+        FSRepositoryFactory.setup();
+        SVNURL url;
+        if (repository.length() > 0) {
+            myRepositoryRoot = new File(repository).getAbsoluteFile();
+            url = SVNURL.fromFile(myRepositoryRoot);
+        } else {
+            myRepositoryRoot = BenchmarkFixtures.createTempDirectory("packed");
+            myIsTemporary = true;
+            url = createRepository(myRepositoryRoot);
+        }
+
+        myCacheCapacity = FSCache.getInstance().getCapacity();
+        if (!cache) {
+            FSCache.getInstance().setCapacity(0);
+        }
+        myRepository = SVNRepositoryFactory.create(url);
+        myLogClient = SVNClientManager.newInstance().getLogClient();
+        myFileUrl = url.appendPath(file, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (myRepository != null) {
+            myRepository.closeSession();
+        }
+        FSCache.getInstance().setCapacity(myCacheCapacity);
+        if (myIsTemporary) {
+            BenchmarkFixtures.deleteTempDirectory(myRepositoryRoot);
+        }
+    }
+
+    @Benchmark
+    public long logVerbose() throws SVNException {
+        final long[] changedPaths = new long[1];
+        myRepository.log(new String[] {""}, 0, -1, true, false, new ISVNLogEntryHandler() {
+            public void handleLogEntry(SVNLogEntry logEntry) {
+                changedPaths[0] += logEntry.getChangedPaths().size();
+            }
+        });
+        return changedPaths[0];
+    }
+
+    @Benchmark
+    public long blame() throws SVNException {
+        final long[] lines = new long[1];
+        myLogClient.doAnnotate(myFileUrl, SVNRevision.HEAD, SVNRevision.create(0), SVNRevision.HEAD, new ISVNAnnotateHandler() {
+            public void handleLine(Date date, long revision, String author, String line) {
+                lines[0]++;
+            }
+
+            public void handleLine(Date date, long revision, String author, String line, Date mergedDate,
+                    long mergedRevision, String mergedAuthor, String mergedPath, int lineNumber) {
+                lines[0]++;
+            }
+
+            public boolean handleRevision(Date date, long revision, String author, File contents) {
+                return false;
+            }
+
+            public void handleEOF() {
+            }
+        });
+        return lines[0];
+    }
+
+    private SVNURL createRepository(File root) throws SVNException {
+        long maxFilesPerDirectory = FSFS.getDefaultMaxFilesPerDirectory();
+        SVNURL url;
+        FSFS.setDefaultMaxFilesPerDirectory(SHARD_SIZE);
+        try {
+            url = SVNRepositoryFactory.createLocalRepository(root, true, false);
+        } finally {
+            FSFS.setDefaultMaxFilesPerDirectory(maxFilesPerDirectory);
+        }
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        try {
+            Random random = BenchmarkFixtures.createRandom();
+            byte[] contents = BenchmarkFixtures.generateText(random, 8 * 1024);
+            byte[] base = null;
+            for (int i = 1; i <= revisions; i++) {
+                ISVNEditor editor = repository.getCommitEditor("revision " + i, null);
+                editor.openRoot(-1);
+                if (base == null) {
+                    editor.addFile(file, null, -1);
+                } else {
+                    editor.openFile(file, -1);
+                }
+                BenchmarkFixtures.sendContents(editor, file, base, contents);
+                String dir = "dir" + (i / SHARD_SIZE);
+                if (i % SHARD_SIZE == 0 || i == 1) {
+                    editor.addDir(dir, null, -1);
+                } else {
+                    editor.openDir(dir, -1);
+                }
+                String path = dir + "/file" + i;
+                editor.addFile(path, null, -1);
+                BenchmarkFixtures.sendContents(editor, path, null, BenchmarkFixtures.generateText(random, 256));
+                editor.closeDir();
+                editor.closeDir();
+                editor.closeEdit();
+                base = contents;
+                contents = BenchmarkFixtures.edit(random, contents, 4);
+            }
+        } finally {
+            repository.closeSession();
+        }
+        SVNClientManager.newInstance().getAdminClient().doPack(root);
+        return url;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc.admin.SVNAdminClient;
+
+/**
+ * Loading of a dump into a new repository with rep-sharing enabled, so that every
+ * file representation is looked up in and inserted into <code>rep-cache.db</code>.
+ * A third of the files repeat the contents of an earlier file. The dump is written
+ * once per trial; each invocation loads it into a fresh repository.
+ *
+ * <p/>
+ * The rep-cache memory layer is configured at class loading time; to compare with
+ * the plain database lookups run with
+ * <code>-jvmArgs '-Dsvnkit.fs.repcache.memory=0 -Dsvnkit.fs.repcache.bloom=false'</code>.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RepCacheLoadBenchmark {
+
+    private static final int FILES_PER_REVISION = 500;
+
+    @Param({"10000", "100000"})
+    public int files;
+
+    private File myRoot;
+    private File myDumpFile;
+    private File myRepositoryRoot;
+    private SVNAdminClient myAdminClient;
+
+    @Setup(Level.Trial)
+    public void createDump() throws SVNException, IOException {
+        FSRepositoryFactory.setup();
+        myRoot = BenchmarkFixtures.createTempDirectory("repcache");
+        myAdminClient = SVNClientManager.newInstance().getAdminClient();
+
+        File sourceRoot = new File(myRoot, "source");
+        SVNURL url = SVNRepositoryFactory.createLocalRepository(sourceRoot, true, false);
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        try {
+            Random random = BenchmarkFixtures.createRandom();
+            byte[][] written = new byte[files][];
+            for (int first = 0; first < files; first += FILES_PER_REVISION) {
+                ISVNEditor editor = repository.getCommitEditor("files " + first, null);
+                editor.openRoot(-1);
+                String dir = "dir" + (first / FILES_PER_REVISION);
+                editor.addDir(dir, null, -1);
+                for (int i = first; i < Math.min(files, first + FILES_PER_REVISION); i++) {
+                    if (i % 3 == 2) {
+                        written[i] = written[random.nextInt(i)];
+                    } else {
+                        written[i] = BenchmarkFixtures.generateText(random, 512 + random.nextInt(4096));
+                    }
+                    String path = dir + "/file" + i;
+                    editor.addFile(path, null, -1);
+                    BenchmarkFixtures.sendContents(editor, path, null, written[i]);
+                }
+                editor.closeDir();
+                editor.closeDir();
+                editor.closeEdit();
+            }
+        } finally {
+            repository.closeSession();
+        }
+
+        myDumpFile = new File(myRoot, "repository.dump");
+        OutputStream dumpStream = new BufferedOutputStream(SVNFileUtil.openFileForWriting(myDumpFile));
+        try {
+            myAdminClient.doDump(sourceRoot, dumpStream, SVNRevision.create(0), SVNRevision.HEAD, false, false);
+        } finally {
+            SVNFileUtil.closeFile(dumpStream);
+        }
+        SVNFileUtil.deleteAll(sourceRoot, true);
+    }
+
+    @Setup(Level.Invocation)
+    public void createRepository() throws SVNException {
+        myRepositoryRoot = new File(myRoot, "target");
+        SVNFileUtil.deleteAll(myRepositoryRoot, true);
+        SVNRepositoryFactory.createLocalRepository(myRepositoryRoot, true, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFixtures.deleteTempDirectory(myRoot);
+    }
+
+    @Benchmark
+    public void load() throws SVNException {
+        InputStream dumpStream = new BufferedInputStream(SVNFileUtil.openFileForReading(myDumpFile));
+        try {
+            myAdminClient.doLoad(myRepositoryRoot, dumpStream);
+        } finally {
+            SVNFileUtil.closeFile(dumpStream);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.svn.ISVNTupleHandler;
+import org.tmatesoft.svn.core.internal.io.svn.SVNReader;
+import org.tmatesoft.svn.core.internal.io.svn.SVNTokenizer;
+import org.tmatesoft.svn.core.internal.io.svn.SVNWriter;
+
+/**
+ * svn:// protocol tuple encoding and decoding: a log response of 1000 entries is
+ * parsed with {@link SVNReader}, from a plain stream and through {@link SVNTokenizer},
+ * with and without streaming the changed paths of each entry, and the commands a client sends for a checkout are encoded with {@link SVNWriter}.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SVNProtocolBenchmark {
+
+    private static final int ENTRIES_COUNT = 1000;
+    private static final String LOG_ENTRY_TEMPLATE = "lr(?s)(?s)(?s)?ww";
+    private static final String LOG_ENTRY_TAIL_TEMPLATE = "r(?s)(?s)(?s)?ww";
+    private static final String CHANGED_PATH_TEMPLATE = "sw(?sr)?(?s)";
+
+    private byte[] myLogResponse;
+    private ByteArrayOutputStream myOutput;
+
+    @Setup
+    public void setUp() throws SVNException {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        for (int i = 0; i < ENTRIES_COUNT; i++) {
+            String path = "/trunk/src/main/java/org/tmatesoft/svn/core/File" + i + ".java";
+            SVNWriter.write(response, "(((sw()(ww))) n (s) (s) (s) ww)", new Object[] {
+                    path, "M", "file", "true", new Long(i + 1), "author", "2012-01-01T00:00:00.000000Z",
+                    "change " + i + "\nsecond line of the log message", "false", "false"});
+        }
+        myLogResponse = response.toByteArray();
+        myOutput = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @Benchmark
+    public int readLogEntries() throws SVNException {
+        InputStream is = new ByteArrayInputStream(myLogResponse);
+        int count = 0;
+        for (int i = 0; i < ENTRIES_COUNT; i++) {
+            List items = SVNReader.readTuple(is, LOG_ENTRY_TEMPLATE);
+            count += items.size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int readLogEntriesTokenized() throws SVNException {
+        InputStream is = new SVNTokenizer(new ByteArrayInputStream(myLogResponse));
+        int count = 0;
+        for (int i = 0; i < ENTRIES_COUNT; i++) {
+            List items = SVNReader.readTuple(is, LOG_ENTRY_TEMPLATE);
+            count += items.size();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int readLogEntriesStreamed() throws SVNException {
+        InputStream is = new SVNTokenizer(new ByteArrayInputStream(myLogResponse));
+        final int[] count = new int[1];
+        ISVNTupleHandler handler = new ISVNTupleHandler() {
+            public void handleTuple(List values) {
+                count[0] += values.size();
+            }
+        };
+        for (int i = 0; i < ENTRIES_COUNT; i++) {
+            List items = SVNReader.readTuple(is, LOG_ENTRY_TAIL_TEMPLATE, CHANGED_PATH_TEMPLATE, handler, "done");
+            count[0] += items.size();
+        }
+        return count[0];
+    }
+
+    @Benchmark
+    public int writeCommands() throws SVNException {
+        myOutput.reset();
+        for (int i = 0; i < ENTRIES_COUNT; i++) {
+            String path = "trunk/src/main/java/org/tmatesoft/svn/core/File" + i + ".java";
+            SVNWriter.write(myOutput, "(w(s(n)ww))", new Object[] {"get-file", path, new Long(i), "true", "false"});
+            SVNWriter.write(myOutput, "(w(snw(s)w))", new Object[] {"set-path", path, new Long(i), "false", null, "infinity"});
+        }
+        return myOutput.size();
+    }
+}
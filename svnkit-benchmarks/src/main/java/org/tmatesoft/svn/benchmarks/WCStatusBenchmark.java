@@ -0,0 +1,144 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc2.ISvnObjectReceiver;
+import org.tmatesoft.svn.core.wc2.SvnCheckout;
+import org.tmatesoft.svn.core.wc2.SvnGetStatus;
+import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
+import org.tmatesoft.svn.core.wc2.SvnStatus;
+import org.tmatesoft.svn.core.wc2.SvnTarget;
+
+/**
+ * Local status of a generated working copy: <code>directories</code> directories of
+ * 50 files each, every tenth file modified. Both the walk that reports modified nodes
+ * only and the one that reports every node are measured.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WCStatusBenchmark {
+
+    private static final int FILES_PER_DIRECTORY = 50;
+
+    @Param({"20", "200"})
+    public int directories;
+
+    private File myRoot;
+    private File myWorkingCopy;
+    private SvnOperationFactory myOperationFactory;
+
+    @Setup
+    public void setUp() throws SVNException, IOException {
+        FSRepositoryFactory.setup();
+        myRoot = BenchmarkFixtures.createTempDirectory("wc-status");
+        SVNURL url = SVNRepositoryFactory.createLocalRepository(new File(myRoot, "repository"), true, false);
+        SVNRepository repository = SVNRepositoryFactory.create(url);
+        Random random = BenchmarkFixtures.createRandom();
+        try {
+            ISVNEditor editor = repository.getCommitEditor("initial", null);
+            editor.openRoot(-1);
+            for (int i = 0; i < directories; i++) {
+                String dir = "dir" + i;
+                editor.addDir(dir, null, -1);
+                for (int j = 0; j < FILES_PER_DIRECTORY; j++) {
+                    String file = dir + "/file" + j + ".txt";
+                    editor.addFile(file, null, -1);
+                    BenchmarkFixtures.sendContents(editor, file, null, BenchmarkFixtures.generateText(random, 512));
+                }
+                editor.closeDir();
+            }
+            editor.closeDir();
+            editor.closeEdit();
+        } finally {
+            repository.closeSession();
+        }
+
+        myWorkingCopy = new File(myRoot, "wc");
+        myOperationFactory = new SvnOperationFactory();
+        SvnCheckout checkout = myOperationFactory.createCheckout();
+        checkout.setSource(SvnTarget.fromURL(url));
+        checkout.setSingleTarget(SvnTarget.fromFile(myWorkingCopy));
+        checkout.run();
+
+        for (int i = 0; i < directories; i++) {
+            for (int j = 0; j < FILES_PER_DIRECTORY; j += 10) {
+                File file = new File(myWorkingCopy, "dir" + i + "/file" + j + ".txt");
+                SVNFileUtil.writeToFile(file, "modified " + i + "/" + j, "UTF-8");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (myOperationFactory != null) {
+            myOperationFactory.dispose();
+        }
+        BenchmarkFixtures.deleteTempDirectory(myRoot);
+    }
+
+    @Benchmark
+    public int statusModified() throws SVNException {
+        return runStatus(false);
+    }
+
+    @Benchmark
+    public int statusAll() throws SVNException {
+        return runStatus(true);
+    }
+
+    private int runStatus(boolean reportAll) throws SVNException {
+        final int[] count = new int[1];
+        SvnGetStatus status = myOperationFactory.createGetStatus();
+        status.setSingleTarget(SvnTarget.fromFile(myWorkingCopy));
+        status.setDepth(SVNDepth.INFINITY);
+        status.setReportAll(reportAll);
+        status.setReceiver(new ISvnObjectReceiver<SvnStatus>() {
+            public void receive(SvnTarget target, SvnStatus status) {
+                count[0]++;
+            }
+        });
+        status.run();
+        return count[0];
+    }
+}
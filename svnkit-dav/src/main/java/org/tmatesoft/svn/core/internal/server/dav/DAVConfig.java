@@ -39,6 +39,13 @@ public class DAVConfig {
     private static final String AUTOVERSIONING = "SVNAutoversioning";
     private static final String ALLOW_BULK_UPDATES = "SVNAllowBulkUpdates";
     private static final String DAV_DEPTH = "DAVDepthInfinity";
+    private static final String REPOSITORY_POOL_IDLE_TIMEOUT = "SVNRepositoryPoolIdleTimeout";
+    private static final long DEFAULT_REPOSITORY_POOL_IDLE_TIMEOUT = 300;
+    private static final String RESPONSE_CACHE_SIZE = "SVNResponseCacheSize";
+    private static final long DEFAULT_RESPONSE_CACHE_SIZE = 16 * 1024;
+    private static final String RESPONSE_CACHE_MAX_ENTRY_SIZE = "SVNResponseCacheMaxEntrySize";
+    private static final long DEFAULT_RESPONSE_CACHE_MAX_ENTRY_SIZE = 256;
+    private static final String UPDATE_DELTA_THREADS = "SVNUpdateDeltaThreads";
     private static final String OFF = "off";
     private static final String ON = "on";
 
@@ -55,6 +62,10 @@ public class DAVConfig {
     private boolean myIsAutoVersioning = false;
     private boolean myIsAllowBulkUpdates = false;
     private boolean myIsAllowDepthInfinity = false;
+    private long myRepositoryPoolIdleTimeout = DEFAULT_REPOSITORY_POOL_IDLE_TIMEOUT * 1000;
+    private long myResponseCacheSize = DEFAULT_RESPONSE_CACHE_SIZE * 1024;
+    private long myResponseCacheMaxEntrySize = DEFAULT_RESPONSE_CACHE_MAX_ENTRY_SIZE * 1024;
+    private int myUpdateDeltaThreadsCount = 0;
     
     public DAVConfig(ServletConfig servletConfig) throws SVNException {
         String repositoryPath = servletConfig.getInitParameter(PATH_DIRECIVE);
@@ -120,6 +131,49 @@ public class DAVConfig {
         }
         
         myActivitiesDBPath = servletConfig.getInitParameter(ACTIVITIES_DB);
+
+        String poolIdleTimeout = servletConfig.getInitParameter(REPOSITORY_POOL_IDLE_TIMEOUT);
+        if (poolIdleTimeout != null) {
+            if (OFF.equals(poolIdleTimeout)) {
+                myRepositoryPoolIdleTimeout = 0;
+            } else {
+                try {
+                    myRepositoryPoolIdleTimeout = Math.max(0, Long.parseLong(poolIdleTimeout.trim())) * 1000;
+                } catch (NumberFormatException e) {
+                    SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_INVALID_CONFIG_VALUE, 
+                            "Invalid value ''{0}'' of the {1} directive.", new Object[] {poolIdleTimeout, REPOSITORY_POOL_IDLE_TIMEOUT}), SVNLogType.NETWORK);
+                }
+            }
+        }
+
+        myResponseCacheSize = getKilobytes(servletConfig, RESPONSE_CACHE_SIZE, myResponseCacheSize);
+        myResponseCacheMaxEntrySize = getKilobytes(servletConfig, RESPONSE_CACHE_MAX_ENTRY_SIZE, myResponseCacheMaxEntrySize);
+
+        String updateDeltaThreads = servletConfig.getInitParameter(UPDATE_DELTA_THREADS);
+        if (updateDeltaThreads != null && !OFF.equals(updateDeltaThreads)) {
+            try {
+                myUpdateDeltaThreadsCount = Math.max(0, Integer.parseInt(updateDeltaThreads.trim()));
+            } catch (NumberFormatException e) {
+                SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_INVALID_CONFIG_VALUE, 
+                        "Invalid value ''{0}'' of the {1} directive.", new Object[] {updateDeltaThreads, UPDATE_DELTA_THREADS}), SVNLogType.NETWORK);
+            }
+        }
+    }
+
+    private static long getKilobytes(ServletConfig servletConfig, String directive, long defaultValue) throws SVNException {
+        String value = servletConfig.getInitParameter(directive);
+        if (value == null) {
+            return defaultValue;
+        } else if (OFF.equals(value)) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1024;
+        } catch (NumberFormatException e) {
+            SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_INVALID_CONFIG_VALUE, 
+                    "Invalid value ''{0}'' of the {1} directive.", new Object[] {value, directive}), SVNLogType.NETWORK);
+        }
+        return defaultValue;
     }
     
     public boolean isAllowDepthInfinity() {
@@ -178,4 +232,35 @@ public class DAVConfig {
         return myIsAllowBulkUpdates;
     }
 
+    /**
+     * Returns the time in milliseconds after which an unused pooled repository is closed,
+     * <code>0</code> means that repositories are not pooled.
+     */
+    public long getRepositoryPoolIdleTimeout() {
+        return myRepositoryPoolIdleTimeout;
+    }
+
+    /**
+     * Returns the total size in bytes of responses kept in the response cache,
+     * <code>0</code> means that responses are not cached.
+     */
+    public long getResponseCacheSize() {
+        return myResponseCacheSize;
+    }
+
+    /**
+     * Returns the size in bytes of the largest response kept in the response cache.
+     */
+    public long getResponseCacheMaxEntrySize() {
+        return myResponseCacheMaxEntrySize;
+    }
+
+    /**
+     * Returns the number of threads shared by update reports to compute file contents
+     * deltas on, <code>0</code> means that deltas are computed by the request thread.
+     */
+    public int getUpdateDeltaThreadsCount() {
+        return myUpdateDeltaThreadsCount;
+    }
+
 }
@@ -15,6 +15,7 @@ import java.io.File;
 import java.security.Principal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -25,6 +26,8 @@ import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.auth.BasicAuthenticationManager;
 import org.tmatesoft.svn.core.auth.SVNAuthentication;
 import org.tmatesoft.svn.core.auth.SVNUserNameAuthentication;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepository;
 import org.tmatesoft.svn.core.internal.server.dav.handlers.DAVHandlerFactory;
 import org.tmatesoft.svn.core.internal.util.SVNEncodingUtil;
 import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
@@ -51,13 +54,33 @@ public class DAVRepositoryManager {
     private String myResourcePathInfo;
     private Principal myUserPrincipal;
     private File myRepositoryRootDir;
+    private DAVRepositoryPool myRepositoryPool;
+    private DAVResponseCache myResponseCache;
+    private Executor myDeltaExecutor;
+    private FSFS mySharedFSFS;
     
     public DAVRepositoryManager(DAVConfig config, HttpServletRequest request) throws SVNException {
+        this(config, null, request);
+    }
+
+    public DAVRepositoryManager(DAVConfig config, DAVRepositoryPool repositoryPool, HttpServletRequest request) throws SVNException {
+        this(config, repositoryPool, null, request);
+    }
+
+    public DAVRepositoryManager(DAVConfig config, DAVRepositoryPool repositoryPool, DAVResponseCache responseCache, HttpServletRequest request) throws SVNException {
+        this(config, repositoryPool, responseCache, null, request);
+    }
+
+    public DAVRepositoryManager(DAVConfig config, DAVRepositoryPool repositoryPool, DAVResponseCache responseCache, Executor deltaExecutor, 
+            HttpServletRequest request) throws SVNException {
         if (config == null) {
             SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_INVALID_CONFIG_VALUE), SVNLogType.NETWORK);
         }
 
         myDAVConfig = config;
+        myRepositoryPool = repositoryPool;
+        myResponseCache = responseCache;
+        myDeltaExecutor = deltaExecutor;
 
         myResourceRepositoryRoot = getRepositoryRoot(request.getPathInfo());
         myResourceContext = getResourceContext(request);
@@ -148,10 +171,59 @@ public class DAVRepositoryManager {
 
     }
 
+    /**
+     * Creates a repository driver for <code>url</code>. When the servlet pools
+     * repositories the driver works with the shared filesystem object of the
+     * requested repository instead of opening its own one.
+     */
+    public FSRepository createRepository(SVNURL url) throws SVNException {
+        FSRepository repository = (FSRepository) SVNRepositoryFactory.create(url);
+        repository.setSharedFSFS(getSharedFSFS());
+        return repository;
+    }
+
+    /**
+     * Returns the shared filesystem object acquired for this request back to the pool.
+     */
+    public void dispose() {
+        if (mySharedFSFS != null) {
+            myRepositoryPool.release(mySharedFSFS);
+            mySharedFSFS = null;
+        }
+    }
+
+    private FSFS getSharedFSFS() {
+        if (mySharedFSFS == null && myRepositoryPool != null) {
+            try {
+                mySharedFSFS = myRepositoryPool.acquire(myRepositoryRootDir);
+            } catch (SVNException svne) {
+                // let the repository driver report the error when it opens the filesystem itself.
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, svne);
+            }
+        }
+        return mySharedFSFS;
+    }
+
     public DAVConfig getDAVConfig() {
         return myDAVConfig;
     }
 
+    /**
+     * Returns the cache of responses for immutable resources, or <code>null</code>
+     * if responses are not cached.
+     */
+    public DAVResponseCache getResponseCache() {
+        return myResponseCache;
+    }
+
+    /**
+     * Returns the executor update reports compute file contents deltas on or 
+     * <code>null</code> if they are computed by the request thread.
+     */
+    public Executor getDeltaExecutor() {
+        return myDeltaExecutor;
+    }
+
     public String getResourceRepositoryRoot() {
         return myResourceRepositoryRoot;
     }
@@ -227,7 +299,7 @@ public class DAVRepositoryManager {
         String userName = myUserPrincipal != null ? myUserPrincipal.getName() : null;
         SVNAuthentication auth = new SVNUserNameAuthentication(userName, false, null, false);
         BasicAuthenticationManager authManager = new BasicAuthenticationManager(new SVNAuthentication[] { auth });
-        SVNRepository resourceRepository = SVNRepositoryFactory.create(SVNURL.parseURIEncoded(getResourceRepositoryRoot()));
+        SVNRepository resourceRepository = createRepository(SVNURL.parseURIEncoded(getResourceRepositoryRoot()));
         resourceRepository.setAuthenticationManager(authManager);
         DAVResource resource = new DAVResource(resourceRepository, this, resourceURI, isSVNClient, deltaBase, version, 
                 clientOptions, baseChecksum, resultChecksum, userName, activitiesDBDir, lockTokens, capabilities);
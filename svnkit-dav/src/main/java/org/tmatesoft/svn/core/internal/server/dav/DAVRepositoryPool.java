@@ -0,0 +1,182 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.server.dav;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Servlet scoped pool of opened {@link FSFS} objects, one per repository root.
+ * Requests share the pooled objects through their own <code>FSRepository</code>
+ * drivers, so everything that belongs to a request (the authenticated user, lock
+ * tokens, transactions) stays in the request's driver and resource objects.
+ *
+ * <p/>
+ * An object that was not used for longer than the idle timeout is closed. An object
+ * is also reopened when the repository format or uuid files change on disk, that is
+ * when the repository is upgraded, recreated or gets a new uuid.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class DAVRepositoryPool {
+
+    private final Map<File, PooledFSFS> myPooledFSFS = new HashMap<File, PooledFSFS>();
+    private final Map<FSFS, PooledFSFS> myAcquiredFSFS = new IdentityHashMap<FSFS, PooledFSFS>();
+    private final long myIdleTimeout;
+    private ScheduledExecutorService myTimer;
+    private boolean myIsDisposed;
+
+    /**
+     * @param idleTimeout  time in milliseconds after which an unused filesystem is closed
+     */
+    public DAVRepositoryPool(long idleTimeout) {
+        myIdleTimeout = idleTimeout;
+        long period = Math.max(1000, idleTimeout / 2);
+        myTimer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+        myTimer.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                evictIdle(System.currentTimeMillis());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns an opened filesystem of the repository at <code>repositoryRoot</code>.
+     * Every call should be paired with a {@link #release(FSFS)} call once the request
+     * that uses the filesystem is served.
+     */
+    public synchronized FSFS acquire(File repositoryRoot) throws SVNException {
+        if (myIsDisposed) {
+            return null;
+        }
+        repositoryRoot = repositoryRoot.getAbsoluteFile();
+        PooledFSFS pooled = myPooledFSFS.get(repositoryRoot);
+        if (pooled != null && pooled.isChanged()) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "repository at '" + repositoryRoot + "' changed on disk, reopening it");
+            myPooledFSFS.remove(repositoryRoot);
+            pooled.myIsEvicted = true;
+            closeIfUnused(pooled);
+            pooled = null;
+        }
+        if (pooled == null) {
+            FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            pooled = new PooledFSFS(fsfs);
+            myPooledFSFS.put(repositoryRoot, pooled);
+        }
+        pooled.myReferencesCount++;
+        pooled.myLastAccessTime = System.currentTimeMillis();
+        myAcquiredFSFS.put(pooled.myFSFS, pooled);
+        return pooled.myFSFS;
+    }
+
+    public synchronized void release(FSFS fsfs) {
+        PooledFSFS pooled = myAcquiredFSFS.get(fsfs);
+        if (pooled == null) {
+            return;
+        }
+        pooled.myReferencesCount--;
+        pooled.myLastAccessTime = System.currentTimeMillis();
+        if (pooled.myReferencesCount == 0) {
+            myAcquiredFSFS.remove(fsfs);
+            if (pooled.myIsEvicted) {
+                close(pooled);
+            }
+        }
+    }
+
+    /**
+     * Closes all pooled filesystems. Filesystems that are still in use are closed
+     * when released.
+     */
+    public synchronized void dispose() {
+        if (myIsDisposed) {
+            return;
+        }
+        myIsDisposed = true;
+        myTimer.shutdownNow();
+        myTimer = null;
+        for (Iterator<PooledFSFS> pooled = myPooledFSFS.values().iterator(); pooled.hasNext();) {
+            PooledFSFS next = pooled.next();
+            next.myIsEvicted = true;
+            closeIfUnused(next);
+        }
+        myPooledFSFS.clear();
+    }
+
+    synchronized void evictIdle(long now) {
+        for (Iterator<PooledFSFS> pooled = myPooledFSFS.values().iterator(); pooled.hasNext();) {
+            PooledFSFS next = pooled.next();
+            if (next.myReferencesCount == 0 && now - next.myLastAccessTime >= myIdleTimeout) {
+                pooled.remove();
+                next.myIsEvicted = true;
+                close(next);
+            }
+        }
+    }
+
+    private void closeIfUnused(PooledFSFS pooled) {
+        if (pooled.myReferencesCount == 0) {
+            close(pooled);
+        }
+    }
+
+    private static void close(PooledFSFS pooled) {
+        try {
+            pooled.myFSFS.close();
+        } catch (SVNException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, e);
+        }
+    }
+
+    private static class PooledFSFS {
+
+        private final FSFS myFSFS;
+        private final long myFormatLastModified;
+        private final long myUUIDLastModified;
+        private int myReferencesCount;
+        private long myLastAccessTime;
+        private boolean myIsEvicted;
+
+        public PooledFSFS(FSFS fsfs) {
+            myFSFS = fsfs;
+            myFormatLastModified = fsfs.getDBFormatFile().lastModified();
+            myUUIDLastModified = fsfs.getUUIDFile().lastModified();
+        }
+
+        public boolean isChanged() {
+            return myFSFS.getDBFormatFile().lastModified() != myFormatLastModified ||
+                    myFSFS.getUUIDFile().lastModified() != myUUIDLastModified;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "svnkit-dav-repository-pool");
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
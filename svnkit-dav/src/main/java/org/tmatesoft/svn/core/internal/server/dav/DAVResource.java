@@ -206,6 +206,15 @@ public class DAVResource {
                (type == DAVResourceType.VERSION && isBaseLined()); 
     }
     
+    /**
+     * Tells whether this resource names a fixed revision of a path, a version resource
+     * or a baseline collection member, so that its contents and properties never change.
+     */
+    public boolean isImmutable() {
+        DAVResourceKind kind = getKind();
+        return exists() && !isWorking() && ((kind == DAVResourceKind.VERSION && !isBaseLined()) || kind == DAVResourceKind.BASELINE_COLL);
+    }
+
     public boolean canBeActivity() {
         return isAutoCheckedOut() || (getType() == DAVResourceType.ACTIVITY && !exists());
     }
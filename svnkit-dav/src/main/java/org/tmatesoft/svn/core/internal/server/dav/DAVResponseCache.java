@@ -0,0 +1,104 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.server.dav;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Servlet scoped cache of response bodies for resources that never change: version
+ * resources and baseline collections, which name a fixed revision of a path.
+ * PROPFIND responses and bodies of small files are kept in least recently used order
+ * until their total size exceeds the capacity.
+ *
+ * <p/>
+ * Keys are built by the handlers from everything a response depends on: the
+ * repository, the request URI, the request method and its parameters and, when path
+ * based authorization is used, the user.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class DAVResponseCache {
+
+    private final Map<String, byte[]> myEntries = new LinkedHashMap<String, byte[]>(64, 0.75f, true);
+    private final long myCapacity;
+    private final int myMaxEntrySize;
+    private long mySize;
+    private long myHitsCount;
+    private long myMissesCount;
+
+    /**
+     * @param capacity      total size in bytes of cached bodies
+     * @param maxEntrySize  size in bytes of the largest body that is cached
+     */
+    public DAVResponseCache(long capacity, int maxEntrySize) {
+        myCapacity = capacity;
+        myMaxEntrySize = (int) Math.min(maxEntrySize, capacity);
+    }
+
+    public int getMaxEntrySize() {
+        return myMaxEntrySize;
+    }
+
+    public synchronized byte[] get(String key) {
+        byte[] body = myEntries.get(key);
+        if (body == null) {
+            myMissesCount++;
+        } else {
+            myHitsCount++;
+        }
+        return body;
+    }
+
+    public synchronized void put(String key, byte[] body) {
+        if (body.length > myMaxEntrySize) {
+            return;
+        }
+        byte[] previous = myEntries.put(key, body);
+        if (previous != null) {
+            mySize -= previous.length;
+        }
+        mySize += body.length;
+        for (Iterator<byte[]> bodies = myEntries.values().iterator(); mySize > myCapacity && bodies.hasNext();) {
+            mySize -= bodies.next().length;
+            bodies.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        myEntries.clear();
+        mySize = 0;
+    }
+
+    public synchronized long getSize() {
+        return mySize;
+    }
+
+    public synchronized int getEntriesCount() {
+        return myEntries.size();
+    }
+
+    public synchronized long getHitsCount() {
+        return myHitsCount;
+    }
+
+    public synchronized long getMissesCount() {
+        return myMissesCount;
+    }
+
+    public synchronized String toString() {
+        return "DAVResponseCache[entries=" + myEntries.size() + ", size=" + mySize + ", capacity=" + myCapacity +
+            ", hits=" + myHitsCount + ", misses=" + myMissesCount + "]";
+    }
+}
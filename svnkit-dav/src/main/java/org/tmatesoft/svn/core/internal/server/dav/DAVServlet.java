@@ -17,6 +17,10 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -109,11 +113,18 @@ public class DAVServlet extends HttpServlet {
     }
      
     private DAVConfig myDAVConfig;
+    private DAVRepositoryPool myRepositoryPool;
+    private DAVResponseCache myResponseCache;
+    private ExecutorService myDeltaExecutor;
 
     private DAVConfig getDAVConfig() {
         return myDAVConfig;
     }
 
+    DAVResponseCache getResponseCache() {
+        return myResponseCache;
+    }
+
     public void init() {
         FSRepositoryFactory.setup();
         try {
@@ -121,19 +132,60 @@ public class DAVServlet extends HttpServlet {
         } catch (SVNException e) {
             myDAVConfig = null;
         }
+        if (myDAVConfig != null && myDAVConfig.getRepositoryPoolIdleTimeout() > 0) {
+            myRepositoryPool = new DAVRepositoryPool(myDAVConfig.getRepositoryPoolIdleTimeout());
+        }
+        if (myDAVConfig != null && myDAVConfig.getResponseCacheSize() > 0 && myDAVConfig.getResponseCacheMaxEntrySize() > 0) {
+            myResponseCache = new DAVResponseCache(myDAVConfig.getResponseCacheSize(), 
+                    (int) Math.min(Integer.MAX_VALUE, myDAVConfig.getResponseCacheMaxEntrySize()));
+        }
+        if (myDAVConfig != null && myDAVConfig.getUpdateDeltaThreadsCount() > 0) {
+            myDeltaExecutor = Executors.newFixedThreadPool(myDAVConfig.getUpdateDeltaThreadsCount(), new ThreadFactory() {
+                private final AtomicInteger myThreadNumber = new AtomicInteger(1);
+
+                public Thread newThread(Runnable task) {
+                    Thread thread = new Thread(task, "svnkit-dav-delta-" + myThreadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    public void destroy() {
+        if (myRepositoryPool != null) {
+            myRepositoryPool.dispose();
+            myRepositoryPool = null;
+        }
+        if (myResponseCache != null) {
+            myResponseCache.clear();
+            myResponseCache = null;
+        }
+        if (myDeltaExecutor != null) {
+            myDeltaExecutor.shutdownNow();
+            myDeltaExecutor = null;
+        }
+        super.destroy();
     }
 
     public void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         ServletDAVHandler handler = null;
+        DAVRepositoryManager repositoryManager = null;
         logRequest(request);//TODO: remove later
         try {
-            DAVRepositoryManager repositoryManager = new DAVRepositoryManager(getDAVConfig(), request);
+            repositoryManager = new DAVRepositoryManager(getDAVConfig(), myRepositoryPool, myResponseCache, myDeltaExecutor, request);
             handler = DAVHandlerFactory.createHandler(repositoryManager, request, response);
             handler.execute();
         } catch (DAVException de) {
+            if (isCommitted(response, de)) {
+                return;
+            }
             response.setContentType(XML_CONTENT_TYPE);
             handleError(de, response);
         } catch (SVNException svne) {
+            if (isCommitted(response, svne)) {
+                return;
+            }
             StringWriter sw = new StringWriter();
             svne.printStackTrace(new PrintWriter(sw));
             String msg = sw.getBuffer().toString();
@@ -158,10 +210,22 @@ public class DAVServlet extends HttpServlet {
             String msg = sw.getBuffer().toString();
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, msg);
         } finally {
+            if (repositoryManager != null) {
+                repositoryManager.dispose();
+            }
             response.flushBuffer();
         }
     }
 
+    private static boolean isCommitted(HttpServletResponse response, SVNException error) {
+        if (response.isCommitted()) {
+            // part of the response body is sent already, the client will see it truncated.
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.NETWORK, error);
+            return true;
+        }
+        return false;
+    }
+
     private void logRequest(HttpServletRequest request) {
         StringBuffer logBuffer = new StringBuffer();
         logBuffer.append('\n');
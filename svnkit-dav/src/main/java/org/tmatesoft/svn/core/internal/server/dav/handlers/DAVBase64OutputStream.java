@@ -11,15 +11,16 @@
  */
 package org.tmatesoft.svn.core.internal.server.dav.handlers;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.Writer;
 
 import org.tmatesoft.svn.core.internal.util.SVNBase64;
 
 
 /**
+ * Encodes bytes written to it in base64 lines and writes them to the destination 
+ * stream as ASCII, without intermediate strings.
+ * 
  * @version 1.2.0
  * @author  TMate Software Ltd.
  */
@@ -27,16 +28,22 @@ public class DAVBase64OutputStream extends OutputStream {
     
     private static final int BASE64_LINE_LENGTH = 57;
     
-    private Writer myWriter;
-    private ByteArrayOutputStream myBuffer;
+    private OutputStream myDst;
+    private byte[] myLine;
+    private int myLineLength;
+    private byte[] myEncodedLine;
 
-    public DAVBase64OutputStream(Writer dst) {
-        myWriter = dst;
-        myBuffer = new ByteArrayOutputStream(100);
+    public DAVBase64OutputStream(OutputStream dst) {
+        myDst = dst;
+        myLine = new byte[BASE64_LINE_LENGTH];
+        myEncodedLine = new byte[BASE64_LINE_LENGTH / 3 * 4 + 1];
     }
 
     public void write(int b) throws IOException {
-        write(new byte[] {(byte) (b & 0xff)}, 0, 1);
+        myLine[myLineLength++] = (byte) (b & 0xff);
+        if (myLineLength == BASE64_LINE_LENGTH) {
+            flushBuffer();
+        }
     }
 
     public void write(byte[] b) throws IOException {
@@ -49,28 +56,27 @@ public class DAVBase64OutputStream extends OutputStream {
 
     public void write(byte[] b, int off, int len) throws IOException {
         while (len > 0) {
-            int needed = BASE64_LINE_LENGTH - myBuffer.size();
-            int toWrite = Math.min(needed, len);
-            myBuffer.write(b, off, toWrite);
+            int toWrite = Math.min(BASE64_LINE_LENGTH - myLineLength, len);
+            System.arraycopy(b, off, myLine, myLineLength, toWrite);
+            myLineLength += toWrite;
             off += toWrite;
             len -= toWrite;
-            if (myBuffer.size() == BASE64_LINE_LENGTH) {
+            if (myLineLength == BASE64_LINE_LENGTH) {
                 flushBuffer();
             }
         }
     }
 
     public void flush() throws IOException {
-        if (myBuffer.size() > 0) {
+        if (myLineLength > 0) {
             flushBuffer();
         }
     }
     
     private void flushBuffer() throws IOException {
-        myWriter.write(SVNBase64.byteArrayToBase64(myBuffer.toByteArray()) + "\n");
-        myBuffer.reset();
+        int length = SVNBase64.byteArrayToBase64(myLine, 0, myLineLength, myEncodedLine, 0);
+        myEncodedLine[length++] = '\n';
+        myDst.write(myEncodedLine, 0, length);
+        myLineLength = 0;
     }
-    
-    
-
 }
@@ -11,10 +11,10 @@
  */
 package org.tmatesoft.svn.core.internal.server.dav.handlers;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.Date;
-import java.util.Enumeration;
 import java.util.Iterator;
 
 import javax.servlet.http.HttpServletRequest;
@@ -29,6 +29,7 @@ import org.tmatesoft.svn.core.internal.server.dav.DAVPathUtil;
 import org.tmatesoft.svn.core.internal.server.dav.DAVRepositoryManager;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResource;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceType;
+import org.tmatesoft.svn.core.internal.server.dav.DAVResponseCache;
 import org.tmatesoft.svn.core.internal.util.SVNDate;
 import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
@@ -60,11 +61,16 @@ public class DAVGetHandler extends ServletDAVHandler {
         setDefaultResponseHeaders();
         setResponseHeaders(resource);
 
+        int status = 0;
         try {
-            checkPreconditions(resource.getETag(), resource.getLastModified());
+            status = checkPreconditions(resource.getETag(), resource.getLastModified());
         } catch (SVNException e) {
             //Nothing to do, there are no enough conditions
         }
+        if (status == HttpServletResponse.SC_NOT_MODIFIED || status == HttpServletResponse.SC_PRECONDITION_FAILED) {
+            setResponseStatus(status);
+            return;
+        }
 
         if (resource.isCollection()) {
             StringBuffer body = new StringBuffer();
@@ -85,7 +91,7 @@ public class DAVGetHandler extends ServletDAVHandler {
         } else if (resource.getDeltaBase() != null) {
             //Here we should send SVN delta (for old clients)
         } else {
-            resource.writeTo(getResponseOutputStream());
+            writeFile(resource);
         }
     }
 
@@ -93,32 +99,27 @@ public class DAVGetHandler extends ServletDAVHandler {
         return null;
     }
 
-    protected int checkPreconditions(String eTag, Date lastModified) {
-        super.checkPreconditions(eTag, lastModified);
-        lastModified = lastModified == null ? new Date() : lastModified;
-        boolean isNotModified = false;
-        Enumeration ifNoneMatch = getRequestHeaders(IF_NONE_MATCH_HEADER);
-        if (ifNoneMatch != null && ifNoneMatch.hasMoreElements()) {
-            if (eTag != null) {
-                if (getRequestHeaders(RANGE_HEADER) != null && getRequestHeaders(RANGE_HEADER).hasMoreElements()) {
-                    isNotModified = !eTag.startsWith("W") && containsValue(ifNoneMatch, eTag, "*");
-                } else {
-                    isNotModified = containsValue(ifNoneMatch, eTag, "*");
-                }
-            }
+    private void writeFile(DAVResource resource) throws SVNException {
+        DAVResponseCache cache = getResponseCache(resource);
+        if (cache == null || resource.getContentLength(null) > cache.getMaxEntrySize()) {
+            resource.writeTo(getResponseOutputStream());
+            return;
         }
-        long ifModified = getRequestDateHeader(IF_MODIFIED_SINCE_HEADER);
-        long date = getRequestDateHeader(DATE_HEADER);
-        if ((isNotModified || ifNoneMatch == null || !ifNoneMatch.hasMoreElements()) && ifModified != -1 && date != -1) {
-            isNotModified = ifModified >= lastModified.getTime() && ifModified <= date;
+
+        String key = getResponseCacheKey(resource, "");
+        byte[] contents = cache.get(key);
+        if (contents == null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            resource.writeTo(buffer);
+            contents = buffer.toByteArray();
+            cache.put(key, contents);
         }
-        if (isNotModified) {
-            // TODO status HTTP_NOT_MODIFIED
-        } else {
-            //TODO status OK
+        setResponseContentLength(contents.length);
+        try {
+            getResponseOutputStream().write(contents);
+        } catch (IOException e) {
+            SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_REQUEST_FAILED, e), e, SVNLogType.NETWORK);
         }
-        
-        return 0;//TODO
     }
 
     private void setResponseHeaders(DAVResource resource) {
@@ -141,6 +142,9 @@ public class DAVGetHandler extends ServletDAVHandler {
         if (eTag != null) {
             setResponseHeader(ETAG_HEADER, eTag);
         }
+        if (resource.isImmutable()) {
+            setResponseHeader(CACHE_CONTROL_HEADER, CACHE_CONTROL_IMMUTABLE_VALUE);
+        }
     }
 
     private void generateResponseBody(DAVResource resource, StringBuffer buffer) throws SVNException {
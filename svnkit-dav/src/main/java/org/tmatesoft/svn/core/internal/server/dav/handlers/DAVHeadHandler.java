@@ -45,6 +45,20 @@ public class DAVHeadHandler extends ServletDAVHandler {
         if (eTag != null) {
             setResponseHeader(ETAG_HEADER, eTag);
         }
+        if (resource.isImmutable()) {
+            setResponseHeader(CACHE_CONTROL_HEADER, CACHE_CONTROL_IMMUTABLE_VALUE);
+        }
+
+        int status = 0;
+        try {
+            status = checkPreconditions(eTag, resource.getLastModified());
+        } catch (SVNException e) {
+            //Nothing to do, there are no enough conditions
+        }
+        if (status == HttpServletResponse.SC_NOT_MODIFIED || status == HttpServletResponse.SC_PRECONDITION_FAILED) {
+            setResponseStatus(status);
+            return;
+        }
         setResponseStatus(HttpServletResponse.SC_NO_CONTENT);
     }
 
@@ -101,7 +101,7 @@ public class DAVLogHandler extends DAVReportHandler implements ISVNLogEntryHandl
             decreaseDepth();
         }
 
-        StringBuffer xmlBuffer = new StringBuffer();
+        StringBuffer xmlBuffer = getXMLBuffer();
         SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "log-item", SVNXMLUtil.XML_STYLE_NORMAL, null, xmlBuffer);
         SVNXMLUtil.openCDataTag(SVNXMLUtil.DAV_NAMESPACE_PREFIX, DAVElement.VERSION_NAME.getName(), String.valueOf(logEntry.getRevision()), xmlBuffer);
 
@@ -147,12 +147,12 @@ public class DAVLogHandler extends DAVReportHandler implements ISVNLogEntryHandl
             }
         }
 
-        xmlBuffer = SVNXMLUtil.closeXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "log-item", null);
+        xmlBuffer = SVNXMLUtil.closeXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "log-item", getXMLBuffer());
         write(xmlBuffer);
     }
 
     private void addChangedPathTag(String path, SVNLogEntryPath logEntryPath) throws SVNException {
-        StringBuffer xmlBuffer = new StringBuffer();
+        StringBuffer xmlBuffer = getXMLBuffer();
         switch (logEntryPath.getType()) {
             case SVNLogEntryPath.TYPE_ADDED:
                 if (logEntryPath.getCopyPath() != null && SVNRevision.isValidRevisionNumber(logEntryPath.getCopyRevision())) {
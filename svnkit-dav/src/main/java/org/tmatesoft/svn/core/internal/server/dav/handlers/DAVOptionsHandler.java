@@ -189,6 +189,8 @@ public class DAVOptionsHandler extends ServletDAVHandler {
         addResponseHeader(DAV_HEADER, DAVElement.LOG_REVPROPS_OPTION);
         addResponseHeader(DAV_HEADER, DAVElement.PARTIAL_REPLAY_OPTION);
         addResponseHeader(DAV_HEADER, DAVElement.MERGE_INFO_OPTION);
+        addResponseHeader(DAV_HEADER, DAVElement.SVNDIFF1_OPTION);
+        addResponseHeader(DAV_HEADER, DAVElement.SVNDIFF2_OPTION);
         setResponseHeader(MS_AUTHOR_VIA_HEADER, DAV_HEADER);
         setResponseHeader(ALLOW_HEADER, generateAllowHeaderValue(supportedMethods));
     }
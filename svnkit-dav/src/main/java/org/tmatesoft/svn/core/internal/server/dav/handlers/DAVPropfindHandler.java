@@ -43,6 +43,7 @@ import org.tmatesoft.svn.core.internal.server.dav.DAVResourceKind;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceState;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceType;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceURI;
+import org.tmatesoft.svn.core.internal.server.dav.DAVResponseCache;
 import org.tmatesoft.svn.core.internal.server.dav.DAVServlet;
 import org.tmatesoft.svn.core.internal.server.dav.DAVServletUtil;
 import org.tmatesoft.svn.core.internal.server.dav.DAVXMLUtil;
@@ -141,6 +142,24 @@ public class DAVPropfindHandler extends ServletDAVHandler implements IDAVResourc
                     "The lock database could not be opened, preventing access to the various lock properties for the PROPFIND.", null);
         }
     
+        DAVResponseCache cache = myIsProp ? getResponseCache(resource) : null;
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = getCacheKey(resource, depth, rootElement);
+            byte[] cachedBody = cacheKey != null ? cache.get(cacheKey) : null;
+            if (cachedBody != null) {
+                setResponseContentType(DAVServlet.XML_CONTENT_TYPE);
+                setResponseStatus(SC_MULTISTATUS);
+                setResponseContentLength(cachedBody.length);
+                try {
+                    getResponseOutputStream().write(cachedBody);
+                } catch (IOException e) {
+                    SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_REQUEST_FAILED, e), e, SVNLogType.NETWORK);
+                }
+                return;
+            }
+        }
+
         myResponseBuffer = new StringBuffer();
         DAVXMLUtil.beginMultiStatus(getHttpServletResponse(), SC_MULTISTATUS, getNamespaces(), myResponseBuffer);
         
@@ -162,7 +181,11 @@ public class DAVPropfindHandler extends ServletDAVHandler implements IDAVResourc
         String responseBody = myResponseBuffer.toString();
 
         try {
-            setResponseContentLength(responseBody.getBytes(UTF8_ENCODING).length);
+            byte[] body = responseBody.getBytes(UTF8_ENCODING);
+            setResponseContentLength(body.length);
+            if (cacheKey != null) {
+                cache.put(cacheKey, body);
+            }
         } catch (UnsupportedEncodingException e) {
             setResponseContentLength(responseBody.getBytes().length);
         }
@@ -175,6 +198,29 @@ public class DAVPropfindHandler extends ServletDAVHandler implements IDAVResourc
         }
     }
 
+    private String getCacheKey(DAVResource resource, DAVDepth depth, DAVElementProperty rootElement) throws SVNException {
+        StringBuffer parameters = new StringBuffer();
+        parameters.append(depth);
+        parameters.append('\n');
+        parameters.append(getNamespaces());
+        DAVElementProperty propElement = rootElement.getChild(DAVElement.PROP);
+        List props = propElement != null ? propElement.getChildren() : null;
+        if (props == null) {
+            return null;
+        }
+        for (Iterator propsIter = props.iterator(); propsIter.hasNext();) {
+            DAVElement propName = ((DAVElementProperty) propsIter.next()).getName();
+            if (propName == DAVElement.LOCK_DISCOVERY || propName == DAVElement.SUPPORTED_LOCK) {
+                // locks belong to the youngest revision of a path.
+                return null;
+            }
+            parameters.append('\n');
+            parameters.append(propName.getNamespace());
+            parameters.append(propName.getName());
+        }
+        return getResponseCacheKey(resource, parameters.toString());
+    }
+
     public DAVResponse handleResource(DAVResponse response, DAVResource resource, DAVLockInfoProvider lockInfoProvider, LinkedList ifHeaders, 
             int flags, DAVLockScope lockScope, CallType callType) throws DAVException {
         DAVPropertiesProvider propsProvider = null;
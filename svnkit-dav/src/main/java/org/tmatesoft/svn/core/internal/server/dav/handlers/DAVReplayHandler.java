@@ -27,7 +27,6 @@ import org.tmatesoft.svn.core.internal.util.SVNHashMap;
 import org.tmatesoft.svn.core.internal.util.SVNXMLUtil;
 import org.tmatesoft.svn.core.io.ISVNEditor;
 import org.tmatesoft.svn.core.io.SVNRepository;
-import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
 
 /**
@@ -77,7 +76,7 @@ public class DAVReplayHandler extends DAVReportHandler implements ISVNEditor {
         }
         SVNURL resourceURL = getDAVResource().getRepository().getLocation();
         SVNURL resultURL = resourceURL.appendPath(getDAVResource().getResourceURI().getPath(), true);
-        return SVNRepositoryFactory.create(resultURL);
+        return getRepositoryManager().createRepository(resultURL);
     }
 
     public void targetRevision(long revision) throws SVNException {
@@ -151,7 +150,7 @@ public class DAVReplayHandler extends DAVReportHandler implements ISVNEditor {
         if (baseChecksum != null) {
             attrs.put(CHECKSUM_ATTR, baseChecksum);
         }
-        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "apply-textdelta", SVNXMLUtil.XML_STYLE_PROTECT_CDATA, attrs, null);
+        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "apply-textdelta", SVNXMLUtil.XML_STYLE_PROTECT_CDATA, attrs, getXMLBuffer());
         write(xmlBuffer);
     }
 
@@ -163,7 +162,7 @@ public class DAVReplayHandler extends DAVReportHandler implements ISVNEditor {
     public void textDeltaEnd(String path) throws SVNException {
         textDeltaChunkEnd();
         setWriteTextDeltaHeader(true);
-        StringBuffer xmlBuffer = SVNXMLUtil.closeXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "apply-textdelta", null);
+        StringBuffer xmlBuffer = SVNXMLUtil.closeXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "apply-textdelta", getXMLBuffer());
         write(xmlBuffer);
     }
 
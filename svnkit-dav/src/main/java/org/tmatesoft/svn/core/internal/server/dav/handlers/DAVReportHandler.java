@@ -76,6 +76,8 @@ public class DAVReportHandler extends ServletDAVHandler {
     private DAVReportHandler myReportHandler;
     private DAVResource myDAVResource;
     private OutputStream myDiffWindowWriter;
+    private DAVXMLOutputStream myXMLOutput;
+    private StringBuffer myXMLBuffer;
 
     private boolean myWriteTextDeltaHeader = true;
     private boolean mySVNDiffVersion = false;
@@ -174,7 +176,37 @@ public class DAVReportHandler extends ServletDAVHandler {
         setResponseContentType(DEFAULT_XML_CONTENT_TYPE);
         setResponseStatus(HttpServletResponse.SC_OK);
 
+        myXMLOutput = new DAVXMLOutputStream(myResponse);
+        getReportHandler().setXMLOutput(myXMLOutput);
         getReportHandler().execute();
+        try {
+            myXMLOutput.flush();
+        } catch (IOException e) {
+            SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_REQUEST_FAILED, e), e, SVNLogType.NETWORK);
+        }
+    }
+
+    private DAVXMLOutputStream getXMLOutput() {
+        if (myXMLOutput == null) {
+            myXMLOutput = new DAVXMLOutputStream(myResponse);
+        }
+        return myXMLOutput;
+    }
+
+    private void setXMLOutput(DAVXMLOutputStream xmlOutput) {
+        myXMLOutput = xmlOutput;
+    }
+
+    /**
+     * Returns an empty buffer for the next XML fragment, the buffer is reused once 
+     * the fragment is written.
+     */
+    protected StringBuffer getXMLBuffer() {
+        if (myXMLBuffer == null) {
+            myXMLBuffer = new StringBuffer();
+        }
+        myXMLBuffer.setLength(0);
+        return myXMLBuffer;
     }
 
     private void initReportHandler(DAVElement rootElement) {
@@ -206,25 +238,29 @@ public class DAVReportHandler extends ServletDAVHandler {
     }
 
     protected void write(String string) throws SVNException {
+        write((CharSequence) string);
+    }
+
+    protected void write(StringBuffer stringBuffer) throws SVNException {
+        write((CharSequence) stringBuffer);
+    }
+
+    private void write(CharSequence chars) throws SVNException {
         try {
-            getResponseWriter().write(string);
+            getXMLOutput().write(chars);
         } catch (IOException e) {
             SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_DAV_REQUEST_FAILED, e), e, SVNLogType.NETWORK);
         }
     }
 
-    protected void write(StringBuffer stringBuffer) throws SVNException {
-        write(stringBuffer.toString());
-    }
-
     protected void writeXMLHeader(String tagName) throws SVNException {
-        StringBuffer xmlBuffer = new StringBuffer();
+        StringBuffer xmlBuffer = getXMLBuffer();
         addXMLHeader(xmlBuffer, tagName);
         write(xmlBuffer);
     }
 
     protected void writeXMLFooter(String tagName) throws SVNException {
-        StringBuffer xmlBuffer = new StringBuffer();
+        StringBuffer xmlBuffer = getXMLBuffer();
         addXMLFooter(xmlBuffer, tagName);
         write(xmlBuffer);
     }
@@ -245,7 +281,7 @@ public class DAVReportHandler extends ServletDAVHandler {
 
     protected void writeTextDeltaChunk(SVNDiffWindow diffWindow) throws SVNException {
         if (myDiffWindowWriter == null) {
-            myDiffWindowWriter = new DAVBase64OutputStream(getResponseWriter());
+            myDiffWindowWriter = new DAVBase64OutputStream(getXMLOutput());
         }
         try {
             diffWindow.writeTo(myDiffWindowWriter, isWriteTextDeltaHeader(), doCompress());
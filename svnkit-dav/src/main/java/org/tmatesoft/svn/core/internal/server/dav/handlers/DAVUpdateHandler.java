@@ -50,7 +50,6 @@ import org.tmatesoft.svn.core.internal.util.SVNXMLUtil;
 import org.tmatesoft.svn.core.internal.wc.SVNAdminDeltifier;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
 import org.tmatesoft.svn.core.io.ISVNEditor;
-import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
 import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.util.SVNLogType;
@@ -309,7 +308,8 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
             myRevisionRoot = fsfs.createRevisionRoot(targetRevision);
 
             SVNURL repositoryURL = (srcURL != null) ? getRepositoryManager().convertHttpToFile(srcURL) : getRepositoryManager().convertHttpToFile(getUpdateRequest().getSrcPath());
-            FSRepository repository = (FSRepository) SVNRepositoryFactory.create(repositoryURL);
+            FSRepository repository = getRepositoryManager().createRepository(repositoryURL);
+            repository.setDeltaExecutor(getRepositoryManager().getDeltaExecutor());
 
             FSTranslateReporter reporter = repository.beginReport(getRevision(),
                     getDstURL(),
@@ -476,12 +476,12 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
     public void openRoot(long revision) throws SVNException {
         EditorEntry entry = new EditorEntry(false);
         getEditorEntries().push(entry);
-        StringBuffer xmlBuffer = null;
+        StringBuffer xmlBuffer = getXMLBuffer();
 
         if (isResourceWalk()) {
             xmlBuffer = openResourceTag("", xmlBuffer);
         } else {
-            xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "open-directory", SVNXMLUtil.XML_STYLE_NORMAL, REVISION_ATTR, String.valueOf(revision), null);
+            SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "open-directory", SVNXMLUtil.XML_STYLE_NORMAL, REVISION_ATTR, String.valueOf(revision), xmlBuffer);
         }
         if (getUpdateRequest().getTarget().length() == 0) {
             addVersionURL(getRealPath(""), xmlBuffer);
@@ -550,7 +550,7 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
 
     public void closeFile(String path, String textChecksum) throws SVNException {
         if (!getUpdateRequest().isSendAll() && !getFileEditorEntry().isAdded() && isFileTextChanged()) {
-            StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "fetch-file", SVNXMLUtil.XML_STYLE_SELF_CLOSING, BASE_CHECKSUM_ATTR, getFileBaseChecksum(), null);
+            StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "fetch-file", SVNXMLUtil.XML_STYLE_SELF_CLOSING, BASE_CHECKSUM_ATTR, getFileBaseChecksum(), getXMLBuffer());
             write(xmlBuffer);
         }
 
@@ -573,7 +573,7 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
         if (isResourceWalk()) {
             return;
         }
-        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "txdelta", SVNXMLUtil.XML_STYLE_NORMAL, null, null);
+        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "txdelta", SVNXMLUtil.XML_STYLE_NORMAL, null, getXMLBuffer());
         write(xmlBuffer);
     }
 
@@ -588,7 +588,7 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
         if (!isResourceWalk()) {
             textDeltaChunkEnd();
             setWriteTextDeltaHeader(true);
-            StringBuffer xmlBuffer = SVNXMLUtil.closeXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "txdelta", null);
+            StringBuffer xmlBuffer = SVNXMLUtil.closeXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, "txdelta", getXMLBuffer());
             write(xmlBuffer);
         }
     }
@@ -603,7 +603,7 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
 
     private void writeEntryTag(String tagName, String path) throws SVNException {
         String directoryName = SVNPathUtil.tail(path);
-        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, tagName, SVNXMLUtil.XML_STYLE_SELF_CLOSING, NAME_ATTR, directoryName, null);
+        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, tagName, SVNXMLUtil.XML_STYLE_SELF_CLOSING, NAME_ATTR, directoryName, getXMLBuffer());
         write(xmlBuffer);
     }
 
@@ -611,18 +611,18 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
         Map attrs = new SVNHashMap();
         attrs.put(NAME_ATTR, SVNPathUtil.tail(path));
         attrs.put(REVISION_ATTR, String.valueOf(revision));
-        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, tagName, SVNXMLUtil.XML_STYLE_NORMAL, attrs, null);
+        StringBuffer xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, tagName, SVNXMLUtil.XML_STYLE_NORMAL, attrs, getXMLBuffer());
         addVersionURL(getRealPath(path), xmlBuffer);
         write(xmlBuffer);
     }
 
     private void writeAddEntryTag(boolean isDirectory, String path, String copyFromPath, long copyFromRevision) throws SVNException {
-        StringBuffer xmlBuffer = null;
+        StringBuffer xmlBuffer = getXMLBuffer();
         String realPath = getRealPath(path);
         if (isResourceWalk()) {
             String resourcePath = getUpdateRequest().getTarget() == null || getUpdateRequest().getTarget().length() == 0 ?
                     path : SVNPathUtil.append(getUpdateRequest().getTarget(), SVNPathUtil.removeHead(path));
-            xmlBuffer = openResourceTag(resourcePath, xmlBuffer);
+            openResourceTag(resourcePath, xmlBuffer);
         } else {
             Map attrs = new SVNHashMap();
             attrs.put(NAME_ATTR, SVNPathUtil.tail(path));
@@ -636,7 +636,7 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
                 attrs.put(COPYFROM_REVISION_ATTR, String.valueOf(copyFromRevision));
             }
             String tagName = isDirectory ? "add-directory" : "add-file";
-            xmlBuffer = SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, tagName, SVNXMLUtil.XML_STYLE_NORMAL, attrs, null);
+            SVNXMLUtil.openXMLTag(SVNXMLUtil.SVN_NAMESPACE_PREFIX, tagName, SVNXMLUtil.XML_STYLE_NORMAL, attrs, xmlBuffer);
         }
         addVersionURL(realPath, xmlBuffer);
         if (isResourceWalk()) {
@@ -681,7 +681,7 @@ public class DAVUpdateHandler extends DAVReportHandler implements ISVNEditor {
         if (isResourceWalk()) {
             return;
         }
-        StringBuffer xmlBuffer = new StringBuffer();
+        StringBuffer xmlBuffer = getXMLBuffer();
         if (!entry.removedPropertiesCollectionIsEmpty() && !entry.isAdded()) {
             for (Iterator iterator = entry.getRemovedProperies(); iterator.hasNext();) {
                 String name = (String) iterator.next();
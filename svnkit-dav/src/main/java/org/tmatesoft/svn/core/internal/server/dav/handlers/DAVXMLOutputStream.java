@@ -0,0 +1,155 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.server.dav.handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.ServletResponse;
+
+/**
+ * Byte oriented output of REPORT responses. XML fragments are encoded in UTF-8 
+ * straight into a chunk buffer and base64 delta windows are written into the same 
+ * buffer, a chunk is written to the servlet stream only when it is full. A slow client 
+ * thus blocks the report producer on a chunk write instead of letting output pile up 
+ * in memory.
+ * 
+ * <p/>
+ * The servlet stream is obtained on the first chunk write, so a report that fails 
+ * before that still may send an error response.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class DAVXMLOutputStream extends OutputStream {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private ServletResponse myResponse;
+    private OutputStream myOutputStream;
+    private byte[] myBuffer;
+    private int myLength;
+    private char[] myChars;
+
+    public DAVXMLOutputStream(ServletResponse response) {
+        this(response, DEFAULT_CHUNK_SIZE);
+    }
+
+    public DAVXMLOutputStream(ServletResponse response, int chunkSize) {
+        myResponse = response;
+        myBuffer = new byte[Math.max(chunkSize, 1024)];
+        myChars = new char[512];
+    }
+
+    public void write(int b) throws IOException {
+        if (myLength == myBuffer.length) {
+            flushBuffer();
+        }
+        myBuffer[myLength++] = (byte) b;
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len >= myBuffer.length) {
+            flushBuffer();
+            getOutputStream().write(b, off, len);
+            return;
+        }
+        if (myLength + len > myBuffer.length) {
+            flushBuffer();
+        }
+        System.arraycopy(b, off, myBuffer, myLength, len);
+        myLength += len;
+    }
+
+    public void write(CharSequence chars) throws IOException {
+        int length = chars.length();
+        for (int offset = 0; offset < length;) {
+            int count = Math.min(myChars.length, length - offset);
+            if (count < length - offset && Character.isHighSurrogate(chars.charAt(offset + count - 1))) {
+                // keep surrogate pairs in one piece.
+                count--;
+            }
+            getChars(chars, offset, offset + count, myChars);
+            encode(myChars, count);
+            offset += count;
+        }
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        if (myOutputStream != null) {
+            myOutputStream.flush();
+        }
+    }
+
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void encode(char[] chars, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (myBuffer.length - myLength < 4) {
+                flushBuffer();
+            }
+            char ch = chars[i];
+            if (ch < 0x80) {
+                myBuffer[myLength++] = (byte) ch;
+            } else if (ch < 0x800) {
+                myBuffer[myLength++] = (byte) (0xc0 | (ch >> 6));
+                myBuffer[myLength++] = (byte) (0x80 | (ch & 0x3f));
+            } else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(ch) && i + 1 < count && Character.isLowSurrogate(chars[i + 1])) {
+                    int codePoint = Character.toCodePoint(ch, chars[++i]);
+                    myBuffer[myLength++] = (byte) (0xf0 | (codePoint >> 18));
+                    myBuffer[myLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    myBuffer[myLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    myBuffer[myLength++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else {
+                    // same replacement String.getBytes() uses for a broken pair.
+                    myBuffer[myLength++] = '?';
+                }
+            } else {
+                myBuffer[myLength++] = (byte) (0xe0 | (ch >> 12));
+                myBuffer[myLength++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                myBuffer[myLength++] = (byte) (0x80 | (ch & 0x3f));
+            }
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (myLength > 0) {
+            getOutputStream().write(myBuffer, 0, myLength);
+            myLength = 0;
+        }
+    }
+
+    private OutputStream getOutputStream() throws IOException {
+        if (myOutputStream == null) {
+            myOutputStream = myResponse.getOutputStream();
+        }
+        return myOutputStream;
+    }
+
+    private static void getChars(CharSequence chars, int start, int end, char[] dst) {
+        if (chars instanceof String) {
+            ((String) chars).getChars(start, end, dst, 0);
+        } else if (chars instanceof StringBuffer) {
+            ((StringBuffer) chars).getChars(start, end, dst, 0);
+        } else if (chars instanceof StringBuilder) {
+            ((StringBuilder) chars).getChars(start, end, dst, 0);
+        } else {
+            for (int i = start; i < end; i++) {
+                dst[i - start] = chars.charAt(i);
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
@@ -75,6 +76,7 @@ import org.tmatesoft.svn.core.internal.server.dav.DAVResourceKind;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceState;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceType;
 import org.tmatesoft.svn.core.internal.server.dav.DAVResourceURI;
+import org.tmatesoft.svn.core.internal.server.dav.DAVResponseCache;
 import org.tmatesoft.svn.core.internal.server.dav.DAVServlet;
 import org.tmatesoft.svn.core.internal.server.dav.DAVServletUtil;
 import org.tmatesoft.svn.core.internal.server.dav.DAVURIInfo;
@@ -166,6 +168,7 @@ public abstract class ServletDAVHandler extends BasicDAVHandler {
     protected static final String KEEP_ALIVE_HEADER = "Keep-Alive";
     protected static final String ACCEPT_RANGES_HEADER = "Accept-Ranges";
     protected static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    protected static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
     protected static final String CACHE_CONTROL_HEADER = "Cache-Control";
     
     //Common xml attributes
@@ -179,6 +182,7 @@ public abstract class ServletDAVHandler extends BasicDAVHandler {
 
     protected static final String ACCEPT_RANGES_DEFAULT_VALUE = "bytes";    
     protected static final String CACHE_CONTROL_VALUE = "no-cache";
+    protected static final String CACHE_CONTROL_IMMUTABLE_VALUE = "max-age=604800";
     
     private static final Pattern COMMA = Pattern.compile(",");
 
@@ -266,6 +270,35 @@ public abstract class ServletDAVHandler extends BasicDAVHandler {
         return myRepositoryManager.getDAVConfig();
     }
 
+    /**
+     * Returns the response cache if responses for <code>resource</code> may be cached.
+     */
+    protected DAVResponseCache getResponseCache(DAVResource resource) {
+        DAVResponseCache cache = myRepositoryManager.getResponseCache();
+        return cache != null && resource.isImmutable() ? cache : null;
+    }
+
+    /**
+     * Returns the key of a response for <code>resource</code> to this request, 
+     * <code>parameters</code> describes what else the response depends on.
+     */
+    protected String getResponseCacheKey(DAVResource resource, String parameters) throws SVNException {
+        StringBuffer key = new StringBuffer();
+        key.append(getRequestMethod());
+        key.append('\n');
+        key.append(resource.getRepositoryUUID(false));
+        key.append('\n');
+        key.append(myRequest.getRequestURI());
+        key.append('\n');
+        key.append(parameters);
+        if (getConfig().isUsingPBA()) {
+            // responses list only what the user may read.
+            key.append('\n');
+            key.append(resource.getUserName());
+        }
+        return key.toString();
+    }
+
     public abstract void execute() throws SVNException;
 
     protected abstract DAVRequest getDAVRequest();
@@ -1383,6 +1416,9 @@ public abstract class ServletDAVHandler extends BasicDAVHandler {
     
     protected InputStream getRequestInputStream() throws SVNException {
         try {
+            if ("gzip".equalsIgnoreCase(myRequest.getHeader(CONTENT_ENCODING_HEADER))) {
+                return new GZIPInputStream(myRequest.getInputStream());
+            }
             return myRequest.getInputStream();
         } catch (IOException e) {
             SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e), e, SVNLogType.NETWORK);
@@ -1618,27 +1654,25 @@ public abstract class ServletDAVHandler extends BasicDAVHandler {
         }
 
         boolean notModified = false;
+        boolean isReadMethod = DAVHandlerFactory.METHOD_GET.equals(getRequestMethod()) || DAVHandlerFactory.METHOD_HEAD.equals(getRequestMethod());
         Enumeration ifNoneMatch = getRequestHeaders(IF_NONE_MATCH_HEADER);
-        if (ifNoneMatch != null && ifNoneMatch.hasMoreElements()) {
-            String first = (String) ifNoneMatch.nextElement();
-            if (DAVHandlerFactory.METHOD_GET.equals(getRequestMethod())) {
-                if (first.startsWith("*")) {
-                    notModified = true;
-                } else if (eTag != null) {
-                    if (getRequestHeader(RANGE_HEADER) != null) {
-                        notModified = !eTag.startsWith("W") && containsValue(ifNoneMatch, eTag, null); 
-                    } else {
-                        notModified = containsValue(ifNoneMatch, eTag, null);
-                    }
-                }
-            } else if (first.startsWith("*") || (eTag != null && containsValue(ifNoneMatch, eTag, null))) {
+        boolean hasIfNoneMatch = ifNoneMatch != null && ifNoneMatch.hasMoreElements();
+        if (hasIfNoneMatch) {
+            boolean matches = false;
+            while (ifNoneMatch.hasMoreElements() && !matches) {
+                matches = containsETag((String) ifNoneMatch.nextElement(), eTag);
+            }
+            if (isReadMethod) {
+                // a range may only be served from a strong entity tag match.
+                notModified = matches && (eTag == null || !eTag.startsWith("W") || getRequestHeader(RANGE_HEADER) == null);
+            } else if (matches) {
                 return HttpServletResponse.SC_PRECONDITION_FAILED;
             }
         }
         
         long ifModifiedSince = getRequestDateHeader(IF_MODIFIED_SINCE_HEADER);
-        if (DAVHandlerFactory.METHOD_GET.equals(getRequestMethod()) && (notModified || ifNoneMatch == null) && ifModifiedSince != -1) {
-            long requestTime = myRequest.getSession().getLastAccessedTime();
+        if (isReadMethod && !hasIfNoneMatch && ifModifiedSince != -1) {
+            long requestTime = System.currentTimeMillis();
             notModified = ifModifiedSince >= lastModifiedTime && ifModifiedSince <= requestTime;
         }
         
@@ -1649,6 +1683,25 @@ public abstract class ServletDAVHandler extends BasicDAVHandler {
         return 0; 
     }
 
+    private static boolean containsETag(String headerValue, String eTag) {
+        // a header may list several entity tags, a quoted tag may contain commas.
+        boolean isQuoted = false;
+        int start = 0;
+        for (int i = 0; i <= headerValue.length(); i++) {
+            char ch = i < headerValue.length() ? headerValue.charAt(i) : ',';
+            if (ch == '"') {
+                isQuoted = !isQuoted;
+            } else if (ch == ',' && (!isQuoted || i == headerValue.length())) {
+                String tag = headerValue.substring(start, i).trim();
+                if ("*".equals(tag) || tag.equals(eTag)) {
+                    return true;
+                }
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
     protected boolean containsValue(Enumeration values, String stringToFind, String matchAllString) {
         boolean contains = false;
         if (values != null) {
@@ -0,0 +1,164 @@
+package org.tmatesoft.svn.core.internal.server.dav;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepository;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class DAVRepositoryPoolTest {
+
+    private static final long IDLE_TIMEOUT = 60 * 1000;
+
+    private File myTempDirectory;
+    private File myRepositoryRoot;
+    private SVNURL myRepositoryUrl;
+    private DAVRepositoryPool myPool;
+
+    @Before
+    public void setUp() throws Exception {
+        FSRepositoryFactory.setup();
+        myTempDirectory = createTempDirectory();
+        myRepositoryRoot = new File(myTempDirectory, "svn.repo");
+        myRepositoryUrl = SVNRepositoryFactory.createLocalRepository(myRepositoryRoot, true, false);
+        myPool = new DAVRepositoryPool(IDLE_TIMEOUT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        myPool.dispose();
+        SVNFileUtil.deleteAll(myTempDirectory, true);
+    }
+
+    @Test
+    public void testFSFSIsSharedUntilLastRelease() throws Exception {
+        final FSFS first = myPool.acquire(myRepositoryRoot);
+        final FSFS second = myPool.acquire(myRepositoryRoot);
+        Assert.assertSame(first, second);
+
+        myPool.release(first);
+        myPool.evictIdle(System.currentTimeMillis() + 2 * IDLE_TIMEOUT);
+        Assert.assertSame(first, myPool.acquire(myRepositoryRoot));
+        Assert.assertEquals(0, first.getYoungestRevision());
+
+        myPool.release(first);
+        myPool.release(first);
+        myPool.evictIdle(System.currentTimeMillis() + 2 * IDLE_TIMEOUT);
+
+        final FSFS reopened = myPool.acquire(myRepositoryRoot);
+        Assert.assertNotSame(first, reopened);
+        myPool.release(reopened);
+    }
+
+    @Test
+    public void testIdleFSFSIsClosedAfterTimeout() throws Exception {
+        final FSFS fsfs = myPool.acquire(myRepositoryRoot);
+        myPool.release(fsfs);
+
+        myPool.evictIdle(System.currentTimeMillis());
+        Assert.assertSame(fsfs, myPool.acquire(myRepositoryRoot));
+        myPool.release(fsfs);
+
+        myPool.evictIdle(System.currentTimeMillis() + IDLE_TIMEOUT);
+        final FSFS reopened = myPool.acquire(myRepositoryRoot);
+        Assert.assertNotSame(fsfs, reopened);
+        myPool.release(reopened);
+    }
+
+    @Test
+    public void testFSFSIsReopenedWhenUUIDChanges() throws Exception {
+        final FSFS fsfs = myPool.acquire(myRepositoryRoot);
+        final String uuid = fsfs.getUUID();
+        myPool.release(fsfs);
+
+        final FSFS other = new FSFS(myRepositoryRoot);
+        other.open();
+        try {
+            other.setUUID("11111111-2222-3333-4444-555555555555");
+        } finally {
+            other.close();
+        }
+        touch(fsfs.getUUIDFile());
+
+        final FSFS reopened = myPool.acquire(myRepositoryRoot);
+        try {
+            Assert.assertNotSame(fsfs, reopened);
+            Assert.assertFalse(uuid.equals(reopened.getUUID()));
+            Assert.assertEquals("11111111-2222-3333-4444-555555555555", reopened.getUUID());
+        } finally {
+            myPool.release(reopened);
+        }
+    }
+
+    @Test
+    public void testFSFSIsReopenedWhenFormatChanges() throws Exception {
+        final FSFS fsfs = myPool.acquire(myRepositoryRoot);
+        touch(fsfs.getDBFormatFile());
+
+        final FSFS reopened = myPool.acquire(myRepositoryRoot);
+        Assert.assertNotSame(fsfs, reopened);
+        // the replaced object stays usable until its last user releases it.
+        Assert.assertEquals(0, fsfs.getYoungestRevision());
+        myPool.release(fsfs);
+        myPool.release(reopened);
+        Assert.assertSame(reopened, myPool.acquire(myRepositoryRoot));
+        myPool.release(reopened);
+    }
+
+    @Test
+    public void testDisposedPoolDoesNotHandOutFSFS() throws Exception {
+        final FSFS fsfs = myPool.acquire(myRepositoryRoot);
+        myPool.dispose();
+        Assert.assertEquals(0, fsfs.getYoungestRevision());
+        myPool.release(fsfs);
+        Assert.assertNull(myPool.acquire(myRepositoryRoot));
+    }
+
+    @Test
+    public void testDriverHooksSettingDoesNotChangeSharedFSFS() throws Exception {
+        final FSFS fsfs = myPool.acquire(myRepositoryRoot);
+        final FSRepository withHooks = (FSRepository) SVNRepositoryFactory.create(myRepositoryUrl);
+        final FSRepository withoutHooks = (FSRepository) SVNRepositoryFactory.create(myRepositoryUrl);
+        try {
+            withHooks.setSharedFSFS(fsfs);
+            withoutHooks.setSharedFSFS(fsfs);
+
+            withoutHooks.getLatestRevision();
+            Assert.assertSame(fsfs, withoutHooks.getFSFS());
+
+            withoutHooks.setHooksEnabled(false);
+            Assert.assertTrue(fsfs.isHooksEnabled());
+
+            withoutHooks.getLatestRevision();
+            Assert.assertNotSame(fsfs, withoutHooks.getFSFS());
+            Assert.assertFalse(withoutHooks.getFSFS().isHooksEnabled());
+
+            withHooks.getLatestRevision();
+            Assert.assertSame(fsfs, withHooks.getFSFS());
+            Assert.assertTrue(fsfs.isHooksEnabled());
+        } finally {
+            withHooks.closeSession();
+            withoutHooks.closeSession();
+            myPool.release(fsfs);
+        }
+    }
+
+    private static void touch(File file) {
+        Assert.assertTrue(file.setLastModified(file.lastModified() + 10 * 1000));
+    }
+
+    private File createTempDirectory() throws IOException {
+        final File directory = File.createTempFile(getClass().getSimpleName(), ".tmp");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdirs());
+        return directory;
+    }
+}
@@ -0,0 +1,300 @@
+package org.tmatesoft.svn.core.internal.server.dav;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+
+public class DAVResponseCacheTest {
+
+    private static final String SERVLET_PATH = "/repos";
+
+    private File myTempDirectory;
+    private SVNURL myRepositoryUrl;
+    private DAVServlet myServlet;
+
+    @Before
+    public void setUp() throws Exception {
+        FSRepositoryFactory.setup();
+        myTempDirectory = createTempDirectory();
+        final File repositoryRoot = new File(myTempDirectory, "svn.repo");
+        myRepositoryUrl = SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+
+        final Map<String, String> parameters = new HashMap<String, String>();
+        parameters.put("SVNPath", repositoryRoot.getAbsolutePath());
+        myServlet = new DAVServlet();
+        myServlet.init(createProxy(ServletConfig.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if ("getInitParameter".equals(method.getName())) {
+                    return parameters.get(args[0]);
+                } else if ("getInitParameterNames".equals(method.getName())) {
+                    return Collections.enumeration(parameters.keySet());
+                } else if ("getServletName".equals(method.getName())) {
+                    return "dav";
+                }
+                return null;
+            }
+        }));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (myServlet != null) {
+            myServlet.destroy();
+        }
+        SVNFileUtil.deleteAll(myTempDirectory, true);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedBodiesAreEvicted() throws Exception {
+        final DAVResponseCache cache = new DAVResponseCache(100, 60);
+        cache.put("a", new byte[40]);
+        cache.put("b", new byte[40]);
+        cache.put("large", new byte[61]);
+        Assert.assertNotNull(cache.get("a"));
+
+        cache.put("c", new byte[40]);
+        Assert.assertNull(cache.get("b"));
+        Assert.assertNull(cache.get("large"));
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNotNull(cache.get("c"));
+        Assert.assertEquals(2, cache.getEntriesCount());
+        Assert.assertEquals(80, cache.getSize());
+        Assert.assertEquals(3, cache.getHitsCount());
+        Assert.assertEquals(2, cache.getMissesCount());
+
+        cache.put("a", new byte[10]);
+        Assert.assertEquals(50, cache.getSize());
+    }
+
+    @Test
+    public void testImmutableResourceIsRevalidated() throws Exception {
+        commitFile("file", "contents", false);
+
+        final Response first = execute("GET", "/!svn/ver/1/file", null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, first.getStatus());
+        Assert.assertEquals("contents", first.getBody());
+        Assert.assertEquals("max-age=604800", first.getHeader("Cache-Control"));
+        final String eTag = first.getHeader("ETag");
+        Assert.assertNotNull(eTag);
+
+        final Response notModified = execute("GET", "/!svn/ver/1/file", eTag);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.getStatus());
+        Assert.assertEquals("", notModified.getBody());
+
+        final Response headNotModified = execute("HEAD", "/!svn/ver/1/file", "\"other\", " + eTag);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, headNotModified.getStatus());
+
+        final Response otherTag = execute("GET", "/!svn/ver/1/file", "\"other\"");
+        Assert.assertEquals(HttpServletResponse.SC_OK, otherTag.getStatus());
+        Assert.assertEquals("contents", otherTag.getBody());
+
+        final DAVResponseCache cache = myServlet.getResponseCache();
+        Assert.assertEquals(1, cache.getEntriesCount());
+        Assert.assertEquals(1, cache.getHitsCount());
+
+        final Response baselineCollection = execute("GET", "/!svn/bc/1/file", null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, baselineCollection.getStatus());
+        Assert.assertEquals("contents", baselineCollection.getBody());
+        Assert.assertEquals("max-age=604800", baselineCollection.getHeader("Cache-Control"));
+    }
+
+    @Test
+    public void testChangedResourceIsNotServedFromCache() throws Exception {
+        commitFile("file", "contents", false);
+
+        final Response first = execute("GET", "/file", null);
+        Assert.assertEquals(HttpServletResponse.SC_OK, first.getStatus());
+        Assert.assertEquals("contents", first.getBody());
+        Assert.assertFalse("max-age=604800".equals(first.getHeader("Cache-Control")));
+        final String eTag = first.getHeader("ETag");
+        Assert.assertNotNull(eTag);
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, execute("GET", "/file", eTag).getStatus());
+        Assert.assertEquals(0, myServlet.getResponseCache().getEntriesCount());
+
+        commitFile("file", "changed contents", true);
+
+        final Response changed = execute("GET", "/file", eTag);
+        Assert.assertEquals(HttpServletResponse.SC_OK, changed.getStatus());
+        Assert.assertEquals("changed contents", changed.getBody());
+        Assert.assertFalse(eTag.equals(changed.getHeader("ETag")));
+        Assert.assertEquals(HttpServletResponse.SC_NOT_MODIFIED, execute("HEAD", "/file", changed.getHeader("ETag")).getStatus());
+
+        Assert.assertEquals("contents", execute("GET", "/!svn/ver/1/file", null).getBody());
+        Assert.assertEquals("changed contents", execute("GET", "/!svn/ver/2/file", null).getBody());
+        Assert.assertEquals(2, myServlet.getResponseCache().getEntriesCount());
+    }
+
+    private void commitFile(String path, String contents, boolean exists) throws Exception {
+        final SVNRepository repository = SVNRepositoryFactory.create(myRepositoryUrl);
+        try {
+            final ISVNEditor editor = repository.getCommitEditor("", null);
+            editor.openRoot(-1);
+            if (exists) {
+                editor.openFile(path, -1);
+            } else {
+                editor.addFile(path, null, -1);
+            }
+            editor.applyTextDelta(path, null);
+            final String checksum = new SVNDeltaGenerator().sendDelta(path, new ByteArrayInputStream(contents.getBytes()), editor, true);
+            editor.closeFile(path, checksum);
+            editor.closeDir();
+            editor.closeEdit();
+        } finally {
+            repository.closeSession();
+        }
+    }
+
+    private Response execute(final String method, final String pathInfo, String ifNoneMatch) throws Exception {
+        final Map<String, String> headers = new HashMap<String, String>();
+        if (ifNoneMatch != null) {
+            headers.put("if-none-match", ifNoneMatch);
+        }
+        final HttpServletRequest request = createProxy(HttpServletRequest.class, new InvocationHandler() {
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                final String name = m.getName();
+                if ("getMethod".equals(name)) {
+                    return method;
+                } else if ("getRequestURI".equals(name)) {
+                    return SERVLET_PATH + pathInfo;
+                } else if ("getRequestURL".equals(name)) {
+                    return new StringBuffer("http://localhost" + SERVLET_PATH + pathInfo);
+                } else if ("getContextPath".equals(name)) {
+                    return "";
+                } else if ("getServletPath".equals(name)) {
+                    return SERVLET_PATH;
+                } else if ("getPathInfo".equals(name)) {
+                    return pathInfo;
+                } else if ("getScheme".equals(name)) {
+                    return "http";
+                } else if ("getServerName".equals(name)) {
+                    return "localhost";
+                } else if ("getServerPort".equals(name)) {
+                    return 80;
+                } else if ("getHeader".equals(name)) {
+                    return headers.get(((String) args[0]).toLowerCase());
+                } else if ("getHeaders".equals(name)) {
+                    final String value = headers.get(((String) args[0]).toLowerCase());
+                    return Collections.enumeration(value != null ? Collections.singletonList(value) : Collections.<String>emptyList());
+                } else if ("getHeaderNames".equals(name)) {
+                    return Collections.enumeration(headers.keySet());
+                } else if ("getDateHeader".equals(name)) {
+                    return -1L;
+                } else if ("getIntHeader".equals(name) || "getContentLength".equals(name)) {
+                    return -1;
+                } else if ("getInputStream".equals(name)) {
+                    return new ServletInputStream() {
+                        public int read() {
+                            return -1;
+                        }
+                    };
+                }
+                return null;
+            }
+        });
+        final Response response = new Response();
+        myServlet.service(request, createProxy(HttpServletResponse.class, response));
+        return response;
+    }
+
+    private File createTempDirectory() throws IOException {
+        final File directory = File.createTempFile(getClass().getSimpleName(), ".tmp");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdirs());
+        return directory;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T createProxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(DAVResponseCacheTest.class.getClassLoader(), new Class[] {type}, handler);
+    }
+
+    private static class Response implements InvocationHandler {
+
+        private final Map<String, List<String>> myHeaders = new HashMap<String, List<String>>();
+        private final ByteArrayOutputStream myBody = new ByteArrayOutputStream();
+        private final ServletOutputStream myOutputStream = new ServletOutputStream() {
+            public void write(int b) {
+                myBody.write(b);
+            }
+        };
+        private PrintWriter myWriter;
+        private int myStatus = HttpServletResponse.SC_OK;
+
+        public int getStatus() {
+            return myStatus;
+        }
+
+        public String getHeader(String name) {
+            final List<String> values = myHeaders.get(name.toLowerCase());
+            return values != null ? values.get(0) : null;
+        }
+
+        public String getBody() {
+            if (myWriter != null) {
+                myWriter.flush();
+            }
+            return myBody.toString();
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws IOException {
+            final String name = method.getName();
+            if ("setStatus".equals(name) || "sendError".equals(name)) {
+                myStatus = (Integer) args[0];
+            } else if ("setHeader".equals(name) || "setDateHeader".equals(name) || "setIntHeader".equals(name)) {
+                final List<String> values = new ArrayList<String>();
+                values.add(String.valueOf(args[1]));
+                myHeaders.put(((String) args[0]).toLowerCase(), values);
+            } else if ("addHeader".equals(name) || "addDateHeader".equals(name) || "addIntHeader".equals(name)) {
+                List<String> values = myHeaders.get(((String) args[0]).toLowerCase());
+                if (values == null) {
+                    values = new ArrayList<String>();
+                    myHeaders.put(((String) args[0]).toLowerCase(), values);
+                }
+                values.add(String.valueOf(args[1]));
+            } else if ("containsHeader".equals(name)) {
+                return myHeaders.containsKey(((String) args[0]).toLowerCase());
+            } else if ("getOutputStream".equals(name)) {
+                return myOutputStream;
+            } else if ("getWriter".equals(name)) {
+                if (myWriter == null) {
+                    myWriter = new PrintWriter(new OutputStreamWriter(myBody, "UTF-8"));
+                }
+                return myWriter;
+            } else if ("isCommitted".equals(name)) {
+                return Boolean.FALSE;
+            } else if ("flushBuffer".equals(name) && myWriter != null) {
+                myWriter.flush();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package org.tmatesoft.svn.core.internal.server.dav.handlers;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.internal.util.SVNBase64;
+
+public class DAVXMLOutputStreamTest {
+
+    private static final String CLEF = "\uD834\uDD1E";
+
+    @Test
+    public void testMultiByteCharactersAreEncodedInUTF8() throws Exception {
+        final String text = "<D:href>a\u00E9\u0416\u20AC\uFFE5" + CLEF + "</D:href>";
+        final RecordingResponse response = new RecordingResponse();
+        final DAVXMLOutputStream stream = new DAVXMLOutputStream(response.getProxy());
+        stream.write(text);
+        stream.write(new StringBuilder(text));
+        stream.write(new StringBuffer(text));
+        stream.write(new CharSequenceWrapper(text));
+        stream.flush();
+
+        final String expected = text + text + text + text;
+        Assert.assertArrayEquals(expected.getBytes("UTF-8"), response.getBytes());
+    }
+
+    @Test
+    public void testBrokenSurrogatePairIsReplaced() throws Exception {
+        final RecordingResponse response = new RecordingResponse();
+        final DAVXMLOutputStream stream = new DAVXMLOutputStream(response.getProxy());
+        stream.write("a\uD834b\uDD1Ec\uD834");
+        stream.flush();
+
+        Assert.assertEquals("a?b?c?", new String(response.getBytes(), "UTF-8"));
+    }
+
+    @Test
+    public void testSurrogatePairSplitAtBufferBoundaryIsKept() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        // 511 chars put the high surrogate at the end of the 512 chars encoding buffer.
+        appendFiller(text, 511);
+        text.append(CLEF);
+        // 1022 bytes leave only 2 bytes of the 1024 bytes chunk for the 4 bytes of the pair.
+        appendFiller(text, 1022 - text.length() - 4 + 1024);
+        text.append(CLEF);
+        appendFiller(text, 100);
+
+        final RecordingResponse response = new RecordingResponse();
+        final DAVXMLOutputStream stream = new DAVXMLOutputStream(response.getProxy(), 1024);
+        stream.write(text.toString());
+        stream.write(new CharSequenceWrapper(text));
+        stream.flush();
+
+        final byte[] expected = (text.toString() + text.toString()).getBytes("UTF-8");
+        Assert.assertArrayEquals(expected, response.getBytes());
+        for (byte[] chunk : response.getChunks()) {
+            Assert.assertTrue(chunk.length <= 1024);
+            // a 4 bytes sequence is never split between chunks.
+            Assert.assertTrue((chunk[0] & 0xc0) != 0x80);
+        }
+    }
+
+    @Test
+    public void testChunkIsWrittenWhenFull() throws Exception {
+        final RecordingResponse response = new RecordingResponse();
+        final DAVXMLOutputStream stream = new DAVXMLOutputStream(response.getProxy(), 1024);
+
+        stream.write(createBytes(1000, 'a'), 0, 1000);
+        stream.write('b');
+        Assert.assertFalse(response.isOutputStreamRequested());
+
+        stream.write(createBytes(100, 'c'), 0, 100);
+        Assert.assertEquals(1, response.getChunks().size());
+        Assert.assertEquals(1001, response.getChunks().get(0).length);
+
+        stream.write(createBytes(2000, 'd'), 0, 2000);
+        Assert.assertEquals(3, response.getChunks().size());
+        Assert.assertEquals(100, response.getChunks().get(1).length);
+        Assert.assertEquals(2000, response.getChunks().get(2).length);
+
+        stream.write("e");
+        Assert.assertEquals(3, response.getChunks().size());
+        stream.flush();
+        Assert.assertEquals(4, response.getChunks().size());
+        Assert.assertEquals(1, response.getChunks().get(3).length);
+        Assert.assertEquals(1, response.getFlushesCount());
+        Assert.assertEquals(3102, response.getBytes().length);
+    }
+
+    @Test
+    public void testNothingIsWrittenBeforeFirstChunk() throws Exception {
+        final RecordingResponse response = new RecordingResponse();
+        final DAVXMLOutputStream stream = new DAVXMLOutputStream(response.getProxy());
+        stream.write("<S:update-report/>");
+        Assert.assertFalse(response.isOutputStreamRequested());
+        stream.close();
+        Assert.assertEquals("<S:update-report/>", new String(response.getBytes(), "UTF-8"));
+    }
+
+    @Test
+    public void testBase64IsPadded() throws Exception {
+        final byte[] source = new byte[] {(byte) 0xff, 0x00, 0x7f, (byte) 0x80, 0x41, 0x0a, (byte) 0xfe};
+        for (int length = 0; length <= 6; length++) {
+            final byte[] data = Arrays.copyOfRange(source, 1, 1 + length);
+            final byte[] encoded = new byte[2 + 8];
+            final int encodedLength = SVNBase64.byteArrayToBase64(source, 1, length, encoded, 2);
+
+            final String expected = SVNBase64.byteArrayToBase64(data);
+            Assert.assertEquals((length + 2) / 3 * 4, encodedLength);
+            Assert.assertEquals(expected, new String(encoded, 2, encodedLength, "US-ASCII"));
+            Assert.assertEquals(0, encoded[0]);
+            Assert.assertEquals(0, encoded[1]);
+        }
+        final byte[] encoded = new byte[4];
+        Assert.assertEquals(4, SVNBase64.byteArrayToBase64(new byte[] {0x41}, 0, 1, encoded, 0));
+        Assert.assertEquals("QQ==", new String(encoded, "US-ASCII"));
+        Assert.assertEquals(4, SVNBase64.byteArrayToBase64(new byte[] {0x41, 0x42}, 0, 2, encoded, 0));
+        Assert.assertEquals("QUI=", new String(encoded, "US-ASCII"));
+    }
+
+    @Test
+    public void testBase64StreamWritesLines() throws Exception {
+        final byte[] data = new byte[130];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        final DAVBase64OutputStream stream = new DAVBase64OutputStream(encoded);
+        stream.write(data, 0, 50);
+        stream.write(data[50]);
+        stream.write(data, 51, data.length - 51);
+        stream.close();
+
+        final String expected = SVNBase64.byteArrayToBase64(Arrays.copyOfRange(data, 0, 57)) + "\n" +
+                SVNBase64.byteArrayToBase64(Arrays.copyOfRange(data, 57, 114)) + "\n" +
+                SVNBase64.byteArrayToBase64(Arrays.copyOfRange(data, 114, 130)) + "\n";
+        Assert.assertEquals(expected, encoded.toString("US-ASCII"));
+        Assert.assertArrayEquals(data, SVNBase64Util.decode(expected));
+    }
+
+    private static void appendFiller(StringBuilder target, int count) {
+        for (int i = 0; i < count; i++) {
+            target.append((char) ('a' + i % 26));
+        }
+    }
+
+    private static byte[] createBytes(int length, char value) {
+        final byte[] bytes = new byte[length];
+        Arrays.fill(bytes, (byte) value);
+        return bytes;
+    }
+
+    private static class SVNBase64Util {
+
+        public static byte[] decode(String lines) {
+            final ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[lines.length()];
+            for (String line : lines.split("\n")) {
+                final int length = SVNBase64.base64ToByteArray(new StringBuffer(line), buffer);
+                decoded.write(buffer, 0, length);
+            }
+            return decoded.toByteArray();
+        }
+    }
+
+    private static class CharSequenceWrapper implements CharSequence {
+
+        private final CharSequence myDelegate;
+
+        public CharSequenceWrapper(CharSequence delegate) {
+            myDelegate = delegate;
+        }
+
+        public int length() {
+            return myDelegate.length();
+        }
+
+        public char charAt(int index) {
+            return myDelegate.charAt(index);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return myDelegate.subSequence(start, end);
+        }
+
+        public String toString() {
+            return myDelegate.toString();
+        }
+    }
+
+    private static class RecordingResponse implements InvocationHandler {
+
+        private final List<byte[]> myChunks = new ArrayList<byte[]>();
+        private final ServletOutputStream myOutputStream = new ServletOutputStream() {
+            public void write(int b) {
+                myChunks.add(new byte[] {(byte) b});
+            }
+
+            public void write(byte[] b, int off, int len) {
+                myChunks.add(Arrays.copyOfRange(b, off, off + len));
+            }
+
+            public void flush() {
+                myFlushesCount++;
+            }
+        };
+        private boolean myIsOutputStreamRequested;
+        private int myFlushesCount;
+
+        public ServletResponse getProxy() {
+            return (ServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {ServletResponse.class}, this);
+        }
+
+        public boolean isOutputStreamRequested() {
+            return myIsOutputStreamRequested;
+        }
+
+        public List<byte[]> getChunks() {
+            return myChunks;
+        }
+
+        public int getFlushesCount() {
+            return myFlushesCount;
+        }
+
+        public byte[] getBytes() {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (byte[] chunk : myChunks) {
+                bytes.write(chunk, 0, chunk.length);
+            }
+            return bytes.toByteArray();
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            if ("getOutputStream".equals(method.getName())) {
+                myIsOutputStreamRequested = true;
+                return myOutputStream;
+            }
+            return null;
+        }
+    }
+}
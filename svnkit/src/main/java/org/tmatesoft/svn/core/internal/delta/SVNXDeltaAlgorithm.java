@@ -11,106 +11,183 @@
  */
 package org.tmatesoft.svn.core.internal.delta;
 
-import org.tmatesoft.svn.core.internal.util.SVNIntMap;
+import java.util.Arrays;
 
 /**
+ * Source blocks are indexed by their checksum in an open addressing table of
+ * primitive arrays that is reused between windows; matching does not allocate.
+ *
  * @version 1.3
  * @author  TMate Software Ltd.
  */
 public class SVNXDeltaAlgorithm extends SVNDeltaAlgorithm {
-    
+
     private static final int MATCH_BLOCK_SIZE = 64;
-    
+
+    private static final int ADLER32_MASK = 0x0000FFFF;
+
+    private int[] myChecksums = new int[0];
+    private int[] myPositions = new int[0];
+    private int myTableMask;
+
+    // state of the last match found by findMatch.
+    private int myMatchPosition;
+    private int myMatchLength;
+    private int myMatchAdvance;
+
+    // pending new data, myInsertionLength == 0 when there is none.
+    private int myInsertionPosition;
+    private int myInsertionLength;
+
     public void computeDelta(byte[] a, int aLength, byte[] b, int bLength) {
         if (bLength < MATCH_BLOCK_SIZE) {
             copyFromNewData(b, 0, bLength);
             return;
         }
-        PseudoAdler32 bAdler = new PseudoAdler32();
-        SVNIntMap aMatchesTable = createMatchesTable(a, aLength, MATCH_BLOCK_SIZE, bAdler);
-        bAdler.reset();
-        bAdler.add(b, 0, MATCH_BLOCK_SIZE);
+        createMatchesTable(a, aLength);
 
+        int s1 = 1;
+        int s2 = 0;
+        for (int i = 0; i < MATCH_BLOCK_SIZE; i++) {
+            s1 = (s1 + (b[i] & 0xFF)) & ADLER32_MASK;
+            s2 = (s2 + s1) & ADLER32_MASK;
+        }
+        int windowLength = MATCH_BLOCK_SIZE;
+
+        myInsertionPosition = 0;
+        myInsertionLength = 0;
         int lo = 0;
-        int size = bLength;
-        Match previousInsertion = null;
-        
-        while(lo < size) {
-            Match match = findMatch(aMatchesTable, bAdler, a, aLength, b, bLength, lo, previousInsertion);
-            if (match == null) {
-                if (previousInsertion != null && previousInsertion.length > 0) {
-                    previousInsertion.length++;
-                } else {
-                    previousInsertion = new Match(lo, 1);
+        while (lo < bLength) {
+            int advance = 1;
+            if (findMatch((s2 << 16) | s1, a, aLength, b, bLength, lo)) {
+                if (myInsertionLength > 0) {
+                    copyFromNewData(b, myInsertionPosition, myInsertionLength);
+                    myInsertionLength = 0;
                 }
+                copyFromSource(myMatchPosition, myMatchLength);
+                advance = myMatchAdvance;
+            } else if (myInsertionLength > 0) {
+                myInsertionLength++;
             } else {
-                if (previousInsertion != null && previousInsertion.length > 0) {
-                    copyFromNewData(b, previousInsertion.position, previousInsertion.length);
-                    previousInsertion = null;
-                }
-                copyFromSource(match.position, match.length);                
+                myInsertionPosition = lo;
+                myInsertionLength = 1;
             }
-            int advance = match != null ? match.advance : 1;
-            for (int next = lo; next < lo + advance; next++) {
-                bAdler.remove(b[next]);
-                if (next + MATCH_BLOCK_SIZE < bLength) {
-                    bAdler.add(b[next + MATCH_BLOCK_SIZE]);
+            int next = lo + advance;
+            if (next >= bLength) {
+                break;
+            }
+            if (advance >= MATCH_BLOCK_SIZE) {
+                // checksum of the window at the new position is cheaper to compute than to roll.
+                windowLength = Math.min(MATCH_BLOCK_SIZE, bLength - next);
+                s1 = 1;
+                s2 = 0;
+                for (int i = next; i < next + windowLength; i++) {
+                    s1 = (s1 + (b[i] & 0xFF)) & ADLER32_MASK;
+                    s2 = (s2 + s1) & ADLER32_MASK;
+                }
+            } else {
+                for (int i = lo; i < next; i++) {
+                    int out = b[i] & 0xFF;
+                    if (i + MATCH_BLOCK_SIZE < bLength) {
+                        s1 = (s1 - out + (b[i + MATCH_BLOCK_SIZE] & 0xFF)) & ADLER32_MASK;
+                        s2 = (s2 - windowLength * out - 1 + s1) & ADLER32_MASK;
+                    } else {
+                        s1 = (s1 - out) & ADLER32_MASK;
+                        s2 = (s2 - windowLength * out - 1) & ADLER32_MASK;
+                        windowLength--;
+                    }
                 }
             }
-            lo += advance;
+            lo = next;
         }
-        if (previousInsertion != null && previousInsertion.length > 0) {
-            copyFromNewData(b, previousInsertion.position, previousInsertion.length);
-            previousInsertion = null;
+        if (myInsertionLength > 0) {
+            copyFromNewData(b, myInsertionPosition, myInsertionLength);
+            myInsertionLength = 0;
         }
     }
-    
-    private static Match findMatch(SVNIntMap matchesTable, PseudoAdler32 checksum, byte[] a, int aLength, byte[] b, int bLength, int bPos, Match previousInsertion) {
-        Match existingMatch = (Match) matchesTable.get(checksum.getValue());
-        if (existingMatch == null) {
-            return null;
+
+    private boolean findMatch(int checksum, byte[] a, int aLength, byte[] b, int bLength, int bPos) {
+        int slot = lookup(checksum);
+        if (slot < 0) {
+            return false;
         }
-        if (!equals(a, aLength, existingMatch.position, existingMatch.length, b, bLength, bPos)) {
-            return null;
+        int position = myPositions[slot];
+        int length = Math.min(MATCH_BLOCK_SIZE, aLength - position);
+        if (!equals(a, aLength, position, length, b, bLength, bPos)) {
+            return false;
         }
-        existingMatch = new Match(existingMatch.position, existingMatch.length);
-        existingMatch.advance = existingMatch.length;
-
-        // extend forward 
-        while(existingMatch.position + existingMatch.length < aLength &&
-                bPos + existingMatch.advance < bLength &&
-                a[existingMatch.position + existingMatch.length] == b[bPos + existingMatch.advance]) {
-            existingMatch.length++;
-            existingMatch.advance++;
+        int advance = length;
+
+        // extend forward
+        while (position + length < aLength && bPos + advance < bLength && a[position + length] == b[bPos + advance]) {
+            length++;
+            advance++;
         }
         // extend backward
-        if (previousInsertion != null) {
-            while(existingMatch.position > 0 && bPos > 0 &&
-                    a[existingMatch.position - 1] == b[bPos -1] &&
-                    previousInsertion.length != 0) {
-                previousInsertion.length--;
-                bPos--;
-                existingMatch.position--;
-                existingMatch.length++;
+        while (myInsertionLength != 0 && position > 0 && bPos > 0 && a[position - 1] == b[bPos - 1]) {
+            myInsertionLength--;
+            bPos--;
+            position--;
+            length++;
+        }
+        myMatchPosition = position;
+        myMatchLength = length;
+        myMatchAdvance = advance;
+        return true;
+    }
+
+    private void createMatchesTable(byte[] data, int dataLength) {
+        int blocksCount = (dataLength + MATCH_BLOCK_SIZE - 1) / MATCH_BLOCK_SIZE;
+        // sparse table keeps probes for absent checksums short, most probes are misses.
+        int capacity = 16;
+        while (capacity < blocksCount * 8) {
+            capacity <<= 1;
+        }
+        if (myPositions.length < capacity || myPositions.length > capacity * 8) {
+            myChecksums = new int[capacity];
+            myPositions = new int[capacity];
+        } else {
+            capacity = myPositions.length;
+        }
+        Arrays.fill(myPositions, 0, capacity, -1);
+        myTableMask = capacity - 1;
+
+        for (int i = 0; i < dataLength; i += MATCH_BLOCK_SIZE) {
+            int end = Math.min(i + MATCH_BLOCK_SIZE, dataLength);
+            int s1 = 1;
+            int s2 = 0;
+            for (int j = i; j < end; j++) {
+                s1 = (s1 + (data[j] & 0xFF)) & ADLER32_MASK;
+                s2 = (s2 + s1) & ADLER32_MASK;
+            }
+            int checksum = (s2 << 16) | s1;
+            int slot = hash(checksum) & myTableMask;
+            while (myPositions[slot] >= 0 && myChecksums[slot] != checksum) {
+                slot = (slot + 1) & myTableMask;
+            }
+            if (myPositions[slot] < 0) {
+                myChecksums[slot] = checksum;
+                myPositions[slot] = i;
             }
         }
-        return existingMatch;
     }
-    
-    private static SVNIntMap createMatchesTable(byte[] data, int dataLength, int blockLength, PseudoAdler32 adler32) {
-        SVNIntMap matchesTable = new SVNIntMap();
-        for(int i = 0; i < dataLength; i+= blockLength) {
-            int length = i + blockLength >= dataLength ? dataLength - i : blockLength;
-            adler32.add(data, i, length);
-            int checksum = adler32.getValue();
-            if (!matchesTable.containsKey(checksum)) {
-                matchesTable.put(checksum, new Match(i, length));
+
+    private int lookup(int checksum) {
+        int slot = hash(checksum) & myTableMask;
+        while (myPositions[slot] >= 0) {
+            if (myChecksums[slot] == checksum) {
+                return slot;
             }
-            adler32.reset();
+            slot = (slot + 1) & myTableMask;
         }
-        return matchesTable;
+        return -1;
+    }
+
+    private static int hash(int checksum) {
+        int h = checksum * 0x9E3779B9;
+        return h ^ (h >>> 16);
     }
-    
+
     private static boolean equals(byte[] a, int aLength, int aPos, int length, byte[] b, int bLength, int bPos) {
         if (aPos + length - 1 > aLength || bPos + length > bLength) {
             return false;
@@ -122,64 +199,4 @@ public class SVNXDeltaAlgorithm extends SVNDeltaAlgorithm {
         }
         return true;
     }
-    
-    private static class Match {
-        
-        public Match(int p, int l) {
-            position = p;
-            length = l;
-        }
-        
-        public int position;
-        public int length;
-        public int advance;
-    }
-
-    private static int ADLER32_MASK = 0x0000FFFF;
-
-    private static class PseudoAdler32 {        
-        
-        private int myS1;
-        private int myS2;
-        private int myLength;
-        
-        public PseudoAdler32() {
-            reset();
-        }
-        
-        public void add(byte b) {
-            int z = b & 0x000000FF;
-            myS1 = myS1 + z;
-            myS1 = myS1 & ADLER32_MASK;
-            myS2 = myS2 + myS1;
-            myS2 = myS2 & ADLER32_MASK;
-            myLength++;
-        }
-        
-        public void remove(byte b) {
-            int z = b & 0x000000FF;
-            myS1 = myS1 - z;
-            myS1 = myS1 & ADLER32_MASK;
-            myS2 = myS2 - (myLength * z + 1);
-            myS2 = myS2 & ADLER32_MASK;
-            myLength--;
-        }
-        
-        public void add(byte[] data, int offset, int length) {
-            for (int i = offset; i < offset + length; i++) {
-                add(data[i]);
-            }
-        }
-        
-        public int getValue() {
-            return (myS2 << 16) | myS1;
-        }
-        
-        public void reset() {
-            myS1 = 1;
-            myS2 = 0;
-            myLength = 0;
-        }
-    }
 }
- 
\ No newline at end of file
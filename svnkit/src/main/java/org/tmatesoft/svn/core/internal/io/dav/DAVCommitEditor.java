@@ -23,6 +23,7 @@ import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNProperty;
 import org.tmatesoft.svn.core.SVNPropertyValue;
 import org.tmatesoft.svn.core.SVNRevisionProperty;
 import org.tmatesoft.svn.core.SVNURL;
@@ -49,6 +50,12 @@ class DAVCommitEditor implements ISVNEditor {
     public static final String CREATE_TXN_WITH_PROPS = "create-txn-with-props";
     public static final String CREATE_TXN = "create-txn";
     public static final String SKEL_MIME_TYPE = "application/vnd.svn-skel";
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList(new String[] {
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar", "war", "ear", "apk", "lz4",
+            "png", "jpg", "jpeg", "gif", "webp", "mp3", "ogg", "mp4", "avi", "mov", "mkv",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "pdf"}));
+
     private DAVConnection myConnection;
     private SVNURL myLocation;
 	private DAVRepository myRepository;
@@ -402,6 +409,7 @@ class DAVCommitEditor implements ISVNEditor {
     private File myDeltaFile;
     private boolean myIsAborted;
     private boolean myIsFirstWindow;
+    private int myDeltaVersion;
 
     public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
         // save window, create temp file.
@@ -409,8 +417,9 @@ class DAVCommitEditor implements ISVNEditor {
             if (myCurrentDelta == null) {
                 myDeltaFile = SVNFileUtil.createTempFile("svnkit", ".tmp");
                 myCurrentDelta = SVNFileUtil.openFileForWriting(myDeltaFile);
+                myDeltaVersion = myConnection.getSVNDiffVersion(isCompressible(path));
             }
-            diffWindow.writeTo(myCurrentDelta, myIsFirstWindow);
+            diffWindow.writeTo(myCurrentDelta, myIsFirstWindow, myDeltaVersion, DAVRepository.getCompressionLevel());
             myIsFirstWindow = false;
             return SVNFileUtil.DUMMY_OUT;
         } catch (IOException e) {
@@ -427,6 +436,25 @@ class DAVCommitEditor implements ISVNEditor {
         SVNFileUtil.closeFile(myCurrentDelta);
     }
 
+    private boolean isCompressible(String path) {
+        // contents that are compressed already only cost time to compress again.
+        DAVResource file = (DAVResource) myFilesMap.get(path);
+        String mimeType = file != null && file.getProperties() != null ? file.getProperties().getStringValue(SVNProperty.MIME_TYPE) : null;
+        if (mimeType != null) {
+            mimeType = mimeType.toLowerCase();
+            if (mimeType.startsWith("image/") && !mimeType.startsWith("image/svg") && !mimeType.startsWith("image/bmp")) {
+                return false;
+            } else if (mimeType.startsWith("audio/") || mimeType.startsWith("video/")) {
+                return false;
+            } else if (mimeType.indexOf("zip") >= 0 || mimeType.indexOf("compressed") >= 0 || mimeType.indexOf("archive") >= 0) {
+                return false;
+            }
+        }
+        String name = SVNPathUtil.tail(path);
+        int dot = name.lastIndexOf('.');
+        return dot < 0 || !COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase());
+    }
+
     public void changeFileProperty(String path, String name, SVNPropertyValue value)  throws SVNException {
         DAVResource currentFile = (DAVResource) myFilesMap.get(path);
         currentFile.putProperty(name, value);
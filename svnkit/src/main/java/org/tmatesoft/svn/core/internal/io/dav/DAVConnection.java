@@ -65,6 +65,8 @@ public class DAVConnection {
     protected long myLatestRevision;
     protected List<String> mySupportedPosts;
     protected SVNURL myRepositoryRoot;
+    protected boolean myIsSVNDiff1Supported;
+    protected boolean myIsSVNDiff2Supported;
 
     protected IHTTPConnectionFactory myConnectionFactory;
     private HTTPStatus myLastStatus;
@@ -357,12 +359,19 @@ public class DAVConnection {
         beforeCall();
         IHTTPConnection httpConnection = getConnection();
         httpConnection.setSpoolResponse(spool || isReportResponseSpooled());
+        boolean pipeline = DAVRepository.isPipelineReports() && httpConnection instanceof HTTPConnection;
+        if (pipeline) {
+            ((HTTPConnection) httpConnection).setPipelineResponse(true);
+        }
         try {
             HTTPHeader header = new HTTPHeader();
             header.addHeaderValue(HTTPHeader.ACCEPT_ENCODING_HEADER, "svndiff1;q=0.9,svndiff;q=0.8");
             return performHttpRequest(httpConnection, "REPORT", path, header, requestBody, -1, 0, null, handler);
         } finally {
             httpConnection.setSpoolResponse(false);
+            if (pipeline) {
+                ((HTTPConnection) httpConnection).setPipelineResponse(false);
+            }
         }
 	}
 
@@ -660,6 +669,24 @@ public class DAVConnection {
         return (String) myCapabilities.get(capability);
     }
 
+    /**
+     * Returns the svndiff version to send file contents in. Compressed formats are
+     * used only when the server has announced support for them: LZ4 (svndiff2) for
+     * compression levels up to {@link DAVRepository#LZ4_MAX_COMPRESSION_LEVEL},
+     * where speed matters more than size, and zlib (svndiff1) for higher levels.
+     * Contents that are not compressible are sent uncompressed.
+     */
+    public int getSVNDiffVersion(boolean compressible) {
+        int compressionLevel = DAVRepository.getCompressionLevel();
+        if (compressionLevel == 0 || !compressible) {
+            return 0;
+        }
+        if (myIsSVNDiff2Supported && (compressionLevel <= DAVRepository.LZ4_MAX_COMPRESSION_LEVEL || !myIsSVNDiff1Supported)) {
+            return 2;
+        }
+        return myIsSVNDiff1Supported ? 1 : 0;
+    }
+
     public void setCapability(SVNCapability capability, String capResult){
         myCapabilities.put(capability, capResult);
     }
@@ -755,6 +782,8 @@ public class DAVConnection {
         myCapabilities.put(SVNCapability.ATOMIC_REVPROPS, DAV_CAPABILITY_NO);
         myCapabilities.put(SVNCapability.INHERITED_PROPS, DAV_CAPABILITY_NO);
         myCapabilities.put(SVNCapability.EPHEMERAL_PROPS, DAV_CAPABILITY_NO);
+        myIsSVNDiff1Supported = false;
+        myIsSVNDiff2Supported = false;
 
         HTTPHeader header = status.getHeader();
         Collection capValues = header.getHeaderValues(HTTPHeader.DAV_HEADER);
@@ -778,6 +807,10 @@ public class DAVConnection {
                         myCapabilities.put(SVNCapability.INHERITED_PROPS, DAV_CAPABILITY_YES);
                     } else if (DAVElement.EPHEMERAL_PROPS_OPTION.equalsIgnoreCase(value)) {
                         myCapabilities.put(SVNCapability.EPHEMERAL_PROPS, DAV_CAPABILITY_YES);
+                    } else if (DAVElement.SVNDIFF1_OPTION.equalsIgnoreCase(value)) {
+                        myIsSVNDiff1Supported = true;
+                    } else if (DAVElement.SVNDIFF2_OPTION.equalsIgnoreCase(value)) {
+                        myIsSVNDiff2Supported = true;
                     }
                 }
 			}
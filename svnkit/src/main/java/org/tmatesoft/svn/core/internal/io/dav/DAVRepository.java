@@ -43,6 +43,12 @@ import java.util.*;
  */
 public class DAVRepository extends SVNRepository {
 
+    /**
+     * Highest compression level at which file contents are sent LZ4 compressed
+     * (svndiff2) rather than zlib compressed (svndiff1) when the server supports both.
+     */
+    public static final int LZ4_MAX_COMPRESSION_LEVEL = 3;
+
     private DAVConnection myConnection;
     private IHTTPConnectionFactory myConnectionFactory;
     private boolean myIsSpoolResponse;
@@ -50,6 +56,10 @@ public class DAVRepository extends SVNRepository {
 
     private static boolean ourIsKeepCredentials = Boolean.valueOf(System.getProperty("svnkit.http.keepCredentials", Boolean.TRUE.toString())).booleanValue();
     private static boolean ourHttpV2Enabled = Boolean.valueOf(System.getProperty("svnkit.http.httpV2Enabled", Boolean.FALSE.toString())).booleanValue();
+    private static int ourFetchConnectionsCount = Integer.getInteger("svnkit.http.parallelFetch", 0).intValue();
+    private static boolean ourIsPipelineReports = Boolean.valueOf(System.getProperty("svnkit.http.pipelineReports", Boolean.FALSE.toString())).booleanValue();
+    private static int ourCompressionLevel = Integer.getInteger("svnkit.http.compressionLevel", 5).intValue();
+    private static int ourRequestCompressionThreshold = Integer.getInteger("svnkit.http.gzipRequestThreshold", -1).intValue();
     protected static boolean ourRedirectsEnabled = true; //e.g. http://... -> https://...
     private File mySpoolLocation;
 
@@ -57,6 +67,75 @@ public class DAVRepository extends SVNRepository {
         ourIsKeepCredentials = keepCredentials;
     }
 
+    /**
+     * Sets the number of connections used to fetch file contents and properties when
+     * they are not sent within an update report. When set to 2 or more, updates and
+     * checkouts ask the server for a report without contents and fetch the files
+     * over that many connections in parallel. Defaults to the value of the
+     * <code>svnkit.http.parallelFetch</code> system property, 0 if it is not set.
+     *
+     * @param connectionsCount  number of connections
+     */
+    public static void setFetchConnectionsCount(int connectionsCount) {
+        ourFetchConnectionsCount = connectionsCount;
+    }
+
+    public static int getFetchConnectionsCount() {
+        return ourFetchConnectionsCount;
+    }
+
+    /**
+     * Makes REPORT responses be read and parsed on a separate thread while the editor
+     * is driven on the calling thread, so that receiving a response and applying it
+     * overlap. Parsed parts the editor has not processed yet are kept in memory up to
+     * a limit and in a temporary file beyond it, which replaces spooling of the whole
+     * response. Defaults to the value of the <code>svnkit.http.pipelineReports</code>
+     * system property, <code>false</code> if it is not set.
+     *
+     * @param pipeline  whether to pipeline report responses
+     */
+    public static void setPipelineReports(boolean pipeline) {
+        ourIsPipelineReports = pipeline;
+    }
+
+    public static boolean isPipelineReports() {
+        return ourIsPipelineReports;
+    }
+
+    /**
+     * Sets the level, from 0 to 9, at which file contents sent to the server on commit
+     * are compressed. 0 disables compression, levels up to {@link #LZ4_MAX_COMPRESSION_LEVEL}
+     * prefer fast LZ4 compression and higher levels prefer zlib compression of that level.
+     * The format is only used when the server supports it. Defaults to the value of the
+     * <code>svnkit.http.compressionLevel</code> system property, 5 if it is not set.
+     *
+     * @param compressionLevel  compression level
+     */
+    public static void setCompressionLevel(int compressionLevel) {
+        ourCompressionLevel = compressionLevel;
+    }
+
+    public static int getCompressionLevel() {
+        return Math.max(0, Math.min(9, ourCompressionLevel));
+    }
+
+    /**
+     * Sets the size of XML request bodies, in bytes, above which they are sent gzip
+     * compressed with a <code>Content-Encoding: gzip</code> header. The server has to
+     * accept compressed request bodies, so this is disabled by default; a negative
+     * value disables it. Defaults to the value of the <code>svnkit.http.gzipRequestThreshold</code>
+     * system property, -1 if it is not set.
+     *
+     * @param threshold  body size in bytes, or -1
+     */
+    public static void setRequestCompressionThreshold(int threshold) {
+        ourRequestCompressionThreshold = threshold;
+    }
+
+    public static int getRequestCompressionThreshold() {
+        return ourRequestCompressionThreshold;
+    }
+
     public static void setRedirectsEnabled(boolean ourRedirectsEnabled) {
         DAVRepository.ourRedirectsEnabled = ourRedirectsEnabled;
     }
@@ -277,14 +356,7 @@ public class DAVRepository extends SVNRepository {
             }
             if (properties != null) {
                 DAVProperties props = DAVUtil.getResourceProperties(connection, path, null, null);
-                DAVUtil.filterProperties(props, properties);
-                for (Iterator names = props.getProperties().keySet().iterator(); names.hasNext();) {
-                    DAVElement property = (DAVElement) names.next();
-                    DAVUtil.setSpecialWCProperties(properties, property, props.getPropertyValue(property), false);
-                }
-                if (fileRevision >= 0) {
-                    properties.put(SVNProperty.REVISION, Long.toString(fileRevision));
-                }
+                setFileProperties(props, properties, fileRevision);
             }
             if (contents != null) {
                 InputStream inputStream = null;
@@ -310,6 +382,65 @@ public class DAVRepository extends SVNRepository {
         return fileRevision;
     }
 
+    public void getFiles(Collection<String> paths, long revision, boolean fetchProperties, ISVNFileHandler handler) throws SVNException {
+        DAVParallelFetcher fetcher = null;
+        try {
+            openConnection();
+            DAVConnection connection = getConnection();
+            DAVBaselineInfo baseline = getRootBaselineInfo(connection, revision);
+            List<String> resources = new ArrayList<String>(paths.size());
+            for (String path : paths) {
+                resources.add(getBaselineResourcePath(baseline, path));
+            }
+            if (isParallelFetchEnabled() && resources.size() > 1) {
+                fetcher = new DAVParallelFetcher(myConnectionFactory, this, ourFetchConnectionsCount);
+                for (String resource : resources) {
+                    if (fetchProperties) {
+                        fetcher.scheduleProperties(resource);
+                    }
+                    fetcher.scheduleContent(resource, null);
+                }
+            }
+            Iterator<String> resourcesIterator = resources.iterator();
+            for (String path : paths) {
+                String resource = resourcesIterator.next();
+                SVNProperties properties = null;
+                if (fetchProperties) {
+                    DAVProperties props = fetcher != null ? fetcher.takeProperties(resource) : null;
+                    if (props == null) {
+                        props = DAVUtil.getResourceProperties(connection, resource, null, null);
+                    }
+                    properties = new SVNProperties();
+                    setFileProperties(props, properties, baseline.revision);
+                }
+                OutputStream contents = handler.openFile(path, baseline.revision, properties);
+                SVNSpillBuffer content = fetcher != null ? fetcher.takeContent(resource, null) : null;
+                try {
+                    if (contents != null && content != null) {
+                        InputStream inputStream = content.createInputStream();
+                        try {
+                            FSRepositoryUtil.copy(inputStream, contents, getCanceller());
+                        } finally {
+                            SVNFileUtil.closeFile(inputStream);
+                        }
+                    } else if (contents != null) {
+                        connection.doGet(resource, contents);
+                    }
+                } finally {
+                    if (content != null) {
+                        content.close();
+                    }
+                }
+                handler.closeFile(path);
+            }
+        } finally {
+            if (fetcher != null) {
+                fetcher.close();
+            }
+            closeConnection();
+        }
+    }
+
     public long getDir(String path, long revision, final SVNProperties properties, final ISVNDirEntryHandler handler) throws SVNException {
         return getDir(path, revision, properties, SVNDirEntry.DIRENT_ALL, handler);
     }
@@ -776,25 +907,77 @@ public class DAVRepository extends SVNRepository {
                     throw e;
                 }
             }
-            DAVElement[] elements = null;
-            Map propsMap = new SVNHashMap();
-            HTTPStatus status = DAVUtil.getProperties(connection, path, 0, null, elements, propsMap);
-            if (status.getError() != null) {
-                if (status.getError().getErrorCode() == SVNErrorCode.FS_NOT_FOUND) {
-                    return null;
+            return info(connection, fullPath, path);
+        } finally {
+            closeConnection();
+        }
+    }
+
+    public void info(Collection<String> paths, long revision, ISVNPathEntryHandler handler) throws SVNException {
+        try {
+            openConnection();
+            DAVConnection connection = getConnection();
+            // the baseline is resolved once for all paths, each entry then takes
+            // a single PROPFIND on the same connection.
+            DAVBaselineInfo baseline = revision >= 0 ? getRootBaselineInfo(connection, revision) : null;
+            for (String path : paths) {
+                String fullPath = SVNEncodingUtil.uriEncode(doGetFullPath(path));
+                SVNDirEntry entry;
+                try {
+                    entry = info(connection, fullPath, baseline != null ? getBaselineResourcePath(baseline, path) : fullPath);
+                } catch (SVNException e) {
+                    if (e.getErrorMessage() == null || e.getErrorMessage().getErrorCode() != SVNErrorCode.FS_NOT_FOUND) {
+                        throw e;
+                    }
+                    entry = null;
                 }
-                SVNErrorManager.error(status.getError(), SVNLogType.NETWORK);
-            }
-            if (!propsMap.isEmpty()) {
-                DAVProperties props = (DAVProperties) propsMap.values().iterator().next();
-                return createDirEntry(fullPath, props);
+                handler.handlePathEntry(path, entry);
             }
         } finally {
             closeConnection();
         }
+    }
+
+    private SVNDirEntry info(DAVConnection connection, String fullPath, String path) throws SVNException {
+        DAVElement[] elements = null;
+        Map propsMap = new SVNHashMap();
+        HTTPStatus status = DAVUtil.getProperties(connection, path, 0, null, elements, propsMap);
+        if (status.getError() != null) {
+            if (status.getError().getErrorCode() == SVNErrorCode.FS_NOT_FOUND) {
+                return null;
+            }
+            SVNErrorManager.error(status.getError(), SVNLogType.NETWORK);
+        }
+        if (!propsMap.isEmpty()) {
+            DAVProperties props = (DAVProperties) propsMap.values().iterator().next();
+            return createDirEntry(fullPath, props);
+        }
         return null;
     }
 
+    private DAVBaselineInfo getRootBaselineInfo(DAVConnection connection, long revision) throws SVNException {
+        connection.fetchRepositoryRoot(this);
+        return DAVUtil.getStableURL(connection, this, myRepositoryRoot.getURIEncodedPath(), revision, false, true, null);
+    }
+
+    private String getBaselineResourcePath(DAVBaselineInfo rootBaseline, String path) throws SVNException {
+        String fullPath = SVNEncodingUtil.uriEncode(doGetFullPath(path));
+        String relativePath = SVNPathUtil.getPathAsChild(myRepositoryRoot.getURIEncodedPath(), fullPath);
+        String rootPath = SVNPathUtil.append(rootBaseline.baselineBase, rootBaseline.baselinePath);
+        return relativePath != null ? SVNPathUtil.append(rootPath, relativePath) : rootPath;
+    }
+
+    private void setFileProperties(DAVProperties props, SVNProperties properties, long fileRevision) throws SVNException {
+        DAVUtil.filterProperties(props, properties);
+        for (Iterator names = props.getProperties().keySet().iterator(); names.hasNext();) {
+            DAVElement property = (DAVElement) names.next();
+            DAVUtil.setSpecialWCProperties(properties, property, props.getPropertyValue(property), false);
+        }
+        if (fileRevision >= 0) {
+            properties.put(SVNProperty.REVISION, Long.toString(fileRevision));
+        }
+    }
+
     public void closeSession() {
         lock(true);
         try {
@@ -850,13 +1033,13 @@ public class DAVRepository extends SVNRepository {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_ILLEGAL_URL, "URL could not be NULL");
             SVNErrorManager.error(err, SVNLogType.NETWORK);
         }
-        runReport(getLocation(), revision, target, url.toString(), depth, true, false, true, false, true, true,
+        runReport(getLocation(), revision, target, url.toString(), depth, true, false, true, false, !isParallelFetchEnabled(), true,
                 false, null, reporter, editor);
     }
 
     public void update(long revision, String target, SVNDepth depth, boolean sendCopyFromArgs,
             ISVNReporterBaton reporter, ISVNEditor editor) throws SVNException {
-        runReport(getLocation(), revision, target, null, depth, false, false, true, sendCopyFromArgs, true,
+        runReport(getLocation(), revision, target, null, depth, false, false, true, sendCopyFromArgs, !isParallelFetchEnabled(),
                 false, false, null, reporter, editor);
     }
 
@@ -1348,6 +1531,9 @@ public class DAVRepository extends SVNRepository {
                     resourceWalk, fetchContents, sendCopyFromArgs, sendAll, reporter);
             handler = new DAVEditorHandler(myConnectionFactory, this, editor, lockTokens, fetchContents,
                     target != null && !"".equals(target), workingCopyContentMediator);
+            if (!sendAll && fetchContents) {
+                handler.setFetchConnectionsCount(ourFetchConnectionsCount);
+            }
 
             String reportTarget;
             try {
@@ -1370,6 +1556,10 @@ public class DAVRepository extends SVNRepository {
         }
     }
 
+    private static boolean isParallelFetchEnabled() {
+        return ourFetchConnectionsCount > 1;
+    }
+
     private String getReportTarget(DAVConnection connection) throws SVNException {
         if (isHttpV2Enabled()) {
             return connection.getMeResource();
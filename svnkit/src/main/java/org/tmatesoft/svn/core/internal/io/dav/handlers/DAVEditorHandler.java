@@ -32,6 +32,7 @@ import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryUtil;
 import org.tmatesoft.svn.core.internal.util.SVNEncodingUtil;
 import org.tmatesoft.svn.core.internal.util.SVNHashMap;
 import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.internal.util.SVNSpillBuffer;
 import org.tmatesoft.svn.core.internal.util.SVNXMLUtil;
 import org.tmatesoft.svn.core.internal.wc.IOExceptionWrapper;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
@@ -43,11 +44,13 @@ import org.tmatesoft.svn.core.wc2.SvnChecksum;
 import org.tmatesoft.svn.util.SVNLogType;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Map;
 import java.util.Stack;
 
@@ -197,6 +200,9 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
     protected static final String PATH_ATTR = "path";
     protected static final String SHA1_CHECKSUM_ATTR = "sha1-checksum";
 
+    private static final long EVENT_SIZE = 64;
+    private static final long DEFAULT_RECORDED_REPORT_SIZE = Long.getLong("svnkit.http.parallelFetch.reportMemory", 4 * 1024 * 1024).longValue();
+
     protected ISVNEditor myEditor;
     protected String myPath;
     protected String myPropertyName;
@@ -223,6 +229,11 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
     private String mySha1Checksum;
     private ISVNWorkingCopyContentMediator myWorkingCopyContentMediator;
 
+    private int myFetchConnectionsCount;
+    private long myMaxRecordedReportSize = DEFAULT_RECORDED_REPORT_SIZE;
+    private DAVParallelFetcher myFetcher;
+    private ReportScanner myScanner;
+
     public DAVEditorHandler(IHTTPConnectionFactory connectionFactory, DAVRepository owner, ISVNEditor editor, 
             Map lockTokens, boolean fetchContent, boolean hasTarget, ISVNWorkingCopyContentMediator workingCopyContentMediator) {
         myConnectionFactory = connectionFactory;
@@ -251,7 +262,36 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
         myVersionURLs = new SVNHashMap();
     }
 
+    /**
+     * Makes this handler fetch file contents and properties over <code>connectionsCount</code>
+     * additional connections when the server does not send them within the report. In this
+     * mode the report is read ahead of the editor drive, so that contents of the following
+     * files are being fetched while the editor receives the current one.
+     *
+     * @param connectionsCount  number of connections, values less than 2 disable parallel fetching
+     */
+    public void setFetchConnectionsCount(int connectionsCount) {
+        myFetchConnectionsCount = connectionsCount;
+    }
+
+    /**
+     * Sets the approximate amount of memory the report read ahead of the editor drive
+     * may take when contents are fetched in parallel. Once the recorded part of the report
+     * reaches it, that part is passed to the editor before the rest is read. Defaults to
+     * the value of the <code>svnkit.http.parallelFetch.reportMemory</code> system property,
+     * 4 MB if it is not set.
+     *
+     * @param size  size in bytes
+     */
+    public void setMaxRecordedReportSize(long size) {
+        myMaxRecordedReportSize = size;
+    }
+
     public void closeConnection() {
+        if (myFetcher != null) {
+            myFetcher.close();
+            myFetcher = null;
+        }
         if (myConnection != null) {
             myConnection.close();
             myConnection = null;
@@ -259,6 +299,13 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
     }
     
     protected void startElement(DAVElement parent, DAVElement element, Attributes attrs) throws SVNException {
+        if (myScanner != null) {
+            myScanner.startElement(parent, element, attrs);
+            if (myScanner.getRecordedSize() >= myMaxRecordedReportSize) {
+                replayRecordedReport(false);
+            }
+            return;
+        }
         if (element == UPDATE_REPORT) {
             String inlineProps = attrs.getValue(INLINE_PROPS_ATTR);
             if (inlineProps != null && Boolean.valueOf(inlineProps).booleanValue()) {
@@ -269,6 +316,10 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
                 myIsReceiveAll = true;
                 myIsAddPropsIncluded = true;
             }
+            if (!myIsReceiveAll && myIsFetchContent && myFetchConnectionsCount > 1 && myWorkingCopyContentMediator == null) {
+                myFetcher = new DAVParallelFetcher(myConnectionFactory, myOwner, myFetchConnectionsCount);
+                myScanner = new ReportScanner();
+            }
         } else if (element == TARGET_REVISION) {
             long revision = -1;
             try {
@@ -350,8 +401,12 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
             String bcURL = attrs.getValue(BC_URL_ATTR);
             if (!myIsReceiveAll && bcURL != null && !myIsAddPropsIncluded) {
                 DAVElement[] elements = null;
-                Map propsMap = new SVNHashMap();
-                DAVUtil.getProperties(getConnection(), DAVUtil.getPathFromURL(bcURL), 1, null, elements, propsMap);
+                String bcPath = DAVUtil.getPathFromURL(bcURL);
+                Map propsMap = myFetcher != null ? myFetcher.takeChildrenProperties(bcPath) : null;
+                if (propsMap == null) {
+                    propsMap = new SVNHashMap();
+                    DAVUtil.getProperties(getConnection(), bcPath, 1, null, elements, propsMap);
+                }
                 
                 if (!propsMap.isEmpty()) {
                     dirInfo.myChildren = new SVNHashMap();
@@ -486,6 +541,16 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
     }
 
     protected void endElement(DAVElement parent, DAVElement element, StringBuffer cdata) throws SVNException {
+        if (myScanner != null) {
+            if (element != UPDATE_REPORT) {
+                myScanner.endElement(parent, element, cdata);
+                if (myScanner.getRecordedSize() >= myMaxRecordedReportSize) {
+                    replayRecordedReport(false);
+                }
+                return;
+            }
+            replayRecordedReport(true);
+        }
         if (element == RESOURCE) {
             myIsInResource = false;
         } else if (element == UPDATE_REPORT) {
@@ -610,11 +675,21 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
                 if (myWorkingCopyContentMediator != null) {
                     inputStream = myWorkingCopyContentMediator.getContentAsStream(new SvnChecksum(SvnChecksum.Kind.sha1, this.mySha1Checksum));
                 }
+                SVNSpillBuffer content = null;
+                if (inputStream == null && myFetcher != null) {
+                    content = myFetcher.takeContent(myHref, deltaBaseVersionURL);
+                    if (content != null) {
+                        inputStream = content.createInputStream();
+                    }
+                }
                 if (inputStream != null) {
                     try {
                         FSRepositoryUtil.copy(inputStream, osWrapper, null);
                     } finally {
                         SVNFileUtil.closeFile(osWrapper);
+                        if (content != null) {
+                            content.close();
+                        }
                     }
                 } else {
                     DAVConnection connection = getConnection();
@@ -655,6 +730,9 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
             DirInfo topDirInfo = (DirInfo) myDirs.peek();
             DAVProperties props = topDirInfo.myChildren != null ? (DAVProperties ) topDirInfo.myChildren.get(myHref) 
                     : null;
+            if (props == null && myFetcher != null) {
+                props = myFetcher.takeProperties(myHref);
+            }
             if (props == null) {
                 props = DAVUtil.getResourceProperties(getConnection(), myHref, null, null);
             }
@@ -667,6 +745,9 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
 
             DAVProperties props = topDirInfo.myChildren != null ? (DAVProperties ) topDirInfo.myChildren.get(topDirInfo.myVSNURL) 
                     : null;
+            if (props == null && myFetcher != null) {
+                props = myFetcher.takeProperties(topDirInfo.myVSNURL);
+            }
             if (props == null) {
                 props = DAVUtil.getResourceProperties(getConnection(), topDirInfo.myVSNURL, null, null);
             }
@@ -712,6 +793,15 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
         return myConnection;
     }
     
+    private void replayRecordedReport(boolean complete) throws SVNException {
+        ReportScanner scanner = myScanner;
+        myScanner = null;
+        scanner.replay();
+        if (!complete) {
+            myScanner = scanner;
+        }
+    }
+
     private static String computeWCPropertyName(DAVElement element) {
         return SVNProperty.SVN_ENTRY_PREFIX + element.getName();
     }
@@ -721,6 +811,139 @@ public class DAVEditorHandler extends BasicDAVDeltaHandler {
         private Map myChildren;
         private String myVSNURL;
     }
+
+    /**
+     * Records the report and schedules the requests the editor drive will need,
+     * following the same rules as the handler does when it processes the report.
+     * The recorded events may be replayed several times, each replay passes the events
+     * recorded since the previous one.
+     */
+    private class ReportScanner {
+
+        private LinkedList<ReportEvent> myEvents = new LinkedList<ReportEvent>();
+        private Map myScanVersionURLs = new SVNHashMap();
+        private Stack<ScanDirInfo> myScanDirs = new Stack<ScanDirInfo>();
+        private String myScanPath;
+        private String myScanHref;
+        private String myScanWCPath;
+        private boolean myIsScanInResource;
+        private boolean myIsScanDirectory;
+        private boolean myIsScanFetchProps;
+        private long myRecordedSize;
+
+        public long getRecordedSize() {
+            return myRecordedSize;
+        }
+
+        public void startElement(DAVElement parent, DAVElement element, Attributes attrs) throws SVNException {
+            myEvents.add(new ReportEvent(parent, element, new AttributesImpl(attrs), null));
+            myRecordedSize += EVENT_SIZE;
+            for (int i = 0; i < attrs.getLength(); i++) {
+                myRecordedSize += EVENT_SIZE + 2 * attrs.getValue(i).length();
+            }
+
+            if (element == OPEN_DIRECTORY) {
+                myScanPath = myScanPath == null ? "" : SVNPathUtil.append(myScanPath, attrs.getValue(NAME_ATTR));
+                myIsScanDirectory = true;
+                myScanDirs.push(new ScanDirInfo());
+            } else if (element == ADD_DIRECTORY) {
+                myScanPath = SVNPathUtil.append(myScanPath, attrs.getValue(NAME_ATTR));
+                myIsScanDirectory = true;
+                ScanDirInfo dirInfo = new ScanDirInfo();
+                dirInfo.myIsFetchProps = !myIsAddPropsIncluded;
+                myScanDirs.push(dirInfo);
+                String bcURL = attrs.getValue(BC_URL_ATTR);
+                if (bcURL != null && !myIsAddPropsIncluded) {
+                    myFetcher.scheduleChildrenProperties(DAVUtil.getPathFromURL(bcURL));
+                    dirInfo.myHasChildren = true;
+                }
+            } else if (element == OPEN_FILE || element == ADD_FILE) {
+                myScanPath = SVNPathUtil.append(myScanPath, attrs.getValue(NAME_ATTR));
+                myIsScanDirectory = false;
+                myIsScanFetchProps = element == ADD_FILE && !myIsAddPropsIncluded;
+            } else if (element == FETCH_PROPS) {
+                if (myIsScanDirectory) {
+                    if (!myScanDirs.isEmpty()) {
+                        myScanDirs.peek().myIsFetchProps = true;
+                    }
+                } else {
+                    myIsScanFetchProps = true;
+                }
+            } else if (element == FETCH_FILE) {
+                myFetcher.scheduleContent(myScanHref, (String) myScanVersionURLs.get(myScanPath));
+            } else if (element == RESOURCE) {
+                myScanWCPath = attrs.getValue(PATH_ATTR);
+                myIsScanInResource = true;
+            }
+        }
+
+        public void endElement(DAVElement parent, DAVElement element, StringBuffer cdata) throws SVNException {
+            myEvents.add(new ReportEvent(parent, element, null, cdata != null ? new StringBuffer(cdata) : null));
+            myRecordedSize += EVENT_SIZE + (cdata != null ? 2 * cdata.length() : 0);
+
+            if (element == RESOURCE) {
+                myIsScanInResource = false;
+            } else if (element == DAVElement.HREF && cdata != null) {
+                myScanHref = cdata.toString();
+                if (myIsScanInResource) {
+                    myScanVersionURLs.put(myScanWCPath, myScanHref);
+                } else if (myIsScanDirectory && !myScanDirs.isEmpty()) {
+                    myScanDirs.peek().myVSNURL = myScanHref;
+                }
+            } else if (element == ADD_FILE || element == OPEN_FILE) {
+                if (element == ADD_FILE) {
+                    myFetcher.scheduleContent(myScanHref, (String) myScanVersionURLs.get(myScanPath));
+                }
+                if (myIsScanFetchProps && !myScanDirs.isEmpty() && !myScanDirs.peek().myHasChildren) {
+                    myFetcher.scheduleProperties(myScanHref);
+                }
+                myScanPath = SVNPathUtil.removeTail(myScanPath);
+                myIsScanDirectory = true;
+            } else if (element == OPEN_DIRECTORY || element == ADD_DIRECTORY) {
+                if (!myScanDirs.isEmpty()) {
+                    ScanDirInfo dirInfo = myScanDirs.pop();
+                    if ((!myScanDirs.isEmpty() || !myHasTarget) && dirInfo.myIsFetchProps && !dirInfo.myHasChildren) {
+                        myFetcher.scheduleProperties(dirInfo.myVSNURL);
+                    }
+                }
+                myScanPath = SVNPathUtil.removeTail(myScanPath);
+            }
+        }
+
+        public void replay() throws SVNException {
+            LinkedList<ReportEvent> events = myEvents;
+            myEvents = new LinkedList<ReportEvent>();
+            myRecordedSize = 0;
+            while (!events.isEmpty()) {
+                ReportEvent event = events.removeFirst();
+                if (event.myAttributes != null) {
+                    DAVEditorHandler.this.startElement(event.myParent, event.myElement, event.myAttributes);
+                } else {
+                    DAVEditorHandler.this.endElement(event.myParent, event.myElement, event.myCData);
+                }
+            }
+        }
+    }
+
+    private static class ScanDirInfo {
+        private boolean myIsFetchProps;
+        private boolean myHasChildren;
+        private String myVSNURL;
+    }
+
+    private static class ReportEvent {
+        private final DAVElement myParent;
+        private final DAVElement myElement;
+        private final Attributes myAttributes;
+        private final StringBuffer myCData;
+
+        public ReportEvent(DAVElement parent, DAVElement element, Attributes attributes, StringBuffer cdata) {
+            myParent = parent;
+            myElement = element;
+            myAttributes = attributes;
+            myCData = cdata;
+        }
+    }
     
     private class DeltaOutputStreamWrapper extends OutputStream {
         private boolean myIsDelta;
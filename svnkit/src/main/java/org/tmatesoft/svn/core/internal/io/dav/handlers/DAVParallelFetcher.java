@@ -0,0 +1,332 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.dav.handlers;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.dav.DAVConnection;
+import org.tmatesoft.svn.core.internal.io.dav.DAVElement;
+import org.tmatesoft.svn.core.internal.io.dav.DAVProperties;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepository;
+import org.tmatesoft.svn.core.internal.io.dav.DAVUtil;
+import org.tmatesoft.svn.core.internal.io.dav.http.IHTTPConnectionFactory;
+import org.tmatesoft.svn.core.internal.util.SVNHashMap;
+import org.tmatesoft.svn.core.internal.util.SVNSpillBuffer;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Fetches file contents and properties for an update report received without
+ * <code>send-all</code> over several connections at once.
+ *
+ * <p/>
+ * Requests are scheduled in the order the report mentions them and are taken
+ * back in the same order by the thread that drives the editor. At most
+ * {@link #WINDOW_PER_CONNECTION} results per connection are kept ahead of the
+ * editor; file contents above {@link #CONTENT_MEMORY_SIZE} bytes are spilled to
+ * a temporary file. A request that the editor asks for but that was not scheduled
+ * or not started yet is not waited for, the caller is expected to run it itself.
+ *
+ * @author TMate Software Ltd.
+ * @version 1.3
+ */
+public class DAVParallelFetcher {
+
+    private static final int WINDOW_PER_CONNECTION = 4;
+    private static final int CONTENT_BLOCK_SIZE = 8 * 1024;
+    private static final long CONTENT_MEMORY_SIZE = 1024 * 1024;
+
+    private static final int CONTENT = 0;
+    private static final int PROPERTIES = 1;
+    private static final int CHILDREN_PROPERTIES = 2;
+
+    private final IHTTPConnectionFactory myConnectionFactory;
+    private final DAVRepository myOwner;
+    private final int myConnectionsCount;
+    private final int myWindowSize;
+
+    private final LinkedList<FetchJob> myScheduledJobs;
+    private final LinkedList<FetchJob> myPendingJobs;
+    private int myActiveJobsCount;
+    private Worker[] myWorkers;
+    private boolean myIsClosed;
+
+    public DAVParallelFetcher(IHTTPConnectionFactory connectionFactory, DAVRepository owner, int connectionsCount) {
+        myConnectionFactory = connectionFactory;
+        myOwner = owner;
+        myConnectionsCount = connectionsCount;
+        myWindowSize = connectionsCount * WINDOW_PER_CONNECTION;
+        myScheduledJobs = new LinkedList<FetchJob>();
+        myPendingJobs = new LinkedList<FetchJob>();
+    }
+
+    public void scheduleContent(String href, String deltaBaseVersionURL) throws SVNException {
+        schedule(new FetchJob(CONTENT, href, deltaBaseVersionURL));
+    }
+
+    public void scheduleProperties(String href) throws SVNException {
+        schedule(new FetchJob(PROPERTIES, href, null));
+    }
+
+    public void scheduleChildrenProperties(String path) throws SVNException {
+        schedule(new FetchJob(CHILDREN_PROPERTIES, path, null));
+    }
+
+    /**
+     * Returns the fetched contents of <code>href</code> or <code>null</code> when
+     * they should be fetched by the caller. The caller closes the returned buffer.
+     */
+    public SVNSpillBuffer takeContent(String href, String deltaBaseVersionURL) throws SVNException {
+        FetchJob job = take(CONTENT, href, deltaBaseVersionURL);
+        return job != null ? job.myContent : null;
+    }
+
+    public DAVProperties takeProperties(String href) throws SVNException {
+        FetchJob job = take(PROPERTIES, href, null);
+        return job != null ? job.myProperties : null;
+    }
+
+    public Map takeChildrenProperties(String path) throws SVNException {
+        FetchJob job = take(CHILDREN_PROPERTIES, path, null);
+        return job != null ? job.myChildrenProperties : null;
+    }
+
+    /**
+     * Discards all results that were not taken. Workers close their connections
+     * themselves once the request they run, if any, is complete.
+     */
+    public void close() {
+        synchronized (this) {
+            if (myIsClosed) {
+                return;
+            }
+            myIsClosed = true;
+            myWorkers = null;
+            for (Iterator<FetchJob> jobs = myScheduledJobs.iterator(); jobs.hasNext();) {
+                discard(jobs.next());
+            }
+            myScheduledJobs.clear();
+            myPendingJobs.clear();
+            notifyAll();
+        }
+    }
+
+    private void schedule(FetchJob job) throws SVNException {
+        if (job.myPath == null) {
+            return;
+        }
+        start();
+        synchronized (this) {
+            if (myIsClosed) {
+                return;
+            }
+            myScheduledJobs.add(job);
+            myPendingJobs.add(job);
+            notifyAll();
+        }
+    }
+
+    private FetchJob take(int kind, String path, String deltaBaseVersionURL) throws SVNException {
+        FetchJob job = null;
+        synchronized (this) {
+            while (!myScheduledJobs.isEmpty()) {
+                FetchJob next = myScheduledJobs.getFirst();
+                if (next.matches(kind, path, deltaBaseVersionURL)) {
+                    job = next;
+                    break;
+                }
+                myScheduledJobs.removeFirst();
+                discard(next);
+            }
+            if (job == null) {
+                return null;
+            }
+            myScheduledJobs.removeFirst();
+            if (myPendingJobs.remove(job)) {
+                return null;
+            }
+            try {
+                while (!job.myIsDone && !myIsClosed) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                SVNErrorManager.cancel("Fetching of '" + path + "' was interrupted", SVNLogType.NETWORK);
+            }
+            if (!job.myIsDone) {
+                return null;
+            }
+            myActiveJobsCount--;
+            notifyAll();
+        }
+        if (job.myError != null) {
+            job.dispose();
+            throw job.myError;
+        }
+        return job;
+    }
+
+    private void discard(FetchJob job) {
+        if (myPendingJobs.remove(job)) {
+            return;
+        }
+        if (job.myIsDone) {
+            job.dispose();
+            myActiveJobsCount--;
+            notifyAll();
+        } else {
+            job.myIsDiscarded = true;
+        }
+    }
+
+    private void start() throws SVNException {
+        if (myWorkers != null || myIsClosed) {
+            return;
+        }
+        // connections are opened one by one on the caller's thread, so that
+        // authentication happens sequentially and with the caller's context.
+        Worker[] workers = new Worker[myConnectionsCount];
+        try {
+            for (int i = 0; i < workers.length; i++) {
+                DAVConnection connection = new DAVConnection(myConnectionFactory, myOwner);
+                workers[i] = new Worker(connection, i);
+                connection.open(myOwner);
+            }
+        } catch (SVNException e) {
+            for (int i = 0; i < workers.length; i++) {
+                if (workers[i] != null) {
+                    workers[i].myConnection.close();
+                }
+            }
+            throw e;
+        }
+        synchronized (this) {
+            myWorkers = workers;
+        }
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].start();
+        }
+    }
+
+    private FetchJob nextJob() throws InterruptedException {
+        synchronized (this) {
+            while (!myIsClosed && (myPendingJobs.isEmpty() || myActiveJobsCount >= myWindowSize)) {
+                wait();
+            }
+            if (myIsClosed) {
+                return null;
+            }
+            myActiveJobsCount++;
+            return myPendingJobs.removeFirst();
+        }
+    }
+
+    private void jobDone(FetchJob job) {
+        synchronized (this) {
+            job.myIsDone = true;
+            if (job.myIsDiscarded || myIsClosed) {
+                job.dispose();
+                myActiveJobsCount--;
+            }
+            notifyAll();
+        }
+    }
+
+    private class Worker extends Thread {
+
+        private final DAVConnection myConnection;
+
+        public Worker(DAVConnection connection, int index) {
+            super("svnkit-dav-fetch-" + index);
+            setDaemon(true);
+            myConnection = connection;
+        }
+
+        public void run() {
+            try {
+                while (true) {
+                    FetchJob job;
+                    try {
+                        job = nextJob();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (job == null) {
+                        return;
+                    }
+                    try {
+                        job.run(myConnection);
+                    } catch (SVNException e) {
+                        job.myError = e;
+                    } catch (RuntimeException e) {
+                        SVNDebugLog.getDefaultLog().logFine(SVNLogType.NETWORK, e);
+                        job.myError = new SVNException(SVNErrorMessage.create(SVNErrorCode.UNKNOWN, e), e);
+                    }
+                    jobDone(job);
+                }
+            } finally {
+                myConnection.close();
+            }
+        }
+    }
+
+    private static class FetchJob {
+
+        private final int myKind;
+        private final String myPath;
+        private final String myDeltaBaseVersionURL;
+
+        private boolean myIsDone;
+        private boolean myIsDiscarded;
+        private SVNException myError;
+        private SVNSpillBuffer myContent;
+        private DAVProperties myProperties;
+        private Map myChildrenProperties;
+
+        public FetchJob(int kind, String path, String deltaBaseVersionURL) {
+            myKind = kind;
+            myPath = path;
+            myDeltaBaseVersionURL = deltaBaseVersionURL;
+        }
+
+        public boolean matches(int kind, String path, String deltaBaseVersionURL) {
+            return myKind == kind && myPath.equals(path) &&
+                    (myDeltaBaseVersionURL == null ? deltaBaseVersionURL == null : myDeltaBaseVersionURL.equals(deltaBaseVersionURL));
+        }
+
+        public void run(DAVConnection connection) throws SVNException {
+            if (myKind == CONTENT) {
+                final SVNSpillBuffer content = new SVNSpillBuffer(CONTENT_BLOCK_SIZE, CONTENT_MEMORY_SIZE);
+                myContent = content;
+                connection.doGet(myPath, myDeltaBaseVersionURL, content.createOutputStream());
+            } else if (myKind == PROPERTIES) {
+                myProperties = DAVUtil.getResourceProperties(connection, myPath, null, null);
+            } else {
+                Map properties = new SVNHashMap();
+                DAVUtil.getProperties(connection, myPath, 1, null, (DAVElement[]) null, properties);
+                myChildrenProperties = properties;
+            }
+        }
+
+        public void dispose() {
+            if (myContent != null) {
+                myContent.close();
+                myContent = null;
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ package org.tmatesoft.svn.core.internal.io.dav.http;
 
 import org.tmatesoft.svn.core.*;
 import org.tmatesoft.svn.core.auth.*;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepository;
 import org.tmatesoft.svn.core.internal.io.dav.handlers.DAVErrorHandler;
 import org.tmatesoft.svn.core.internal.util.ChunkedInputStream;
 import org.tmatesoft.svn.core.internal.util.FixedSizeInputStream;
@@ -36,6 +37,7 @@ import java.net.*;
 import java.text.ParseException;
 import java.util.*;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @version 1.3
@@ -53,6 +55,7 @@ public class HTTPConnection implements IHTTPConnection {
 
     private static final int requestAttempts;
     private static final int DEFAULT_HTTP_TIMEOUT = 3600*1000;
+    private static final long PIPELINE_MEMORY_SIZE = 4 * 1024 * 1024;
 
     static {
         String attemptsString = System.getProperty("svnkit.http.requestAttempts", "1" );
@@ -90,12 +93,22 @@ public class HTTPConnection implements IHTTPConnection {
     private String myCharset;
     private boolean myIsSpoolAll;
     private File mySpoolDirectory;
+    private boolean myIsPipelineResponse;
     private long myNextRequestTimeout;
     private int myRequestCount;
     private HTTPStatus myLastStatus;
+    private HTTPConnectionPool myPool;
+    private Object myPoolKey;
+    private InputStream myResponseBody;
+    private boolean myIsRequestCompressionRejected;
 
     public HTTPConnection(SVNRepository repository, String charset, File spoolDirectory, boolean spoolAll) throws SVNException {
+        this(repository, charset, spoolDirectory, spoolAll, null);
+    }
+
+    public HTTPConnection(SVNRepository repository, String charset, File spoolDirectory, boolean spoolAll, HTTPConnectionPool pool) throws SVNException {
         myRepository = repository;
+        myPool = pool;
         myCharset = charset;
         myHost = repository.getLocation().setPath("", false);
         myIsSecured = "https".equalsIgnoreCase(myHost.getProtocol());
@@ -117,6 +130,16 @@ public class HTTPConnection implements IHTTPConnection {
 
 	    if (mySocket == null || SVNSocketFactory.isSocketStale(mySocket)) {
             close();
+            if (myPool != null && (proxyManager == null || proxyManager.getProxyHost() == null)) {
+                myPoolKey = myPool.createKey(location.setPath("", false), myRepository.getAuthenticationManager());
+                mySocket = myPool.lease(myPoolKey);
+                if (mySocket != null) {
+                    myIsProxied = false;
+                    myProxyAuthentication = null;
+                    myNextRequestTimeout = Long.MAX_VALUE;
+                    return;
+                }
+            }
             String host = location.getHost();
             int port = location.getPort();
 
@@ -349,9 +372,43 @@ public class HTTPConnection implements IHTTPConnection {
                 buffer = body.toString().getBytes();
             }
         }
+        int threshold = DAVRepository.getRequestCompressionThreshold();
+        if (buffer != null && threshold >= 0 && buffer.length > threshold && !myIsRequestCompressionRejected) {
+            HTTPHeader compressedHeader = new HTTPHeader();
+            if (header != null) {
+                for (Map.Entry<String, List<String>> entry : header.getRawHeaders().entrySet()) {
+                    for (String value : entry.getValue()) {
+                        compressedHeader.addHeaderValue(entry.getKey(), value);
+                    }
+                }
+            }
+            compressedHeader.setHeaderValue(HTTPHeader.CONTENT_ENCODING_HEADER, "gzip");
+            try {
+                return request(method, path, compressedHeader, new ByteArrayInputStream(gzip(buffer)), ok1, ok2, dst, handler, context);
+            } catch (SVNException e) {
+                if (myLastStatus == null || myLastStatus.getCode() != 415) {
+                    throw e;
+                }
+                // the server does not accept compressed bodies, send this and further ones as is.
+                myIsRequestCompressionRejected = true;
+            }
+        }
         return request(method, path, header, buffer != null ? new ByteArrayInputStream(buffer) : null, ok1, ok2, dst, handler, context);
     }
 
+    private static byte[] gzip(byte[] buffer) throws SVNException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(buffer.length / 4);
+        try {
+            GZIPOutputStream os = new GZIPOutputStream(compressed);
+            os.write(buffer);
+            os.close();
+        } catch (IOException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR, e.getMessage());
+            SVNErrorManager.error(err, e, SVNLogType.NETWORK);
+        }
+        return compressed.toByteArray();
+    }
+
     public HTTPStatus request(String method, String path, HTTPHeader header, InputStream body, int ok1, int ok2, OutputStream dst, DefaultHandler handler) throws SVNException {
         return request(method, path, header, body, ok1, ok2, dst, handler, null);
     }
@@ -448,6 +505,7 @@ public class HTTPConnection implements IHTTPConnection {
                       }
                     }
                     try {
+                        myResponseBody = null;
                         request.dispatch(method, path, header, ok1, ok2, context);
                         break;
                     } catch (EOFException pe) {
@@ -837,8 +895,12 @@ public class HTTPConnection implements IHTTPConnection {
         InputStream is = null;
         SpoolFile tmpFile = null;
         SVNErrorMessage err = null;
+        boolean pipeline = myIsPipelineResponse;
         try {
-            if (myIsSpoolResponse || myIsSpoolAll) {
+            if (pipeline) {
+                is = createInputStream(request.getResponseHeader(), getInputStream());
+                err = readDataPipelined(is, method, path, handler);
+            } else if (myIsSpoolResponse || myIsSpoolAll) {
                 OutputStream dst = null;
                 try {
                     tmpFile = new SpoolFile(mySpoolDirectory);
@@ -859,12 +921,14 @@ public class HTTPConnection implements IHTTPConnection {
             } else {
                 is = createInputStream(request.getResponseHeader(), getInputStream());
             }
-            // this will not close is stream.
-            err = readData(is, method, path, handler);
+            if (!pipeline) {
+                // this will not close is stream.
+                err = readData(is, method, path, handler);
+            }
         } catch (IOException e) {
             throw e;
         } finally {
-            if (myIsSpoolResponse || myIsSpoolAll) {
+            if (!pipeline && (myIsSpoolResponse || myIsSpoolAll)) {
                 // always close spooled stream.
                 SVNFileUtil.closeFile(is);
             } else if (err == null && !hasToCloseConnection(request.getResponseHeader())) {
@@ -883,6 +947,67 @@ public class HTTPConnection implements IHTTPConnection {
         return err;
     }
 
+    private SVNErrorMessage readDataPipelined(final InputStream is, final String method, final String path, DefaultHandler handler) throws IOException {
+        final XMLEventPipe pipe = new XMLEventPipe(PIPELINE_MEMORY_SIZE, mySpoolDirectory);
+        Thread reader = new Thread(new Runnable() {
+            public void run() {
+                SVNErrorMessage err = null;
+                Throwable failure = null;
+                try {
+                    err = readData(is, method, path, pipe);
+                } catch (Throwable th) {
+                    failure = th;
+                } finally {
+                    pipe.finish(err, failure);
+                }
+            }
+        }, "svnkit-http-response-reader");
+        reader.setDaemon(true);
+        reader.start();
+        boolean completed = false;
+        boolean closeSocket = false;
+        try {
+            SVNErrorMessage err = pipe.replay(handler);
+            completed = true;
+            return err;
+        } catch (SAXException e) {
+            if (e.getException() instanceof SVNException) {
+                return ((SVNException) e.getException()).getErrorMessage();
+            } else if (e.getCause() instanceof SVNException) {
+                return ((SVNException) e.getCause()).getErrorMessage();
+            }
+            return SVNErrorMessage.create(SVNErrorCode.RA_DAV_REQUEST_FAILED, "Processing {0} request response failed: {1} ({2}) ",  new Object[] {method, e.getMessage(), path});
+        } finally {
+            if (!completed) {
+                pipe.cancel();
+                closeSocket = !pipe.isFinished() && mySocket != null;
+                if (closeSocket) {
+                    // the reader may be blocked on the socket, the rest of the
+                    // response is not needed.
+                    try {
+                        mySocket.close();
+                    } catch (IOException e) {
+                    }
+                }
+            }
+            boolean interrupted = false;
+            while (reader.isAlive()) {
+                try {
+                    reader.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            pipe.dispose();
+            if (closeSocket) {
+                close();
+            }
+        }
+    }
+
     private SVNErrorMessage readData(InputStream is, String method, String path, DefaultHandler handler) throws FactoryConfigurationError, UnsupportedEncodingException, IOException {
         try {
             if (mySAXParser == null) {
@@ -949,6 +1074,14 @@ public class HTTPConnection implements IHTTPConnection {
         } else {
             clearLastValidAuth();
         }
+        if (mySocket != null && myPoolKey != null && isReusable()) {
+            // the socket goes back to the pool open, closing its streams would close it.
+            myPool.release(myPoolKey, mySocket, myNextRequestTimeout);
+            myPoolKey = null;
+            mySocket = null;
+            myOutputStream = null;
+            myInputStream = null;
+        }
         if (mySocket != null) {
             if (myInputStream != null) {
                 try {
@@ -972,6 +1105,46 @@ public class HTTPConnection implements IHTTPConnection {
             myOutputStream = null;
             myInputStream = null;
         }
+        if (myPoolKey != null) {
+            myPool.release(myPoolKey, null, 0);
+            myPoolKey = null;
+        }
+        myResponseBody = null;
+    }
+
+    private boolean isReusable() {
+        if (!isResponseBodyRead() || mySocket.isClosed()) {
+            return false;
+        }
+        // connection bound authentication must not be passed to other connections.
+        if (myChallengeCredentials != null && !(myChallengeCredentials instanceof HTTPBasicAuthentication || myChallengeCredentials instanceof HTTPDigestAuthentication)) {
+            return false;
+        }
+        try {
+            if (myInputStream != null && myInputStream.available() > 0) {
+                return false;
+            }
+            if (myOutputStream != null) {
+                myOutputStream.flush();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether the body of the last response was read up to its end, as given by
+     * its content length or by the last chunk; otherwise the rest of it may still come
+     * from the socket.
+     */
+    private boolean isResponseBodyRead() {
+        if (myResponseBody instanceof FixedSizeInputStream) {
+            return ((FixedSizeInputStream) myResponseBody).isConsumed();
+        } else if (myResponseBody instanceof ChunkedInputStream) {
+            return ((ChunkedInputStream) myResponseBody).isConsumed();
+        }
+        return false;
     }
 
     private byte[] getBuffer() {
@@ -1014,6 +1187,7 @@ public class HTTPConnection implements IHTTPConnection {
         }
         HTTPHeader header = request != null ? request.getResponseHeader() : null;
         if (hasToCloseConnection(header)) {
+            myResponseBody = null;
             close();
         }
     }
@@ -1037,6 +1211,7 @@ public class HTTPConnection implements IHTTPConnection {
     private InputStream createInputStream(HTTPHeader readHeader, InputStream is) throws IOException {
         if ("chunked".equalsIgnoreCase(readHeader.getFirstHeaderValue(HTTPHeader.TRANSFER_ENCODING_HEADER))) {
             is = new ChunkedInputStream(is, myCharset);
+            myResponseBody = is;
         } else if (readHeader.getFirstHeaderValue(HTTPHeader.CONTENT_LENGTH_HEADER) != null) {
             String lengthStr = readHeader.getFirstHeaderValue(HTTPHeader.CONTENT_LENGTH_HEADER);
             long length = 0;
@@ -1046,6 +1221,7 @@ public class HTTPConnection implements IHTTPConnection {
                 length = 0;
             }
             is = new FixedSizeInputStream(is, length);
+            myResponseBody = is;
         } else if (!hasToCloseConnection(readHeader)) {
             // no content length and no valid transfer-encoding!
             // consider as empty response.
@@ -1151,6 +1327,15 @@ public class HTTPConnection implements IHTTPConnection {
         myIsSpoolAll = spoolAll;
     }
 
+    /**
+     * Makes the next responses be parsed on a separate thread while the handler
+     * processes already parsed parts on the calling thread. Takes precedence
+     * over spooling.
+     */
+    public void setPipelineResponse(boolean pipelineResponse) {
+        myIsPipelineResponse = pipelineResponse;
+    }
+
     public void setSpoolDirectory(File spoolDirectory) {
         mySpoolDirectory = spoolDirectory;
     }
@@ -0,0 +1,404 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.dav.http;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.internal.util.SVNSocketFactory;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Connection factory that shares keep-alive sockets between HTTP connections.
+ *
+ * <p/>
+ * A connection takes a socket from the pool when it connects and gives it back
+ * when it is closed, so that a socket, and the TLS session established on it,
+ * outlives the repository that opened it. Sockets are kept per host, port and
+ * authentication manager; at most <code>maxConnectionsPerHost</code> sockets of
+ * a host are in use at once, a connection that exceeds the limit waits for a
+ * socket up to <code>maxWaitTime</code> milliseconds and then opens one beyond
+ * the limit. Idle sockets are closed after <code>idleTimeout</code> milliseconds
+ * or when the server's keep-alive timeout expires, whichever comes first.
+ *
+ * <p/>
+ * Connections that go through a proxy or authenticate with a connection bound
+ * scheme, like NTLM, do not use the pool.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class HTTPConnectionPool implements IHTTPConnectionFactory {
+
+    private static final int STRIPES_COUNT = 16;
+
+    private final File mySpoolDirectory;
+    private final boolean myIsSpoolAll;
+    private final String myHTTPCharset;
+    private final int myMaxConnectionsPerHost;
+    private final long myIdleTimeout;
+    private final long myMaxWaitTime;
+
+    private final Stripe[] myStripes;
+    private final Timer myEvictionTimer;
+
+    private final AtomicLong myLeasesCount = new AtomicLong();
+    private final AtomicLong myReusedCount = new AtomicLong();
+    private final AtomicLong myWaitsCount = new AtomicLong();
+    private final AtomicLong myWaitTime = new AtomicLong();
+    private final AtomicLong myMaxWaitedTime = new AtomicLong();
+    private final AtomicLong myOverflowsCount = new AtomicLong();
+
+    public HTTPConnectionPool() {
+        this(null, false, null,
+                Integer.getInteger("svnkit.http.pool.maxPerHost", 16).intValue(),
+                Long.getLong("svnkit.http.pool.idleTimeout", 60 * 1000).longValue(),
+                Long.getLong("svnkit.http.pool.maxWait", 10 * 1000).longValue());
+    }
+
+    public HTTPConnectionPool(File spoolDirectory, boolean spoolAll, String httpCharset, int maxConnectionsPerHost, long idleTimeout, long maxWaitTime) {
+        mySpoolDirectory = spoolDirectory;
+        myIsSpoolAll = spoolAll;
+        myHTTPCharset = httpCharset;
+        myMaxConnectionsPerHost = Math.max(1, maxConnectionsPerHost);
+        myIdleTimeout = idleTimeout;
+        myMaxWaitTime = maxWaitTime;
+        myStripes = new Stripe[STRIPES_COUNT];
+        for (int i = 0; i < myStripes.length; i++) {
+            myStripes[i] = new Stripe();
+        }
+        myEvictionTimer = new Timer("svnkit-http-pool-eviction", true);
+        long period = Math.max(1000, idleTimeout / 2);
+        myEvictionTimer.schedule(new TimerTask() {
+            public void run() {
+                closeExpiredConnections();
+            }
+        }, period, period);
+    }
+
+    public IHTTPConnection createHTTPConnection(SVNRepository repository) throws SVNException {
+        String charset = myHTTPCharset != null ? myHTTPCharset : System.getProperty("svnkit.http.encoding", "UTF-8");
+        File spoolLocation = mySpoolDirectory;
+        if (mySpoolDirectory != null && !mySpoolDirectory.isDirectory()) {
+            spoolLocation = null;
+        }
+        return new HTTPConnection(repository, charset, spoolLocation, myIsSpoolAll, this);
+    }
+
+    public boolean useSendAllForDiff(SVNRepository repository) throws SVNException {
+        return false;
+    }
+
+    /**
+     * Returns the number of sockets currently used by connections.
+     */
+    public int getLeasedCount() {
+        int count = 0;
+        for (int i = 0; i < myStripes.length; i++) {
+            synchronized (myStripes[i]) {
+                for (Iterator<HostPool> hosts = myStripes[i].myHosts.values().iterator(); hosts.hasNext();) {
+                    count += hosts.next().myLeasedCount;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of open sockets waiting to be reused.
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i < myStripes.length; i++) {
+            synchronized (myStripes[i]) {
+                for (Iterator<HostPool> hosts = myStripes[i].myHosts.values().iterator(); hosts.hasNext();) {
+                    count += hosts.next().myIdleSockets.size();
+                }
+            }
+        }
+        return count;
+    }
+
+    public long getLeasesCount() {
+        return myLeasesCount.get();
+    }
+
+    /**
+     * Returns the number of leases served with an already open socket.
+     */
+    public long getReusedCount() {
+        return myReusedCount.get();
+    }
+
+    /**
+     * Returns the number of leases that had to wait for a socket to be returned.
+     */
+    public long getWaitsCount() {
+        return myWaitsCount.get();
+    }
+
+    /**
+     * Returns the total time in milliseconds leases spent waiting.
+     */
+    public long getWaitTime() {
+        return myWaitTime.get();
+    }
+
+    public long getMaxWaitTime() {
+        return myMaxWaitedTime.get();
+    }
+
+    /**
+     * Returns the number of sockets opened beyond the per host limit after
+     * waiting for <code>maxWaitTime</code>.
+     */
+    public long getOverflowsCount() {
+        return myOverflowsCount.get();
+    }
+
+    /**
+     * Closes all idle sockets and stops the eviction timer. Sockets in use are
+     * closed when they are returned.
+     */
+    public void dispose() {
+        myEvictionTimer.cancel();
+        for (int i = 0; i < myStripes.length; i++) {
+            LinkedList<IdleSocket> toClose = new LinkedList<IdleSocket>();
+            synchronized (myStripes[i]) {
+                myStripes[i].myIsDisposed = true;
+                for (Iterator<HostPool> hosts = myStripes[i].myHosts.values().iterator(); hosts.hasNext();) {
+                    HostPool host = hosts.next();
+                    toClose.addAll(host.myIdleSockets);
+                    host.myIdleSockets.clear();
+                }
+            }
+            closeSockets(toClose);
+        }
+    }
+
+    public void closeExpiredConnections() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < myStripes.length; i++) {
+            LinkedList<IdleSocket> toClose = new LinkedList<IdleSocket>();
+            synchronized (myStripes[i]) {
+                for (Iterator<HostPool> hosts = myStripes[i].myHosts.values().iterator(); hosts.hasNext();) {
+                    HostPool host = hosts.next();
+                    host.evictExpired(now, toClose);
+                    if (host.myIdleSockets.isEmpty() && host.myLeasedCount == 0 && host.myWaitersCount == 0) {
+                        hosts.remove();
+                    }
+                }
+            }
+            closeSockets(toClose);
+        }
+    }
+
+    Object createKey(SVNURL host, ISVNAuthenticationManager authManager) {
+        return new PoolKey(host.toString(), authManager);
+    }
+
+    /**
+     * Reserves a socket slot for <code>key</code> and returns an idle socket if there
+     * is one. The slot is freed by {@link #release(Object, Socket, long)}, whether a
+     * socket was returned or not.
+     */
+    Socket lease(Object key) throws SVNException {
+        Stripe stripe = getStripe(key);
+        LinkedList<IdleSocket> toClose = new LinkedList<IdleSocket>();
+        IdleSocket idle = null;
+        long waitStart = 0;
+        try {
+            synchronized (stripe) {
+                HostPool host = stripe.getHost(key);
+                long deadline = System.currentTimeMillis() + myMaxWaitTime;
+                host.myWaitersCount++;
+                try {
+                    while (host.myLeasedCount >= myMaxConnectionsPerHost && host.myIdleSockets.isEmpty()) {
+                        long now = System.currentTimeMillis();
+                        if (waitStart == 0) {
+                            waitStart = now;
+                        }
+                        if (now >= deadline) {
+                            myOverflowsCount.incrementAndGet();
+                            break;
+                        }
+                        try {
+                            stripe.wait(deadline - now);
+                        } catch (InterruptedException e) {
+                            SVNDebugLog.getDefaultLog().logFine(SVNLogType.NETWORK, e);
+                            break;
+                        }
+                    }
+                } finally {
+                    host.myWaitersCount--;
+                }
+                host.myLeasedCount++;
+                host.evictExpired(System.currentTimeMillis(), toClose);
+                if (!host.myIdleSockets.isEmpty()) {
+                    idle = host.myIdleSockets.removeLast();
+                }
+            }
+        } finally {
+            closeSockets(toClose);
+        }
+        myLeasesCount.incrementAndGet();
+        if (waitStart > 0) {
+            long waited = System.currentTimeMillis() - waitStart;
+            myWaitsCount.incrementAndGet();
+            myWaitTime.addAndGet(waited);
+            long max = myMaxWaitedTime.get();
+            while (waited > max && !myMaxWaitedTime.compareAndSet(max, waited)) {
+                max = myMaxWaitedTime.get();
+            }
+        }
+        // the staleness check reads from the socket, so it runs out of the lock.
+        while (idle != null) {
+            try {
+                if (!SVNSocketFactory.isSocketStale(idle.mySocket)) {
+                    myReusedCount.incrementAndGet();
+                    return idle.mySocket;
+                }
+            } catch (IOException e) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.NETWORK, e);
+            }
+            closeSocket(idle.mySocket);
+            synchronized (stripe) {
+                HostPool host = stripe.getHost(key);
+                idle = host.myIdleSockets.isEmpty() ? null : host.myIdleSockets.removeLast();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Frees the slot reserved by {@link #lease(Object)} and keeps <code>socket</code>,
+     * if any, for reuse until <code>keepAliveDeadline</code>.
+     */
+    void release(Object key, Socket socket, long keepAliveDeadline) {
+        Stripe stripe = getStripe(key);
+        long now = System.currentTimeMillis();
+        long deadline = Math.min(keepAliveDeadline, now + myIdleTimeout);
+        boolean keep = false;
+        synchronized (stripe) {
+            HostPool host = stripe.getHost(key);
+            host.myLeasedCount--;
+            if (socket != null && !stripe.myIsDisposed && deadline > now && !socket.isClosed() &&
+                    host.myIdleSockets.size() < myMaxConnectionsPerHost) {
+                host.myIdleSockets.add(new IdleSocket(socket, deadline));
+                keep = true;
+            }
+            stripe.notifyAll();
+        }
+        if (!keep && socket != null) {
+            closeSocket(socket);
+        }
+    }
+
+    private Stripe getStripe(Object key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return myStripes[hash & (STRIPES_COUNT - 1)];
+    }
+
+    private static void closeSockets(LinkedList<IdleSocket> sockets) {
+        for (Iterator<IdleSocket> idle = sockets.iterator(); idle.hasNext();) {
+            closeSocket(idle.next().mySocket);
+        }
+    }
+
+    private static void closeSocket(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFinest(SVNLogType.NETWORK, e);
+        }
+    }
+
+    private static class Stripe {
+
+        private final Map<Object, HostPool> myHosts = new HashMap<Object, HostPool>();
+        private boolean myIsDisposed;
+
+        public HostPool getHost(Object key) {
+            HostPool host = myHosts.get(key);
+            if (host == null) {
+                host = new HostPool();
+                myHosts.put(key, host);
+            }
+            return host;
+        }
+    }
+
+    private static class HostPool {
+
+        private final LinkedList<IdleSocket> myIdleSockets = new LinkedList<IdleSocket>();
+        private int myLeasedCount;
+        private int myWaitersCount;
+
+        public void evictExpired(long now, LinkedList<IdleSocket> evicted) {
+            for (Iterator<IdleSocket> sockets = myIdleSockets.iterator(); sockets.hasNext();) {
+                IdleSocket idle = sockets.next();
+                if (idle.myDeadline <= now) {
+                    sockets.remove();
+                    evicted.add(idle);
+                }
+            }
+        }
+    }
+
+    private static class IdleSocket {
+
+        private final Socket mySocket;
+        private final long myDeadline;
+
+        public IdleSocket(Socket socket, long deadline) {
+            mySocket = socket;
+            myDeadline = deadline;
+        }
+    }
+
+    private static class PoolKey {
+
+        private final String myHost;
+        private final ISVNAuthenticationManager myAuthManager;
+
+        public PoolKey(String host, ISVNAuthenticationManager authManager) {
+            myHost = host;
+            myAuthManager = authManager;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey key = (PoolKey) obj;
+            return myHost.equals(key.myHost) && myAuthManager == key.myAuthManager;
+        }
+
+        public int hashCode() {
+            return myHost.hashCode() * 31 + System.identityHashCode(myAuthManager);
+        }
+    }
+}
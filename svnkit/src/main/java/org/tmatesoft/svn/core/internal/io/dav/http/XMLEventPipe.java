@@ -0,0 +1,361 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.dav.http;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.util.SVNSpillBuffer;
+import org.tmatesoft.svn.core.internal.wc.IOExceptionWrapper;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Passes SAX events of a response parsed on one thread to a handler that runs
+ * on another thread.
+ *
+ * <p/>
+ * The parsing thread never waits for the handler: events are queued in memory up
+ * to the configured size, events that do not fit are written to a spill buffer
+ * which is kept in memory while small and goes to a temporary file otherwise.
+ * So the response is read from the network at the network speed, like a spooled
+ * one, while the handler starts to process it right away.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class XMLEventPipe extends DefaultHandler {
+
+    private static final int START_ELEMENT = 0;
+    private static final int END_ELEMENT = 1;
+    private static final int CHARACTERS = 2;
+    private static final int START_PREFIX_MAPPING = 3;
+    private static final int END_PREFIX_MAPPING = 4;
+
+    private static final int EVENT_OVERHEAD = 64;
+    private static final int SPILL_BLOCK_SIZE = 64 * 1024;
+    private static final long SPILL_MEMORY_SIZE = 1024 * 1024;
+
+    private final long myMemorySize;
+    private final File mySpillDirectory;
+
+    private final LinkedList<Object> myQueue;
+    private long myQueuedSize;
+    private SpillSegment myWriteSegment;
+    private boolean myIsFinished;
+    private boolean myIsCancelled;
+    private SVNErrorMessage myError;
+    private Throwable myFailure;
+
+    public XMLEventPipe(long memorySize, File spillDirectory) {
+        myMemorySize = memorySize;
+        mySpillDirectory = spillDirectory;
+        myQueue = new LinkedList<Object>();
+    }
+
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        put(new Event(START_ELEMENT, uri, localName, qName, new AttributesImpl(attributes), null));
+    }
+
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        put(new Event(END_ELEMENT, uri, localName, qName, null, null));
+    }
+
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        char[] chars = new char[length];
+        System.arraycopy(ch, start, chars, 0, length);
+        put(new Event(CHARACTERS, null, null, null, null, chars));
+    }
+
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        put(new Event(START_PREFIX_MAPPING, uri, prefix, null, null, null));
+    }
+
+    public void endPrefixMapping(String prefix) throws SAXException {
+        put(new Event(END_PREFIX_MAPPING, null, prefix, null, null, null));
+    }
+
+    /**
+     * Called by the parsing thread once the response is read, with the error
+     * the response contained or the exception reading failed with, if any.
+     */
+    public synchronized void finish(SVNErrorMessage error, Throwable failure) {
+        myIsFinished = true;
+        myError = error;
+        myFailure = failure;
+        notifyAll();
+    }
+
+    public synchronized boolean isFinished() {
+        return myIsFinished;
+    }
+
+    /**
+     * Makes the parsing thread stop at the next event and drops all queued events.
+     */
+    public synchronized void cancel() {
+        myIsCancelled = true;
+        dispose();
+        notifyAll();
+    }
+
+    /**
+     * Runs all events through <code>handler</code> on the calling thread until
+     * the parsing thread finishes. Returns the error read from the response.
+     */
+    public SVNErrorMessage replay(DefaultHandler handler) throws SAXException, IOException {
+        while (true) {
+            Object next;
+            synchronized (this) {
+                try {
+                    while (myQueue.isEmpty() && !myIsFinished) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    throw new IOException("Interrupted while reading response");
+                }
+                if (myQueue.isEmpty()) {
+                    break;
+                }
+                next = myQueue.removeFirst();
+                if (next == myWriteSegment) {
+                    myWriteSegment = null;
+                } else {
+                    myQueuedSize -= ((Event) next).getSize();
+                }
+            }
+            if (next instanceof SpillSegment) {
+                replay((SpillSegment) next, handler);
+            } else {
+                ((Event) next).dispatch(handler);
+            }
+        }
+        Throwable failure;
+        SVNErrorMessage error;
+        synchronized (this) {
+            failure = myFailure;
+            error = myError;
+        }
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new SAXException((Exception) failure);
+        }
+        return error;
+    }
+
+    public synchronized void dispose() {
+        for (Iterator<Object> items = myQueue.iterator(); items.hasNext();) {
+            Object next = items.next();
+            if (next instanceof SpillSegment) {
+                ((SpillSegment) next).myBuffer.close();
+            }
+        }
+        myQueue.clear();
+        myQueuedSize = 0;
+        myWriteSegment = null;
+    }
+
+    private synchronized void put(Event event) throws SAXException {
+        if (myIsCancelled) {
+            throw new SAXException("Response processing cancelled");
+        }
+        if (myWriteSegment == null && myQueuedSize + event.getSize() <= myMemorySize) {
+            myQueue.add(event);
+            myQueuedSize += event.getSize();
+            notifyAll();
+            return;
+        }
+        // once events go to a segment, later events follow them there, until the
+        // segment is taken by the handler thread.
+        try {
+            if (myWriteSegment == null) {
+                myWriteSegment = new SpillSegment(new SVNSpillBuffer(SPILL_BLOCK_SIZE, SPILL_MEMORY_SIZE, true, false, mySpillDirectory));
+                myQueue.add(myWriteSegment);
+            }
+            event.write(myWriteSegment.myOutput);
+            myWriteSegment.myOutput.flush();
+            myWriteSegment.myEventsCount++;
+        } catch (IOException e) {
+            throw new SAXException(e);
+        }
+        notifyAll();
+    }
+
+    private static void replay(SpillSegment segment, DefaultHandler handler) throws SAXException, IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(segment.myBuffer.createInputStream(), SPILL_BLOCK_SIZE));
+        try {
+            for (int i = 0; i < segment.myEventsCount; i++) {
+                Event.read(input).dispatch(handler);
+            }
+        } finally {
+            segment.myBuffer.close();
+        }
+    }
+
+    private static class SpillSegment {
+
+        private final SVNSpillBuffer myBuffer;
+        private final DataOutputStream myOutput;
+        private int myEventsCount;
+
+        public SpillSegment(final SVNSpillBuffer buffer) {
+            myBuffer = buffer;
+            myOutput = new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+                public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+
+                public void write(byte[] b, int off, int len) throws IOException {
+                    try {
+                        buffer.write(b, off, len);
+                    } catch (SVNException e) {
+                        throw new IOExceptionWrapper(e);
+                    }
+                }
+            }, SPILL_BLOCK_SIZE));
+        }
+    }
+
+    private static class Event {
+
+        private final int myKind;
+        private final String myURI;
+        private final String myLocalName;
+        private final String myQName;
+        private final Attributes myAttributes;
+        private final char[] myChars;
+
+        public Event(int kind, String uri, String localName, String qName, Attributes attributes, char[] chars) {
+            myKind = kind;
+            myURI = uri;
+            myLocalName = localName;
+            myQName = qName;
+            myAttributes = attributes;
+            myChars = chars;
+        }
+
+        public long getSize() {
+            return EVENT_OVERHEAD + (myChars != null ? 2 * myChars.length : 0) +
+                    (myAttributes != null ? EVENT_OVERHEAD * myAttributes.getLength() : 0);
+        }
+
+        public void dispatch(DefaultHandler handler) throws SAXException {
+            switch (myKind) {
+                case START_ELEMENT:
+                    handler.startElement(myURI, myLocalName, myQName, myAttributes);
+                    break;
+                case END_ELEMENT:
+                    handler.endElement(myURI, myLocalName, myQName);
+                    break;
+                case CHARACTERS:
+                    handler.characters(myChars, 0, myChars.length);
+                    break;
+                case START_PREFIX_MAPPING:
+                    handler.startPrefixMapping(myLocalName, myURI);
+                    break;
+                case END_PREFIX_MAPPING:
+                    handler.endPrefixMapping(myLocalName);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        public void write(DataOutputStream output) throws IOException {
+            output.writeByte(myKind);
+            writeString(output, myURI);
+            writeString(output, myLocalName);
+            writeString(output, myQName);
+            if (myAttributes != null) {
+                output.writeInt(myAttributes.getLength());
+                for (int i = 0; i < myAttributes.getLength(); i++) {
+                    writeString(output, myAttributes.getURI(i));
+                    writeString(output, myAttributes.getLocalName(i));
+                    writeString(output, myAttributes.getQName(i));
+                    writeString(output, myAttributes.getType(i));
+                    writeString(output, myAttributes.getValue(i));
+                }
+            } else {
+                output.writeInt(-1);
+            }
+            if (myChars != null) {
+                output.writeInt(myChars.length);
+                for (int i = 0; i < myChars.length; i++) {
+                    output.writeChar(myChars[i]);
+                }
+            } else {
+                output.writeInt(-1);
+            }
+        }
+
+        public static Event read(DataInputStream input) throws IOException {
+            int kind = input.readByte();
+            String uri = readString(input);
+            String localName = readString(input);
+            String qName = readString(input);
+            AttributesImpl attributes = null;
+            int attributesCount = input.readInt();
+            if (attributesCount >= 0) {
+                attributes = new AttributesImpl();
+                for (int i = 0; i < attributesCount; i++) {
+                    attributes.addAttribute(readString(input), readString(input), readString(input), readString(input), readString(input));
+                }
+            }
+            char[] chars = null;
+            int charsCount = input.readInt();
+            if (charsCount >= 0) {
+                chars = new char[charsCount];
+                for (int i = 0; i < charsCount; i++) {
+                    chars[i] = input.readChar();
+                }
+            }
+            return new Event(kind, uri, localName, qName, attributes, chars);
+        }
+
+        private static void writeString(DataOutputStream output, String string) throws IOException {
+            if (string == null) {
+                output.writeInt(-1);
+                return;
+            }
+            output.writeInt(string.length());
+            output.writeChars(string);
+        }
+
+        private static String readString(DataInputStream input) throws IOException {
+            int length = input.readInt();
+            if (length < 0) {
+                return null;
+            }
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = input.readChar();
+            }
+            return new String(chars);
+        }
+    }
+}
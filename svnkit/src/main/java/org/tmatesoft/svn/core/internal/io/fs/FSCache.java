@@ -0,0 +1,217 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of immutable FSFS objects (node-revisions, directory
+ * entries, property lists, fulltexts, pack manifests and index pages) shared by all {@link FSFS} instances.
+ *
+ * <p/>
+ * Entries are keyed by the repository key prefix (see {@link FSFS#getCacheKeyPrefix()}),
+ * revision and item (offset or item index). The cache is bounded by the estimated
+ * size of the stored objects in bytes, its budget is read from the
+ * <code>svnkit.fs.cache.size</code> system property; <code>0</code> disables caching.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class FSCache {
+
+    public static final int NODE_REVISION = 1;
+    public static final int DIR_ENTRIES = 2;
+    public static final int PROPERTIES = 3;
+    public static final int FULLTEXT = 4;
+    public static final int PATH_NODE = 5;
+    public static final int PACK_MANIFEST = 6;
+    public static final int L2P_HEADER = 7;
+    public static final int L2P_PAGE = 8;
+    public static final int P2L_HEADER = 9;
+    public static final int P2L_PAGE = 10;
+
+    private static final long DEFAULT_CAPACITY = 32 * 1024 * 1024;
+
+    private static final FSCache ourInstance = new FSCache(getDefaultCapacity());
+
+    private final LinkedHashMap<Key, Entry> myEntries;
+    private long myCapacity;
+    private long mySize;
+    private long myHitsCount;
+    private long myMissesCount;
+    private long myEvictionsCount;
+
+    public static FSCache getInstance() {
+        return ourInstance;
+    }
+
+    public FSCache(long capacity) {
+        myCapacity = capacity;
+        myEntries = new LinkedHashMap<Key, Entry>(256, 0.75f, true);
+    }
+
+    public synchronized Object get(String prefix, int kind, long revision, long item, String path) {
+        if (myCapacity <= 0 || prefix == null) {
+            return null;
+        }
+        final Entry entry = myEntries.get(new Key(prefix, kind, revision, item, path));
+        if (entry == null) {
+            myMissesCount++;
+            return null;
+        }
+        myHitsCount++;
+        return entry.myValue;
+    }
+
+    public synchronized void put(String prefix, int kind, long revision, long item, String path, Object value, long size) {
+        if (prefix == null || value == null || !accepts(size)) {
+            return;
+        }
+        final Entry previous = myEntries.put(new Key(prefix, kind, revision, item, path), new Entry(value, size));
+        if (previous != null) {
+            mySize -= previous.mySize;
+        }
+        mySize += size;
+        evict();
+    }
+
+    /**
+     * Tells whether a value of <code>size</code> would be kept by {@link #put}.
+     */
+    public synchronized boolean accepts(long size) {
+        return myCapacity > 0 && size <= myCapacity / 4;
+    }
+
+    public synchronized void remove(String prefix) {
+        for (Iterator<Map.Entry<Key, Entry>> entries = myEntries.entrySet().iterator(); entries.hasNext();) {
+            final Map.Entry<Key, Entry> entry = entries.next();
+            if (entry.getKey().myPrefix.equals(prefix)) {
+                mySize -= entry.getValue().mySize;
+                entries.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        myEntries.clear();
+        mySize = 0;
+    }
+
+    public synchronized void setCapacity(long capacity) {
+        myCapacity = capacity;
+        evict();
+    }
+
+    public synchronized long getCapacity() {
+        return myCapacity;
+    }
+
+    public synchronized long getSize() {
+        return mySize;
+    }
+
+    public synchronized int getEntriesCount() {
+        return myEntries.size();
+    }
+
+    public synchronized long getHitsCount() {
+        return myHitsCount;
+    }
+
+    public synchronized long getMissesCount() {
+        return myMissesCount;
+    }
+
+    public synchronized long getEvictionsCount() {
+        return myEvictionsCount;
+    }
+
+    public synchronized void resetStatistics() {
+        myHitsCount = 0;
+        myMissesCount = 0;
+        myEvictionsCount = 0;
+    }
+
+    public synchronized String toString() {
+        return "FSCache[entries=" + myEntries.size() + ", size=" + mySize + ", capacity=" + myCapacity +
+                ", hits=" + myHitsCount + ", misses=" + myMissesCount + ", evictions=" + myEvictionsCount + "]";
+    }
+
+    private void evict() {
+        for (Iterator<Entry> entries = myEntries.values().iterator(); mySize > myCapacity && entries.hasNext();) {
+            final Entry entry = entries.next();
+            mySize -= entry.mySize;
+            myEvictionsCount++;
+            entries.remove();
+        }
+    }
+
+    private static long getDefaultCapacity() {
+        final String capacity = System.getProperty("svnkit.fs.cache.size", Long.toString(DEFAULT_CAPACITY));
+        try {
+            return Long.parseLong(capacity);
+        } catch (NumberFormatException e) {
+            return DEFAULT_CAPACITY;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Object myValue;
+        private final long mySize;
+
+        private Entry(Object value, long size) {
+            myValue = value;
+            mySize = size;
+        }
+    }
+
+    private static final class Key {
+
+        private final String myPrefix;
+        private final int myKind;
+        private final long myRevision;
+        private final long myItem;
+        private final String myPath;
+
+        private Key(String prefix, int kind, long revision, long item, String path) {
+            myPrefix = prefix;
+            myKind = kind;
+            myRevision = revision;
+            myItem = item;
+            myPath = path;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || o.getClass() != Key.class) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return myKind == key.myKind && myRevision == key.myRevision && myItem == key.myItem &&
+                    myPrefix.equals(key.myPrefix) && (myPath == null ? key.myPath == null : myPath.equals(key.myPath));
+        }
+
+        public int hashCode() {
+            int result = myPrefix.hashCode();
+            result = 31 * result + myKind;
+            result = 31 * result + (int) (myRevision ^ (myRevision >>> 32));
+            result = 31 * result + (int) (myItem ^ (myItem >>> 32));
+            result = 31 * result + (myPath != null ? myPath.hashCode() : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+
+/**
+ * Group commit queue of a repository.
+ *
+ * <p/>
+ * Committers of the same repository that find the write lock busy queue up behind
+ * the current leader instead of competing for the lock. The leader takes the write
+ * lock once per batch and finalizes up to <code>svnkit.fs.groupCommit.maxBatch</code>
+ * queued transactions back-to-back; a transaction whose base became out of date because
+ * of an earlier commit of the batch is merged with the new youngest revision under the
+ * lock, and a conflict fails that transaction only.
+ *
+ * <p/>
+ * Group commit is enabled with the <code>svnkit.fs.groupCommit</code> system property
+ * or {@link #setEnabled(boolean)}.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class FSCommitQueue {
+
+    private static volatile boolean ourIsEnabled = Boolean.valueOf(System.getProperty("svnkit.fs.groupCommit", Boolean.FALSE.toString())).booleanValue();
+    private static final int ourMaxBatchSize = Math.max(1, Integer.getInteger("svnkit.fs.groupCommit.maxBatch", 32).intValue());
+
+    private static final Map<String, FSCommitQueue> ourQueues = new HashMap<String, FSCommitQueue>();
+
+    private final LinkedList<Request> myPendingRequests;
+    private boolean myHasLeader;
+    private long myBatchesCount;
+    private long myCommitsCount;
+    private long myRequestsCount;
+
+    public static void setEnabled(boolean enabled) {
+        ourIsEnabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return ourIsEnabled;
+    }
+
+    public static FSCommitQueue getQueue(FSFS owner) throws SVNException {
+        String key = owner.getCacheKeyPrefix();
+        synchronized (ourQueues) {
+            FSCommitQueue queue = ourQueues.get(key);
+            if (queue == null) {
+                queue = new FSCommitQueue();
+                ourQueues.put(key, queue);
+            }
+            return queue;
+        }
+    }
+
+    private FSCommitQueue() {
+        myPendingRequests = new LinkedList<Request>();
+    }
+
+    public long commit(FSFS owner, FSCommitter committer, Collection<FSRepresentation> representations, StringBuffer conflictPath) throws SVNException {
+        Request request = new Request(committer, representations, conflictPath);
+        boolean interrupted = false;
+        synchronized (this) {
+            myPendingRequests.addLast(request);
+            myRequestsCount++;
+            while (!request.myIsDone && myHasLeader) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (!request.myIsDone) {
+                myHasLeader = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (!request.myIsDone) {
+            try {
+                while (!request.myIsDone) {
+                    runBatch(owner);
+                }
+            } finally {
+                synchronized (this) {
+                    myHasLeader = false;
+                    notifyAll();
+                }
+            }
+        }
+        return request.getRevision();
+    }
+
+    public synchronized long getBatchesCount() {
+        return myBatchesCount;
+    }
+
+    public synchronized long getCommitsCount() {
+        return myCommitsCount;
+    }
+
+    public synchronized long getRequestsCount() {
+        return myRequestsCount;
+    }
+
+    private void runBatch(FSFS owner) {
+        List<Request> batch = new ArrayList<Request>();
+        synchronized (this) {
+            while (!myPendingRequests.isEmpty() && batch.size() < ourMaxBatchSize) {
+                batch.add(myPendingRequests.removeFirst());
+            }
+        }
+        try {
+            FSWriteLock writeLock = FSWriteLock.getWriteLockForDB(owner);
+            synchronized (writeLock) {
+                try {
+                    writeLock.lock();
+                    for (Request request : batch) {
+                        try {
+                            request.myRevision = request.myCommitter.commitQueued(request.myRepresentations, request.myConflictPath);
+                        } catch (SVNException e) {
+                            request.myError = e;
+                        } catch (RuntimeException e) {
+                            request.myError = e;
+                        }
+                    }
+                } finally {
+                    writeLock.unlock();
+                    FSWriteLock.release(writeLock);
+                }
+            }
+        } catch (SVNException e) {
+            for (Request request : batch) {
+                if (request.myError == null && request.myRevision < 0) {
+                    request.myError = e;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                for (Request request : batch) {
+                    if (request.myError == null && request.myRevision < 0) {
+                        request.myError = new SVNException(SVNErrorMessage.create(SVNErrorCode.FS_GENERAL, "Group commit failed"));
+                    }
+                    request.myIsDone = true;
+                }
+                myBatchesCount++;
+                myCommitsCount += batch.size();
+                notifyAll();
+            }
+        }
+    }
+
+    private static class Request {
+
+        private final FSCommitter myCommitter;
+        private final Collection<FSRepresentation> myRepresentations;
+        private final StringBuffer myConflictPath;
+        private long myRevision = -1;
+        private Throwable myError;
+        private volatile boolean myIsDone;
+
+        private Request(FSCommitter committer, Collection<FSRepresentation> representations, StringBuffer conflictPath) {
+            myCommitter = committer;
+            myRepresentations = representations;
+            myConflictPath = conflictPath;
+        }
+
+        private long getRevision() throws SVNException {
+            if (myError instanceof SVNException) {
+                throw (SVNException) myError;
+            } else if (myError instanceof RuntimeException) {
+                throw (RuntimeException) myError;
+            } else if (myError != null) {
+                throw new SVNException(SVNErrorMessage.create(SVNErrorCode.UNKNOWN, myError.getMessage()), myError);
+            }
+            return myRevision;
+        }
+    }
+}
@@ -289,9 +289,14 @@ public class FSCommitter {
             mergeChanges(myFSFS, getTxnRoot(), youngishRootNode, conflictPath);
             myTxn.setBaseRevision(youngishRev);
 
-            FSWriteLock writeLock = FSWriteLock.getWriteLockForDB(myFSFS);
             final Collection<FSRepresentation> representations = myFSFS.getRepositoryCacheManager() != null ?
                     new ArrayList<FSRepresentation>() : null;
+            if (FSCommitQueue.isEnabled()) {
+                newRevision = FSCommitQueue.getQueue(myFSFS).commit(myFSFS, this, representations, conflictPath);
+                insertRepresentations(representations);
+                break;
+            }
+            FSWriteLock writeLock = FSWriteLock.getWriteLockForDB(myFSFS);
             synchronized (writeLock) {
                 try {
                     writeLock.lock();
@@ -310,23 +315,7 @@ public class FSCommitter {
                     FSWriteLock.release(writeLock);
                 }
             }
-            // write representations here.
-            if (representations != null && !representations.isEmpty()) {
-                if (myFSFS.getRepositoryCacheManager() != null) {
-                    try {
-                        myFSFS.getRepositoryCacheManager().runWriteTransaction(new IFSSqlJetTransaction() {
-                            public void run() throws SVNException {
-                                for (FSRepresentation fsRepresentation : representations) {
-                                    myFSFS.getRepositoryCacheManager().insert(fsRepresentation, false);
-                                }
-                            }
-                        });
-                    } catch (SVNException e) {
-                        // ignore
-                        SVNDebugLog.getDefaultLog().logFiner(SVNLogType.FSFS, e);
-                    }
-                }
-            }
+            insertRepresentations(representations);
             break;
         }
 
@@ -350,6 +339,41 @@ public class FSCommitter {
         return newRevision;
     }
 
+    /**
+     * Finalizes the transaction on behalf of {@link FSCommitQueue}; the caller holds the
+     * repository write lock. If revisions were committed since the transaction was merged,
+     * it is merged again with the youngest revision first.
+     */
+    long commitQueued(Collection<FSRepresentation> representations, StringBuffer conflictPath) throws SVNException {
+        long youngestRev = myFSFS.readYoungestRevision();
+        if (myTxn.getBaseRevision() != youngestRev) {
+            FSRevisionRoot youngestRoot = myFSFS.createRevisionRoot(youngestRev);
+            mergeChanges(myFSFS, getTxnRoot(), youngestRoot.getRevisionNode("/"), conflictPath);
+            myTxn.setBaseRevision(youngestRev);
+        }
+        return commit(representations);
+    }
+
+    private void insertRepresentations(final Collection<FSRepresentation> representations) {
+        // write representations here.
+        if (representations != null && !representations.isEmpty()) {
+            if (myFSFS.getRepositoryCacheManager() != null) {
+                try {
+                    myFSFS.getRepositoryCacheManager().runWriteTransaction(new IFSSqlJetTransaction() {
+                        public void run() throws SVNException {
+                            for (FSRepresentation fsRepresentation : representations) {
+                                myFSFS.getRepositoryCacheManager().insert(fsRepresentation, false);
+                            }
+                        }
+                    });
+                } catch (SVNException e) {
+                    // ignore
+                    SVNDebugLog.getDefaultLog().logFiner(SVNLogType.FSFS, e);
+                }
+            }
+        }
+    }
+
     public void makePathMutable(FSParentPath parentPath, String errorPath) throws SVNException {
         FSTransactionRoot txnRoot = getTxnRoot();
         String txnId = txnRoot.getTxnID();
@@ -466,7 +490,7 @@ public class FSCommitter {
     }
 
     private long commit(Collection<FSRepresentation> representations) throws SVNException {
-        long oldRev = myFSFS.getYoungestRevision();
+        long oldRev = myFSFS.readYoungestRevision();
 
         if (myTxn.getBaseRevision() != oldRev) {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_TXN_OUT_OF_DATE, "Transaction out of date");
@@ -0,0 +1,156 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Watches <code>db</code> directories of repositories for changes of the <code>current</code>
+ * file on a single daemon thread. This class uses Java 7 API and is only loaded when watching
+ * is enabled.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class FSCurrentFileWatchService implements Runnable {
+
+    private static FSCurrentFileWatchService ourInstance;
+
+    private final WatchService myWatchService;
+    private final Map<WatchKey, List<FSYoungestRevisionWatcher>> myWatchers;
+
+    public static synchronized FSCurrentFileWatchService getInstance() {
+        if (ourInstance == null) {
+            WatchService watchService = null;
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException e) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "Could not create file watch service: " + e.getMessage());
+            } catch (UnsupportedOperationException e) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "File watch service is not supported: " + e.getMessage());
+            }
+            if (watchService != null && watchService.getClass().getName().indexOf("Polling") >= 0) {
+                // polled changes may be reported seconds late.
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "File watch service is polling, not using it: " + watchService.getClass().getName());
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    //
+                }
+                watchService = null;
+            }
+            ourInstance = new FSCurrentFileWatchService(watchService);
+            if (watchService != null) {
+                Thread thread = new Thread(ourInstance, "svnkit-fs-current-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        return ourInstance;
+    }
+
+    private FSCurrentFileWatchService(WatchService watchService) {
+        myWatchService = watchService;
+        myWatchers = new HashMap<WatchKey, List<FSYoungestRevisionWatcher>>();
+    }
+
+    public boolean register(FSYoungestRevisionWatcher watcher, File currentFile) {
+        if (myWatchService == null || currentFile.getParentFile() == null) {
+            return false;
+        }
+        try {
+            Path dir = currentFile.getParentFile().toPath();
+            synchronized (myWatchers) {
+                WatchKey key = dir.register(myWatchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                List<FSYoungestRevisionWatcher> watchers = myWatchers.get(key);
+                if (watchers == null) {
+                    watchers = new ArrayList<FSYoungestRevisionWatcher>(1);
+                    myWatchers.put(key, watchers);
+                }
+                watchers.add(watcher);
+            }
+            return true;
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "Could not watch " + currentFile + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "Could not watch " + currentFile + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    public void unregister(FSYoungestRevisionWatcher watcher) {
+        synchronized (myWatchers) {
+            for (Iterator<Map.Entry<WatchKey, List<FSYoungestRevisionWatcher>>> entries = myWatchers.entrySet().iterator(); entries.hasNext();) {
+                Map.Entry<WatchKey, List<FSYoungestRevisionWatcher>> entry = entries.next();
+                if (entry.getValue().remove(watcher) && entry.getValue().isEmpty()) {
+                    entry.getKey().cancel();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    public void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = myWatchService.take();
+            } catch (InterruptedException e) {
+                continue;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed = true;
+                } else if (event.context() instanceof Path && FSFS.CURRENT_FILE.equals(((Path) event.context()).toString())) {
+                    changed = true;
+                }
+            }
+            boolean valid = key.reset();
+            List<FSYoungestRevisionWatcher> watchers;
+            synchronized (myWatchers) {
+                watchers = valid ? myWatchers.get(key) : myWatchers.remove(key);
+                if (watchers == null) {
+                    continue;
+                }
+                watchers = new ArrayList<FSYoungestRevisionWatcher>(watchers);
+            }
+            for (FSYoungestRevisionWatcher watcher : watchers) {
+                if (!valid) {
+                    watcher.unwatched();
+                }
+                if (changed || !valid) {
+                    watcher.changed();
+                }
+            }
+        }
+    }
+}
@@ -188,12 +188,13 @@ public class FSFS {
     private File myMinUnpackedRevFile;
     private File myRepositoryCacheFile;
     private long myMaxFilesPerDirectory;
-    private long myYoungestRevisionCache;
-    private long myMinUnpackedRevision;
+    private volatile long myYoungestRevisionCache;
+    private FSYoungestRevisionWatcher myYoungestRevisionWatcher;
+    private volatile long myMinUnpackedRevision;
     private boolean myUseLogAddressing;
     private SVNConfigFile myConfig;
     private IFSRepresentationCacheManager myReposCacheManager;
-    private long myMinUnpackedRevProp;
+    private volatile long myMinUnpackedRevProp;
     
     private boolean myIsHooksEnabled;
     private boolean myCompressPackedRevprops;
@@ -204,6 +205,7 @@ public class FSFS {
     private long myL2PPageSize;
     private long myP2LPageSize;
     private String myDeltificationCompressionAlgorithm;
+    private String myCacheKeyPrefix;
 
     public FSFS(File repositoryRoot) {
         myRepositoryRoot = repositoryRoot;
@@ -249,6 +251,10 @@ public class FSFS {
             myReposCacheManager.close();
             myReposCacheManager = null;
         }
+        synchronized (this) {
+            FSYoungestRevisionWatcher.release(myYoungestRevisionWatcher);
+            myYoungestRevisionWatcher = null;
+        }
     }
 
     public void openForRecovery() throws SVNException {
@@ -263,6 +269,7 @@ public class FSFS {
                 } catch (SVNException svne) {
                     //ignore errors
                 }
+                getYoungestRevisionWatcher().invalidate();
             } finally {
                 writeLock.unlock();
                 FSWriteLock.release(writeLock);
@@ -464,6 +471,17 @@ public class FSFS {
         return myUUID;
     }
 
+    public String getCacheKeyPrefix() throws SVNException {
+        if (myCacheKeyPrefix == null) {
+            myCacheKeyPrefix = getUUID() + ":" + getRepositoryRoot().getAbsolutePath();
+        }
+        return myCacheKeyPrefix;
+    }
+
+    public FSCache getCache() {
+        return FSCache.getInstance();
+    }
+
     public File getDBRoot() {
         if (myDBRoot == null) {
             myDBRoot = new File(myRepositoryRoot, DB_DIR);
@@ -552,6 +570,17 @@ public class FSFS {
         return myCurrentFile;
     }
 
+    public static int getYoungestRevisionWatchersCount() {
+        return FSYoungestRevisionWatcher.getWatchersCount();
+    }
+
+    private synchronized FSYoungestRevisionWatcher getYoungestRevisionWatcher() {
+        if (myYoungestRevisionWatcher == null) {
+            myYoungestRevisionWatcher = FSYoungestRevisionWatcher.getWatcher(getCurrentFile());
+        }
+        return myYoungestRevisionWatcher;
+    }
+
     public File getRepositoryCacheFile() {
         if (myRepositoryCacheFile == null) {
             myRepositoryCacheFile = new File(getDBRoot(), REP_CACHE_DB);
@@ -609,21 +638,17 @@ public class FSFS {
     }
 
     public long getYoungestRevision() throws SVNException {
-        FSFile file = new FSFile(getCurrentFile());
-        try {
-            String line = file.readLine(180);
-            int spaceIndex = line.indexOf(' ');
-            if (spaceIndex > 0) {
-                myYoungestRevisionCache = Long.parseLong(line.substring(0, spaceIndex));
-            } else {
-                myYoungestRevisionCache = Long.parseLong(line);
-            }
-            return myYoungestRevisionCache;
-        } catch (NumberFormatException nfe) {
-            myYoungestRevisionCache = 0;
-        } finally {
-            file.close();
-        }
+        myYoungestRevisionCache = getYoungestRevisionWatcher().getYoungestRevision();
+        return myYoungestRevisionCache;
+    }
+
+    /**
+     * Reads the youngest revision from the <code>current</code> file, bypassing the cached
+     * value. Used by commits under the write lock, when another process may just have
+     * written a new revision.
+     */
+    public long readYoungestRevision() throws SVNException {
+        myYoungestRevisionCache = getYoungestRevisionWatcher().refresh();
         return myYoungestRevisionCache;
     }
 
@@ -897,6 +922,10 @@ public class FSFS {
             File file = new File(getTransactionDir(id.getTxnID()), PATH_PREFIX_NODE + id.getNodeID() + "." + id.getCopyID());
             revisionFile = new FSFile(file);
         } else {
+            FSRevisionNode cachedNode = (FSRevisionNode) getCache().get(getCacheKeyPrefix(), FSCache.NODE_REVISION, id.getRevision(), id.getOffset(), null);
+            if (cachedNode != null) {
+                return FSRevisionNode.dumpRevisionNode(cachedNode);
+            }
             revisionFile = openAndSeekRevision(id.getRevision(), id.getOffset());
         }
 
@@ -911,6 +940,10 @@ public class FSFS {
         if (node.isFreshTxnRoot()) {
             node.setFreshRootPredecessorId(node.getPredecessorId());
         }
+        if (!id.isTxn()) {
+            getCache().put(getCacheKeyPrefix(), FSCache.NODE_REVISION, id.getRevision(), id.getOffset(), null,
+                    FSRevisionNode.dumpRevisionNode(node), FSRevisionNode.estimateSize(node));
+        }
         return node;
     }
 
@@ -931,11 +964,30 @@ public class FSFS {
             }
             return entries;
         } else if (txtRep != null) {
-            return parsePlainRepresentation(parseProperties(txtRep), false);
+            final String prefix = getCacheKeyPrefix();
+            Map entries = (Map) getCache().get(prefix, FSCache.DIR_ENTRIES, txtRep.getRevision(), txtRep.getItemIndex(), null);
+            if (entries == null) {
+                entries = parsePlainRepresentation(parseProperties(txtRep), false);
+                getCache().put(prefix, FSCache.DIR_ENTRIES, txtRep.getRevision(), txtRep.getItemIndex(), null,
+                        copyEntries(entries), estimateEntriesSize(entries));
+                return entries;
+            }
+            return copyEntries(entries);
         }
         return new SVNHashMap();// returns an empty map, must not be null!!
     }
 
+    private static Map copyEntries(Map entries) {
+        // callers may change both the map and the entries, the cached ones are never handed out.
+        Map copy = new SVNHashMap();
+        for (Iterator iterator = entries.entrySet().iterator(); iterator.hasNext();) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            FSEntry dirEntry = (FSEntry) entry.getValue();
+            copy.put(entry.getKey(), new FSEntry(dirEntry.getId(), dirEntry.getType(), dirEntry.getName()));
+        }
+        return copy;
+    }
+
     private byte[] parseRawDeltaProperties(FSRepresentation txtRep, StringBuilder outputChecksum) throws SVNException {
         FSFile revisionFile = null;
         revisionFile = openAndSeekRepresentation(txtRep);
@@ -1089,9 +1141,17 @@ public class FSFS {
             }
         } else if (revNode.getPropsRepresentation() != null) {
             FSRepresentation propsRep = revNode.getPropsRepresentation();
-
-            SVNProperties properties = parseProperties(propsRep);
-            return properties == null ? new SVNProperties() : properties;
+            final String prefix = getCacheKeyPrefix();
+            SVNProperties properties = (SVNProperties) getCache().get(prefix, FSCache.PROPERTIES, propsRep.getRevision(), propsRep.getItemIndex(), null);
+            if (properties == null) {
+                properties = parseProperties(propsRep);
+                if (properties == null) {
+                    return new SVNProperties();
+                }
+                getCache().put(prefix, FSCache.PROPERTIES, propsRep.getRevision(), propsRep.getItemIndex(), null,
+                        new SVNProperties(properties), estimatePropertiesSize(properties));
+            }
+            return new SVNProperties(properties);
         }
         return new SVNProperties();// no properties? return an empty SVNProperties
     }
@@ -1244,6 +1304,8 @@ public class FSFS {
             SVNFileUtil.closeFile(uuidOS);
         }
         SVNFileUtil.rename(uniqueFile, getUUIDFile());
+        myUUID = null;
+        myCacheKeyPrefix = null;
     }
 
     public File getRevisionPropertiesFile(long revision, boolean returnMissing) throws SVNException {
@@ -2075,7 +2137,7 @@ public class FSFS {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision {0}", String.valueOf(revision));
             SVNErrorManager.error(err, SVNLogType.FSFS);
         }
-        return new FSFile(revisionFile);
+        return FSFile.openReadOnly(revisionFile);
     }
 
     protected FSFile getPackOrRevisionFSFile(long revision) throws SVNException {
@@ -2084,7 +2146,7 @@ public class FSFS {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_NO_SUCH_REVISION, "No such revision {0}", String.valueOf(revision));
             SVNErrorManager.error(err, SVNLogType.FSFS);
         }
-        return new FSFile(file);
+        return FSFile.openReadOnly(file);
     }
 
     protected File getAbsoluteRevisionPath(long revision) throws SVNException {
@@ -2191,26 +2253,42 @@ public class FSFS {
         }
 
         SVNFileUtil.rename(tmpCurrentFile, currentFile);
+        getYoungestRevisionWatcher().setYoungestRevision(revision);
     }
 
     protected long getPackedOffset(long revision) throws SVNException {
-        //TODO: later on introduce invoking memcache here to fetch\store the requested data
-        //long shard = revision / myMaxFilesPerDirectory;
-        File manifestFile = getPackedRevPath(revision, PACK_KIND_MANIFEST);
+        long shard = revision / myMaxFilesPerDirectory;
+        long[] manifest = (long[]) getCache().get(getCacheKeyPrefix(), FSCache.PACK_MANIFEST, shard, 0, null);
+        if (manifest == null) {
+            manifest = readManifest(getPackedRevPath(revision, PACK_KIND_MANIFEST));
+            getCache().put(getCacheKeyPrefix(), FSCache.PACK_MANIFEST, shard, 0, null, manifest, 16 + 8 * manifest.length);
+        }
+        int index = (int) (revision % myMaxFilesPerDirectory);
+        SVNErrorManager.assertionFailure(index < manifest.length, "offset for revision " + String.valueOf(revision) + " is null", SVNLogType.FSFS);
+        return manifest[index];
+    }
+
+    private static long[] readManifest(File manifestFile) throws SVNException {
         BufferedReader reader = null;
-        LinkedList manifest = new LinkedList();
+        long[] manifest = new long[16];
+        int count = 0;
         try {
             reader = new BufferedReader(new InputStreamReader(SVNFileUtil.openFileForReading(manifestFile)));
             String line = null;
             while ((line = reader.readLine()) != null) {
-                Long offset = null;
+                long offset = 0;
                 try {
-                    offset = Long.valueOf(line);
+                    offset = Long.parseLong(line);
                 } catch (NumberFormatException nfe) {
                     SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_CORRUPT);
                     SVNErrorManager.error(err, SVNLogType.FSFS);
                 }
-                manifest.add(offset);
+                if (count == manifest.length) {
+                    long[] grown = new long[manifest.length * 2];
+                    System.arraycopy(manifest, 0, grown, 0, count);
+                    manifest = grown;
+                }
+                manifest[count++] = offset;
             }
         } catch (IOException ioe) {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR, ioe.getMessage());
@@ -2218,10 +2296,9 @@ public class FSFS {
         } finally {
             SVNFileUtil.closeFile(reader);
         }
-
-        Long revOffsetLong = (Long) manifest.get((int) (revision % myMaxFilesPerDirectory));
-        SVNErrorManager.assertionFailure(revOffsetLong != null, "offset for revision " + String.valueOf(revision) + " is null", SVNLogType.FSFS);
-        return revOffsetLong.longValue();
+        long[] result = new long[count];
+        System.arraycopy(manifest, 0, result, 0, count);
+        return result;
     }
 
     private SVNConfigFile loadConfig() {
@@ -2523,6 +2600,25 @@ public class FSFS {
         return representationMap;
     }
 
+    private static long estimateEntriesSize(Map entries) {
+        long size = 64;
+        for (Iterator names = entries.keySet().iterator(); names.hasNext();) {
+            String name = (String) names.next();
+            size += 2 * name.length() + 128;
+        }
+        return size;
+    }
+
+    private static long estimatePropertiesSize(SVNProperties properties) {
+        long size = 64;
+        for (Iterator names = properties.nameSet().iterator(); names.hasNext();) {
+            String name = (String) names.next();
+            byte[] value = SVNPropertyValue.getPropertyAsBytes(properties.getSVNPropertyValue(name));
+            size += 2 * name.length() + (value != null ? value.length : 0) + 64;
+        }
+        return size;
+    }
+
     private FSEntry parseRepEntryValue(String name, String value) {
         if (value == null) {
             return null;
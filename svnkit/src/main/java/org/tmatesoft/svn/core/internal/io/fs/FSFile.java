@@ -37,6 +37,7 @@ public class FSFile {
     
     private File myFile;
     private final byte[] myData;
+    private ByteBuffer myMappedData;
     private int myOffset;
     private int myLength;
     private FileChannel myChannel;
@@ -71,6 +72,18 @@ public class FSFile {
         myP2LOffset = -1;
     }
 
+    /**
+     * Opens an immutable revision or pack file. When memory mapping is enabled
+     * (see {@link FSMappedFiles}) the file is read directly from a shared mapping.
+     */
+    public static FSFile openReadOnly(File file) {
+        final FSFile fsFile = new FSFile(file);
+        if (FSMappedFiles.isEnabled()) {
+            fsFile.myMappedData = FSMappedFiles.map(file);
+        }
+        return fsFile;
+    }
+
     public FSFile(byte[] data) {
         this(data, 0, data.length);
     }
@@ -99,8 +112,15 @@ public class FSFile {
     }
 
     public long size() {
+        if (myMappedData != null) {
+            return myMappedData.limit();
+        }
         return myData == null ? myFile.length() : myLength;
     }
+
+    public boolean isMapped() {
+        return myMappedData != null;
+    }
     
     public void resetDigest() {
         if (myDigest == null) {
@@ -139,6 +159,9 @@ public class FSFile {
     }
 
     public String readLine(int limit) throws SVNException {
+        if (myMappedData != null && myDigest == null) {
+            return readMappedLine(limit);
+        }
         long currentLimit = limit < 0 ? 1024 : limit; //if limit < 0, read line buffer should have infinite size
         allocateReadBuffer((int) currentLimit);
         try {
@@ -170,6 +193,42 @@ public class FSFile {
         return null;
     }
 
+    private String readMappedLine(int limit) throws SVNException {
+        final int start = (int) Math.min(myPosition, myMappedData.limit());
+        final int end = limit < 0 ? myMappedData.limit() : (int) Math.min((long) start + limit, myMappedData.limit());
+        int lineEnd = -1;
+        for (int i = start; i < end; i++) {
+            if (myMappedData.get(i) == '\n') {
+                lineEnd = i;
+                break;
+            }
+        }
+        int next;
+        if (lineEnd >= 0) {
+            next = lineEnd + 1;
+        } else if (limit >= 0 && end - start == limit) {
+            lineEnd = end;
+            next = end;
+        } else {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.STREAM_UNEXPECTED_EOF, "Can''t read length line from file {0}", getFile());
+            SVNErrorManager.error(err, SVNLogType.DEFAULT);
+            return null;
+        }
+        try {
+            myMappedData.limit(lineEnd);
+            myMappedData.position(start);
+            final String line = myDecoder.decode(myMappedData).toString();
+            myPosition = next;
+            return line;
+        } catch (IOException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_CORRUPT, "Can''t read length line from file {0}: {1}", new Object[]{getFile(), e.getLocalizedMessage()});
+            SVNErrorManager.error(err, e, SVNLogType.DEFAULT);
+        } finally {
+            myMappedData.clear();
+        }
+        return null;
+    }
+
     public String readLine(StringBuffer buffer) throws SVNException {
         if (buffer == null) {
             buffer = new StringBuffer();
@@ -362,6 +421,17 @@ public class FSFile {
             }
             return myData[((int) (myOffset + myPosition - 1))] & 0xff;
         }
+        if (myMappedData != null) {
+            if (myPosition >= myMappedData.limit()) {
+                return -1;
+            }
+            int r = myMappedData.get((int) myPosition) & 0xff;
+            if (myDigest != null) {
+                myDigest.update((byte) r);
+            }
+            myPosition++;
+            return r;
+        }
         if ((myChannel == null && myInputStream == null) || myPosition < myBufferPosition || myPosition >= myBufferPosition + myBuffer.limit()) {
             if (fill() <= 0) {
                 return -1;
@@ -387,6 +457,20 @@ public class FSFile {
             myPosition += couldRead;
             return couldRead > 0 ? couldRead : -1;
         }
+        if (myMappedData != null) {
+            int couldRead = (int) Math.max(0, Math.min(myMappedData.limit() - myPosition, target.remaining()));
+            if (couldRead > 0) {
+                myMappedData.position((int) myPosition);
+                myMappedData.limit((int) myPosition + couldRead);
+                if (myDigest != null) {
+                    myDigest.update(myMappedData.duplicate());
+                }
+                target.put(myMappedData);
+                myMappedData.clear();
+            }
+            myPosition += couldRead;
+            return couldRead > 0 ? couldRead : -1;
+        }
         int read = 0;
         while(target.hasRemaining()) {
             if (fill() < 0) {
@@ -417,6 +501,19 @@ public class FSFile {
             myPosition += couldRead;
             return couldRead > 0 ? couldRead : -1;
         }
+        if (myMappedData != null) {
+            int couldRead = (int) Math.max(0, Math.min(myMappedData.limit() - myPosition, length));
+            if (couldRead > 0) {
+                myMappedData.position((int) myPosition);
+                myMappedData.get(buffer, offset, couldRead);
+                myMappedData.clear();
+                if (myDigest != null) {
+                    myDigest.update(buffer, offset, couldRead);
+                }
+            }
+            myPosition += couldRead;
+            return couldRead > 0 ? couldRead : -1;
+        }
         int read = 0;
         int toRead = length;
         while(toRead > 0) {
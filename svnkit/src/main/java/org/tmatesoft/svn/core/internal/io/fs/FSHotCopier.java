@@ -14,6 +14,10 @@ package org.tmatesoft.svn.core.internal.io.fs;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.tmatesoft.sqljet.core.SqlJetException;
 import org.tmatesoft.sqljet.core.table.ISqlJetTransaction;
@@ -28,11 +32,25 @@ import org.tmatesoft.svn.util.SVNLogType;
 
 
 /**
+ * Copies a live repository. Pack and revision shards are copied concurrently by up to
+ * {@link #getThreadsCount()} threads (see the <code>svnkit.fs.shard.threads</code>
+ * system property); <code>current</code> is written last.
+ *
  * @version 1.3
  * @author  TMate Software Ltd.
  */
 public class FSHotCopier {
 
+    private int myThreadsCount = FSShardExecutor.getDefaultThreadsCount();
+
+    public void setThreadsCount(int threadsCount) {
+        myThreadsCount = Math.max(1, threadsCount);
+    }
+
+    public int getThreadsCount() {
+        return myThreadsCount;
+    }
+
     public void runHotCopy(FSFS srcOwner, File dstPath) throws SVNException {
         FSWriteLock dbLogsLock = FSWriteLock.getDBLogsLock(srcOwner, false);
         File srcPath = srcOwner.getRepositoryRoot();
@@ -132,83 +150,83 @@ public class FSHotCopier {
         }
     }
 
-    private void hotCopy(FSFS srcOwner, FSFS dstOwner) throws SVNException {
+    private void hotCopy(final FSFS srcOwner, final FSFS dstOwner) throws SVNException {
         int format = srcOwner.readDBFormat();
         FSRepositoryUtil.checkReposDBFormat(format);
-        SVNFileUtil.copyFile(srcOwner.getCurrentFile(), dstOwner.getCurrentFile(), true);
+        /*
+         * Take a snapshot of 'current' first, but write it to the destination only after
+         * all revisions it refers to are copied, so that an interrupted hot copy never
+         * claims revisions it does not have.
+         */
+        final byte[] current = SVNFileUtil.readFully(srcOwner.getCurrentFile());
+        final long youngestRev = parseYoungestRevision(current, srcOwner.getCurrentFile());
         SVNFileUtil.copyFile(srcOwner.getUUIDFile(), dstOwner.getUUIDFile(), true);
+        if (srcOwner.getConfigFile().isFile()) {
+            SVNFileUtil.copyFile(srcOwner.getConfigFile(), dstOwner.getConfigFile(), true);
+        }
 
         long minUnpackedRevision = 0;
         if (format >= FSFS.MIN_PACKED_FORMAT) {
             SVNFileUtil.copyFile(srcOwner.getMinUnpackedRevFile(), dstOwner.getMinUnpackedRevFile(), true);
             minUnpackedRevision = srcOwner.getMinUnpackedRev();
         }
-        long youngestRev = dstOwner.getYoungestRevision();
 
-        File dstRevsDir = dstOwner.getDBRevsDir();
+        final File dstRevsDir = dstOwner.getDBRevsDir();
         dstRevsDir.mkdirs();
 
-        long maxFilesPerDirectory = srcOwner.getMaxFilesPerDirectory();
-        long rev = 0;
-        for (; rev < minUnpackedRevision; rev += srcOwner.getMaxFilesPerDirectory()) {
-            long packedShard = rev / maxFilesPerDirectory;
-            SVNFileUtil.copyDirectory(srcOwner.getPackDir(packedShard), dstOwner.getPackDir(packedShard), false, null);
-        }
+        final long maxFilesPerDirectory = srcOwner.getMaxFilesPerDirectory();
+        final FSShardExecutor executor = new FSShardExecutor(myThreadsCount);
+        final List<Future<Object>> jobs = new ArrayList<Future<Object>>();
+        boolean completed = false;
+        try {
+            long rev = 0;
+            for (; rev < minUnpackedRevision; rev += srcOwner.getMaxFilesPerDirectory()) {
+                final long packedShard = rev / maxFilesPerDirectory;
+                jobs.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws SVNException {
+                        SVNFileUtil.copyDirectory(srcOwner.getPackDir(packedShard), dstOwner.getPackDir(packedShard), false, null);
+                        return null;
+                    }
+                }));
+            }
 
-        SVNErrorManager.assertionFailure(rev == minUnpackedRevision, "expected minimal unpacked revision " + String.valueOf(minUnpackedRevision) + ", but real revision is " +
-                String.valueOf(rev), SVNLogType.FSFS);
+            SVNErrorManager.assertionFailure(rev == minUnpackedRevision, "expected minimal unpacked revision " + String.valueOf(minUnpackedRevision) + ", but real revision is " +
+                    String.valueOf(rev), SVNLogType.FSFS);
 
-        for (; rev <= youngestRev; rev++) {
-            File dstDir = dstRevsDir;
-            if (maxFilesPerDirectory > 0) {
-                String shard = String.valueOf(rev / maxFilesPerDirectory);
-                dstDir = new File(dstRevsDir, shard);
-            }
-            SVNFileUtil.copyFile(srcOwner.getRevisionFile(rev), new File(dstDir, String.valueOf(rev)), true);
-        }
-
-        long min_unpacked_revprop = 0;
-        /* Copy the min unpacked revprop file, and read its value. */
-        if (format >= FSFS.MIN_PACKED_REVPROP_FORMAT)
-          {
-            min_unpacked_revprop = srcOwner.getMinUnpackedRevProp();
-            SVNFileUtil.copyFile(srcOwner.getMinUnpackedRevPropPath(), dstOwner.getMinUnpackedRevPropPath(),true);
-            final File srcRevPropDb = srcOwner.getRevisionPropertiesDbPath();
-            final File dstRevPropDb = dstOwner.getRevisionPropertiesDbPath();
-            final SVNSqlJetDb revPropDb = SVNSqlJetDb.open(
-                    srcOwner.getRevisionPropertiesDbPath(), SVNSqlJetDb.Mode.ReadWrite);
-            try{
-                SVNException e = (SVNException) revPropDb.getDb().runReadTransaction(new ISqlJetTransaction() {
-                        public Object run(SqlJetDb db) throws SqlJetException {
-                            try {
-                                SVNFileUtil.copyFile(srcRevPropDb,
-                                        dstRevPropDb,true);
-                            } catch (SVNException e) {
-                                return e;
-                            }
+            submitCopyRevisions(executor, jobs, srcOwner, rev, youngestRev, dstRevsDir, false);
+
+            long min_unpacked_revprop = 0;
+            /* Copy the min unpacked revprop file, and read its value. */
+            if (format >= FSFS.MIN_PACKED_REVPROP_FORMAT) {
+                min_unpacked_revprop = srcOwner.getMinUnpackedRevProp();
+                SVNFileUtil.copyFile(srcOwner.getMinUnpackedRevPropPath(), dstOwner.getMinUnpackedRevPropPath(), true);
+                if (srcOwner.getRevisionPropertiesDbPath().isFile()) {
+                    copyRevisionPropertiesDb(srcOwner, dstOwner);
+                }
+                for (rev = 0; rev < min_unpacked_revprop; rev += maxFilesPerDirectory) {
+                    final String packName = (rev / maxFilesPerDirectory) + FSFS.PACK_EXT;
+                    jobs.add(executor.submit(new Callable<Object>() {
+                        public Object call() throws SVNException {
+                            SVNFileUtil.copyDirectory(new File(srcOwner.getRevisionPropertiesRoot(), packName),
+                                    new File(dstOwner.getRevisionPropertiesRoot(), packName), false, null);
                             return null;
                         }
-                    });
-                if(e!=null){
-                    throw e;
+                    }));
+                }
+                if (min_unpacked_revprop > 0) {
+                    /* Revision 0 properties are never packed. */
+                    submitCopyRevisions(executor, jobs, srcOwner, 0, 0, dstOwner.getRevisionPropertiesRoot(), true);
                 }
-            } catch (SqlJetException e) {
-                SVNErrorMessage err = SVNErrorMessage.create( SVNErrorCode.SQLITE_ERROR, e );
-                SVNErrorManager.error(err, SVNLogType.FSFS);
-            } finally {
-                revPropDb.close();
             }
-          }
-
-        File dstRevPropsDir = dstOwner.getRevisionPropertiesRoot();
-        for (rev = min_unpacked_revprop; rev <= youngestRev; rev++) {
-            File dstDir = dstRevPropsDir;
-            if (maxFilesPerDirectory > 0) {
-                String shard = String.valueOf(rev / maxFilesPerDirectory);
-                dstDir = new File(dstRevPropsDir, shard);
+
+            submitCopyRevisions(executor, jobs, srcOwner, min_unpacked_revprop, youngestRev, dstOwner.getRevisionPropertiesRoot(), true);
+
+            for (Future<Object> job : jobs) {
+                executor.waitFor(job);
             }
-            SVNFileUtil.copyFile(srcOwner.getRevisionPropertiesFile(rev, false), new File(dstDir, String.valueOf(rev)),
-                    true);
+            completed = true;
+        } finally {
+            executor.shutdown(!completed);
         }
 
         dstOwner.getTransactionsParentDir().mkdirs();
@@ -230,5 +248,72 @@ public class FSHotCopier {
             SVNFileUtil.copyFile(srcOwner.getTransactionCurrentFile(), dstOwner.getTransactionCurrentFile(), true);
         }
         dstOwner.writeDBFormat(format, maxFilesPerDirectory, false);
+
+        File tmpCurrentFile = SVNFileUtil.createUniqueFile(dstOwner.getDBRoot(), "current", ".tmp", false);
+        SVNFileUtil.writeToFile(tmpCurrentFile, current);
+        SVNFileUtil.rename(tmpCurrentFile, dstOwner.getCurrentFile());
+    }
+
+    private void submitCopyRevisions(FSShardExecutor executor, List<Future<Object>> jobs, final FSFS srcOwner,
+                                     long startRev, final long endRev, final File dstRoot, final boolean revisionProperties) throws SVNException {
+        final long maxFilesPerDirectory = srcOwner.getMaxFilesPerDirectory();
+        while (startRev <= endRev) {
+            final long shardStart = startRev;
+            final long shardEnd = maxFilesPerDirectory > 0 ? Math.min(endRev, (startRev / maxFilesPerDirectory + 1) * maxFilesPerDirectory - 1) : endRev;
+            jobs.add(executor.submit(new Callable<Object>() {
+                public Object call() throws SVNException {
+                    for (long rev = shardStart; rev <= shardEnd; rev++) {
+                        File dstDir = dstRoot;
+                        if (maxFilesPerDirectory > 0) {
+                            dstDir = new File(dstRoot, String.valueOf(rev / maxFilesPerDirectory));
+                        }
+                        File srcFile = revisionProperties ? srcOwner.getRevisionPropertiesFile(rev, false) : srcOwner.getRevisionFile(rev);
+                        SVNFileUtil.copyFile(srcFile, new File(dstDir, String.valueOf(rev)), true);
+                    }
+                    return null;
+                }
+            }));
+            startRev = shardEnd + 1;
+        }
+    }
+
+    private void copyRevisionPropertiesDb(FSFS srcOwner, FSFS dstOwner) throws SVNException {
+        final File srcRevPropDb = srcOwner.getRevisionPropertiesDbPath();
+        final File dstRevPropDb = dstOwner.getRevisionPropertiesDbPath();
+        final SVNSqlJetDb revPropDb = SVNSqlJetDb.open(
+                srcOwner.getRevisionPropertiesDbPath(), SVNSqlJetDb.Mode.ReadWrite);
+        try{
+            SVNException e = (SVNException) revPropDb.getDb().runReadTransaction(new ISqlJetTransaction() {
+                    public Object run(SqlJetDb db) throws SqlJetException {
+                        try {
+                            SVNFileUtil.copyFile(srcRevPropDb,
+                                    dstRevPropDb,true);
+                        } catch (SVNException e) {
+                            return e;
+                        }
+                        return null;
+                    }
+                });
+            if(e!=null){
+                throw e;
+            }
+        } catch (SqlJetException e) {
+            SVNErrorMessage err = SVNErrorMessage.create( SVNErrorCode.SQLITE_ERROR, e );
+            SVNErrorManager.error(err, SVNLogType.FSFS);
+        } finally {
+            revPropDb.close();
+        }
+    }
+
+    private static long parseYoungestRevision(byte[] current, File currentFile) throws SVNException {
+        String line = new String(current).trim();
+        int spaceIndex = line.indexOf(' ');
+        try {
+            return Long.parseLong(spaceIndex >= 0 ? line.substring(0, spaceIndex) : line);
+        } catch (NumberFormatException nfe) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_CORRUPT, "Corrupt ''current'' file ''{0}''", currentFile);
+            SVNErrorManager.error(err, nfe, SVNLogType.FSFS);
+        }
+        return -1;
     }
 }
@@ -36,6 +36,8 @@ import org.tmatesoft.svn.util.SVNLogType;
  */
 public class FSInputStream extends InputStream {
 
+    private static final long ourFulltextCacheLimit = Long.getLong("svnkit.fs.cache.fulltext.max", 256 * 1024).longValue();
+
     private LinkedList myRepStateList = new LinkedList();
     private int myChunkIndex;
     private boolean isChecksumFinalized;
@@ -45,6 +47,9 @@ public class FSInputStream extends InputStream {
     private MessageDigest myDigest;
     private ByteBuffer myBuffer;
     private SVNDeltaCombiner myCombiner;
+    private byte[] myFulltext;
+    private FSFS myOwner;
+    private FSRepresentation myRepresentation;
 
     private FSInputStream(SVNDeltaCombiner combiner, FSRepresentation representation, FSFS owner) throws SVNException {
         myCombiner = combiner;
@@ -53,6 +58,20 @@ public class FSInputStream extends InputStream {
         myHexChecksum = representation.getMD5HexDigest();
         myOffset = 0;
         myLength = representation.getExpandedSize();
+
+        if (isFulltextCacheable(representation, owner)) {
+            byte[] fulltext = (byte[]) owner.getCache().get(owner.getCacheKeyPrefix(), FSCache.FULLTEXT,
+                    representation.getRevision(), representation.getItemIndex(), null);
+            if (fulltext != null && fulltext.length == myLength) {
+                /* Contents was verified when it was put to the cache, skip the delta chain. */
+                myBuffer = ByteBuffer.wrap(fulltext);
+                isChecksumFinalized = true;
+                return;
+            }
+            myOwner = owner;
+            myRepresentation = new FSRepresentation(representation);
+            myFulltext = new byte[(int) myLength];
+        }
         try {
             myDigest = MessageDigest.getInstance("MD5");
         } catch (NoSuchAlgorithmException nsae) {
@@ -70,6 +89,20 @@ public class FSInputStream extends InputStream {
             close();
             throw svne;
         }
+        if (FSWindowPrefetcher.isEnabled() && myRepStateList.size() > 1) {
+            for (Iterator states = myRepStateList.iterator(); states.hasNext();) {
+                FSRepresentationState state = (FSRepresentationState) states.next();
+                state.myPrefetcher = new FSWindowPrefetcher(state);
+                state.myPrefetcher.start();
+            }
+        }
+    }
+
+    private static boolean isFulltextCacheable(FSRepresentation representation, FSFS owner) {
+        return !representation.isTxn() && representation.getExpandedSize() > 0 &&
+                representation.getExpandedSize() <= ourFulltextCacheLimit &&
+                representation.getMD5HexDigest() != null &&
+                owner.getCache().accepts(representation.getExpandedSize());
     }
 
     public static InputStream createDeltaStream(SVNDeltaCombiner combiner, FSRevisionNode fileNode, FSFS owner) throws SVNException {
@@ -114,6 +147,13 @@ public class FSInputStream extends InputStream {
         length = getContents(buf, offset, length);
         if (!isChecksumFinalized && length >= 0) {
             myDigest.update(buf, offset, length);
+            if (myFulltext != null) {
+                if (myOffset + length <= myFulltext.length) {
+                    System.arraycopy(buf, offset, myFulltext, (int) myOffset, length);
+                } else {
+                    myFulltext = null;
+                }
+            }
             myOffset += length;
 
             if (myOffset == myLength) {
@@ -126,6 +166,11 @@ public class FSInputStream extends InputStream {
                     });
                     SVNErrorManager.error(err, SVNLogType.FSFS);
                 }
+                if (myFulltext != null) {
+                    myOwner.getCache().put(myOwner.getCacheKeyPrefix(), FSCache.FULLTEXT, myRepresentation.getRevision(),
+                            myRepresentation.getItemIndex(), null, myFulltext, myFulltext.length);
+                    myFulltext = null;
+                }
             }
         }
 
@@ -147,8 +192,14 @@ public class FSInputStream extends InputStream {
                 remaining -= copyLength;
                 read += copyLength;
             } else {
+                if (myRepStateList.isEmpty()) {
+                    if (read == 0) {
+                        read = -1;
+                    }
+                    break;
+                }
                 FSRepresentationState resultState = (FSRepresentationState) myRepStateList.getFirst();
-                if (resultState.myOffset == resultState.myEnd) {
+                if (resultState.myPrefetcher != null ? !resultState.myPrefetcher.hasMoreWindows() : resultState.myOffset == resultState.myEnd) {
                     if (read == 0) {
                         read = -1;
                     }
@@ -157,6 +208,20 @@ public class FSInputStream extends InputStream {
                 myCombiner.reset();
                 for (ListIterator states = myRepStateList.listIterator(); states.hasNext();) {
                     FSRepresentationState curState = (FSRepresentationState) states.next();
+                    if (curState.myPrefetcher != null) {
+                        while (curState.myChunkIndex < myChunkIndex) {
+                            curState.myPrefetcher.nextWindow();
+                            curState.myChunkIndex++;
+                        }
+                        ByteBuffer target = myCombiner.addWindow(curState.myPrefetcher.nextWindow());
+                        curState.myChunkIndex++;
+                        if (target != null) {
+                            myBuffer = target;
+                            myChunkIndex++;
+                            break;
+                        }
+                        continue;
+                    }
 
                     while (curState.myChunkIndex < myChunkIndex) {
                         myCombiner.skipWindow(curState.myFile);
@@ -185,6 +250,9 @@ public class FSInputStream extends InputStream {
     public void close() {
         for (Iterator states = myRepStateList.iterator(); states.hasNext();) {
             FSRepresentationState state = (FSRepresentationState) states.next();
+            if (state.myPrefetcher != null) {
+                state.myPrefetcher.close();
+            }
             if (state.myFile != null) {
                 state.myFile.close();
             }
@@ -325,6 +393,7 @@ public class FSInputStream extends InputStream {
         long myBaseRevision;
         long myBaseOffset;
         long myBaseLength;
+        FSWindowPrefetcher myPrefetcher;
     }
 
 }
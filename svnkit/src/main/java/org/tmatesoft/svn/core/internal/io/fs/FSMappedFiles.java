@@ -0,0 +1,179 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Registry of read-only memory mappings of immutable revision and pack files,
+ * shared by all readers in the process.
+ *
+ * <p/>
+ * Mapping is disabled by default and is turned on with the <code>svnkit.fs.mmap</code>
+ * system property or {@link #setEnabled(boolean)}. A file is mapped again when its length
+ * or modification time changes; the packer releases mappings of the files it deletes or
+ * rewrites. The total size of the mapped files is limited by
+ * <code>svnkit.fs.mmap.budget</code> (bytes); least recently used mappings are released
+ * when the budget is exceeded. Released mappings are unmapped by the garbage collector
+ * once the last reader drops them.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class FSMappedFiles {
+
+    private static final long DEFAULT_BUDGET = 512L * 1024 * 1024;
+
+    private static volatile boolean ourIsEnabled = Boolean.valueOf(System.getProperty("svnkit.fs.mmap", Boolean.FALSE.toString())).booleanValue();
+    private static final LinkedHashMap<String, Mapping> ourMappings = new LinkedHashMap<String, Mapping>(64, 0.75f, true);
+    private static long ourBudget = getDefaultBudget();
+    private static long ourMappedSize;
+
+    public static boolean isEnabled() {
+        return ourIsEnabled && ourBudget > 0;
+    }
+
+    public static synchronized void setEnabled(boolean enabled) {
+        ourIsEnabled = enabled;
+        if (!enabled) {
+            ourMappings.clear();
+            ourMappedSize = 0;
+        }
+    }
+
+    public static synchronized void setBudget(long budget) {
+        ourBudget = budget;
+        evict();
+    }
+
+    public static synchronized long getBudget() {
+        return ourBudget;
+    }
+
+    public static synchronized long getMappedSize() {
+        return ourMappedSize;
+    }
+
+    public static synchronized boolean isMapped(File file) {
+        return ourMappings.containsKey(file.getAbsolutePath());
+    }
+
+    /**
+     * Releases mappings of <code>file</code> and of all files below it.
+     */
+    public static synchronized void release(File file) {
+        final String path = file.getAbsolutePath();
+        final String prefix = path + File.separator;
+        for (Iterator<Map.Entry<String, Mapping>> entries = ourMappings.entrySet().iterator(); entries.hasNext();) {
+            final Map.Entry<String, Mapping> entry = entries.next();
+            if (entry.getKey().equals(path) || entry.getKey().startsWith(prefix)) {
+                ourMappedSize -= entry.getValue().myLength;
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a private read-only view of the file mapping positioned at zero,
+     * or <code>null</code> when the file can not be mapped.
+     */
+    public static ByteBuffer map(File file) {
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        if (length <= 0 || length > Integer.MAX_VALUE) {
+            return null;
+        }
+        final String key = file.getAbsolutePath();
+        synchronized (FSMappedFiles.class) {
+            if (length > ourBudget) {
+                return null;
+            }
+            final Mapping mapping = ourMappings.get(key);
+            if (mapping != null) {
+                if (mapping.myLength == length && mapping.myLastModified == lastModified) {
+                    return mapping.myBuffer.asReadOnlyBuffer();
+                }
+                ourMappings.remove(key);
+                ourMappedSize -= mapping.myLength;
+            }
+        }
+
+        final MappedByteBuffer buffer = mapFile(file, length);
+        if (buffer == null) {
+            return null;
+        }
+        synchronized (FSMappedFiles.class) {
+            final Mapping previous = ourMappings.put(key, new Mapping(buffer, length, lastModified));
+            if (previous != null) {
+                ourMappedSize -= previous.myLength;
+            }
+            ourMappedSize += length;
+            evict();
+        }
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private static MappedByteBuffer mapFile(File file, long length) {
+        FileInputStream inputStream = null;
+        try {
+            inputStream = new FileInputStream(file);
+            final FileChannel channel = inputStream.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "Could not map file " + file + ": " + e.getMessage());
+            return null;
+        } finally {
+            SVNFileUtil.closeFile(inputStream);
+        }
+    }
+
+    private static void evict() {
+        for (Iterator<Mapping> mappings = ourMappings.values().iterator(); ourMappedSize > ourBudget && mappings.hasNext();) {
+            final Mapping mapping = mappings.next();
+            ourMappedSize -= mapping.myLength;
+            mappings.remove();
+        }
+    }
+
+    private static long getDefaultBudget() {
+        try {
+            return Long.parseLong(System.getProperty("svnkit.fs.mmap.budget", Long.toString(DEFAULT_BUDGET)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_BUDGET;
+        }
+    }
+
+    private static final class Mapping {
+
+        private final MappedByteBuffer myBuffer;
+        private final long myLength;
+        private final long myLastModified;
+
+        private Mapping(MappedByteBuffer buffer, long length, long lastModified) {
+            myBuffer = buffer;
+            myLength = length;
+            myLastModified = lastModified;
+        }
+    }
+}
@@ -12,10 +12,14 @@
 package org.tmatesoft.svn.core.internal.io.fs;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.List;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import org.tmatesoft.svn.core.ISVNCanceller;
 import org.tmatesoft.svn.core.SVNErrorCode;
@@ -34,6 +38,16 @@ import org.tmatesoft.svn.util.SVNLogType;
 
 
 /**
+ * Packs completed shards of a repository.
+ *
+ * <p/>
+ * Pack files of up to {@link #getThreadsCount()} shards are written concurrently
+ * (see the <code>svnkit.fs.shard.threads</code> system property, shared with hot
+ * copy; a value of 1 packs shards one at a time), but each shard is
+ * committed - <code>min-unpacked-rev</code> is advanced and the unpacked files are
+ * removed - strictly in shard order and only after its pack files are complete.
+ * Start and end notifications are sent from that in-order commit step.
+ *
  * @version 1.3
  * @author  TMate Software Ltd.
  */
@@ -41,10 +55,20 @@ public class FSPacker {
 
     private ISVNCanceller myCanceller;
     private ISVNAdminEventHandler myNotifyHandler;
+    private int myThreadsCount;
 
     public FSPacker(ISVNAdminEventHandler notifyHandler) {
         myCanceller = notifyHandler == null ? ISVNCanceller.NULL : notifyHandler;
         myNotifyHandler = notifyHandler;
+        myThreadsCount = FSShardExecutor.getDefaultThreadsCount();
+    }
+
+    public void setThreadsCount(int threadsCount) {
+        myThreadsCount = Math.max(1, threadsCount);
+    }
+
+    public int getThreadsCount() {
+        return myThreadsCount;
     }
 
     public void pack(FSFS fsfs) throws SVNException {
@@ -88,12 +112,37 @@ public class FSPacker {
             return;
         }
 
-        for (long i = minUnpackedRev / maxFilesPerDirectory; i < completedShards; i++) {
-            myCanceller.checkCancelled();
-            packShard(fsfs, i, packRevisionProperties);
+        final FSShardExecutor executor = new FSShardExecutor(myThreadsCount);
+        final LinkedList<Future<Object>> pendingShards = new LinkedList<Future<Object>>();
+        final int maxPendingShards = 2 * executor.getThreadsCount();
+        long nextShard = minUnpackedRev / maxFilesPerDirectory;
+        boolean completed = false;
+        try {
+            for (long i = minUnpackedRev / maxFilesPerDirectory; i < completedShards; i++) {
+                while (nextShard < completedShards && pendingShards.size() < maxPendingShards) {
+                    myCanceller.checkCancelled();
+                    pendingShards.addLast(submitShard(executor, fsfs, nextShard, packRevisionProperties));
+                    nextShard++;
+                }
+                executor.waitFor(pendingShards.removeFirst());
+                myCanceller.checkCancelled();
+                commitShard(fsfs, i, packRevisionProperties);
+            }
+            completed = true;
+        } finally {
+            executor.shutdown(!completed);
         }
     }
 
+    private Future<Object> submitShard(FSShardExecutor executor, final FSFS fsfs, final long shard, final boolean packRevisionProperties) throws SVNException {
+        return executor.submit(new Callable<Object>() {
+            public Object call() throws SVNException {
+                packShard(fsfs, shard, packRevisionProperties);
+                return null;
+            }
+        });
+    }
+
     private void packShard(FSFS fsfs, long shard, boolean packRevisionProperties) throws SVNException {
         File revShardPath = new File(fsfs.getDBRevsDir(), String.valueOf(shard));
         File revpropShardPath = new File(fsfs.getRevisionPropertiesRoot(), String.valueOf(shard));
@@ -103,14 +152,20 @@ public class FSPacker {
             myCanceller.checkCancelled();
             packRevPropShard(fsfs, shard, revpropShardPath, (long)(0.9 * fsfs.getRevPropPackSize()));
         }
+    }
 
+    private void commitShard(FSFS fsfs, long shard, boolean packRevisionProperties) throws SVNException {
+        firePackEvent(shard, true);
 
+        File revShardPath = new File(fsfs.getDBRevsDir(), String.valueOf(shard));
+        File revpropShardPath = new File(fsfs.getRevisionPropertiesRoot(), String.valueOf(shard));
         File finalPath = fsfs.getMinUnpackedRevFile();
         File tmpFile = SVNFileUtil.createUniqueFile(fsfs.getDBRoot(), "tempfile", ".tmp", false);
         String line = String.valueOf((shard + 1) * fsfs.getMaxFilesPerDirectory()) + '\n';
         SVNFileUtil.writeToFile(tmpFile, line, "UTF-8");
         SVNFileUtil.rename(tmpFile, finalPath);
         SVNFileUtil.deleteAll(revShardPath, true, myCanceller);
+        FSMappedFiles.release(revShardPath);
         if (packRevisionProperties) {
             deleteRevPropShard(revpropShardPath, shard, fsfs.getMaxFilesPerDirectory());
         }
@@ -137,9 +192,8 @@ public class FSPacker {
         File packFile = fsfs.getPackFile(shard);
         File manifestFile = fsfs.getManifestFile(shard);
 
-        firePackEvent(shard, true);
-
         SVNFileUtil.deleteAll(packDir, false, myCanceller);
+        FSMappedFiles.release(packDir);
 
         if (fsfs.isUseLogAddressing()) {
             SVNErrorMessage errorMessage = SVNErrorMessage.create(SVNErrorCode.FS_UNSUPPORTED_FORMAT, "Logical addressing is unsupported for FS format ''{0}''", new Object[]{fsfs.getDBFormat()});
@@ -153,23 +207,19 @@ public class FSPacker {
         long startRev = shard * fsfs.getMaxFilesPerDirectory();
         long endRev = (shard + 1) * fsfs.getMaxFilesPerDirectory() - 1;
         long nextOffset = 0;
-        OutputStream packFileOS = null;
+        FileOutputStream packFileOS = null;
         OutputStream manifestFileOS = null;
         try {
-            packFileOS = SVNFileUtil.openFileForWriting(packFile);
+            SVNFileUtil.ensureDirectoryExists(packFile.getParentFile());
+            packFileOS = SVNFileUtil.createFileOutputStream(packFile, false);
+            FileChannel packChannel = packFileOS.getChannel();
             manifestFileOS = SVNFileUtil.openFileForWriting(manifestFile);
             for (long rev = startRev; rev <= endRev; rev++) {
+                myCanceller.checkCancelled();
                 File path = new File(shardPath, String.valueOf(rev));
                 String line = String.valueOf(nextOffset) + '\n';
                 manifestFileOS.write(line.getBytes("UTF-8"));
-                nextOffset += path.length();
-                InputStream revIS = null;
-                try {
-                    revIS = SVNFileUtil.openFileForReading(path);
-                    FSRepositoryUtil.copy(revIS, packFileOS, myCanceller);
-                } finally {
-                    SVNFileUtil.closeFile(revIS);
-                }
+                nextOffset += appendFile(path, packChannel);
             }
         } catch (IOException ioe) {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR, ioe.getMessage());
@@ -180,6 +230,21 @@ public class FSPacker {
         }
     }
 
+    private static long appendFile(File path, FileChannel dstChannel) throws IOException {
+        FileInputStream revIS = SVNFileUtil.createFileInputStream(path);
+        try {
+            FileChannel revChannel = revIS.getChannel();
+            long size = revChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += revChannel.transferTo(position, size - position, dstChannel);
+            }
+            return size;
+        } finally {
+            SVNFileUtil.closeFile(revIS);
+        }
+    }
+
     private void firePackEvent(long shard, boolean start) throws SVNException {
         if (myNotifyHandler != null) {
             SVNAdminEvent event = new SVNAdminEvent(start ? SVNAdminEventAction.PACK_START : SVNAdminEventAction.PACK_END, shard);
@@ -190,8 +255,6 @@ public class FSPacker {
     private void packRevPropShard(FSFS fsfs, long shard, File shardPath, long maxPackSize) throws SVNException {
         File packPath = new File(fsfs.getRevisionPropertiesRoot(), String.valueOf(shard) + FSFS.PACK_EXT);
 
-        firePackEvent(shard, true);
-
         long startRev = shard * fsfs.getMaxFilesPerDirectory();
         long endRev = (shard + 1) * fsfs.getMaxFilesPerDirectory() - 1;
         if (startRev == 0) {
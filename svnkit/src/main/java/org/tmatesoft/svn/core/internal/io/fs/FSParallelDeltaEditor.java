@@ -0,0 +1,451 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.tmatesoft.svn.core.SVNCommitInfo;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCombiner;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Editor of an update report that computes file contents deltas on an executor while
+ * the tree walk goes on. Deltas and the editor calls that follow them are queued and
+ * passed to the wrapped editor in the order of the walk, always in the walking thread.
+ *
+ * <p/>
+ * Windows of a pending delta are kept in memory: at most <code>MAX_PENDING_JOBS</code>
+ * deltas of <code>MAX_PENDING_SIZE</code> bytes of file contents in total are pending,
+ * the walk waits for the oldest one above that. Contents of files larger than
+ * <code>MAX_PENDING_SIZE</code> are sent inline once the queue is drained.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class FSParallelDeltaEditor implements ISVNEditor {
+
+    private static final int MAX_PENDING_JOBS = 64;
+    private static final long MAX_PENDING_SIZE = 16 * 1024 * 1024;
+
+    private static final ThreadLocal<DeltaTools> ourDeltaTools = new ThreadLocal<DeltaTools>() {
+        protected DeltaTools initialValue() {
+            return new DeltaTools();
+        }
+    };
+
+    private final ISVNEditor myEditor;
+    private final Executor myExecutor;
+    private final FSFS myFSFS;
+    private final LinkedList<Object> myQueue;
+    private int myPendingJobsCount;
+    private long myPendingSize;
+
+    public FSParallelDeltaEditor(ISVNEditor editor, Executor executor, FSFS fsfs) {
+        myEditor = editor;
+        myExecutor = executor;
+        myFSFS = fsfs;
+        myQueue = new LinkedList<Object>();
+    }
+
+    public void sendTextDelta(String path, String baseChecksum, FSRevisionNode sourceNode, FSRevisionNode targetNode,
+            SVNDeltaGenerator deltaGenerator, SVNDeltaCombiner deltaCombiner) throws SVNException {
+        long size = targetNode.getFileLength();
+        if (size > MAX_PENDING_SIZE) {
+            flush();
+            myEditor.applyTextDelta(path, baseChecksum);
+            sendDelta(path, sourceNode, targetNode, deltaGenerator, deltaCombiner, myEditor, myFSFS);
+            return;
+        }
+        while (myPendingJobsCount >= MAX_PENDING_JOBS || (myPendingJobsCount > 0 && myPendingSize + size > MAX_PENDING_SIZE)) {
+            replay(true);
+        }
+        DeltaJob job = new DeltaJob(path, baseChecksum, sourceNode, targetNode, size);
+        myQueue.add(job);
+        myPendingJobsCount++;
+        myPendingSize += size;
+        try {
+            myExecutor.execute(job);
+        } catch (RejectedExecutionException e) {
+            job.run();
+        }
+        replay(false);
+    }
+
+    /**
+     * Waits for all pending deltas and passes everything queued to the editor.
+     */
+    public void flush() throws SVNException {
+        while (!myQueue.isEmpty()) {
+            replay(true);
+        }
+    }
+
+    /**
+     * Cancels deltas that are not started yet and waits for running ones, so that no
+     * job reads the filesystem once the report is disposed.
+     */
+    public void abort() {
+        for (Object item : myQueue) {
+            if (item instanceof DeltaJob) {
+                ((DeltaJob) item).cancel();
+            }
+        }
+        myQueue.clear();
+        myPendingJobsCount = 0;
+        myPendingSize = 0;
+    }
+
+    public void targetRevision(long revision) throws SVNException {
+        call(new EditorCall(EditorCall.TARGET_REVISION, null, null, null, revision));
+    }
+
+    public void openRoot(long revision) throws SVNException {
+        call(new EditorCall(EditorCall.OPEN_ROOT, null, null, null, revision));
+    }
+
+    public void deleteEntry(String path, long revision) throws SVNException {
+        call(new EditorCall(EditorCall.DELETE_ENTRY, path, null, null, revision));
+    }
+
+    public void absentDir(String path) throws SVNException {
+        call(new EditorCall(EditorCall.ABSENT_DIR, path, null, null, -1));
+    }
+
+    public void absentFile(String path) throws SVNException {
+        call(new EditorCall(EditorCall.ABSENT_FILE, path, null, null, -1));
+    }
+
+    public void addDir(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+        call(new EditorCall(EditorCall.ADD_DIR, path, copyFromPath, null, copyFromRevision));
+    }
+
+    public void openDir(String path, long revision) throws SVNException {
+        call(new EditorCall(EditorCall.OPEN_DIR, path, null, null, revision));
+    }
+
+    public void changeDirProperty(String name, SVNPropertyValue value) throws SVNException {
+        call(new EditorCall(EditorCall.CHANGE_DIR_PROPERTY, null, name, value, -1));
+    }
+
+    public void closeDir() throws SVNException {
+        call(new EditorCall(EditorCall.CLOSE_DIR, null, null, null, -1));
+    }
+
+    public void addFile(String path, String copyFromPath, long copyFromRevision) throws SVNException {
+        call(new EditorCall(EditorCall.ADD_FILE, path, copyFromPath, null, copyFromRevision));
+    }
+
+    public void openFile(String path, long revision) throws SVNException {
+        call(new EditorCall(EditorCall.OPEN_FILE, path, null, null, revision));
+    }
+
+    public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue) throws SVNException {
+        call(new EditorCall(EditorCall.CHANGE_FILE_PROPERTY, path, propertyName, propertyValue, -1));
+    }
+
+    public void closeFile(String path, String textChecksum) throws SVNException {
+        call(new EditorCall(EditorCall.CLOSE_FILE, path, textChecksum, null, -1));
+    }
+
+    public void applyTextDelta(String path, String baseChecksum) throws SVNException {
+        call(new EditorCall(EditorCall.APPLY_TEXT_DELTA, path, baseChecksum, null, -1));
+    }
+
+    public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+        if (myQueue.isEmpty()) {
+            return myEditor.textDeltaChunk(path, diffWindow);
+        }
+        myQueue.add(new EditorCall(EditorCall.TEXT_DELTA_CHUNK, path, null, copy(diffWindow), -1));
+        return null;
+    }
+
+    public void textDeltaEnd(String path) throws SVNException {
+        call(new EditorCall(EditorCall.TEXT_DELTA_END, path, null, null, -1));
+    }
+
+    public SVNCommitInfo closeEdit() throws SVNException {
+        flush();
+        return myEditor.closeEdit();
+    }
+
+    public void abortEdit() throws SVNException {
+        abort();
+        myEditor.abortEdit();
+    }
+
+    private void call(EditorCall call) throws SVNException {
+        if (myQueue.isEmpty()) {
+            call.replay(myEditor);
+        } else {
+            myQueue.add(call);
+        }
+    }
+
+    private void replay(boolean waitForHead) throws SVNException {
+        while (!myQueue.isEmpty()) {
+            Object item = myQueue.getFirst();
+            if (item instanceof DeltaJob) {
+                DeltaJob job = (DeltaJob) item;
+                if (!waitForHead && !job.isDone()) {
+                    return;
+                }
+                List<SVNDiffWindow> windows = job.getWindows();
+                myQueue.removeFirst();
+                myPendingJobsCount--;
+                myPendingSize -= job.mySize;
+                myEditor.applyTextDelta(job.myPath, job.myBaseChecksum);
+                for (SVNDiffWindow window : windows) {
+                    SVNFileUtil.closeFile(myEditor.textDeltaChunk(job.myPath, window));
+                }
+                myEditor.textDeltaEnd(job.myPath);
+                waitForHead = false;
+            } else {
+                myQueue.removeFirst();
+                ((EditorCall) item).replay(myEditor);
+            }
+        }
+    }
+
+    private static void sendDelta(String path, FSRevisionNode sourceNode, FSRevisionNode targetNode, SVNDeltaGenerator deltaGenerator,
+            SVNDeltaCombiner deltaCombiner, ISVNDeltaConsumer consumer, FSFS fsfs) throws SVNException {
+        InputStream sourceStream = null;
+        InputStream targetStream = null;
+        try {
+            sourceStream = FSInputStream.createDeltaStream(deltaCombiner, sourceNode, fsfs);
+            targetStream = FSInputStream.createDeltaStream(deltaCombiner, targetNode, fsfs);
+            deltaGenerator.sendDelta(path, sourceStream, 0, targetStream, consumer, false);
+        } finally {
+            SVNFileUtil.closeFile(sourceStream);
+            SVNFileUtil.closeFile(targetStream);
+        }
+    }
+
+    private static SVNDiffWindow copy(SVNDiffWindow window) {
+        if (window == null || window == SVNDiffWindow.EMPTY) {
+            return window;
+        }
+        return window.clone(ByteBuffer.allocate(window.getDataLength()));
+    }
+
+    private static class DeltaTools {
+        private final SVNDeltaGenerator myGenerator = new SVNDeltaGenerator();
+        private final SVNDeltaCombiner myCombiner = new SVNDeltaCombiner();
+    }
+
+    private class DeltaJob implements Runnable, ISVNDeltaConsumer {
+
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int CANCELLED = 3;
+
+        private final String myPath;
+        private final String myBaseChecksum;
+        private final FSRevisionNode mySourceNode;
+        private final FSRevisionNode myTargetNode;
+        private final long mySize;
+        private final List<SVNDiffWindow> myWindows;
+        private int myState;
+        private SVNException myError;
+        private RuntimeException myRuntimeError;
+
+        public DeltaJob(String path, String baseChecksum, FSRevisionNode sourceNode, FSRevisionNode targetNode, long size) {
+            myPath = path;
+            myBaseChecksum = baseChecksum;
+            mySourceNode = sourceNode;
+            myTargetNode = targetNode;
+            mySize = size;
+            myWindows = new ArrayList<SVNDiffWindow>();
+        }
+
+        public void run() {
+            synchronized (this) {
+                if (myState != PENDING) {
+                    return;
+                }
+                myState = RUNNING;
+            }
+            DeltaTools tools = ourDeltaTools.get();
+            try {
+                sendDelta(myPath, mySourceNode, myTargetNode, tools.myGenerator, tools.myCombiner, this, myFSFS);
+            } catch (SVNException e) {
+                myError = e;
+            } catch (RuntimeException e) {
+                myRuntimeError = e;
+            } finally {
+                tools.myCombiner.reset();
+                synchronized (this) {
+                    myState = DONE;
+                    notifyAll();
+                }
+            }
+        }
+
+        public synchronized boolean isDone() {
+            return myState == DONE;
+        }
+
+        public synchronized void cancel() {
+            if (myState == PENDING) {
+                myState = CANCELLED;
+                return;
+            }
+            waitUntilDone();
+        }
+
+        public List<SVNDiffWindow> getWindows() throws SVNException {
+            // a job still queued in the executor is taken over by the waiting thread.
+            run();
+            synchronized (this) {
+                if (!waitUntilDone()) {
+                    SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Operation was interrupted");
+                    SVNErrorManager.error(err, SVNLogType.FSFS);
+                }
+            }
+            if (myError != null) {
+                throw myError;
+            } else if (myRuntimeError != null) {
+                throw myRuntimeError;
+            }
+            return myWindows;
+        }
+
+        public void applyTextDelta(String path, String baseChecksum) {
+        }
+
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) {
+            myWindows.add(copy(diffWindow));
+            return null;
+        }
+
+        public void textDeltaEnd(String path) {
+        }
+
+        private boolean waitUntilDone() {
+            while (myState == RUNNING) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return myState == DONE;
+        }
+    }
+
+    private static class EditorCall {
+
+        private static final int TARGET_REVISION = 0;
+        private static final int OPEN_ROOT = 1;
+        private static final int DELETE_ENTRY = 2;
+        private static final int ABSENT_DIR = 3;
+        private static final int ABSENT_FILE = 4;
+        private static final int ADD_DIR = 5;
+        private static final int OPEN_DIR = 6;
+        private static final int CHANGE_DIR_PROPERTY = 7;
+        private static final int CLOSE_DIR = 8;
+        private static final int ADD_FILE = 9;
+        private static final int OPEN_FILE = 10;
+        private static final int CHANGE_FILE_PROPERTY = 11;
+        private static final int CLOSE_FILE = 12;
+        private static final int APPLY_TEXT_DELTA = 13;
+        private static final int TEXT_DELTA_CHUNK = 14;
+        private static final int TEXT_DELTA_END = 15;
+
+        private final int myType;
+        private final String myPath;
+        private final String myName;
+        private final Object myValue;
+        private final long myRevision;
+
+        public EditorCall(int type, String path, String name, Object value, long revision) {
+            myType = type;
+            myPath = path;
+            myName = name;
+            myValue = value;
+            myRevision = revision;
+        }
+
+        public void replay(ISVNEditor editor) throws SVNException {
+            switch (myType) {
+                case TARGET_REVISION:
+                    editor.targetRevision(myRevision);
+                    break;
+                case OPEN_ROOT:
+                    editor.openRoot(myRevision);
+                    break;
+                case DELETE_ENTRY:
+                    editor.deleteEntry(myPath, myRevision);
+                    break;
+                case ABSENT_DIR:
+                    editor.absentDir(myPath);
+                    break;
+                case ABSENT_FILE:
+                    editor.absentFile(myPath);
+                    break;
+                case ADD_DIR:
+                    editor.addDir(myPath, myName, myRevision);
+                    break;
+                case OPEN_DIR:
+                    editor.openDir(myPath, myRevision);
+                    break;
+                case CHANGE_DIR_PROPERTY:
+                    editor.changeDirProperty(myName, (SVNPropertyValue) myValue);
+                    break;
+                case CLOSE_DIR:
+                    editor.closeDir();
+                    break;
+                case ADD_FILE:
+                    editor.addFile(myPath, myName, myRevision);
+                    break;
+                case OPEN_FILE:
+                    editor.openFile(myPath, myRevision);
+                    break;
+                case CHANGE_FILE_PROPERTY:
+                    editor.changeFileProperty(myPath, myName, (SVNPropertyValue) myValue);
+                    break;
+                case CLOSE_FILE:
+                    editor.closeFile(myPath, myName);
+                    break;
+                case APPLY_TEXT_DELTA:
+                    editor.applyTextDelta(myPath, myName);
+                    break;
+                case TEXT_DELTA_CHUNK:
+                    SVNFileUtil.closeFile(editor.textDeltaChunk(myPath, (SVNDiffWindow) myValue));
+                    break;
+                case TEXT_DELTA_END:
+                    editor.textDeltaEnd(myPath);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
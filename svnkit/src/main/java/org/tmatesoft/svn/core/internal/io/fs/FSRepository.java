@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.tmatesoft.svn.core.ISVNDirEntryHandler;
 import org.tmatesoft.svn.core.ISVNLogEntryHandler;
@@ -51,11 +52,13 @@ import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.internal.wc.SVNMergeInfoManager;
 import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNFileHandler;
 import org.tmatesoft.svn.core.io.ISVNFileRevisionHandler;
 import org.tmatesoft.svn.core.io.ISVNInheritedPropertiesHandler;
 import org.tmatesoft.svn.core.io.ISVNLocationEntryHandler;
 import org.tmatesoft.svn.core.io.ISVNLocationSegmentHandler;
 import org.tmatesoft.svn.core.io.ISVNLockHandler;
+import org.tmatesoft.svn.core.io.ISVNPathEntryHandler;
 import org.tmatesoft.svn.core.io.ISVNReplayHandler;
 import org.tmatesoft.svn.core.io.ISVNReporter;
 import org.tmatesoft.svn.core.io.ISVNReporterBaton;
@@ -74,8 +77,10 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
 
     private File myReposRootDir;
     private FSUpdateContext myReporterContext;
+    private Executor myDeltaExecutor;
     private FSLocationsFinder myLocationsFinder;
     private FSFS myFSFS;
+    private FSFS mySharedFSFS;
     private SVNMergeInfoManager myMergeInfoManager;
     private FSLog myLogDriver;
     private boolean myIsHooksEnabled;
@@ -87,7 +92,8 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
 
     public void setHooksEnabled(boolean enabled) {
         myIsHooksEnabled = enabled;
-        if (getFSFS() != null) {
+        // a shared filesystem keeps its own flag, it is not used when the flags differ.
+        if (getFSFS() != null && getFSFS() != mySharedFSFS) {
             getFSFS().setHooksEnabled(isHooksEnabled());
         }
     }
@@ -100,6 +106,36 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
         return myFSFS;
     }
 
+    /**
+     * Makes this repository use an already opened <code>fsfs</code> object instead of
+     * opening the filesystem anew for every operation. The shared object is used only
+     * when it belongs to the repository this object's location points to and has the
+     * same hooks setting as this repository. It is never closed or changed by this
+     * repository; its owner is responsible for closing it.
+     *
+     * @param fsfs  opened filesystem or <code>null</code> to open the filesystem for
+     *              every operation again
+     */
+    public void setSharedFSFS(FSFS fsfs) {
+        mySharedFSFS = fsfs;
+    }
+
+    public FSFS getSharedFSFS() {
+        return mySharedFSFS;
+    }
+
+    /**
+     * Sets the executor to compute file contents deltas of update reports on while the
+     * tree is walked. Editor calls are still made in the order of the walk and in the
+     * thread that finishes the report.
+     *
+     * @param executor  executor shared by reports or <code>null</code> (default) to 
+     *                  compute deltas inline
+     */
+    public void setDeltaExecutor(Executor executor) {
+        myDeltaExecutor = executor;
+    }
+
     public void testConnection() throws SVNException {
         // try to open and close a repository
         try {
@@ -428,29 +464,82 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
     public SVNDirEntry info(String path, long revision) throws SVNException {
         try {
             openRepository();
-            path = getRepositoryPath(path);
             if (FSRepository.isInvalidRevision(revision)) {
                 revision = myFSFS.getYoungestRevision();
             }
             FSRevisionRoot root = myFSFS.createRevisionRoot(revision);
+            return info(root, getRepositoryPath(path));
+        } finally {
+            closeRepository();
+        }
+    }
 
-            if (root.checkNodeKind(path) == SVNNodeKind.NONE) {
-                return null;
+    public void info(Collection<String> paths, long revision, ISVNPathEntryHandler handler) throws SVNException {
+        try {
+            openRepository();
+            if (FSRepository.isInvalidRevision(revision)) {
+                revision = myFSFS.getYoungestRevision();
             }
+            FSRevisionRoot root = myFSFS.createRevisionRoot(revision);
+            for (String path : paths) {
+                getCanceller().checkCancelled();
+                handler.handlePathEntry(path, info(root, getRepositoryPath(path)));
+            }
+        } finally {
+            closeRepository();
+        }
+    }
 
-            FSRevisionNode revNode = root.getRevisionNode(path);
-            String fullPath = getFullPath(path);
-            String parentFullPath = "/".equals(path) ? fullPath : SVNPathUtil.removeTail(fullPath);
-            SVNURL url = getLocation().setPath(parentFullPath, false);
-            String name = "/".equals(path) ? "" : SVNPathUtil.tail(path);
-            FSEntry fsEntry = new FSEntry(revNode.getId(), revNode.getType(), name);
-            SVNDirEntry entry = buildDirEntry(fsEntry, url, revNode, SVNDirEntry.DIRENT_ALL);
-            return entry;
+    public void getFiles(Collection<String> paths, long revision, boolean fetchProperties, ISVNFileHandler handler) throws SVNException {
+        try {
+            openRepository();
+            if (!SVNRepository.isValidRevision(revision)) {
+                revision = myFSFS.getYoungestRevision();
+            }
+            FSRevisionRoot root = myFSFS.createRevisionRoot(revision);
+            for (String path : paths) {
+                getCanceller().checkCancelled();
+                FSRevisionNode revNode = root.getRevisionNode(getRepositoryPath(path));
+                SVNProperties properties = null;
+                if (fetchProperties) {
+                    properties = new SVNProperties();
+                    if (revNode.getFileMD5Checksum() != null) {
+                        properties.put(SVNProperty.CHECKSUM, revNode.getFileMD5Checksum());
+                    }
+                    properties.put(SVNProperty.REVISION, Long.toString(revision));
+                    properties.putAll(collectProperties(revNode));
+                }
+                OutputStream contents = handler.openFile(path, revision, properties);
+                if (contents != null) {
+                    InputStream fileStream = null;
+                    try {
+                        fileStream = FSInputStream.createDeltaStream(new SVNDeltaCombiner(), revNode, myFSFS);
+                        FSRepositoryUtil.copy(fileStream, contents, getCanceller());
+                    } finally {
+                        SVNFileUtil.closeFile(fileStream);
+                    }
+                }
+                handler.closeFile(path);
+            }
         } finally {
             closeRepository();
         }
     }
 
+    private SVNDirEntry info(FSRevisionRoot root, String path) throws SVNException {
+        if (root.checkNodeKind(path) == SVNNodeKind.NONE) {
+            return null;
+        }
+
+        FSRevisionNode revNode = root.getRevisionNode(path);
+        String fullPath = getFullPath(path);
+        String parentFullPath = "/".equals(path) ? fullPath : SVNPathUtil.removeTail(fullPath);
+        SVNURL url = getLocation().setPath(parentFullPath, false);
+        String name = "/".equals(path) ? "" : SVNPathUtil.tail(path);
+        FSEntry fsEntry = new FSEntry(revNode.getId(), revNode.getType(), name);
+        return buildDirEntry(fsEntry, url, revNode, SVNDirEntry.DIRENT_ALL);
+    }
+
     public ISVNEditor getCommitEditor(String logMessage, Map locks, boolean keepLocks, ISVNWorkspaceMediator mediator) throws SVNException {
         try {
             openRepository();
@@ -735,7 +824,7 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
     }
 
     void closeRepository() throws SVNException {
-        if (myFSFS != null) {
+        if (myFSFS != null && myFSFS != mySharedFSFS) {
             myFSFS.close();
         }
         unlock();
@@ -823,9 +912,14 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
 
         myReposRootDir = hasCustomHostName ? new File("\\\\" + hostName, dirPath).getAbsoluteFile() :
                                              new File(dirPath).getAbsoluteFile();
-        myFSFS = new FSFS(myReposRootDir);
-        myFSFS.setHooksEnabled(isHooksEnabled());
-        myFSFS.open();
+        if (mySharedFSFS != null && myReposRootDir.equals(mySharedFSFS.getRepositoryRoot()) &&
+                mySharedFSFS.isHooksEnabled() == isHooksEnabled()) {
+            myFSFS = mySharedFSFS;
+        } else {
+            myFSFS = new FSFS(myReposRootDir);
+            myFSFS.setHooksEnabled(isHooksEnabled());
+            myFSFS.open();
+        }
         setRepositoryCredentials(myFSFS.getUUID(), getLocation().setPath(rootPath, false));
     }
 
@@ -955,6 +1049,7 @@ public class FSRepository extends SVNRepository implements ISVNReporter {
                                     target, fullTargetPath, switchURL == null ? false : true, depth,
                                     ignoreAncestry, textDeltas, sendCopyFromArgs, editor);
         }
+        myReporterContext.setDeltaExecutor(myDeltaExecutor);
     }
 
     private String getUserName() throws SVNException {
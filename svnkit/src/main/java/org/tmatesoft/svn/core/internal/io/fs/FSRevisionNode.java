@@ -216,6 +216,20 @@ public class FSRevisionNode {
         return clone;
     }
 
+    public static long estimateSize(FSRevisionNode revNode) {
+        long size = 256;
+        if (revNode.getCreatedPath() != null) {
+            size += 2 * revNode.getCreatedPath().length();
+        }
+        if (revNode.getCopyFromPath() != null) {
+            size += 2 * revNode.getCopyFromPath().length();
+        }
+        if (revNode.getCopyRootPath() != null) {
+            size += 2 * revNode.getCopyRootPath().length();
+        }
+        return size;
+    }
+
     protected Map getDirContents() {
         return myDirContents;
     }
@@ -95,9 +95,32 @@ public class FSRevisionRoot extends FSRoot {
         return new FSClosestCopy(copyDstRoot, copyDstEntry.getPath());
     }
 
+    public void putRevNodeToCache(String path, FSRevisionNode node) throws SVNException {
+        super.putRevNodeToCache(path, node);
+        FSFS owner = getOwner();
+        owner.getCache().put(owner.getCacheKeyPrefix(), FSCache.PATH_NODE, getRevision(), 0, path, node.getId(), 64 + 2 * path.length());
+    }
+
+    protected FSRevisionNode fetchRevNodeFromCache(String path) throws SVNException {
+        FSRevisionNode node = super.fetchRevNodeFromCache(path);
+        if (node == null) {
+            FSFS owner = getOwner();
+            FSID id = (FSID) owner.getCache().get(owner.getCacheKeyPrefix(), FSCache.PATH_NODE, getRevision(), 0, path);
+            if (id != null) {
+                node = owner.getRevisionNode(id);
+                super.putRevNodeToCache(path, node);
+            }
+        }
+        return node;
+    }
+
     public FSRevisionNode getRootRevisionNode() throws SVNException {
         if (myRootRevisionNode == null) {
-            if (false && isUseLogAddressing()) {
+            FSFS owner = getOwner();
+            FSID rootId = (FSID) owner.getCache().get(owner.getCacheKeyPrefix(), FSCache.PATH_NODE, getRevision(), 0, "/");
+            if (rootId != null) {
+                myRootRevisionNode = owner.getRevisionNode(rootId);
+            } else if (false && isUseLogAddressing()) {
                 FSRevisionNode rootRevisionNode = new FSRevisionNode();
                 rootRevisionNode.setId(FSID.createRevId(null, null, myRevision, FSID.ITEM_INDEX_ROOT_NODE));
                 rootRevisionNode.setType(SVNNodeKind.DIR);
@@ -114,6 +137,7 @@ public class FSRevisionRoot extends FSRoot {
                 } finally {
                     file.close();
                 }
+                owner.getCache().put(owner.getCacheKeyPrefix(), FSCache.PATH_NODE, getRevision(), 0, "/", myRootRevisionNode.getId(), 64);
             }
         }
         return myRootRevisionNode;
@@ -182,7 +182,7 @@ public abstract class FSRoot {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.UNKNOWN, "Invalid path ''{0}''", path);
             SVNErrorManager.error(err, SVNLogType.FSFS);
         }
-        return (FSRevisionNode) myRevNodesCache.fetch(path);
+        return myRevNodesCache.fetch(path);
     }
 
     private void foldChange(Map mapChanges, FSPathChange change) throws SVNException {
@@ -601,45 +601,34 @@ public abstract class FSRoot {
         outputStream.write(bytes, 0, length);
     }
 
-    private static final class RevisionCache {
+    private static final class RevisionCache extends LinkedHashMap {
+
+        private static final long serialVersionUID = 1L;
 
-        private LinkedList myKeys;
-        private Map myCache;
         private int mySizeLimit;
 
         public RevisionCache(int limit) {
+            super(16, 0.75f, true);
             mySizeLimit = limit;
-            myKeys = new LinkedList();
-            myCache = new TreeMap();
         }
 
-        public void put(Object key, Object value) {
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > mySizeLimit;
+        }
+
+        public void put(String key, FSRevisionNode value) {
             if (mySizeLimit <= 0) {
                 return;
             }
-            if (myKeys.size() == mySizeLimit) {
-                Object cachedKey = myKeys.removeLast();
-                myCache.remove(cachedKey);
-            }
-            myKeys.addFirst(key);
-            myCache.put(key, value);
+            super.put(key, value);
         }
 
-        public void delete(Object key) {
-            myKeys.remove(key);
-            myCache.remove(key);
+        public void delete(String key) {
+            remove(key);
         }
 
-        public Object fetch(Object key) {
-            int ind = myKeys.indexOf(key);
-            if (ind != -1) {
-                if (ind != 0) {
-                    Object cachedKey = myKeys.remove(ind);
-                    myKeys.addFirst(cachedKey);
-                }
-                return myCache.get(key);
-            }
-            return null;
+        public FSRevisionNode fetch(String key) {
+            return (FSRevisionNode) get(key);
         }
     }
 
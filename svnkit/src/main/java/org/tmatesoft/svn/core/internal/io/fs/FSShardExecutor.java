@@ -0,0 +1,136 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Runs independent per-shard jobs of repository maintenance operations (packing,
+ * hot copying) on a fixed number of threads. With a single thread jobs are run
+ * in the calling thread at submission time.
+ *
+ * <p/>
+ * Both operations default to the number of threads given by the
+ * <code>svnkit.fs.shard.threads</code> system property, or to the number of
+ * available processors but not more than 4 when it is not set. A value of 1
+ * processes shards one at a time.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class FSShardExecutor {
+
+    public static final String THREADS_COUNT_PROPERTY = "svnkit.fs.shard.threads";
+
+    private final int myThreadsCount;
+    private ExecutorService myExecutor;
+
+    public static int getDefaultThreadsCount() {
+        int defaultCount = Math.min(4, Runtime.getRuntime().availableProcessors());
+        return Math.max(1, Integer.getInteger(THREADS_COUNT_PROPERTY, defaultCount).intValue());
+    }
+
+    public FSShardExecutor(int threadsCount) {
+        myThreadsCount = Math.max(1, threadsCount);
+    }
+
+    public int getThreadsCount() {
+        return myThreadsCount;
+    }
+
+    public <T> Future<T> submit(Callable<T> job) {
+        if (myThreadsCount == 1) {
+            FutureTask<T> task = new FutureTask<T>(job);
+            task.run();
+            return task;
+        }
+        if (myExecutor == null) {
+            myExecutor = Executors.newFixedThreadPool(myThreadsCount, new ShardThreadFactory());
+        }
+        return myExecutor.submit(job);
+    }
+
+    public <T> T waitFor(Future<T> future) throws SVNException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Operation was interrupted");
+            SVNErrorManager.error(err, e, SVNLogType.FSFS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SVNException) {
+                throw (SVNException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.UNKNOWN, cause != null ? cause.getMessage() : null);
+            SVNErrorManager.error(err, cause, SVNLogType.FSFS);
+        }
+        return null;
+    }
+
+    /**
+     * Stops accepting jobs and waits until jobs that are already running complete,
+     * so that no job touches the repository once the caller releases its locks.
+     */
+    public void shutdown(boolean cancelPending) {
+        if (myExecutor == null) {
+            return;
+        }
+        if (cancelPending) {
+            myExecutor.shutdownNow();
+        } else {
+            myExecutor.shutdown();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (myExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        myExecutor = null;
+    }
+
+    private static class ShardThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger myThreadNumber = new AtomicInteger(1);
+
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "svnkit-fs-shard-" + myThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
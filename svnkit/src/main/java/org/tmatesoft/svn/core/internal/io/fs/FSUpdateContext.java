@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.tmatesoft.svn.core.SVNDepth;
 import org.tmatesoft.svn.core.SVNErrorCode;
@@ -68,6 +69,8 @@ public class FSUpdateContext {
     private FSRepository myRepository;
     private SVNDeltaGenerator myDeltaGenerator;
     private SVNDeltaCombiner myDeltaCombiner;
+    private Executor myDeltaExecutor;
+    private FSParallelDeltaEditor myParallelEditor;
 
     public FSUpdateContext(FSRepository repository, FSFS owner, long revision, File reportFile, 
             String target, String targetPath, boolean isSwitch, SVNDepth depth, 
@@ -104,6 +107,14 @@ public class FSUpdateContext {
         mySendCopyFromArgs = sendCopyFrom;
     }
     
+    /**
+     * Sets the executor to compute file contents deltas on while the tree is walked,
+     * <code>null</code> computes them inline.
+     */
+    public void setDeltaExecutor(Executor executor) {
+        myDeltaExecutor = executor;
+    }
+
     public void setTargetRoot(FSRoot root) {
         myTargetRoot = root;
     }
@@ -153,12 +164,17 @@ public class FSUpdateContext {
             myDeltaCombiner.reset();
         }
 
+        if (myParallelEditor != null) {
+            myParallelEditor.abort();
+            myParallelEditor = null;
+        }
+
         myTargetRoot = null;
         myRootsCache = null;
     }
 
     private ISVNEditor getEditor() {
-        return myEditor;
+        return myParallelEditor != null ? myParallelEditor : myEditor;
     }
 
     private long getTargetRevision() {
@@ -303,6 +319,10 @@ public class FSUpdateContext {
             myDeltaCombiner = new SVNDeltaCombiner();
         }
 
+        if (myDeltaExecutor != null && isSendTextDeltas()) {
+            myParallelEditor = new FSParallelDeltaEditor(myEditor, myDeltaExecutor, myFSFS);
+        }
+
         getEditor().targetRevision(getTargetRevision());
         getEditor().openRoot(sourceRevision);
 
@@ -441,6 +461,7 @@ public class FSUpdateContext {
         diffProplists(sourceRevision, sourcePath, editPath, targetPath, lockToken, false);
         String sourceHexDigest = null;
         FSRevisionRoot sourceRoot = null;
+        FSRevisionNode sourceNode = null;
         if (sourcePath != null) {
             sourceRoot = getSourceRoot(sourceRevision);
 
@@ -454,10 +475,15 @@ public class FSUpdateContext {
             if (!changed) {
                 return;
             }
-            FSRevisionNode sourceNode = sourceRoot.getRevisionNode(sourcePath);
+            sourceNode = sourceRoot.getRevisionNode(sourcePath);
             sourceHexDigest = sourceNode.getFileMD5Checksum();
         }
         
+        if (myParallelEditor != null) {
+            myParallelEditor.sendTextDelta(editPath, sourceHexDigest, sourceNode, getTargetRoot().getRevisionNode(targetPath), 
+                    myDeltaGenerator, myDeltaCombiner);
+            return;
+        }
         FSRepositoryUtil.sendTextDelta(getEditor(), editPath, sourcePath, sourceHexDigest, 
                 sourceRoot, targetPath, getTargetRoot(), isSendTextDeltas(), myDeltaCombiner, 
                 myDeltaGenerator, myFSFS);
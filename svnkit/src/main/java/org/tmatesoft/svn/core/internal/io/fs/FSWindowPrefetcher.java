@@ -0,0 +1,214 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCombiner;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Reads and decodes svndiff windows of one link of a representation delta chain
+ * ahead of the reader on a shared bounded pool.
+ *
+ * <p/>
+ * Each prefetcher owns the file of its chain link while a batch is being decoded and
+ * never blocks a pool thread: a batch decodes at most <code>svnkit.fs.reconstruction.prefetch</code>
+ * windows and the next batch is scheduled by the reader once the queue is half empty.
+ * The pool size is read from the <code>svnkit.fs.reconstruction.threads</code> system
+ * property and may be changed with {@link #setThreadsCount(int)}; <code>0</code> (default)
+ * disables prefetching. The pool queue holds at most
+ * four batches per thread; when it is full the reader decodes the next batch itself.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class FSWindowPrefetcher implements Runnable {
+
+    private static volatile int ourThreadsCount = Math.max(0, Integer.getInteger("svnkit.fs.reconstruction.threads", 0).intValue());
+    private static final int ourBatchSize = Math.max(1, Integer.getInteger("svnkit.fs.reconstruction.prefetch", 8).intValue());
+
+    private static final AtomicLong ourScheduledBatchesCount = new AtomicLong();
+    private static ThreadPoolExecutor ourExecutor;
+
+    private final FSInputStream.FSRepresentationState myState;
+    private final SVNDeltaCombiner myReader;
+    private final LinkedList<SVNDiffWindow> myWindows;
+    private boolean myIsScheduled;
+    private boolean myIsClosed;
+    private long myReadOffset;
+    private SVNException myError;
+
+    public static boolean isEnabled() {
+        return ourThreadsCount > 0;
+    }
+
+    /**
+     * Sets the size of the prefetch pool, <code>0</code> disables prefetching. Batches
+     * already scheduled on the previous pool are completed.
+     */
+    public static synchronized void setThreadsCount(int threadsCount) {
+        ourThreadsCount = Math.max(0, threadsCount);
+        if (ourExecutor != null) {
+            ourExecutor.shutdown();
+            ourExecutor = null;
+        }
+    }
+
+    public static int getThreadsCount() {
+        return ourThreadsCount;
+    }
+
+    public static long getScheduledBatchesCount() {
+        return ourScheduledBatchesCount.get();
+    }
+
+    public FSWindowPrefetcher(FSInputStream.FSRepresentationState state) {
+        myState = state;
+        myReader = new SVNDeltaCombiner();
+        myWindows = new LinkedList<SVNDiffWindow>();
+        myReadOffset = state.myOffset;
+    }
+
+    public synchronized void start() {
+        schedule();
+    }
+
+    public SVNDiffWindow nextWindow() throws SVNException {
+        synchronized (this) {
+            while (myWindows.isEmpty() && myIsScheduled && myError == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Reading representation was interrupted");
+                    SVNErrorManager.error(err, e, SVNLogType.FSFS);
+                }
+            }
+            if (myError != null) {
+                throw myError;
+            }
+            if (!myWindows.isEmpty()) {
+                SVNDiffWindow window = myWindows.removeFirst();
+                if (myWindows.size() <= ourBatchSize / 2) {
+                    schedule();
+                }
+                return window;
+            }
+            if (myReadOffset >= myState.myEnd) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_CORRUPT, "Reading one svndiff window read beyond the end of the representation");
+                SVNErrorManager.error(err, SVNLogType.FSFS);
+            }
+        }
+        // pool rejected the batch, decode in the reader thread.
+        run();
+        return nextWindow();
+    }
+
+    public synchronized boolean hasMoreWindows() {
+        return !myWindows.isEmpty() || myReadOffset < myState.myEnd;
+    }
+
+    public void run() {
+        synchronized (this) {
+            if (myIsClosed) {
+                myIsScheduled = false;
+                notifyAll();
+                return;
+            }
+        }
+        LinkedList<SVNDiffWindow> windows = new LinkedList<SVNDiffWindow>();
+        SVNException error = null;
+        long offset = myReadOffset;
+        try {
+            myState.myFile.seek(offset);
+            for (int i = 0; i < ourBatchSize && offset < myState.myEnd; i++) {
+                SVNDiffWindow window = myReader.readWindow(myState.myFile, myState.myVersion);
+                windows.add(window.clone(ByteBuffer.allocate(window.getDataLength())));
+                offset = myState.myFile.position();
+            }
+        } catch (SVNException e) {
+            error = e;
+        } catch (RuntimeException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.SVNDIFF_CORRUPT_WINDOW, e.getMessage());
+            error = new SVNException(err, e);
+        }
+        synchronized (this) {
+            myWindows.addAll(windows);
+            myReadOffset = offset;
+            myError = error;
+            myIsScheduled = false;
+            if (myError == null && myWindows.size() <= ourBatchSize / 2) {
+                schedule();
+            }
+            notifyAll();
+        }
+    }
+
+    public synchronized void close() {
+        myIsClosed = true;
+        while (myIsScheduled) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        myWindows.clear();
+    }
+
+    private void schedule() {
+        if (myIsScheduled || myIsClosed || myError != null || myReadOffset >= myState.myEnd) {
+            return;
+        }
+        myIsScheduled = true;
+        try {
+            getExecutor().execute(this);
+            ourScheduledBatchesCount.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            myIsScheduled = false;
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (ourExecutor == null) {
+            int threadsCount = Math.max(1, ourThreadsCount);
+            ourExecutor = new ThreadPoolExecutor(threadsCount, threadsCount, 60L, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(4 * threadsCount), new PrefetchThreadFactory());
+            ourExecutor.allowCoreThreadTimeOut(true);
+        }
+        return ourExecutor;
+    }
+
+    private static class PrefetchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger myThreadNumber = new AtomicInteger(1);
+
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "svnkit-fs-prefetch-" + myThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.fs;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Tracks the youngest revision recorded in the <code>db/current</code> file of a
+ * repository. One watcher is shared by all {@link FSFS} instances opened for the same path.
+ *
+ * <p/>
+ * The parsed revision is published together with the size and modification time of the
+ * file it was read from; readers only stat the file and re-read it when either changed or
+ * when the file was modified too recently for its timestamp to be trusted. When the
+ * <code>svnkit.fs.watchCurrent</code> system property is set, the <code>db</code> directory
+ * is registered with a file system watch service and readers do not touch the file until a
+ * change is reported. Setting <code>svnkit.fs.cacheCurrent</code> to <code>false</code>
+ * makes every call re-read the file.
+ *
+ * <p/>
+ * Watchers are reference counted: every {@link #getWatcher(File)} call must be paired with
+ * {@link #release(FSYoungestRevisionWatcher)}, and a watcher is forgotten (and no longer
+ * watched) when its last user releases it.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class FSYoungestRevisionWatcher {
+
+    private static final long RACY_INTERVAL = 2000;
+
+    private static final boolean ourIsCacheEnabled = Boolean.valueOf(System.getProperty("svnkit.fs.cacheCurrent", Boolean.TRUE.toString())).booleanValue();
+    private static final boolean ourIsWatchServiceEnabled = Boolean.valueOf(System.getProperty("svnkit.fs.watchCurrent", Boolean.FALSE.toString())).booleanValue();
+
+    private static final Map<String, FSYoungestRevisionWatcher> ourWatchers = new HashMap<String, FSYoungestRevisionWatcher>();
+    private static boolean ourIsWatchServiceAvailable = ourIsWatchServiceEnabled;
+
+    private final File myCurrentFile;
+    private final AtomicReference<State> myState;
+    private volatile boolean myIsWatched;
+    private volatile boolean myIsChanged;
+    private int myReferencesCount;
+
+    public static FSYoungestRevisionWatcher getWatcher(File currentFile) {
+        final String key = currentFile.getAbsolutePath();
+        FSYoungestRevisionWatcher watcher;
+        synchronized (ourWatchers) {
+            watcher = ourWatchers.get(key);
+            if (watcher != null) {
+                watcher.myReferencesCount++;
+                return watcher;
+            }
+            watcher = new FSYoungestRevisionWatcher(currentFile.getAbsoluteFile());
+            watcher.myReferencesCount++;
+            ourWatchers.put(key, watcher);
+            if (ourIsCacheEnabled && ourIsWatchServiceAvailable) {
+                try {
+                    watcher.myIsWatched = FSCurrentFileWatchService.getInstance().register(watcher, watcher.myCurrentFile);
+                } catch (LinkageError e) {
+                    // watch service is not supported by this JVM.
+                    SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, "File watch service is not available: " + e.getMessage());
+                    ourIsWatchServiceAvailable = false;
+                }
+            }
+        }
+        return watcher;
+    }
+
+    public static void release(FSYoungestRevisionWatcher watcher) {
+        if (watcher == null) {
+            return;
+        }
+        synchronized (ourWatchers) {
+            if ((--watcher.myReferencesCount) > 0) {
+                return;
+            }
+            ourWatchers.remove(watcher.myCurrentFile.getAbsolutePath());
+            if (watcher.myIsWatched) {
+                watcher.myIsWatched = false;
+                FSCurrentFileWatchService.getInstance().unregister(watcher);
+            }
+        }
+    }
+
+    static int getWatchersCount() {
+        synchronized (ourWatchers) {
+            return ourWatchers.size();
+        }
+    }
+
+    private FSYoungestRevisionWatcher(File currentFile) {
+        myCurrentFile = currentFile;
+        myState = new AtomicReference<State>();
+        myIsChanged = true;
+    }
+
+    public long getYoungestRevision() throws SVNException {
+        if (!ourIsCacheEnabled) {
+            return readYoungestRevision();
+        }
+        final State state = myState.get();
+        if (state != null) {
+            if (myIsWatched && !myIsChanged) {
+                return state.myRevision;
+            }
+            final long lastModified = myCurrentFile.lastModified();
+            if (state.myLastModified == lastModified && state.myLength == myCurrentFile.length() &&
+                    System.currentTimeMillis() - lastModified > RACY_INTERVAL) {
+                return state.myRevision;
+            }
+        }
+        return refresh();
+    }
+
+    /**
+     * Publishes the revision just written to the <code>current</code> file by this process.
+     */
+    public synchronized void setYoungestRevision(long revision) {
+        myIsChanged = false;
+        myState.set(new State(revision, myCurrentFile.lastModified(), myCurrentFile.length()));
+    }
+
+    public void invalidate() {
+        myIsChanged = true;
+        myState.set(null);
+    }
+
+    void changed() {
+        myIsChanged = true;
+    }
+
+    void unwatched() {
+        myIsWatched = false;
+    }
+
+    /**
+     * Re-reads the <code>current</code> file regardless of the published state; writers
+     * holding the repository write lock must not rely on a stat or on a watch event that
+     * may not have arrived yet.
+     */
+    public synchronized long refresh() throws SVNException {
+        myIsChanged = false;
+        final long lastModified = myCurrentFile.lastModified();
+        final long length = myCurrentFile.length();
+        long revision;
+        try {
+            revision = readYoungestRevision();
+        } catch (SVNException e) {
+            myIsChanged = true;
+            throw e;
+        }
+        myState.set(new State(revision, lastModified, length));
+        return revision;
+    }
+
+    private long readYoungestRevision() throws SVNException {
+        FSFile file = new FSFile(myCurrentFile);
+        try {
+            String line = file.readLine(180);
+            int spaceIndex = line.indexOf(' ');
+            if (spaceIndex > 0) {
+                return Long.parseLong(line.substring(0, spaceIndex));
+            }
+            return Long.parseLong(line);
+        } catch (NumberFormatException nfe) {
+            return 0;
+        } finally {
+            file.close();
+        }
+    }
+
+    private static final class State {
+
+        private final long myRevision;
+        private final long myLastModified;
+        private final long myLength;
+
+        private State(long revision, long lastModified, long length) {
+            myRevision = revision;
+            myLastModified = lastModified;
+            myLength = length;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.tmatesoft.svn.core.internal.io.fs.index;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.fs.FSCache;
 import org.tmatesoft.svn.core.internal.io.fs.FSFS;
 import org.tmatesoft.svn.core.internal.io.fs.FSFile;
 import org.tmatesoft.svn.core.internal.io.fs.FSID;
@@ -41,25 +42,9 @@ public class FSLogicalAddressingIndex {
 
     public long getOffsetByItemIndex(long revision, long itemIndex) throws SVNException {
         L2PPageInfo pageInfo = getL2PPageInfo(revision, itemIndex);
-        //TODO: cache the result
-
-        final boolean isPackedRevision = fsfs.isPackedRevision(revision);
-        final boolean isCached = false;
-        long offset;
-        if (!isCached) {
-            final long lastRevision = pageInfo.getFirstRevision() + (isPackedRevision ? fsfs.getMaxFilesPerDirectory() : 1);
-            final PageTableEntry entry = pageInfo.getEntry();
-//            final long maxOffset = align(entry.offset + entry.size, fsfs.getBlockSize());
-//            final long minOffset = maxOffset - fsfs.getBlockSize();
-
-            final Page page = getL2PPage(entry);
-            //TODO: cache!
-            offset = getL2PPageEntry(page, pageInfo.getPageOffset(), itemIndex, revision);
-        } else {
-            //TODO: set this to the cached value
-            offset = -1;
-        }
-        return offset;
+        final PageTableEntry entry = pageInfo.getEntry();
+        final Page page = getL2PPage(pageInfo.getFirstRevision(), entry);
+        return getL2PPageEntry(page, pageInfo.getPageOffset(), itemIndex, revision);
     }
 
     public long getItemIndexByOffset(long offset) {
@@ -67,39 +52,23 @@ public class FSLogicalAddressingIndex {
     }
 
     public List<FSP2LEntry> lookupP2LEntries(long revision, long blockStart, long blockEnd) throws SVNException {
-        final boolean isCached = false;
-
         List<FSP2LEntry> entries = new ArrayList<FSP2LEntry>();
         P2LPageInfo pageInfo = getP2LKeys(revision, blockStart);
 
-        if (!isCached) {
-            long originalPageStart = pageInfo.getPageStart();
-            int leakingBucket = 4;
-            P2LPageInfo prefetchInfo = pageInfo;
-
-            long maxOffset = FSRepositoryUtil.align(pageInfo.getNextOffset(), fsfs.getBlockSize());
-            long minOffset = FSRepositoryUtil.align(pageInfo.getStartOffset(), fsfs.getBlockSize()) - fsfs.getBlockSize();
-
-            //TODO: block read?
-
-            final List<FSP2LEntry> pageEntries = getP2LPage(
-                    pageInfo.getFirstRevision(),
-                    pageInfo.getStartOffset(),
-                    pageInfo.getNextOffset(),
-                    pageInfo.getPageStart(),
-                    pageInfo.getPageSize());
-            if (pageEntries.size() > 0) {
-                FSP2LEntry entry = pageEntries.get(pageEntries.size() - 1);
-                if (entry.getOffset() + entry.getSize() > pageInfo.getPageSize() * pageInfo.getPageCount()) {
-                    SVNErrorMessage errorMessage = SVNErrorMessage.create(SVNErrorCode.FS_INDEX_OVERFLOW, "Last P2L index entry extends beyond the last page in revision {0}", revision);
-                    SVNErrorManager.error(errorMessage, SVNLogType.FSFS);
-                }
+        final List<FSP2LEntry> pageEntries = getP2LPage(
+                pageInfo.getFirstRevision(),
+                pageInfo.getStartOffset(),
+                pageInfo.getNextOffset(),
+                pageInfo.getPageStart(),
+                pageInfo.getPageSize());
+        if (pageEntries.size() > 0) {
+            FSP2LEntry entry = pageEntries.get(pageEntries.size() - 1);
+            if (entry.getOffset() + entry.getSize() > pageInfo.getPageSize() * pageInfo.getPageCount()) {
+                SVNErrorMessage errorMessage = SVNErrorMessage.create(SVNErrorCode.FS_INDEX_OVERFLOW, "Last P2L index entry extends beyond the last page in revision {0}", revision);
+                SVNErrorManager.error(errorMessage, SVNLogType.FSFS);
             }
-            //cache_set()
-            appendP2LEntries(entries, pageEntries, blockStart, blockEnd);
-            //TODO: block read again?
-
         }
+        appendP2LEntries(entries, pageEntries, blockStart, blockEnd);
 
         assert entries.size() > 0;
 
@@ -108,7 +77,9 @@ public class FSLogicalAddressingIndex {
             long entryEnd = entry.getOffset() + entry.getSize();
             if (entryEnd < blockEnd) {
                 if (entry.getType() == FSP2LProtoIndex.ItemType.UNUSED) {
-                    entry.setSize(blockEnd - entry.getOffset());
+                    // page entries are shared through the cache, never modify them in place
+                    entry = new FSP2LEntry(entry.getOffset(), blockEnd - entry.getOffset(), entry.getType(), 0, entry.getRevision(), entry.getNumber());
+                    entries.set(entries.size() - 1, entry);
                 } else {
                     entry = new FSP2LEntry(entryEnd, blockEnd - entryEnd, FSP2LProtoIndex.ItemType.UNUSED, 0, SVNRepository.INVALID_REVISION, FSID.ITEM_INDEX_UNUSED);
                     entries.add(entry);
@@ -131,22 +102,18 @@ public class FSLogicalAddressingIndex {
     }
 
     private P2LPageInfo getP2LPageInfo(long revision, long offset) throws SVNException {
-        boolean isCached = false;
-
-        if (isCached) {
-            //TODO return cached value here
-            return null;
-        }
-        final P2LIndexHeader header = getP2LHeader();
+        final P2LIndexHeader header = getP2LHeader(revision);
         return createPageInfo(header, revision, offset);
     }
 
-    private P2LIndexHeader getP2LHeader() throws SVNException {
-        boolean isCached = false;
-
-        if (isCached) {
-            //TODO return cached value here
-            return null;
+    private P2LIndexHeader getP2LHeader(long revision) throws SVNException {
+        final String cacheKey = getCacheKey();
+        final long startRevision = getStartRevision(revision);
+        if (cacheKey != null) {
+            final P2LIndexHeader cachedHeader = (P2LIndexHeader) getCache().get(fsfs.getCacheKeyPrefix(), FSCache.P2L_HEADER, startRevision, 0, cacheKey);
+            if (cachedHeader != null) {
+                return cachedHeader;
+            }
         }
 
         final FSPackedNumbersStream packedNumbersStream = autoOpenP2LIndex();
@@ -189,9 +156,10 @@ public class FSLogicalAddressingIndex {
             offsets[i] += offset;
         }
 
-        //TODO: save to cache here
-
         final P2LIndexHeader p2LIndexHeader = new P2LIndexHeader(firstRevision, pageSize, pageCount, fileSize, offsets);
+        if (cacheKey != null) {
+            getCache().put(fsfs.getCacheKeyPrefix(), FSCache.P2L_HEADER, startRevision, 0, cacheKey, p2LIndexHeader, 64 + 8 * offsets.length);
+        }
         return p2LIndexHeader;
     }
 
@@ -258,6 +226,21 @@ public class FSLogicalAddressingIndex {
     }
 
     private List<FSP2LEntry> getP2LPage(long startRevision, long startOffset, long nextOffset, long pageStart, long pageSize) throws SVNException {
+        final String cacheKey = getCacheKey();
+        if (cacheKey != null) {
+            final List<FSP2LEntry> cachedPage = (List<FSP2LEntry>) getCache().get(fsfs.getCacheKeyPrefix(), FSCache.P2L_PAGE, startRevision, startOffset, cacheKey);
+            if (cachedPage != null) {
+                return cachedPage;
+            }
+        }
+        final List<FSP2LEntry> result = readP2LPage(startRevision, startOffset, nextOffset, pageStart, pageSize);
+        if (cacheKey != null) {
+            getCache().put(fsfs.getCacheKeyPrefix(), FSCache.P2L_PAGE, startRevision, startOffset, cacheKey, result, 64 + 64 * result.size());
+        }
+        return result;
+    }
+
+    private List<FSP2LEntry> readP2LPage(long startRevision, long startOffset, long nextOffset, long pageStart, long pageSize) throws SVNException {
         final List<FSP2LEntry> result = new ArrayList<FSP2LEntry>();
         final FSPackedNumbersStream packedNumbersStream = autoOpenP2LIndex();
         packedNumbersStream.seek(startOffset);
@@ -335,7 +318,22 @@ public class FSLogicalAddressingIndex {
         return offsets[((int) pageOffset)];
     }
 
-    private Page getL2PPage(PageTableEntry tableEntry) throws SVNException {
+    private Page getL2PPage(long firstRevision, PageTableEntry tableEntry) throws SVNException {
+        final String cacheKey = getCacheKey();
+        if (cacheKey != null) {
+            final Page cachedPage = (Page) getCache().get(fsfs.getCacheKeyPrefix(), FSCache.L2P_PAGE, firstRevision, tableEntry.offset, cacheKey);
+            if (cachedPage != null) {
+                return cachedPage;
+            }
+        }
+        final Page page = readL2PPage(tableEntry);
+        if (cacheKey != null) {
+            getCache().put(fsfs.getCacheKeyPrefix(), FSCache.L2P_PAGE, firstRevision, tableEntry.offset, cacheKey, page, 32 + 8 * page.getOffsets().length);
+        }
+        return page;
+    }
+
+    private Page readL2PPage(PageTableEntry tableEntry) throws SVNException {
         final long entryCount = tableEntry.entryCount;
         long lastValue = 0;
         final long[] offsets = new long[(int) entryCount];
@@ -356,11 +354,25 @@ public class FSLogicalAddressingIndex {
     }
 
     private L2PPageInfo getL2PPageInfo(long revision, long itemIndex) throws SVNException {
-        //TODO: cache the result
-        final L2PIndexHeader header = getL2PHeaderBody(revision);
+        final L2PIndexHeader header = getL2PHeader(revision);
         return createPageInfo(header, revision, itemIndex);
     }
 
+    private L2PIndexHeader getL2PHeader(long revision) throws SVNException {
+        final String cacheKey = getCacheKey();
+        if (cacheKey == null) {
+            return getL2PHeaderBody(revision);
+        }
+        final long startRevision = getStartRevision(revision);
+        L2PIndexHeader header = (L2PIndexHeader) getCache().get(fsfs.getCacheKeyPrefix(), FSCache.L2P_HEADER, startRevision, 0, cacheKey);
+        if (header == null) {
+            header = getL2PHeaderBody(revision);
+            getCache().put(fsfs.getCacheKeyPrefix(), FSCache.L2P_HEADER, startRevision, 0, cacheKey, header,
+                    64 + 8 * header.getPageTableIndex().length + 40 * header.getPageTable().length);
+        }
+        return header;
+    }
+
     private L2PPageInfo createPageInfo(L2PIndexHeader header, long revision, long itemIndex) throws SVNException {
         long relativeRevision = revision - header.getFirstRevision();
         if (relativeRevision >= header.getRevisionCount()) {
@@ -487,6 +499,15 @@ public class FSLogicalAddressingIndex {
         return indexHeader;
     }
 
+    private FSCache getCache() {
+        return fsfs.getCache();
+    }
+
+    private String getCacheKey() {
+        // index data of revision and pack files is immutable, index data of in-memory files is not cached
+        return myFile.getFile() != null ? myFile.getFile().getName() : null;
+    }
+
     private FSPackedNumbersStream autoOpenP2LIndex() throws SVNException {
         myFile.ensureFooterLoaded();
         FSPackedNumbersStream packedNumbersStream = packedStreamOpen(P2L_STREAM_PREFIX);
@@ -12,6 +12,13 @@
 package org.tmatesoft.svn.core.internal.io.fs.repcache;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import org.tmatesoft.sqljet.core.SqlJetErrorCode;
 import org.tmatesoft.sqljet.core.SqlJetException;
@@ -29,11 +36,24 @@ import org.tmatesoft.svn.core.internal.io.fs.FSRepresentation;
 import org.tmatesoft.svn.core.internal.io.fs.IFSRepresentationCacheManager;
 import org.tmatesoft.svn.core.internal.io.fs.IFSSqlJetTransaction;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.util.SVNDebugLog;
 import org.tmatesoft.svn.util.SVNLogType;
 
 
 /**
+ * Representation cache (rep-cache.db) of a repository.
+ *
+ * <p/>
+ * One manager is shared by all {@link FSFS} instances of a repository in the process;
+ * the database connection is kept open for <code>svnkit.fs.repcache.linger</code>
+ * milliseconds after the last instance is closed. Lookups are answered from an in-memory
+ * LRU of recently used records (<code>svnkit.fs.repcache.memory</code> entries) and a
+ * bloom filter of all hashes in the table, so that misses do not touch the database.
+ * Every transaction compares the change counter of the database file header with the
+ * one seen last and drops the in-memory state when another process has written to the
+ * database in between. Inserts always look the hash up in the table itself.
+ *
  * @version 1.3
  * @author  TMate Software Ltd.
  */
@@ -46,24 +66,162 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
                                                     "                        size integer not null, " +
                                                     "                        expanded_size integer not null) without rowid;";
 
+    private static final int MEMORY_CACHE_SIZE = Integer.getInteger("svnkit.fs.repcache.memory", 64 * 1024).intValue();
+    private static final long LINGER_TIMEOUT = Long.getLong("svnkit.fs.repcache.linger", SVNFileUtil.isWindows ? 0 : 30000).longValue();
+    private static final boolean USE_BLOOM_FILTER = Boolean.valueOf(System.getProperty("svnkit.fs.repcache.bloom", Boolean.TRUE.toString())).booleanValue();
+    private static final int BLOOM_FILTER_HASHES = 7;
+    private static final int CHANGE_COUNTER_OFFSET = 24;
+
+    private static final Map<String, FSRepresentationCacheManager> ourManagers = new HashMap<String, FSRepresentationCacheManager>();
+    private static Timer ourTimer;
+
+    private final File myRepositoryRoot;
+    private final File myDBFile;
+    private final int myFormat;
     private SqlJetDb myRepCacheDB;
     private ISqlJetTable myTable;
-    private FSFS myFSFS;
-    
+    private int myReferencesCount;
+    private TimerTask myCloseTask;
+
+    private final Object myMemoryLock = new Object();
+    private final RecentRecords myRecentRecords;
+    private long myChangeCounter = -1;
+    private boolean myIsChangedInTransaction;
+    private long[] myBloomFilter;
+    private int myBloomFilterCapacity;
+    private int myBloomFilterCount;
+    private long myDBLookupsCount;
+
+    private FSRepresentationCacheManager(FSFS fsfs) {
+        myRepositoryRoot = fsfs.getRepositoryRoot();
+        myDBFile = fsfs.getRepositoryCacheFile();
+        myFormat = fsfs.getDBFormat();
+        myRecentRecords = new RecentRecords();
+    }
+
     public static IFSRepresentationCacheManager openRepresentationCache(FSFS fsfs) throws SVNException {
-        final FSRepresentationCacheManager cacheObj = new FSRepresentationCacheManager();
+        final String key = fsfs.getCacheKeyPrefix();
+        synchronized (ourManagers) {
+            FSRepresentationCacheManager cacheObj = ourManagers.get(key);
+            if (cacheObj == null) {
+                cacheObj = new FSRepresentationCacheManager(fsfs);
+            }
+            try {
+                cacheObj.acquire();
+            } catch (SqlJetException e) {
+                SVNDebugLog.getDefaultLog().logError(SVNLogType.FSFS, e);
+                ourManagers.remove(key);
+                return new FSEmptyRepresentationCacheManager();
+            }
+            ourManagers.put(key, cacheObj);
+            return new Handle(cacheObj);
+        }
+    }
+
+    private void acquire() throws SqlJetException {
+        if (myCloseTask != null) {
+            myCloseTask.cancel();
+            myCloseTask = null;
+        }
+        if (myRepCacheDB != null && !myDBFile.isFile()) {
+            closeDB();
+            resetMemoryCache();
+        }
+        if (myRepCacheDB == null) {
+            final SqlJetDb db = SqlJetDb.open(myDBFile, true);
+            try {
+                db.setSafetyLevel(SqlJetSafetyLevel.OFF);
+                checkFormat(myFormat, db);
+                myTable = db.getTable(REP_CACHE_TABLE);
+            } catch (SqlJetException e) {
+                db.close();
+                throw e;
+            }
+            myRepCacheDB = db;
+        }
+        myReferencesCount++;
+    }
+
+    private void release() {
+        synchronized (ourManagers) {
+            myReferencesCount--;
+            if (myReferencesCount > 0) {
+                return;
+            }
+            if (LINGER_TIMEOUT <= 0) {
+                closeDB();
+                return;
+            }
+            myCloseTask = new TimerTask() {
+                public void run() {
+                    synchronized (ourManagers) {
+                        if (myReferencesCount == 0 && myCloseTask == this) {
+                            myCloseTask = null;
+                            closeDB();
+                        }
+                    }
+                }
+            };
+            getTimer().schedule(myCloseTask, LINGER_TIMEOUT);
+        }
+    }
+
+    private void closeDB() {
+        if (myRepCacheDB != null) {
+            try {
+                myRepCacheDB.close();
+            } catch (SqlJetException e) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, e);
+            } finally {
+                myTable = null;
+                myRepCacheDB = null;
+            }
+        }
+    }
+
+    /**
+     * Drops the in-memory state when the database was written by someone else since the
+     * last transaction. Runs in a transaction, so the file header is not being changed.
+     */
+    private void checkChangeCounter() {
+        final long changeCounter = readChangeCounter();
+        synchronized (myMemoryLock) {
+            if (changeCounter < 0 || changeCounter != myChangeCounter) {
+                resetMemoryCache();
+            }
+            myChangeCounter = changeCounter;
+            myIsChangedInTransaction = false;
+        }
+    }
+
+    private long readChangeCounter() {
+        RandomAccessFile file = null;
         try {
-            cacheObj.myRepCacheDB = SqlJetDb.open(fsfs.getRepositoryCacheFile(), true);
-            cacheObj.myRepCacheDB.setSafetyLevel(SqlJetSafetyLevel.OFF);
-            
-            checkFormat(fsfs.getDBFormat(), cacheObj.myRepCacheDB);
-            cacheObj.myTable = cacheObj.myRepCacheDB.getTable(REP_CACHE_TABLE);
-        } catch (SqlJetException e) {
-            SVNDebugLog.getDefaultLog().logError(SVNLogType.FSFS, e);
-            return new FSEmptyRepresentationCacheManager();
-            
+            file = new RandomAccessFile(myDBFile, "r");
+            if (file.length() < CHANGE_COUNTER_OFFSET + 4) {
+                return -1;
+            }
+            file.seek(CHANGE_COUNTER_OFFSET);
+            return file.readInt() & 0xffffffffL;
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.FSFS, e);
+            return -1;
+        } finally {
+            SVNFileUtil.closeFile(file);
+        }
+    }
+
+    private static synchronized Timer getTimer() {
+        if (ourTimer == null) {
+            ourTimer = new Timer("svnkit-repcache-closer", true);
+        }
+        return ourTimer;
+    }
+
+    public long getDBLookupsCount() {
+        synchronized (myMemoryLock) {
+            return myDBLookupsCount;
         }
-        return cacheObj;
     }
     
     public static void createRepresentationCache(int format, File path) throws SVNException {
@@ -106,24 +264,116 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
         });
     }
     
+    private void resetMemoryCache() {
+        synchronized (myMemoryLock) {
+            myRecentRecords.clear();
+            myBloomFilter = null;
+        }
+    }
+
+    private FSRepresentationCacheRecord getCachedRecord(String hash) {
+        synchronized (myMemoryLock) {
+            return myRecentRecords.get(hash);
+        }
+    }
+
+    private void cacheRecord(FSRepresentationCacheRecord record, boolean addToFilter) {
+        synchronized (myMemoryLock) {
+            myRecentRecords.put(record.getHash(), record);
+            if (addToFilter && myBloomFilter != null) {
+                if (myBloomFilterCount >= myBloomFilterCapacity) {
+                    /* too many inserts since the filter was built, rebuild it on the next lookup. */
+                    myBloomFilter = null;
+                } else {
+                    addToBloomFilter(myBloomFilter, record.getHash());
+                    myBloomFilterCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns <code>false</code> when the table definitely has no record for the hash.
+     * The filter is (re)built by a full scan of hashes; the caller runs in a transaction.
+     */
+    private boolean mayContain(String hash) throws SqlJetException {
+        if (!USE_BLOOM_FILTER) {
+            return true;
+        }
+        synchronized (myMemoryLock) {
+            if (myBloomFilter != null) {
+                return bloomFilterContains(myBloomFilter, hash);
+            }
+        }
+        final ISqlJetCursor cursor = myTable.open();
+        final long[] filter;
+        final int capacity;
+        int count = 0;
+        try {
+            capacity = (int) Math.min(Integer.MAX_VALUE / 16, Math.max(64 * 1024, 2 * cursor.getRowCount()));
+            filter = new long[Math.max(1, capacity * 10 / 64)];
+            while (!cursor.eof()) {
+                if (!cursor.isNull(FSRepresentationCacheRecord.HASH_FIELD)) {
+                    addToBloomFilter(filter, cursor.getString(FSRepresentationCacheRecord.HASH_FIELD));
+                    count++;
+                }
+                cursor.next();
+            }
+        } finally {
+            cursor.close();
+        }
+        synchronized (myMemoryLock) {
+            myBloomFilter = filter;
+            myBloomFilterCapacity = capacity;
+            myBloomFilterCount = count;
+            return bloomFilterContains(filter, hash);
+        }
+    }
+
+    private static void addToBloomFilter(long[] filter, String hash) {
+        final long h1 = hashPart(hash, 0);
+        final long h2 = hashPart(hash, 16) | 1;
+        final long bits = (long) filter.length * 64;
+        for (int i = 0; i < BLOOM_FILTER_HASHES; i++) {
+            final long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            filter[(int) (bit >>> 6)] |= 1L << (bit & 63);
+        }
+    }
+
+    private static boolean bloomFilterContains(long[] filter, String hash) {
+        final long h1 = hashPart(hash, 0);
+        final long h2 = hashPart(hash, 16) | 1;
+        final long bits = (long) filter.length * 64;
+        for (int i = 0; i < BLOOM_FILTER_HASHES; i++) {
+            final long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if ((filter[(int) (bit >>> 6)] & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hashPart(String hash, int start) {
+        long result = 1125899906842597L;
+        for (int i = start; i < hash.length() && i < start + 16; i++) {
+            result = 31 * result + hash.charAt(i);
+        }
+        result ^= result >>> 33;
+        result *= 0xff51afd7ed558ccdL;
+        result ^= result >>> 33;
+        return result;
+    }
+
     public void insert(final FSRepresentation representation, boolean rejectDup) throws SVNException {
         if (representation.getSHA1HexDigest() == null) {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.BAD_CHECKSUM_KIND, 
                     "Only SHA1 checksums can be used as keys in the rep_cache table.\n");
             SVNErrorManager.error(err, SVNLogType.FSFS);
         }
-        FSRepresentation oldRep = getRepresentationByHash(representation.getSHA1HexDigest());
+        /* a negative answer of the filter is not trusted when the table is changed. */
+        FSRepresentation oldRep = toRepresentation(getByHash(representation.getSHA1HexDigest(), false));
         if (oldRep != null) {
-            if (rejectDup && (oldRep.getRevision() != representation.getRevision() || oldRep.getItemIndex() != representation.getItemIndex() ||
-                    oldRep.getSize() != representation.getSize() || oldRep.getExpandedSize() != representation.getExpandedSize())) {
-                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_CORRUPT, "Representation key for checksum ''{0}'' exists in " + 
-                        "filesystem ''{1}'' with a different value ({2},{3},{4},{5}) than what we were about to store ({6},{7},{8},{9})", 
-                        new Object[] { representation.getSHA1HexDigest(), myFSFS.getRepositoryRoot(), String.valueOf(oldRep.getRevision()), 
-                        String.valueOf(oldRep.getItemIndex()), String.valueOf(oldRep.getSize()), String.valueOf(oldRep.getExpandedSize()),
-                        String.valueOf(representation.getRevision()), String.valueOf(representation.getItemIndex()),
-                        String.valueOf(representation.getSize()), String.valueOf(representation.getExpandedSize()) });
-                SVNErrorManager.error(err, SVNLogType.FSFS);
-            }
+            checkDuplicate(representation, oldRep, rejectDup);
             return;
         }
         
@@ -132,26 +382,45 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
                     representation.getItemIndex(), representation.getSize(),
                     representation.getExpandedSize()});
         } catch (SqlJetException e) {
+            if (e.getErrorCode() == SqlJetErrorCode.CONSTRAINT) {
+                /* inserted by someone else, the row already exists. */
+                oldRep = toRepresentation(getByHash(representation.getSHA1HexDigest(), false));
+                if (oldRep != null) {
+                    checkDuplicate(representation, oldRep, rejectDup);
+                    return;
+                }
+            }
             SVNErrorManager.error(convertError(e), SVNLogType.FSFS);
         }
+        synchronized (myMemoryLock) {
+            myIsChangedInTransaction = true;
+        }
+        cacheRecord(new FSRepresentationCacheRecord(representation.getSHA1HexDigest(), representation.getRevision(),
+                representation.getItemIndex(), representation.getSize(), representation.getExpandedSize()), true);
     }
 
-    public void close() throws SVNException {
-        if (myRepCacheDB != null) {
-            try {
-                myRepCacheDB.close();
-            } catch (SqlJetException e) {
-                SVNErrorManager.error(convertError(e), SVNLogType.FSFS);
-            } finally {
-                myTable = null;
-                myRepCacheDB = null;
-                myFSFS = null;
-            }
+    private void checkDuplicate(FSRepresentation representation, FSRepresentation oldRep, boolean rejectDup) throws SVNException {
+        if (rejectDup && (oldRep.getRevision() != representation.getRevision() || oldRep.getItemIndex() != representation.getItemIndex() ||
+                    oldRep.getSize() != representation.getSize() || oldRep.getExpandedSize() != representation.getExpandedSize())) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_CORRUPT, "Representation key for checksum ''{0}'' exists in " + 
+                    "filesystem ''{1}'' with a different value ({2},{3},{4},{5}) than what we were about to store ({6},{7},{8},{9})", 
+                    new Object[] { representation.getSHA1HexDigest(), myRepositoryRoot, String.valueOf(oldRep.getRevision()), 
+                    String.valueOf(oldRep.getItemIndex()), String.valueOf(oldRep.getSize()), String.valueOf(oldRep.getExpandedSize()),
+                    String.valueOf(representation.getRevision()), String.valueOf(representation.getItemIndex()),
+                    String.valueOf(representation.getSize()), String.valueOf(representation.getExpandedSize()) });
+            SVNErrorManager.error(err, SVNLogType.FSFS);
         }
     }
+
+    public void close() throws SVNException {
+        release();
+    }
     
     public FSRepresentation getRepresentationByHash(String hash) throws SVNException {
-        FSRepresentationCacheRecord cache = getByHash(hash);
+        return toRepresentation(getByHash(hash, true));
+    }
+
+    private static FSRepresentation toRepresentation(FSRepresentationCacheRecord cache) {
         if (cache != null) {
             FSRepresentation representation = new FSRepresentation();
             representation.setExpandedSize(cache.getExpandedSize());
@@ -164,12 +433,24 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
         return null;
     }
 
-    private FSRepresentationCacheRecord getByHash(final String hash) throws SVNException {
+    private FSRepresentationCacheRecord getByHash(final String hash, boolean useFilter) throws SVNException {
+        FSRepresentationCacheRecord record = getCachedRecord(hash);
+        if (record != null) {
+            return record;
+        }
         ISqlJetCursor lookup = null;
         try {
+            if (useFilter && !mayContain(hash)) {
+                return null;
+            }
+            synchronized (myMemoryLock) {
+                myDBLookupsCount++;
+            }
             lookup = myTable.lookup(myTable.getPrimaryKeyIndexName(), new Object[] { hash });
             if (!lookup.eof()) {
-                return new FSRepresentationCacheRecord(lookup);
+                record = new FSRepresentationCacheRecord(lookup);
+                cacheRecord(record, false);
+                return record;
             }
         } catch (SqlJetException e) {
             SVNErrorManager.error(convertError(e), SVNLogType.FSFS);
@@ -203,6 +484,7 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
             try {
                 myRepCacheDB.runWriteTransaction(new ISqlJetTransaction() {
                     public Object run(SqlJetDb db) throws SqlJetException {
+                        checkChangeCounter();
                         try {
                             transaction.run();
                         } catch (SVNException e) {
@@ -211,7 +493,18 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
                         return null;
                     }
                 });
+                synchronized (myMemoryLock) {
+                    if (myIsChangedInTransaction && myChangeCounter >= 0) {
+                        /* the commit of the transaction incremented the counter once. */
+                        myChangeCounter = (myChangeCounter + 1) & 0xffffffffL;
+                    }
+                }
             } catch (SqlJetException e) {
+                /* records of the rolled back transaction may be cached already. */
+                synchronized (myMemoryLock) {
+                    resetMemoryCache();
+                    myChangeCounter = -1;
+                }
                 SVNErrorManager.error(convertError(e), SVNLogType.FSFS);
             }
         }
@@ -222,6 +515,7 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
             try {
                 myRepCacheDB.runReadTransaction(new ISqlJetTransaction() {
                     public Object run(SqlJetDb db) throws SqlJetException {
+                        checkChangeCounter();
                         try {
                             transaction.run();
                         } catch (SVNException e) {
@@ -235,4 +529,60 @@ public class FSRepresentationCacheManager implements IFSRepresentationCacheManag
             }
         }
     }
-}
\ No newline at end of file
+
+    private static class RecentRecords extends LinkedHashMap<String, FSRepresentationCacheRecord> {
+
+        private static final long serialVersionUID = 1L;
+
+        public RecentRecords() {
+            super(256, 0.75f, true);
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<String, FSRepresentationCacheRecord> eldest) {
+            return size() > MEMORY_CACHE_SIZE;
+        }
+    }
+
+    /**
+     * Per-{@link FSFS} view of the shared manager; closing it releases the shared manager once.
+     */
+    private static class Handle implements IFSRepresentationCacheManager {
+
+        private FSRepresentationCacheManager myManager;
+
+        private Handle(FSRepresentationCacheManager manager) {
+            myManager = manager;
+        }
+
+        public void insert(FSRepresentation representation, boolean rejectDup) throws SVNException {
+            getManager().insert(representation, rejectDup);
+        }
+
+        public void runWriteTransaction(IFSSqlJetTransaction transaction) throws SVNException {
+            getManager().runWriteTransaction(transaction);
+        }
+
+        public void runReadTransaction(IFSSqlJetTransaction transaction) throws SVNException {
+            getManager().runReadTransaction(transaction);
+        }
+
+        public FSRepresentation getRepresentationByHash(String hash) throws SVNException {
+            return getManager().getRepresentationByHash(hash);
+        }
+
+        public synchronized void close() throws SVNException {
+            if (myManager != null) {
+                myManager.close();
+                myManager = null;
+            }
+        }
+
+        private synchronized FSRepresentationCacheManager getManager() throws SVNException {
+            if (myManager == null) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.FS_GENERAL, "Representation cache is closed");
+                SVNErrorManager.error(err, SVNLogType.FSFS);
+            }
+            return myManager;
+        }
+    }
+}
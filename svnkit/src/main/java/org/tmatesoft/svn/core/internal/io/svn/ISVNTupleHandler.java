@@ -0,0 +1,32 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.svn;
+
+import java.util.List;
+
+import org.tmatesoft.svn.core.SVNException;
+
+/**
+ * Receives elements of a response list one by one, while the rest of the list is
+ * still being read.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public interface ISVNTupleHandler {
+
+    /**
+     * @param values  values of a list element parsed with the element template
+     */
+    public void handleTuple(List values) throws SVNException;
+
+}
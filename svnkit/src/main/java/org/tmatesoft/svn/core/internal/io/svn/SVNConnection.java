@@ -50,6 +50,7 @@ public class SVNConnection {
     private boolean myIsCommitRevprops;
     private boolean myIsReopening = false;
     private boolean myIsCredentialsReceived = false;
+    private boolean myIsAuthenticated = false;
     private InputStream myLoggingInputStream;
     private Set myCapabilities;
     private byte[] myHandshakeBuffer = new byte[8192];
@@ -74,6 +75,7 @@ public class SVNConnection {
         myIsReopening = true;
         try {
             myIsCredentialsReceived = false;
+            myIsAuthenticated = false;
             myConnector.open(repository);
             myRepository = repository;
             try {
@@ -194,14 +196,25 @@ public class SVNConnection {
                 (mechs.contains("CRAM-MD5") || mechs.contains("DIGEST-MD5"))) {
             mechs.remove("ANONYMOUS");
         }
+        boolean isExternal = repository.getExternalUserName() != null && mechs.contains("EXTERNAL");
         SVNAuthenticator authenticator = createSASLAuthenticator();
         myAuthentication = authenticator.authenticate(mechs, myRealm, repository);
+        myIsAuthenticated = isExternal || myAuthentication != null;
         receiveRepositoryCredentials(repository);
         if (authManager instanceof ISVNAuthenticationManagerExt) {
             ((ISVNAuthenticationManagerExt)authManager).acknowledgeConnectionSuccessful(myRepository.getLocation(), "");
         }
     }
     
+    /**
+     * Tells whether the session runs as a known user. An anonymous session may receive
+     * an auth-request in the middle of any command that needs more access, so commands
+     * must not be sent before the previous one is answered.
+     */
+    public boolean isAuthenticated() {
+        return myIsAuthenticated;
+    }
+
     private SVNAuthenticator createSASLAuthenticator() throws SVNException {
         return SVNClassLoader.getSASLAuthenticator(this);
     }
@@ -282,6 +295,18 @@ public class SVNConnection {
         }
     }
 
+    public List read(String template, List items, String itemTemplate, ISVNTupleHandler handler, boolean readMalformedData) throws SVNException {
+        try {
+            checkConnection();
+            return SVNReader.parse(getInputStream(), template, items, itemTemplate, handler);
+        } catch (SVNException e) {
+            handleIOError(e, readMalformedData);
+            return null;
+        } finally {
+            myRepository.getDebugLog().flushStream(myLoggingInputStream);
+        }
+    }
+
     public List readTuple(String template, boolean readMalformedData) throws SVNException {
         try {
             checkConnection();
@@ -294,6 +319,18 @@ public class SVNConnection {
         }        
     }
 
+    public List readTuple(String template, String itemTemplate, ISVNTupleHandler handler, String terminator, boolean readMalformedData) throws SVNException {
+        try {
+            checkConnection();
+            return SVNReader.readTuple(getInputStream(), template, itemTemplate, handler, terminator);
+        } catch (SVNException e) {
+            handleIOError(e, readMalformedData);
+            return null;
+        } finally {
+            myRepository.getDebugLog().flushStream(myLoggingInputStream);
+        }
+    }
+
     public SVNItem readItem(boolean readMalformedData) throws SVNException {
         try {
             checkConnection();
@@ -402,8 +439,8 @@ public class SVNConnection {
         if (myInputStream == null) {
             try {
                 InputStream is = myConnector.getInputStream();
-                myInputStream = myRepository.getDebugLog().createLogStream(SVNLogType.NETWORK, is); 
-                myLoggingInputStream = myInputStream;
+                myLoggingInputStream = myRepository.getDebugLog().createLogStream(SVNLogType.NETWORK, is);
+                myInputStream = new SVNTokenizer(myLoggingInputStream);
             } catch (IOException e) {
                 SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_SVN_IO_ERROR, e.getMessage()), e, SVNLogType.NETWORK);
             }
@@ -422,7 +459,7 @@ public class SVNConnection {
         if (myLoggingInputStream != null) {            
             myRepository.getDebugLog().flushStream(myLoggingInputStream);
         }
-        myInputStream = is;
+        myInputStream = new SVNTokenizer(is);
         myLoggingInputStream = is;
     }
 
@@ -233,6 +233,11 @@ public class SVNReader {
     }
 
     public static SVNItem readItem(InputStream is) throws SVNException {
+        if (is instanceof SVNTokenizer) {
+            SVNTokenizer tokenizer = (SVNTokenizer) is;
+            tokenizer.next();
+            return tokenizer.readItem();
+        }
         char ch = skipWhiteSpace(is);
         return readItem(is, null, ch);
     }
@@ -253,6 +258,158 @@ public class SVNReader {
         return null;
     }
 
+    /**
+     * Reads a command response like {@link #parse(InputStream, String, List)} does,
+     * but passes elements of the list that matches the last element of
+     * <code>template</code> to <code>handler</code> as soon as each of them is read.
+     * Every such element is parsed with <code>itemTemplate</code>. When the handler
+     * fails, the rest of the response is still read, so that the connection stays
+     * in sync, and the failure is rethrown afterwards.
+     */
+    public static List parse(InputStream is, String template, List values, String itemTemplate, ISVNTupleHandler handler) throws SVNException {
+        if (!(is instanceof SVNTokenizer)) {
+            values = parse(is, template, values);
+            Object list = values.get(values.size() - 1);
+            if (list instanceof Collection) {
+                for (Iterator items = ((Collection) list).iterator(); items.hasNext();) {
+                    handler.handleTuple(parseListElement((SVNItem) items.next(), itemTemplate));
+                }
+            }
+            return values;
+        }
+        SVNTokenizer tokenizer = (SVNTokenizer) is;
+        if (tokenizer.next() != SVNTokenizer.LIST_START || tokenizer.next() != SVNTokenizer.WORD) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA);
+            SVNErrorManager.error(err, SVNLogType.NETWORK);
+        }
+        String word = tokenizer.getWord();
+        if ("failure".equals(word)) {
+            List list = tokenizer.next() == SVNTokenizer.LIST_START ? (List) tokenizer.readItem().getItems() : Collections.EMPTY_LIST;
+            tokenizer.skipList();
+            handleFailureStatus(list);
+        } else if (!"success".equals(word)) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Unknown status ''{0}'' in command response", word);
+            SVNErrorManager.error(err, SVNLogType.NETWORK);
+        }
+        if (tokenizer.next() != SVNTokenizer.LIST_START) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA);
+            SVNErrorManager.error(err, SVNLogType.NETWORK);
+        }
+        String headTemplate = template.substring(0, template.length() - 1);
+        int headLength = getElementsCount(headTemplate);
+        List headItems = new ArrayList(headLength);
+        boolean isListEnd = false;
+        while (headItems.size() < headLength) {
+            if (tokenizer.next() == SVNTokenizer.LIST_END) {
+                isListEnd = true;
+                break;
+            }
+            headItems.add(tokenizer.readItem());
+        }
+        values = parseTuple(headTemplate, headItems, values);
+        Exception handlerError = null;
+        if (!isListEnd) {
+            int kind = tokenizer.next();
+            if (kind == SVNTokenizer.LIST_START) {
+                while (tokenizer.next() != SVNTokenizer.LIST_END) {
+                    List element = parseListElement(tokenizer.readItem(), itemTemplate);
+                    if (handlerError != null) {
+                        continue;
+                    }
+                    try {
+                        handler.handleTuple(element);
+                    } catch (SVNException e) {
+                        handlerError = e;
+                    } catch (RuntimeException e) {
+                        handlerError = e;
+                    }
+                }
+                tokenizer.skipList();
+            } else if (kind != SVNTokenizer.LIST_END) {
+                tokenizer.readItem();
+                tokenizer.skipList();
+            }
+        }
+        tokenizer.skipList();
+        if (handlerError instanceof SVNException) {
+            throw (SVNException) handlerError;
+        } else if (handlerError != null) {
+            throw (RuntimeException) handlerError;
+        }
+        return values;
+    }
+
+    /**
+     * Reads a tuple whose first element is a list, like a log entry with its changed
+     * paths. Elements of that list are passed to <code>handler</code> parsed with
+     * <code>itemTemplate</code> as soon as each of them is read, the rest of the tuple
+     * is parsed with <code>template</code>. Returns <code>null</code> when the word
+     * <code>terminator</code> is read instead of a tuple.
+     */
+    public static List readTuple(InputStream is, String template, String itemTemplate, ISVNTupleHandler handler, String terminator) throws SVNException {
+        if (!(is instanceof SVNTokenizer)) {
+            SVNItem item = readItem(is);
+            if (item.getKind() == SVNItem.WORD && terminator.equals(item.getWord())) {
+                return null;
+            }
+            List items = item.getKind() == SVNItem.LIST ? new ArrayList(item.getItems()) : null;
+            if (items == null || items.isEmpty() || ((SVNItem) items.get(0)).getKind() != SVNItem.LIST) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA);
+                SVNErrorManager.error(err, SVNLogType.NETWORK);
+            }
+            for (Iterator elements = ((SVNItem) items.get(0)).getItems().iterator(); elements.hasNext();) {
+                handler.handleTuple(parseListElement((SVNItem) elements.next(), itemTemplate));
+            }
+            return parseTuple(template, items.subList(1, items.size()), null);
+        }
+        SVNTokenizer tokenizer = (SVNTokenizer) is;
+        int kind = tokenizer.next();
+        if (kind == SVNTokenizer.WORD && tokenizer.isWord(terminator)) {
+            return null;
+        }
+        if (kind != SVNTokenizer.LIST_START || tokenizer.next() != SVNTokenizer.LIST_START) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA);
+            SVNErrorManager.error(err, SVNLogType.NETWORK);
+        }
+        while (tokenizer.next() != SVNTokenizer.LIST_END) {
+            handler.handleTuple(parseListElement(tokenizer.readItem(), itemTemplate));
+        }
+        List items = new ArrayList();
+        while (tokenizer.next() != SVNTokenizer.LIST_END) {
+            items.add(tokenizer.readItem());
+        }
+        return parseTuple(template, items, null);
+    }
+
+    private static List parseListElement(SVNItem item, String template) throws SVNException {
+        if (item.getKind() != SVNItem.LIST) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "List element not a list");
+            SVNErrorManager.error(err, SVNLogType.NETWORK);
+        }
+        return parseTuple(template, item.getItems(), null);
+    }
+
+    private static int getElementsCount(String template) {
+        int count = 0;
+        int nestingLevel = 0;
+        for (int i = 0; i < template.length(); i++) {
+            char ch = template.charAt(i);
+            if (ch == '?') {
+                continue;
+            } else if (ch == '(') {
+                if (nestingLevel == 0) {
+                    count++;
+                }
+                nestingLevel++;
+            } else if (ch == ')') {
+                nestingLevel--;
+            } else if (nestingLevel == 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     public static void handleFailureStatus(List list) throws SVNException {
         if (list.size() == 0) {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Empty error list");
@@ -284,8 +441,7 @@ public class SVNReader {
     }
 
     public static List readTuple(InputStream is, String template) throws SVNException {
-        char ch = skipWhiteSpace(is);
-        SVNItem item = readItem(is, null, ch);
+        SVNItem item = readItem(is);
         if (item.getKind() != SVNItem.LIST) {
             SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA);
             SVNErrorManager.error(err, SVNLogType.NETWORK);
@@ -405,6 +561,7 @@ public class SVNReader {
             }
             if (ch == ':') {
                 // string.
+                SVNTokenizer.checkStringLength(value);
                 byte[] buffer = new byte[(int) value];
                 try {
                     int toRead = (int) value;
@@ -55,11 +55,13 @@ import org.tmatesoft.svn.core.internal.wc.SVNDepthFilterEditor;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNFileHandler;
 import org.tmatesoft.svn.core.io.ISVNFileRevisionHandler;
 import org.tmatesoft.svn.core.io.ISVNInheritedPropertiesHandler;
 import org.tmatesoft.svn.core.io.ISVNLocationEntryHandler;
 import org.tmatesoft.svn.core.io.ISVNLocationSegmentHandler;
 import org.tmatesoft.svn.core.io.ISVNLockHandler;
+import org.tmatesoft.svn.core.io.ISVNPathEntryHandler;
 import org.tmatesoft.svn.core.io.ISVNReplayHandler;
 import org.tmatesoft.svn.core.io.ISVNReporter;
 import org.tmatesoft.svn.core.io.ISVNReporterBaton;
@@ -86,6 +88,8 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
     private static final String DIRENT_TIME = "time";
     private static final String DIRENT_LAST_AUTHOR = "last-author";
 
+    private static final int PIPELINE_WINDOW_SIZE = 32;
+
     private SVNConnection myConnection;
     private String myRealm;
     private String myExternalUserName;
@@ -360,14 +364,6 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
             write("(w(s(n)ww))", buffer);
             authenticate();
             List values = read("(?s)rl", null, false);
-
-            MessageDigest digest = null;
-            try {
-                digest = MessageDigest.getInstance("MD5");
-            } catch (NoSuchAlgorithmException e) {
-                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR, "MD5 implementation not found: {0}", e.getMessage());
-                SVNErrorManager.error(err, e, SVNLogType.NETWORK);
-            }
             String expectedChecksum = SVNReader.getString(values, 0);
 
             if (properties != null) {
@@ -376,33 +372,7 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
                 properties.put(SVNProperty.CHECKSUM, expectedChecksum);
             }
             if (contents != null) {
-                while (true) {
-                    SVNItem item = readItem(false);
-                    if (item.getKind() != SVNItem.BYTES) {
-                        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Non-string as part of file contents");
-                        SVNErrorManager.error(err, SVNLogType.NETWORK);
-                    }
-                    if (item.getBytes().length == 0) {
-                        break;
-                    }
-                    if (expectedChecksum != null) {
-                        digest.update(item.getBytes());
-                    }
-                    try {
-                        contents.write(item.getBytes());
-                    } catch (IOException e) {
-                        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_IO_ERROR, e.getMessage());
-                        SVNErrorManager.error(err, SVNLogType.NETWORK);
-                    }
-                }
-                read("", null, false);
-                if (expectedChecksum != null) {
-                    String resultChecksum = SVNFileUtil.toHexDigest(digest);
-                    if (!expectedChecksum.equals(resultChecksum)) {
-                        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CHECKSUM_MISMATCH, "Checksum mismatch for ''{0}''\nexpected checksum: ''{1}''\nactual checksum: ''{2}''", new Object[]{path, expectedChecksum, resultChecksum});
-                        SVNErrorManager.error(err, SVNLogType.NETWORK);
-                    }
-                }
+                readFileContents(path, expectedChecksum, contents);
             }
             return SVNReader.getLong(values, 1);
         } catch (SVNException e) {
@@ -413,6 +383,89 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
         }
     }
 
+    public void getFiles(Collection<String> paths, long revision, boolean fetchProperties, ISVNFileHandler handler) throws SVNException {
+        boolean completed = false;
+        try {
+            openConnection();
+            Object[] buffer = new Object[]{"get-file", null, getRevisionObject(revision), Boolean.valueOf(fetchProperties), Boolean.TRUE};
+            Iterator<String> requests = paths.iterator();
+            int pendingCount = 0;
+            int windowSize = 1;
+            for (String path : paths) {
+                while (pendingCount < windowSize && requests.hasNext()) {
+                    buffer[1] = getLocationRelativePath(requests.next());
+                    write("(w(s(n)ww))", buffer);
+                    pendingCount++;
+                }
+                authenticate();
+                List values = read("(?s)rl", null, false);
+                pendingCount--;
+                windowSize = getPipelineWindowSize();
+
+                String expectedChecksum = SVNReader.getString(values, 0);
+                long fileRevision = SVNReader.getLong(values, 1);
+                SVNProperties properties = null;
+                if (fetchProperties) {
+                    properties = SVNReader.getProperties(values, 2, new SVNProperties());
+                    properties.put(SVNProperty.REVISION, SVNReader.getString(values, 1));
+                    properties.put(SVNProperty.CHECKSUM, expectedChecksum);
+                }
+                OutputStream contents = handler.openFile(path, fileRevision, properties);
+                readFileContents(path, contents != null ? expectedChecksum : null, contents);
+                handler.closeFile(path);
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                // responses to pipelined commands may still be unread.
+                closeSession();
+            }
+            closeConnection();
+        }
+    }
+
+    private void readFileContents(String path, String expectedChecksum, OutputStream contents) throws SVNException {
+        MessageDigest digest = null;
+        if (expectedChecksum != null) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.IO_ERROR, "MD5 implementation not found: {0}", e.getMessage());
+                SVNErrorManager.error(err, e, SVNLogType.NETWORK);
+            }
+        }
+        while (true) {
+            SVNItem item = readItem(false);
+            if (item.getKind() != SVNItem.BYTES) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Non-string as part of file contents");
+                SVNErrorManager.error(err, SVNLogType.NETWORK);
+            }
+            if (item.getBytes().length == 0) {
+                break;
+            }
+            if (digest != null) {
+                digest.update(item.getBytes());
+            }
+            if (contents == null) {
+                continue;
+            }
+            try {
+                contents.write(item.getBytes());
+            } catch (IOException e) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_IO_ERROR, e.getMessage());
+                SVNErrorManager.error(err, SVNLogType.NETWORK);
+            }
+        }
+        read("", null, false);
+        if (digest != null) {
+            String resultChecksum = SVNFileUtil.toHexDigest(digest);
+            if (!expectedChecksum.equals(resultChecksum)) {
+                SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CHECKSUM_MISMATCH, "Checksum mismatch for ''{0}''\nexpected checksum: ''{1}''\nactual checksum: ''{2}''", new Object[]{path, expectedChecksum, resultChecksum});
+                SVNErrorManager.error(err, SVNLogType.NETWORK);
+            }
+        }
+    }
+
     public long getDir(String path, long revision, SVNProperties properties, final ISVNDirEntryHandler handler) throws SVNException {
         return getDir(path, revision, properties, SVNDirEntry.DIRENT_ALL, handler);
     }
@@ -454,34 +507,23 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
                             null};
             write("(w(s(n)ww(*w)))", buffer);
             authenticate();
-            List values = read("rll", null, false);
+            final SVNURL repositoryRoot = getRepositoryRoot(false);
+            // entries are passed to the handler while the rest of the list is read.
+            List values = readDirEntries(new ISVNDirEntryHandler() {
+                public void handleDirEntry(SVNDirEntry dirEntry) throws SVNException {
+                    if (handler != null) {
+                        String name = dirEntry.getName();
+                        handler.handleDirEntry(new SVNDirEntry(url.appendPath(name, false), repositoryRoot,
+                                "".equals(name) ? SVNPathUtil.tail(url.getPath()) : name, dirEntry.getKind(), dirEntry.getSize(),
+                                dirEntry.hasProperties(), dirEntry.getRevision(), dirEntry.getDate(), dirEntry.getAuthor()));
+                    }
+                }
+            });
             revision = values.get(0) != null ? SVNReader.getLong(values, 0) : revision;
 
             if (properties != null) {
                 SVNReader.getProperties(values, 1, properties);
             }
-
-            if (handler != null) {
-                SVNURL repositoryRoot = getRepositoryRoot(false);
-                List dirents = (List) values.get(2);
-                for (Iterator iterator = dirents.iterator(); iterator.hasNext();) {
-                    SVNItem item = (SVNItem) iterator.next();
-                    if (item.getKind() != SVNItem.LIST) {
-                        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Dirlist element not a list");
-                        SVNErrorManager.error(err, SVNLogType.NETWORK);
-                    }
-                    List direntProps = SVNReader.parseTuple("swnsr(?s)(?s)", item.getItems(), null);
-                    String name = SVNReader.getString(direntProps, 0);
-                    SVNNodeKind kind = SVNNodeKind.parseKind(SVNReader.getString(direntProps, 1));
-                    long size = SVNReader.getLong(direntProps, 2);
-                    boolean hasProps = SVNReader.getBoolean(direntProps, 3);
-                    long createdRevision = SVNReader.getLong(direntProps, 4);
-                    Date createdDate = SVNDate.parseDate(SVNReader.getString(direntProps, 5));
-                    String lastAuthor = SVNReader.getString(direntProps, 6);
-                    handler.handleDirEntry(new SVNDirEntry(url.appendPath(name, false), repositoryRoot,
-                            "".equals(name) ? SVNPathUtil.tail(url.getPath()) : name, kind, size, hasProps, createdRevision, createdDate, lastAuthor));
-                }
-            }
         } catch (SVNException e) {
             closeSession();
             throw e;
@@ -530,29 +572,9 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
             buffer = new Object[]{"get-dir", path, rev, Boolean.FALSE, Boolean.TRUE};
             write("(w(s(n)ww))", buffer);
             authenticate();
-            values = read("rll", null, false);
+            values = readDirEntries(handler);
             revision = values.get(0) != null ? SVNReader.getLong(values, 0) : revision;
 
-            if (handler != null) {
-                List dirents = (List) values.get(2);
-                for (Iterator iterator = dirents.iterator(); iterator.hasNext();) {
-                    SVNItem item = (SVNItem) iterator.next();
-                    if (item.getKind() != SVNItem.LIST) {
-                        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Dirlist element not a list");
-                        SVNErrorManager.error(err, SVNLogType.NETWORK);
-                    }
-                    List direntProps = SVNReader.parseTuple("swnsr(?s)(?s)", item.getItems(), null);
-                    String name = SVNReader.getString(direntProps, 0);
-                    SVNNodeKind kind = SVNNodeKind.parseKind(SVNReader.getString(direntProps, 1));
-                    long size = SVNReader.getLong(direntProps, 2);
-                    boolean hasProps = SVNReader.getBoolean(direntProps, 3);
-                    long createdRevision = SVNReader.getLong(direntProps, 4);
-                    Date createdDate = SVNDate.parseDate(SVNReader.getString(direntProps, 5));
-                    String lastAuthor = SVNReader.getString(direntProps, 6);
-                    handler.handleDirEntry(new SVNDirEntry(url.appendPath(name, false), repositoryRoot, name, kind, size, hasProps, createdRevision, createdDate, lastAuthor));
-                }
-            }
-
             // get comments.
             if (includeComment && entries != null) {
                 Map messages = new SVNHashMap();
@@ -732,38 +754,15 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
 
 
             while (true) {
-                SVNItem item = readItem(false);
-                if (item.getKind() == SVNItem.WORD && "done".equals(item.getWord())) {
-                    break;
-                }
-                if (item.getKind() != SVNItem.LIST) {
-                    SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Log entry not a list");
-                    SVNErrorManager.error(err, SVNLogType.NETWORK);
-                }
-
                 //now we read log response kind of
                 // ( ( ) 1 ( ) ( 27:2008-04-02T13:32:15.165405Z ) ( 27:Log message for revision 1. ) false false 0 ( ) )
                 // paths  athr                               date                            log msg hasChrn invR  rProps
-                //     0 1   2                                  3                                  4     5     6 7   8
-
-                List items = SVNReader.parseTuple("lr(?s)(?s)(?s)?ssnl?s", item.getItems(), null);
-                List changedPathsList = (List) items.get(0);
+                //        0 1                                  2                                  3     4     5 6   7
+                // changed paths are put to the map one by one, the whole list is never built.
                 Map changedPathsMap = new SVNHashMap();
-                if (changedPathsList != null && changedPathsList.size() > 0) {
-                    for (Iterator iterator = changedPathsList.iterator(); iterator.hasNext();) {
-                        SVNItem pathItem = (SVNItem) iterator.next();
-                        if (pathItem.getKind() != SVNItem.LIST) {
-                            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Changed-path entry not a list");
-                            SVNErrorManager.error(err, SVNLogType.NETWORK);
-                        }
-                        List pathItems = SVNReader.parseTuple("sw(?sr)?(?s)", pathItem.getItems(), null);
-                        String path = SVNReader.getString(pathItems, 0);
-                        String action = SVNReader.getString(pathItems, 1);
-                        String copyPath = SVNReader.getString(pathItems, 2);
-                        long copyRevision = SVNReader.getLong(pathItems, 3);
-                        String kind = SVNReader.getString(pathItems, 4);
-                        changedPathsMap.put(path, new SVNLogEntryPath(path, action.charAt(0), copyPath, copyRevision, kind != null ? SVNNodeKind.parseKind(kind) : SVNNodeKind.UNKNOWN));
-                    }
+                List items = readLogEntry(changedPathsMap);
+                if (items == null) {
+                    break;
                 }
                 if (nestLevel == 0) {
                     count++;
@@ -774,20 +773,20 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
                 boolean hasChildren = false;
                 boolean isSubtractiveMerge = false;
                 if (handler != null && !(limit > 0 && count > limit && nestLevel == 0)) {
-                    revision = SVNReader.getLong(items, 1);
-                    String author = SVNReader.getString(items, 2);
-                    Date date = SVNReader.getDate(items, 3);
+                    revision = SVNReader.getLong(items, 0);
+                    String author = SVNReader.getString(items, 1);
+                    Date date = SVNReader.getDate(items, 2);
                     if (date == SVNDate.NULL) {
                         date = null;
                     }
-                    String message = SVNReader.getString(items, 4);
-                    hasChildren = SVNReader.getBoolean(items, 5);
-                    boolean invalidRevision = SVNReader.getBoolean(items, 6);
-                    revisionProperties = SVNReader.getProperties(items, 8, null);
+                    String message = SVNReader.getString(items, 3);
+                    hasChildren = SVNReader.getBoolean(items, 4);
+                    boolean invalidRevision = SVNReader.getBoolean(items, 5);
+                    revisionProperties = SVNReader.getProperties(items, 7, null);
                     if (invalidRevision) {
                         revision = SVNRepository.INVALID_REVISION;
                     }
-                    isSubtractiveMerge =SVNReader.getBoolean(items, 9);
+                    isSubtractiveMerge =SVNReader.getBoolean(items, 8);
                     if (wantCustomRevProps && (revisionProperties == null)) {
                         SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_NOT_IMPLEMENTED, "Server does not support custom revprops via log");
                         SVNErrorManager.error(err, SVNLogType.NETWORK);
@@ -1215,30 +1214,10 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
     public SVNDirEntry info(String path, long revision) throws SVNException {
         try {
             openConnection();
-            String fullPath = getFullPath(path);
-            SVNURL url = getLocation().setPath(fullPath, false);
-            path = getLocationRelativePath(path);
-            Object[] buffer = new Object[]{"stat", path, getRevisionObject(revision)};
+            Object[] buffer = new Object[]{"stat", getLocationRelativePath(path), getRevisionObject(revision)};
             write("(w(s(n)))", buffer);
             authenticate();
-            SVNDirEntry entry = null;
-            List items = read("(?l)", null, false);
-            if (items == null || items.isEmpty()) {
-                return null;
-            }
-            items = (List) items.get(0);
-            if (items != null && !items.isEmpty()) {
-                SVNURL repositoryRoot = getRepositoryRoot(false);
-                List values = SVNReader.parseTuple("wnsr(?s)(?s)", items, null);
-                SVNNodeKind kind = SVNNodeKind.parseKind(SVNReader.getString(values, 0));
-                long size = SVNReader.getLong(values, 1);
-                boolean hasProperties = SVNReader.getBoolean(values, 2);
-                long createdRevision = SVNReader.getLong(values, 3);
-                Date createdDate = SVNDate.parseDate(SVNReader.getString(values, 4));
-                String lastAuthor = SVNReader.getString(values, 5);
-                entry = new SVNDirEntry(url, repositoryRoot, "".equals(path) ? SVNPathUtil.tail(getLocation().getPath()) : SVNPathUtil.tail(path), kind, size, hasProperties, createdRevision, createdDate, lastAuthor);
-            }
-            return entry;
+            return readInfo(path);
         } catch (SVNException e) {
             closeSession();
             handleUnsupportedCommand(e, "'stat' not implemented");
@@ -1248,6 +1227,59 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
         return null;
     }
 
+    public void info(Collection<String> paths, long revision, ISVNPathEntryHandler handler) throws SVNException {
+        boolean completed = false;
+        try {
+            openConnection();
+            Object[] buffer = new Object[]{"stat", null, getRevisionObject(revision)};
+            Iterator<String> requests = paths.iterator();
+            int pendingCount = 0;
+            int windowSize = 1;
+            for (String path : paths) {
+                while (pendingCount < windowSize && requests.hasNext()) {
+                    buffer[1] = getLocationRelativePath(requests.next());
+                    write("(w(s(n)))", buffer);
+                    pendingCount++;
+                }
+                authenticate();
+                SVNDirEntry entry = readInfo(path);
+                pendingCount--;
+                windowSize = getPipelineWindowSize();
+                handler.handlePathEntry(path, entry);
+            }
+            completed = true;
+        } catch (SVNException e) {
+            handleUnsupportedCommand(e, "'stat' not implemented");
+        } finally {
+            if (!completed) {
+                closeSession();
+            }
+            closeConnection();
+        }
+    }
+
+    private SVNDirEntry readInfo(String path) throws SVNException {
+        List items = read("(?l)", null, false);
+        if (items == null || items.isEmpty()) {
+            return null;
+        }
+        items = (List) items.get(0);
+        if (items == null || items.isEmpty()) {
+            return null;
+        }
+        SVNURL url = getLocation().setPath(getFullPath(path), false);
+        path = getLocationRelativePath(path);
+        SVNURL repositoryRoot = getRepositoryRoot(false);
+        List values = SVNReader.parseTuple("wnsr(?s)(?s)", items, null);
+        SVNNodeKind kind = SVNNodeKind.parseKind(SVNReader.getString(values, 0));
+        long size = SVNReader.getLong(values, 1);
+        boolean hasProperties = SVNReader.getBoolean(values, 2);
+        long createdRevision = SVNReader.getLong(values, 3);
+        Date createdDate = SVNDate.parseDate(SVNReader.getString(values, 4));
+        String lastAuthor = SVNReader.getString(values, 5);
+        return new SVNDirEntry(url, repositoryRoot, "".equals(path) ? SVNPathUtil.tail(getLocation().getPath()) : SVNPathUtil.tail(path), kind, size, hasProperties, createdRevision, createdDate, lastAuthor);
+    }
+
     void updateCredentials(String uuid, SVNURL rootURL) throws SVNException {
         if (getRepositoryRoot(false) != null) {
             return;
@@ -1292,6 +1324,14 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
         return myRealm;
     }
 
+    /**
+     * The first response completes authentication; commands that follow it may be sent
+     * without waiting for responses only when the server will not ask to authenticate again.
+     */
+    private int getPipelineWindowSize() {
+        return myConnection != null && myConnection.isAuthenticated() ? PIPELINE_WINDOW_SIZE : 1;
+    }
+
     void authenticate() throws SVNException {
         if (myConnection != null) {
             myConnection.authenticate(this);
@@ -1312,6 +1352,49 @@ public class SVNRepositoryImpl extends SVNRepository implements ISVNReporter {
         return myConnection.read(template, values, readMalformedData);
     }
 
+    /**
+     * Reads a <code>get-dir</code> response passing entries to <code>handler</code>
+     * as they are read. Entries have only a name and the requested fields set.
+     */
+    private List readDirEntries(final ISVNDirEntryHandler handler) throws SVNException {
+        if (myConnection == null) {
+            SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_SVN_CONNECTION_CLOSED), SVNLogType.NETWORK);
+        }
+        return myConnection.read("rll", null, "swnsr(?s)(?s)", new ISVNTupleHandler() {
+            public void handleTuple(List direntProps) throws SVNException {
+                String name = SVNReader.getString(direntProps, 0);
+                SVNNodeKind kind = SVNNodeKind.parseKind(SVNReader.getString(direntProps, 1));
+                long size = SVNReader.getLong(direntProps, 2);
+                boolean hasProps = SVNReader.getBoolean(direntProps, 3);
+                long createdRevision = SVNReader.getLong(direntProps, 4);
+                Date createdDate = SVNDate.parseDate(SVNReader.getString(direntProps, 5));
+                String lastAuthor = SVNReader.getString(direntProps, 6);
+                handler.handleDirEntry(new SVNDirEntry(null, null, name, kind, size, hasProps, createdRevision, createdDate, lastAuthor));
+            }
+        }, false);
+    }
+
+    /**
+     * Reads a <code>log</code> response entry putting its changed paths to
+     * <code>changedPaths</code> as they are read. Returns <code>null</code> at the end
+     * of the response.
+     */
+    private List readLogEntry(final Map changedPaths) throws SVNException {
+        if (myConnection == null) {
+            SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_SVN_CONNECTION_CLOSED), SVNLogType.NETWORK);
+        }
+        return myConnection.readTuple("r(?s)(?s)(?s)?ssnl?s", "sw(?sr)?(?s)", new ISVNTupleHandler() {
+            public void handleTuple(List pathItems) throws SVNException {
+                String path = SVNReader.getString(pathItems, 0);
+                String action = SVNReader.getString(pathItems, 1);
+                String copyPath = SVNReader.getString(pathItems, 2);
+                long copyRevision = SVNReader.getLong(pathItems, 3);
+                String kind = SVNReader.getString(pathItems, 4);
+                changedPaths.put(path, new SVNLogEntryPath(path, action.charAt(0), copyPath, copyRevision, kind != null ? SVNNodeKind.parseKind(kind) : SVNNodeKind.UNKNOWN));
+            }
+        }, "done", false);
+    }
+
     private SVNItem readItem(boolean readMalformedData) throws SVNException {
         if (myConnection == null) {
             SVNErrorManager.error(SVNErrorMessage.create(SVNErrorCode.RA_SVN_CONNECTION_CLOSED), SVNLogType.NETWORK);
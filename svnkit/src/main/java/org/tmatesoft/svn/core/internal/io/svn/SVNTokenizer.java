@@ -0,0 +1,419 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.io.svn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Buffered reader of svn protocol tokens.
+ *
+ * <p/>
+ * The tokenizer reads the underlying stream in blocks into a reusable buffer and
+ * returns one token at a time: a list start or end, a number, a word or a string.
+ * Numbers are returned as primitives, words are shared between tokens, and strings
+ * that fit into the buffer are decoded right from it, so reading a response does
+ * not create objects besides the values a caller asks for.
+ *
+ * <p/>
+ * The tokenizer is also an input stream: bytes it has buffered but not tokenized
+ * yet are returned by its <code>read</code> methods first.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class SVNTokenizer extends InputStream {
+
+    public static final int LIST_START = 0;
+    public static final int LIST_END = 1;
+    public static final int NUMBER = 2;
+    public static final int WORD = 3;
+    public static final int STRING = 4;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int WORDS_CACHE_SIZE = 256;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte SPACE = 1;
+    private static final byte DIGIT = 2;
+    private static final byte LETTER = 4;
+    private static final byte[] CHARACTER_CLASSES = new byte[256];
+
+    static {
+        for (int i = 0; i < CHARACTER_CLASSES.length; i++) {
+            char ch = (char) i;
+            if (Character.isWhitespace(ch)) {
+                CHARACTER_CLASSES[i] |= SPACE;
+            }
+            if (Character.isDigit(ch)) {
+                CHARACTER_CLASSES[i] |= DIGIT;
+            }
+            if (Character.isLetter(ch)) {
+                CHARACTER_CLASSES[i] |= LETTER;
+            }
+        }
+    }
+
+    private final InputStream mySource;
+    private final byte[] myBuffer;
+    private int myPosition;
+    private int myLimit;
+
+    private int myKind;
+    private long myNumber;
+    private String myWord;
+    private int myStringOffset;
+    private int myStringLength;
+    private byte[] myLargeString;
+
+    private final String[] myWords;
+    private final int[] myWordHashes;
+
+    public SVNTokenizer(InputStream source) {
+        mySource = source;
+        myBuffer = new byte[BUFFER_SIZE];
+        myWords = new String[WORDS_CACHE_SIZE];
+        myWordHashes = new int[WORDS_CACHE_SIZE];
+    }
+
+    /**
+     * Reads the next token skipping the whitespace before it and returns its kind.
+     * Values of the previous token are not valid after this call.
+     */
+    public int next() throws SVNException {
+        myLargeString = null;
+        int ch = skipWhiteSpace();
+        return readToken(ch);
+    }
+
+    public int getKind() {
+        return myKind;
+    }
+
+    public long getNumber() {
+        return myNumber;
+    }
+
+    public String getWord() {
+        return myWord;
+    }
+
+    public boolean isWord(String word) {
+        return myKind == WORD && word.equals(myWord);
+    }
+
+    public int getStringLength() {
+        return myLargeString != null ? myLargeString.length : myStringLength;
+    }
+
+    /**
+     * Returns a copy of the current string token.
+     */
+    public byte[] getBytes() {
+        if (myLargeString != null) {
+            return myLargeString;
+        }
+        byte[] bytes = new byte[myStringLength];
+        System.arraycopy(myBuffer, myStringOffset, bytes, 0, myStringLength);
+        return bytes;
+    }
+
+    /**
+     * Returns the current string token decoded as UTF-8.
+     */
+    public String getString() {
+        byte[] bytes = myLargeString != null ? myLargeString : myBuffer;
+        int offset = myLargeString != null ? 0 : myStringOffset;
+        int length = getStringLength();
+        if (isASCII(bytes, offset, length)) {
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) bytes[offset + i];
+            }
+            return new String(chars);
+        }
+        return new String(bytes, offset, length, UTF8);
+    }
+
+    /**
+     * Reads the current token as an item; for a list start token reads the whole list.
+     */
+    public SVNItem readItem() throws SVNException {
+        SVNItem item = new SVNItem();
+        switch (myKind) {
+            case NUMBER:
+                item.setKind(SVNItem.NUMBER);
+                item.setNumber(myNumber);
+                break;
+            case WORD:
+                item.setKind(SVNItem.WORD);
+                item.setWord(myWord);
+                break;
+            case STRING:
+                item.setKind(SVNItem.BYTES);
+                item.setLine(getBytes());
+                break;
+            case LIST_START:
+                item.setKind(SVNItem.LIST);
+                ArrayList<SVNItem> items = new ArrayList<SVNItem>();
+                while (next() != LIST_END) {
+                    items.add(readItem());
+                }
+                item.setItems(items);
+                break;
+            default:
+                malformedData();
+        }
+        return item;
+    }
+
+    /**
+     * Skips the rest of the current list including its end.
+     */
+    public void skipList() throws SVNException {
+        int depth = 1;
+        while (depth > 0) {
+            int kind = next();
+            if (kind == LIST_START) {
+                depth++;
+            } else if (kind == LIST_END) {
+                depth--;
+            }
+        }
+    }
+
+    public int read() throws IOException {
+        if (myPosition < myLimit) {
+            return myBuffer[myPosition++] & 0xFF;
+        }
+        return mySource.read();
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (myPosition < myLimit) {
+            int count = Math.min(len, myLimit - myPosition);
+            System.arraycopy(myBuffer, myPosition, b, off, count);
+            myPosition += count;
+            return count;
+        }
+        return mySource.read(b, off, len);
+    }
+
+    public int available() throws IOException {
+        return myLimit - myPosition + mySource.available();
+    }
+
+    public void close() throws IOException {
+        mySource.close();
+    }
+
+    private int readToken(int ch) throws SVNException {
+        byte characterClass = CHARACTER_CLASSES[ch];
+        if ((characterClass & DIGIT) != 0) {
+            long value = ch - '0';
+            long previousValue;
+            while (true) {
+                previousValue = value;
+                ch = readByte();
+                if ((CHARACTER_CLASSES[ch] & DIGIT) != 0) {
+                    value = value * 10 + (ch - '0');
+                    if (previousValue != value / 10 && value != -1) {
+                        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "Number is larger than maximum");
+                        SVNErrorManager.error(err, SVNLogType.NETWORK);
+                    }
+                    continue;
+                }
+                break;
+            }
+            if (ch == ':') {
+                checkStringLength(value);
+                readString((int) value);
+                myKind = STRING;
+                ch = readByte();
+            } else {
+                myKind = NUMBER;
+                myNumber = value;
+            }
+        } else if ((characterClass & LETTER) != 0) {
+            int start = myPosition - 1;
+            int hash = ch;
+            while (true) {
+                if (myPosition == myLimit) {
+                    // keep the word in the buffer while more bytes are read.
+                    start = compact(start);
+                    fill();
+                }
+                ch = readByte();
+                if ((CHARACTER_CLASSES[ch] & (LETTER | DIGIT)) != 0 || ch == '-') {
+                    hash = hash * 31 + ch;
+                    continue;
+                }
+                break;
+            }
+            myWord = getWord(start, myPosition - 1 - start, hash);
+            myKind = WORD;
+        } else if (ch == '(') {
+            // whitespace after a list start is optional.
+            myKind = LIST_START;
+            return myKind;
+        } else if (ch == ')') {
+            myKind = LIST_END;
+            ch = readByte();
+        } else {
+            malformedData();
+        }
+        if ((CHARACTER_CLASSES[ch] & SPACE) == 0) {
+            malformedData();
+        }
+        return myKind;
+    }
+
+    private void readString(int length) throws SVNException {
+        if (length < myBuffer.length) {
+            // the byte after the string is buffered too, so that reading it
+            // does not overwrite the string.
+            if (myLimit - myPosition <= length) {
+                compact(myPosition);
+                while (myLimit - myPosition <= length) {
+                    fill();
+                }
+            }
+            myStringOffset = myPosition;
+            myStringLength = length;
+            myPosition += length;
+            return;
+        }
+        byte[] bytes = new byte[length];
+        int available = myLimit - myPosition;
+        System.arraycopy(myBuffer, myPosition, bytes, 0, available);
+        myPosition = myLimit;
+        try {
+            int toRead = length - available;
+            while (toRead > 0) {
+                int r = mySource.read(bytes, length - toRead, toRead);
+                if (r < 0) {
+                    malformedData();
+                }
+                toRead -= r;
+            }
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFinest(SVNLogType.NETWORK, e);
+            malformedData();
+        }
+        myLargeString = bytes;
+        myStringLength = length;
+    }
+
+    private String getWord(int offset, int length, int hash) {
+        int index = (hash ^ (hash >>> 16)) & (WORDS_CACHE_SIZE - 1);
+        String word = myWords[index];
+        if (word != null && myWordHashes[index] == hash && word.length() == length) {
+            boolean matches = true;
+            for (int i = 0; i < length; i++) {
+                if (word.charAt(i) != (char) (myBuffer[offset + i] & 0xFF)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return word;
+            }
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (myBuffer[offset + i] & 0xFF);
+        }
+        word = new String(chars);
+        myWords[index] = word;
+        myWordHashes[index] = hash;
+        return word;
+    }
+
+    private int skipWhiteSpace() throws SVNException {
+        while (true) {
+            int ch = readByte();
+            if ((CHARACTER_CLASSES[ch] & SPACE) == 0) {
+                return ch;
+            }
+        }
+    }
+
+    private int readByte() throws SVNException {
+        if (myPosition == myLimit) {
+            myPosition = 0;
+            myLimit = 0;
+            fill();
+        }
+        return myBuffer[myPosition++] & 0xFF;
+    }
+
+    /**
+     * Moves bytes starting at <code>start</code> to the beginning of the buffer and
+     * returns their new offset.
+     */
+    private int compact(int start) {
+        int count = myLimit - start;
+        if (start > 0) {
+            System.arraycopy(myBuffer, start, myBuffer, 0, count);
+        }
+        myPosition -= start;
+        myLimit = count;
+        return 0;
+    }
+
+    private void fill() throws SVNException {
+        if (myLimit == myBuffer.length) {
+            malformedData();
+        }
+        try {
+            int r = mySource.read(myBuffer, myLimit, myBuffer.length - myLimit);
+            if (r < 0) {
+                malformedData();
+            }
+            myLimit += r;
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFinest(SVNLogType.NETWORK, e);
+            malformedData();
+        }
+    }
+
+    private static boolean isASCII(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void checkStringLength(long length) throws SVNException {
+        // the number may have wrapped around or may not fit an array.
+        if (length < 0 || length >= Integer.MAX_VALUE) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA, "String length is larger than maximum");
+            SVNErrorManager.error(err, SVNLogType.NETWORK);
+        }
+    }
+
+    private static void malformedData() throws SVNException {
+        SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.RA_SVN_MALFORMED_DATA);
+        SVNErrorManager.error(err, SVNLogType.NETWORK);
+    }
+}
@@ -35,6 +35,7 @@ public class ChunkedInputStream extends InputStream {
     private boolean myIsBOF = true;
     private boolean myIsEOF = false;
     private boolean myIsClosed = false;
+    private boolean myIsLastChunkRead = false;
 
     public ChunkedInputStream(final InputStream in, String charset) {
         myInputStream = in;
@@ -99,6 +100,26 @@ public class ChunkedInputStream extends InputStream {
         myPosition = 0;
         if (myChunkSize == 0) {
             myIsEOF = true;
+            readTrailer();
+            myIsLastChunkRead = true;
+        }
+    }
+
+    private void readTrailer() throws IOException {
+        // trailer headers, if any, are followed by an empty line.
+        int lineLength = 0;
+        while (true) {
+            int b = myInputStream.read();
+            if (b == -1) {
+                throw new IOException("chunked stream ended unexpectedly");
+            } else if (b == '\n') {
+                if (lineLength == 0) {
+                    break;
+                }
+                lineLength = 0;
+            } else if (b != '\r') {
+                lineLength++;
+            }
         }
     }
 
@@ -172,6 +193,13 @@ public class ChunkedInputStream extends InputStream {
         return result;
     }
 
+    /**
+     * Returns <code>true</code> once the last (zero sized) chunk is read.
+     */
+    public boolean isConsumed() {
+        return myIsLastChunkRead;
+    }
+
     public void close() throws IOException {
         if (!myIsClosed) {
             try {
@@ -60,6 +60,13 @@ public class FixedSizeInputStream extends InputStream {
         return (int) toRead;
     }
     
+    /**
+     * Returns <code>true</code> once all <code>length</code> bytes are read.
+     */
+    public boolean isConsumed() {
+        return myLength <= 0;
+    }
+
     public void close() {
         // just read remaining data.
         if (myLength > 0) {
@@ -28,6 +28,39 @@ public class SVNBase64 {
         return byteArrayToBase64(a, true);
     }
 
+    /**
+     * Encodes <code>length</code> bytes of <code>src</code> into <code>dst</code> as 
+     * ASCII characters, returns the number of bytes written to <code>dst</code>.
+     */
+    public static int byteArrayToBase64(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        int inCursor = offset;
+        int outCursor = dstOffset;
+        for (int i = 0; i < length / 3; i++) {
+            int byte0 = src[inCursor++] & 0xff;
+            int byte1 = src[inCursor++] & 0xff;
+            int byte2 = src[inCursor++] & 0xff;
+            dst[outCursor++] = (byte) intToBase64[byte0 >> 2];
+            dst[outCursor++] = (byte) intToBase64[(byte0 << 4) & 0x3f | (byte1 >> 4)];
+            dst[outCursor++] = (byte) intToBase64[(byte1 << 2) & 0x3f | (byte2 >> 6)];
+            dst[outCursor++] = (byte) intToBase64[byte2 & 0x3f];
+        }
+        int numBytesInPartialGroup = length % 3;
+        if (numBytesInPartialGroup != 0) {
+            int byte0 = src[inCursor++] & 0xff;
+            dst[outCursor++] = (byte) intToBase64[byte0 >> 2];
+            if (numBytesInPartialGroup == 1) {
+                dst[outCursor++] = (byte) intToBase64[(byte0 << 4) & 0x3f];
+                dst[outCursor++] = '=';
+            } else {
+                int byte1 = src[inCursor++] & 0xff;
+                dst[outCursor++] = (byte) intToBase64[(byte0 << 4) & 0x3f | (byte1 >> 4)];
+                dst[outCursor++] = (byte) intToBase64[(byte1 << 2) & 0x3f];
+            }
+            dst[outCursor++] = '=';
+        }
+        return outCursor - dstOffset;
+    }
+
     private static String byteArrayToBase64(byte[] a, boolean alternate) {
         int aLen = a.length;
         int numFullGroups = aLen / 3;
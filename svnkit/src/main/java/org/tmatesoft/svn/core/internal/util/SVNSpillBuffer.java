@@ -3,6 +3,7 @@ package org.tmatesoft.svn.core.internal.util;
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.IOExceptionWrapper;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.util.SVNLogType;
@@ -10,6 +11,7 @@ import org.tmatesoft.svn.util.SVNLogType;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
 
 public class SVNSpillBuffer implements Closeable {
@@ -65,6 +67,22 @@ public class SVNSpillBuffer implements Closeable {
         return new SVNSpillBufferInputStream(this);
     }
 
+    public OutputStream createOutputStream() {
+        return new OutputStream() {
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            public void write(byte[] b, int off, int len) throws IOException {
+                try {
+                    SVNSpillBuffer.this.write(b, off, len);
+                } catch (SVNException e) {
+                    throw new IOExceptionWrapper(e);
+                }
+            }
+        };
+    }
+
     public void write(byte[] data, int offset, int length) throws SVNException {
         try {
             MemoryBlock block = null;
@@ -21,6 +21,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import org.tmatesoft.svn.core.SVNCommitInfo;
 import org.tmatesoft.svn.core.SVNDepth;
@@ -52,6 +53,7 @@ import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.WCDbRepositoryInfo.Repos
 import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDb;
 import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDb.DirParsedInfo;
 import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDbRoot;
+import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDbSubtree;
 import org.tmatesoft.svn.core.internal.wc17.db.Structure;
 import org.tmatesoft.svn.core.internal.wc17.db.StructureFields.InheritedProperties;
 import org.tmatesoft.svn.core.internal.wc17.db.StructureFields.MovedInfo;
@@ -93,6 +95,11 @@ public class SVNStatusEditor17 {
     protected boolean myIsGetExcluded;
 
     private boolean myIgnoreTextMods;
+    private int myWalkThreadsCount;
+    private SVNStatusPrefetcher17 myPrefetcher;
+    private boolean myIsReadSubtree;
+    private boolean myIsUseChangeJournal;
+    private SVNWCDbSubtree mySubtree;
 
     public SVNStatusEditor17(File path, SVNWCContext wcContext, ISVNOptions options, boolean noIgnore, boolean reportAll, SVNDepth depth, ISvnObjectReceiver<SvnStatus> handler) {
 
@@ -109,7 +116,7 @@ public class SVNStatusEditor17 {
         myFileListHook = myDefaultFileListHook;
 
         myIsGetExcluded = false;
-
+        myWalkThreadsCount = 1;
     }
     
     protected void collectExternals(File path) throws SVNException {
@@ -140,7 +147,12 @@ public class SVNStatusEditor17 {
         }
 
         SVNFileType fileType = SVNFileType.getType(anchor_abspath);
-        getDirStatus(anchor_abspath, target_name, skip_root, null, null, fileType, myGlobalIgnores, myDepth, myIsReportAll, true, getDefaultHandler());
+        myPrefetcher = createPrefetcher(null);
+        try {
+            getDirStatus(anchor_abspath, target_name, skip_root, null, null, fileType, myGlobalIgnores, myDepth, myIsReportAll, true, getDefaultHandler());
+        } finally {
+            disposePrefetcher();
+        }
 
         return null;
     }
@@ -159,6 +171,39 @@ public class SVNStatusEditor17 {
         }
     }
 
+    /**
+     * Sets the number of threads to list directories and compare working files with 
+     * their pristine copies on during local status walks. With a single thread (default)
+     * everything is done by the walking thread. Parallel walk is only used with the 
+     * default file list hook; statuses are reported in the same order in both modes.
+     */
+    public void setWalkThreadsCount(int threadsCount) {
+        myWalkThreadsCount = Math.max(1, threadsCount);
+    }
+
+    /**
+     * Makes recursive local status walks read working copy database rows of the whole 
+     * tree at once instead of querying it for every directory. Should not be used when
+     * the handler modifies the working copy database.
+     */
+    public void setReadSubtree(boolean readSubtree) {
+        myIsReadSubtree = readSubtree;
+    }
+
+    /**
+     * Makes local status walks use {@link SVNWCChangeJournal} of the working copy, when
+     * it is enabled, to skip listing and comparing files in directories without changes
+     * since the previous walk. Only used with the default file list hook.
+     */
+    public void setUseChangeJournal(boolean useChangeJournal) {
+        myIsUseChangeJournal = useChangeJournal;
+    }
+
+    public static int getDefaultWalkThreadsCount() {
+        int defaultCount = Math.min(4, Runtime.getRuntime().availableProcessors());
+        return Math.max(1, Integer.getInteger("svnkit.status.threads", defaultCount).intValue());
+    }
+
     public SVNDepth getDepth() {
         return myDepth;
     }
@@ -205,7 +250,32 @@ public class SVNStatusEditor17 {
         }
     }
 
+    private SVNStatusPrefetcher17 createPrefetcher(File anchorAbsPath) throws SVNException {
+        if (myFileListHook != myDefaultFileListHook) {
+            return null;
+        }
+        SVNWCChangeJournal journal = null;
+        if (myIsUseChangeJournal && anchorAbsPath != null && SVNWCChangeJournal.isEnabled()) {
+            journal = SVNWCChangeJournal.getJournal(myWCContext.getDb().getWCRoot(anchorAbsPath));
+        }
+        if (myWalkThreadsCount > 1 || journal != null) {
+            return new SVNStatusPrefetcher17(myWalkThreadsCount, journal);
+        }
+        return null;
+    }
+
+    private void disposePrefetcher() {
+        if (myPrefetcher != null) {
+            myPrefetcher.dispose();
+            myPrefetcher = null;
+        }
+    }
+
     private void sendStatusStructure(File localAbsPath, WCDbRepositoryInfo parentReposInfo, SVNWCDbInfo info, SVNNodeKind pathKind, boolean pathSpecial, boolean getAll, ISvnObjectReceiver<SvnStatus> handler) throws SVNException {
+        sendStatusStructure(localAbsPath, parentReposInfo, info, pathKind, pathSpecial, getAll, null, handler);
+    }
+
+    private void sendStatusStructure(File localAbsPath, WCDbRepositoryInfo parentReposInfo, SVNWCDbInfo info, SVNNodeKind pathKind, boolean pathSpecial, boolean getAll, Boolean textModified, ISvnObjectReceiver<SvnStatus> handler) throws SVNException {
         SVNLock repositoryLock = null;
         if (myRepositoryLocks != null) {
             WCDbRepositoryInfo reposInfo = getRepositoryRootUrlRelPath(myWCContext, parentReposInfo, info, localAbsPath);
@@ -213,7 +283,7 @@ public class SVNStatusEditor17 {
                 repositoryLock = (SVNLock) myRepositoryLocks.get("/" + SVNFileUtil.getFilePath(reposInfo.relPath));
             }
         }
-        SvnStatus status = assembleStatus(myWCContext, localAbsPath, parentReposInfo, info, pathKind, pathSpecial, getAll, myIgnoreTextMods, repositoryLock);
+        SvnStatus status = assembleStatus(myWCContext, localAbsPath, parentReposInfo, info, pathKind, pathSpecial, getAll, myIgnoreTextMods, repositoryLock, textModified);
         status = tweakStatus(status);
         if (status != null && handler != null) {
             handler.receive(SvnTarget.fromFile(localAbsPath), status);
@@ -286,6 +356,11 @@ public class SVNStatusEditor17 {
 
 
     public static SvnStatus assembleStatus(SVNWCContext context, File localAbsPath, WCDbRepositoryInfo parentReposInfo, SVNWCDbInfo info, SVNNodeKind pathKind, boolean pathSpecial, boolean getAll, boolean ignoreTextMods, SVNLock repositoryLock) throws SVNException {
+        return assembleStatus(context, localAbsPath, parentReposInfo, info, pathKind, pathSpecial, getAll, ignoreTextMods, repositoryLock, null);
+    }
+
+    private static SvnStatus assembleStatus(SVNWCContext context, File localAbsPath, WCDbRepositoryInfo parentReposInfo, SVNWCDbInfo info, SVNNodeKind pathKind, boolean pathSpecial, boolean getAll, boolean ignoreTextMods, SVNLock repositoryLock, 
+            Boolean textModified) throws SVNException {
 
         boolean switched_p, copied = false;
 
@@ -336,7 +411,11 @@ public class SVNStatusEditor17 {
             }
         }
         
-        if (info.kind != SVNWCDbKind.Dir && node_status == SVNStatusType.STATUS_NORMAL) {
+        if (info.kind != SVNWCDbKind.Dir && node_status == SVNStatusType.STATUS_NORMAL && textModified != null) {
+            if (textModified.booleanValue()) {
+                text_status = SVNStatusType.STATUS_MODIFIED;
+            }
+        } else if (info.kind != SVNWCDbKind.Dir && node_status == SVNStatusType.STATUS_NORMAL) {
             boolean text_modified_p = false;
             long fileSize = SVNFileUtil.getFileLength(localAbsPath);
             long fileTime = SVNFileUtil.getFileLastModifiedMicros(localAbsPath);
@@ -662,7 +741,16 @@ public class SVNStatusEditor17 {
         
         myIgnoreTextMods = ignoreTextMods;
         
-        getDirStatus(anchorAbsPath, targetName, skipRoot, null, dirInfo, fileType, ignorePatterns, depth, getAll, noIgnore, getDefaultHandler());        
+        if (myIsReadSubtree && targetName == null && (depth == SVNDepth.INFINITY || depth == SVNDepth.UNKNOWN)) {
+            mySubtree = myWCContext.getDb().readSubtree(anchorAbsPath);
+        }
+        myPrefetcher = createPrefetcher(anchorAbsPath);
+        try {
+            getDirStatus(anchorAbsPath, targetName, skipRoot, null, dirInfo, fileType, ignorePatterns, depth, getAll, noIgnore, getDefaultHandler());
+        } finally {
+            disposePrefetcher();
+            mySubtree = null;
+        }
     }
     
     private SVNWCDbRoot wcRoot;
@@ -674,7 +762,14 @@ public class SVNStatusEditor17 {
         if (depth == SVNDepth.UNKNOWN) {
             depth = SVNDepth.INFINITY;
         }
-        Map<String, File> childrenFiles = myFileListHook.listFiles(localAbsPath);
+        SVNStatusPrefetcher17.Listing listing = null;
+        Map<String, File> childrenFiles;
+        if (myPrefetcher != null) {
+            listing = myPrefetcher.getListing(localAbsPath, myFileListHook);
+            childrenFiles = listing.getFiles();
+        } else {
+            childrenFiles = myFileListHook.listFiles(localAbsPath);
+        }
         if (childrenFiles == null) {
             childrenFiles = Collections.emptyMap();
         }
@@ -694,7 +789,9 @@ public class SVNStatusEditor17 {
         }
         if (selected == null) {
             File localRelPath = wcRoot.computeRelPath(localAbsPath);
-            ((SVNWCDb) myWCContext.getDb()).readChildren(wcRoot, localRelPath, nodes, conflicts);
+            if (mySubtree == null || !mySubtree.takeChildren(wcRoot, localRelPath, nodes, conflicts)) {
+                ((SVNWCDb) myWCContext.getDb()).readChildren(wcRoot, localRelPath, nodes, conflicts);
+            }
             allChildren.addAll(nodes.keySet());
             allChildren.addAll(childrenFiles.keySet());
             allChildren.addAll(conflicts);
@@ -728,9 +825,16 @@ public class SVNStatusEditor17 {
                 return;
             }
         }
+        Map<String, Future<Boolean>> textModifications = null;
+        if (listing != null) {
+            textModifications = prefetchChildren(localAbsPath, listing, allChildren, nodes, depth);
+        }
         for(String name : allChildren) {
             File nodeAbsPath = SVNFileUtil.createFilePath(localAbsPath, name);
-            SVNFileType nodeFileType = childrenFiles.containsKey(name) ? SVNFileType.getType(childrenFiles.get(name)) : null;
+            SVNFileType nodeFileType = null;
+            if (childrenFiles.containsKey(name)) {
+                nodeFileType = listing != null ? listing.getType(name) : SVNFileType.getType(childrenFiles.get(name));
+            }
             SVNWCDbInfo nodeInfo = nodes.get(name);
             
             if (nodeInfo != null) {
@@ -739,7 +843,11 @@ public class SVNStatusEditor17 {
                     if (depth == SVNDepth.FILES && nodeInfo.kind == SVNWCDbKind.Dir) {
                         continue;
                     }
-                    sendStatusStructure(nodeAbsPath, dirReposInfo, nodeInfo, SVNFileType.getNodeKind(nodeFileType), nodeFileType == SVNFileType.SYMLINK, getAll, handler);
+                    Boolean textModified = null;
+                    if (textModifications != null && textModifications.containsKey(name)) {
+                        textModified = getTextModified(nodeAbsPath, textModifications.get(name), listing.getLength(name), listing.getLastModified(name));
+                    }
+                    sendStatusStructure(nodeAbsPath, dirReposInfo, nodeInfo, SVNFileType.getNodeKind(nodeFileType), nodeFileType == SVNFileType.SYMLINK, getAll, textModified, handler);
                     if (depth == SVNDepth.INFINITY && nodeInfo.kind == SVNWCDbKind.Dir) {
                         getDirStatus(nodeAbsPath, null, true, dirReposInfo, nodeInfo, nodeFileType, ignorePatterns, SVNDepth.INFINITY, getAll, noIgnore, handler);
                     }
@@ -770,6 +878,69 @@ public class SVNStatusEditor17 {
         }
     }
     
+    private Map<String, Future<Boolean>> prefetchChildren(File localAbsPath, SVNStatusPrefetcher17.Listing listing, Collection<String> children, 
+            Map<String, SVNWCDbInfo> nodes, SVNDepth depth) throws SVNException {
+        Map<String, Future<Boolean>> textModifications = new HashMap<String, Future<Boolean>>();
+        for (String name : children) {
+            SVNWCDbInfo nodeInfo = nodes.get(name);
+            SVNFileType nodeFileType = listing.getType(name);
+            if (nodeInfo == null || nodeFileType == null) {
+                continue;
+            }
+            File nodeAbsPath = SVNFileUtil.createFilePath(localAbsPath, name);
+            if (nodeInfo.kind == SVNWCDbKind.Dir && nodeFileType == SVNFileType.DIRECTORY) {
+                if (depth == SVNDepth.INFINITY && nodeInfo.status != SVNWCDbStatus.NotPresent && nodeInfo.status != SVNWCDbStatus.Excluded && 
+                        nodeInfo.status != SVNWCDbStatus.ServerExcluded) {
+                    myPrefetcher.prefetchListing(nodeAbsPath, myFileListHook);
+                }
+                continue;
+            }
+            if (myIgnoreTextMods || nodeFileType != SVNFileType.FILE || nodeInfo.kind != SVNWCDbKind.File || nodeInfo.special || 
+                    (nodeInfo.status != SVNWCDbStatus.Normal && nodeInfo.status != SVNWCDbStatus.Added) || nodeInfo.incomplete || !nodeInfo.hasChecksum) {
+                continue;
+            }
+            long fileLength = listing.getLength(name);
+            boolean compare = nodeInfo.recordedSize != -1 && fileLength != nodeInfo.recordedSize;
+            if (!compare && !SVNFileUtil.compareFileTimestamps(nodeInfo.recordedModTime, listing.getLastModified(name))) {
+                compare = true;
+            }
+            if (!compare) {
+                textModifications.put(name, null);
+                continue;
+            }
+            if (nodeInfo.hadProps || nodeInfo.propsMod || myWCContext.isGlobalCharsetSpecified()) {
+                // translation reads properties from the database, leave it to the walk.
+                continue;
+            }
+            WCDbInfo checksumInfo = myWCContext.getDb().readInfo(nodeAbsPath, InfoField.checksum);
+            if (checksumInfo.checksum == null) {
+                continue;
+            }
+            File pristineFile = myWCContext.getDb().getPristinePath(myWCContext.getDb().getWCRoot(nodeAbsPath), checksumInfo.checksum);
+            textModifications.put(name, myPrefetcher.compareContents(myWCContext, nodeAbsPath, listing, pristineFile));
+        }
+        return textModifications;
+    }
+
+    private Boolean getTextModified(File localAbsPath, Future<Boolean> comparison, long fileLength, long fileTime) throws SVNException {
+        if (comparison == null) {
+            return Boolean.FALSE;
+        }
+        boolean modified;
+        try {
+            modified = myPrefetcher.waitFor(comparison).booleanValue();
+        } catch (SVNException e) {
+            if (!SVNWCContext.isErrorAccess(e)) {
+                throw e;
+            }
+            return Boolean.TRUE;
+        }
+        if (!modified && myWCContext.getDb().isWCLockOwns(localAbsPath, false)) {
+            myWCContext.getDb().globalRecordFileinfo(localAbsPath, fileLength, fileTime);
+        }
+        return Boolean.valueOf(modified);
+    }
+
     private static WCDbRepositoryInfo getRepositoryRootUrlRelPath(SVNWCContext context, WCDbRepositoryInfo parentRelPath, SVNWCDbInfo info, File localAbsPath) throws SVNException {
         WCDbRepositoryInfo result = new WCDbRepositoryInfo();
         if (info.reposRelpath != null && info.reposRootUrl != null) {
@@ -0,0 +1,221 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.wc17;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.core.internal.wc.SVNFileType;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.wc2.hooks.ISvnFileListHook;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Runs the file system part of a status walk ahead of it on a fixed number of threads:
+ * listing and stat of directories the walk is going to descend into and comparison of
+ * working files with their pristine copies. Working copy database is never accessed
+ * from the pool threads, the walk itself stays in the calling thread and consumes
+ * results in its own order.
+ *
+ * <p/>
+ * When a {@link SVNWCChangeJournal} is given, listings and comparison results kept by it
+ * are used instead of reading the file system again, and new ones are handed to it.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class SVNStatusPrefetcher17 {
+
+    private final ExecutorService myExecutor;
+    private final Map<File, Future<Listing>> myListings;
+    private final SVNWCChangeJournal myJournal;
+    private final boolean myIsJournalSynced;
+
+    public SVNStatusPrefetcher17(int threadsCount, SVNWCChangeJournal journal) {
+        myExecutor = Executors.newFixedThreadPool(threadsCount, new StatusThreadFactory());
+        myListings = new HashMap<File, Future<Listing>>();
+        myJournal = journal;
+        myIsJournalSynced = journal != null && journal.sync();
+    }
+
+    public void prefetchListing(final File dir, final ISvnFileListHook hook) {
+        if (myListings.containsKey(dir)) {
+            return;
+        }
+        myListings.put(dir, myExecutor.submit(new Callable<Listing>() {
+            public Listing call() throws Exception {
+                return readListing(dir, hook);
+            }
+        }));
+    }
+
+    public Listing getListing(File dir, ISvnFileListHook hook) throws SVNException {
+        Future<Listing> listing = myListings.remove(dir);
+        if (listing == null) {
+            return readListing(dir, hook);
+        }
+        return waitFor(listing);
+    }
+
+    public Future<Boolean> compareContents(final SVNWCContext context, final File file, final Listing listing, final File pristineFile) {
+        final String name = file.getName();
+        final long fileLength = listing.getLength(name);
+        final long fileTime = listing.getLastModified(name);
+        if (myIsJournalSynced) {
+            final Boolean modified = myJournal.getTextModified(file, fileLength, fileTime, pristineFile);
+            if (modified != null) {
+                FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+                    public Boolean call() throws Exception {
+                        return modified;
+                    }
+                });
+                task.run();
+                return task;
+            }
+        }
+        return myExecutor.submit(new Callable<Boolean>() {
+            public Boolean call() throws Exception {
+                boolean modified = fileLength != pristineFile.length() || !context.isSameContents(file, pristineFile);
+                if (myJournal != null) {
+                    myJournal.putTextModified(file, fileLength, fileTime, pristineFile, modified, listing.getGeneration());
+                }
+                return Boolean.valueOf(modified);
+            }
+        });
+    }
+
+    public <T> T waitFor(Future<T> future) throws SVNException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Operation was interrupted");
+            SVNErrorManager.error(err, e, SVNLogType.WC);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SVNException) {
+                throw (SVNException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.UNKNOWN, cause != null ? cause.getMessage() : e.getMessage());
+            SVNErrorManager.error(err, cause != null ? cause : e, SVNLogType.WC);
+        }
+        return null;
+    }
+
+    private Listing readListing(File dir, ISvnFileListHook hook) {
+        if (myJournal == null) {
+            return new Listing(hook.listFiles(dir), -1);
+        }
+        if (myIsJournalSynced) {
+            Listing listing = myJournal.getListing(dir);
+            if (listing != null) {
+                return listing;
+            }
+        }
+        long generation = myJournal.watch(dir);
+        Listing listing = new Listing(hook.listFiles(dir), generation);
+        myJournal.putListing(dir, listing);
+        return listing;
+    }
+
+    public void dispose() {
+        for (Iterator<Future<Listing>> listings = myListings.values().iterator(); listings.hasNext();) {
+            listings.next().cancel(false);
+        }
+        myListings.clear();
+        myExecutor.shutdownNow();
+    }
+
+    /**
+     * Children of a directory with the types of their nodes and, for regular files,
+     * size and modification time read at the moment of listing. Generation is the one of
+     * {@link SVNWCChangeJournal} the listing was read at, or <code>-1</code>.
+     */
+    public static class Listing {
+
+        private final Map<String, File> myFiles;
+        private final Map<String, SVNFileType> myTypes;
+        private final Map<String, long[]> myAttributes;
+        private final long myGeneration;
+
+        private Listing(Map<String, File> files, long generation) {
+            if (files == null) {
+                files = Collections.emptyMap();
+            }
+            myFiles = files;
+            myTypes = new HashMap<String, SVNFileType>();
+            myAttributes = new HashMap<String, long[]>();
+            myGeneration = generation;
+            for (Map.Entry<String, File> entry : files.entrySet()) {
+                File file = entry.getValue();
+                SVNFileType type = SVNFileType.getType(file);
+                myTypes.put(entry.getKey(), type);
+                if (type == SVNFileType.FILE) {
+                    myAttributes.put(entry.getKey(), new long[] {SVNFileUtil.getFileLength(file), SVNFileUtil.getFileLastModifiedMicros(file)});
+                }
+            }
+        }
+
+        public long getGeneration() {
+            return myGeneration;
+        }
+
+        public Map<String, File> getFiles() {
+            return myFiles;
+        }
+
+        public SVNFileType getType(String name) {
+            return myTypes.get(name);
+        }
+
+        public long getLength(String name) {
+            long[] attributes = myAttributes.get(name);
+            return attributes != null ? attributes[0] : -1;
+        }
+
+        public long getLastModified(String name) {
+            long[] attributes = myAttributes.get(name);
+            return attributes != null ? attributes[1] : 0;
+        }
+    }
+
+    private static class StatusThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger ourPoolNumber = new AtomicInteger(1);
+        private final AtomicInteger myThreadNumber = new AtomicInteger(1);
+        private final String myNamePrefix = "svnkit-status-" + ourPoolNumber.getAndIncrement() + "-thread-";
+
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, myNamePrefix + myThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
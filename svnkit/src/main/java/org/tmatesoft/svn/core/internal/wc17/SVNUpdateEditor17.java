@@ -64,6 +64,8 @@ import org.tmatesoft.svn.util.SVNLogType;
  */
 public class SVNUpdateEditor17 implements ISVNUpdateEditor {
 
+    private static final int PIPELINE_FILES_COUNT = 128;
+
     private SVNWCContext myWCContext;
 
     private String myTargetBasename;
@@ -93,6 +95,8 @@ public class SVNUpdateEditor17 implements ISVNUpdateEditor {
 
     private Map<File, Map<String, SVNProperties>> myInheritableProperties;
     private ISVNConflictHandler myConflictHandler;
+    private boolean myIsPipelined;
+    private int myPipelinedFilesCount;
 
     public static ISVNUpdateEditor createUpdateEditor(SVNWCContext context,
             long targetRevision,
@@ -292,11 +296,24 @@ public class SVNUpdateEditor17 implements ISVNUpdateEditor {
         return myWCRootAbsPath;
     }
 
+    /**
+     * When enabled with the <code>svnkit.wc.update.pipeline</code> system property, installation
+     * of working files runs in background while the editor receives next files, see 
+     * {@link SVNWCContext#beginWorkQueuePipeline(File)}.
+     */
+    public static boolean isPipelineEnabled() {
+        return Boolean.valueOf(System.getProperty("svnkit.wc.update.pipeline", Boolean.FALSE.toString())).booleanValue();
+    }
+
     public void openRoot(long revision) throws SVNException {
         boolean alreadyConflicted;
         boolean conflictIgnored;
         SVNWCDbStatus baseStatus = SVNWCDbStatus.Normal;
         rootOpened = true;
+        if (isPipelineEnabled()) {
+            myWCContext.beginWorkQueuePipeline(getWCRootAbsPath());
+            myIsPipelined = true;
+        }
         myCurrentDirectory = makeDirectoryBaton(null, null, false);
         try {
             AlreadyInTreeConflictInfo alreadyInTreeConflictInfo = alreadyInATreeConflict(myCurrentDirectory.localAbsolutePath);
@@ -1166,7 +1183,7 @@ public class SVNUpdateEditor17 implements ISVNUpdateEditor {
                     davProps != null && !davProps.isEmpty() ? davProps : null, conflictSkel, !db.shadowed && newBaseProps != null, newActualProps, iprops, allWorkItems);
 
         }
-        myWCContext.wqRun(db.localAbsolutePath);
+        myWCContext.wqRunPipelined(db.localAbsolutePath);
 
         if (conflictSkel != null && myConflictHandler != null) {
             myWCContext.invokeConflictResolver(db.localAbsolutePath, conflictSkel, myConflictHandler, ISVNCanceller.NULL);
@@ -1686,6 +1703,8 @@ public class SVNUpdateEditor17 implements ISVNUpdateEditor {
 
         if (conflictSkel != null && myConflictHandler != null) {
             myWCContext.invokeConflictResolver(fb.localAbsolutePath, conflictSkel, myConflictHandler, ISVNCanceller.NULL);
+        } else if (myIsPipelined && allWorkItems != null && ++myPipelinedFilesCount % PIPELINE_FILES_COUNT == 0) {
+            myWCContext.wqRunPipelined(fb.directoryBaton.localAbsolutePath);
         }
         if (fb.directoryBaton.notPresentFiles != null) {
             fb.directoryBaton.notPresentFiles.remove(fb.name);
@@ -1743,11 +1762,23 @@ public class SVNUpdateEditor17 implements ISVNUpdateEditor {
             }
         }
 
-        myWCContext.wqRun(myAnchorAbspath);
+        try {
+            myWCContext.wqRun(myAnchorAbspath);
+        } finally {
+            endPipeline();
+        }
         return null;
     }
 
     public void abortEdit() throws SVNException {
+        endPipeline();
+    }
+
+    private void endPipeline() {
+        if (myIsPipelined) {
+            myWCContext.endWorkQueuePipeline();
+            myIsPipelined = false;
+        }
     }
 
     public void applyTextDelta(String path, String expectedChecksum) throws SVNException {
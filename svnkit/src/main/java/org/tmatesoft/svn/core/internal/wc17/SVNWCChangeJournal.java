@@ -0,0 +1,325 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.wc17;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb;
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Long-lived journal of file system changes in a working copy. Directories are registered
+ * with a file system watch service as status walks list them; listings and results of
+ * working and pristine files comparison are kept until a change in the directory is
+ * reported, so that the next walk does not touch the file system for directories that
+ * remained clean. When events are lost (watch service overflow) all kept results are
+ * dropped and the next walk reads everything again.
+ *
+ * <p/>
+ * Each journal watches at most <code>svnkit.wc.watch.maxDirs</code> least recently listed
+ * directories, and at most <code>svnkit.wc.watch.maxWorkingCopies</code> least recently
+ * used journals are kept; directories and journals beyond that are unregistered from the
+ * watch service, so that a long-lived process does not run out of OS watches.
+ *
+ * <p/>
+ * Journal is disabled by default; it is enabled with the <code>svnkit.wc.watch</code>
+ * system property or {@link #setEnabled(boolean)} and requires Java 7 or newer. It is
+ * not used when the JVM only provides a polling watch service.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class SVNWCChangeJournal {
+
+    private static final long SYNC_TIMEOUT = Long.getLong("svnkit.wc.watch.syncTimeout", 1000).longValue();
+
+    private static final int MAX_JOURNALS = Math.max(1, Integer.getInteger("svnkit.wc.watch.maxWorkingCopies", 8).intValue());
+
+    private static volatile boolean ourIsEnabled = Boolean.valueOf(System.getProperty("svnkit.wc.watch", Boolean.FALSE.toString())).booleanValue();
+    private static volatile int ourMaxWatchedDirs = Math.max(1, Integer.getInteger("svnkit.wc.watch.maxDirs", 8192).intValue());
+    private static boolean ourIsWatchServiceAvailable = true;
+    private static final Map<File, SVNWCChangeJournal> ourJournals = new RecentJournals();
+
+    private final File myCookiesDir;
+    private final Map<File, Long> myWatchedDirs;
+    private final Map<File, Long> myChangedDirs;
+    private final Map<File, SVNStatusPrefetcher17.Listing> myListings;
+    private final Map<File, Map<String, Comparison>> myComparisons;
+    private long myGeneration;
+    private long myOverflowGeneration;
+    private boolean myIsCookiesDirWatched;
+    private boolean myIsDisposed;
+
+    public static void setEnabled(boolean enabled) {
+        ourIsEnabled = enabled;
+        if (!enabled) {
+            synchronized (ourJournals) {
+                for (SVNWCChangeJournal journal : ourJournals.values()) {
+                    journal.dispose();
+                }
+                ourJournals.clear();
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return ourIsEnabled;
+    }
+
+    /**
+     * Sets the number of directories each journal keeps watched; least recently listed
+     * directories beyond it are unregistered from the watch service.
+     */
+    public static void setMaxWatchedDirectories(int maxWatchedDirs) {
+        ourMaxWatchedDirs = Math.max(1, maxWatchedDirs);
+    }
+
+    public static int getMaxWatchedDirectories() {
+        return ourMaxWatchedDirs;
+    }
+
+    /**
+     * Returns journal shared by all walks of the working copy rooted at <code>wcRootAbsPath</code>.
+     *
+     * @return <code>null</code> when journal is disabled or not supported by this JVM
+     */
+    public static SVNWCChangeJournal getJournal(File wcRootAbsPath) {
+        if (!ourIsEnabled) {
+            return null;
+        }
+        synchronized (ourJournals) {
+            if (!ourIsWatchServiceAvailable) {
+                return null;
+            }
+            SVNWCChangeJournal journal = ourJournals.get(wcRootAbsPath);
+            if (journal == null) {
+                try {
+                    if (!SVNWCWatchService.getInstance().isAvailable()) {
+                        ourIsWatchServiceAvailable = false;
+                        return null;
+                    }
+                } catch (LinkageError e) {
+                    // watch service is not supported by this JVM.
+                    SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "File watch service is not available: " + e.getMessage());
+                    ourIsWatchServiceAvailable = false;
+                    return null;
+                }
+                File adminDir = SVNFileUtil.createFilePath(wcRootAbsPath, SVNFileUtil.getAdminDirectoryName());
+                journal = new SVNWCChangeJournal(SVNFileUtil.createFilePath(adminDir, ISVNWCDb.WCROOT_TEMPDIR_RELPATH));
+                ourJournals.put(wcRootAbsPath, journal);
+            }
+            return journal;
+        }
+    }
+
+    public static void closeJournal(File wcRootAbsPath) {
+        synchronized (ourJournals) {
+            SVNWCChangeJournal journal = ourJournals.remove(wcRootAbsPath);
+            if (journal != null) {
+                journal.dispose();
+            }
+        }
+    }
+
+    private SVNWCChangeJournal(File cookiesDir) {
+        myCookiesDir = cookiesDir;
+        myWatchedDirs = new LinkedHashMap<File, Long>(16, 0.75f, true);
+        myChangedDirs = new HashMap<File, Long>();
+        myListings = new HashMap<File, SVNStatusPrefetcher17.Listing>();
+        myComparisons = new HashMap<File, Map<String, Comparison>>();
+    }
+
+    /**
+     * Waits until changes made before this call are reported.
+     *
+     * @return <code>true</code> if kept results may be used by a walk that starts now
+     */
+    public boolean sync() {
+        synchronized (this) {
+            if (myIsDisposed) {
+                return false;
+            }
+            if (!myIsCookiesDirWatched) {
+                myIsCookiesDirWatched = SVNWCWatchService.getInstance().register(this, myCookiesDir, true);
+                if (!myIsCookiesDirWatched) {
+                    return false;
+                }
+            }
+        }
+        return SVNWCWatchService.getInstance().sync(myCookiesDir, SYNC_TIMEOUT);
+    }
+
+    /**
+     * Makes sure directory is watched; should be called before the directory is listed.
+     *
+     * @return generation to pass to {@link #putListing(File, SVNStatusPrefetcher17.Listing)} or
+     *         <code>-1</code> if the directory could not be watched
+     */
+    public synchronized long watch(File dir) {
+        if (myIsDisposed) {
+            return -1;
+        }
+        if (myWatchedDirs.get(dir) != null) {
+            return myGeneration;
+        }
+        // registration is made under the journal lock, so that concurrent walkers
+        // never register the same directory twice.
+        if (!SVNWCWatchService.getInstance().register(this, dir, false)) {
+            return -1;
+        }
+        myWatchedDirs.put(dir, Long.valueOf(myGeneration));
+        for (Iterator<File> dirs = myWatchedDirs.keySet().iterator(); myWatchedDirs.size() > ourMaxWatchedDirs && dirs.hasNext();) {
+            File eldestDir = dirs.next();
+            dirs.remove();
+            SVNWCWatchService.getInstance().unregister(this, eldestDir);
+            forget(eldestDir);
+        }
+        return myGeneration;
+    }
+
+    public synchronized int getWatchedDirectoriesCount() {
+        return myWatchedDirs.size();
+    }
+
+    public synchronized SVNStatusPrefetcher17.Listing getListing(File dir) {
+        return myListings.get(dir);
+    }
+
+    public synchronized void putListing(File dir, SVNStatusPrefetcher17.Listing listing) {
+        if (isUnchanged(dir, listing.getGeneration())) {
+            myListings.put(dir, listing);
+        }
+    }
+
+    public synchronized Boolean getTextModified(File file, long length, long lastModified, File pristineFile) {
+        Map<String, Comparison> comparisons = myComparisons.get(file.getParentFile());
+        Comparison comparison = comparisons != null ? comparisons.get(file.getName()) : null;
+        if (comparison != null && comparison.myLength == length && comparison.myLastModified == lastModified &&
+                comparison.myPristineFile.equals(pristineFile)) {
+            return Boolean.valueOf(comparison.myIsModified);
+        }
+        return null;
+    }
+
+    public synchronized void putTextModified(File file, long length, long lastModified, File pristineFile, boolean modified, long generation) {
+        File dir = file.getParentFile();
+        if (!isUnchanged(dir, generation)) {
+            return;
+        }
+        Map<String, Comparison> comparisons = myComparisons.get(dir);
+        if (comparisons == null) {
+            comparisons = new HashMap<String, Comparison>();
+            myComparisons.put(dir, comparisons);
+        }
+        comparisons.put(file.getName(), new Comparison(length, lastModified, pristineFile, modified));
+    }
+
+    synchronized void changed(File dir) {
+        myGeneration++;
+        if (myWatchedDirs.containsKey(dir)) {
+            myChangedDirs.put(dir, Long.valueOf(myGeneration));
+        }
+        myListings.remove(dir);
+        myComparisons.remove(dir);
+    }
+
+    synchronized void unwatched(File dir) {
+        if (dir.equals(myCookiesDir)) {
+            myIsCookiesDirWatched = false;
+        } else {
+            myGeneration++;
+            myWatchedDirs.remove(dir);
+            forget(dir);
+        }
+    }
+
+    synchronized void overflow() {
+        myGeneration++;
+        myOverflowGeneration = myGeneration;
+        myListings.clear();
+        myComparisons.clear();
+    }
+
+    private void dispose() {
+        synchronized (this) {
+            myIsDisposed = true;
+        }
+        try {
+            SVNWCWatchService.getInstance().unregister(this);
+        } catch (LinkageError e) {
+            //
+        }
+        synchronized (this) {
+            myWatchedDirs.clear();
+            myChangedDirs.clear();
+            myListings.clear();
+            myComparisons.clear();
+            myIsCookiesDirWatched = false;
+        }
+    }
+
+    private void forget(File dir) {
+        myChangedDirs.remove(dir);
+        myListings.remove(dir);
+        myComparisons.remove(dir);
+    }
+
+    private boolean isUnchanged(File dir, long generation) {
+        if (generation < 0 || generation < myOverflowGeneration) {
+            return false;
+        }
+        Long watchedGeneration = myWatchedDirs.get(dir);
+        if (watchedGeneration == null || watchedGeneration.longValue() > generation) {
+            return false;
+        }
+        Long changedGeneration = myChangedDirs.get(dir);
+        return changedGeneration == null || changedGeneration.longValue() <= generation;
+    }
+
+    private static class RecentJournals extends LinkedHashMap<File, SVNWCChangeJournal> {
+
+        private static final long serialVersionUID = 1L;
+
+        public RecentJournals() {
+            super(16, 0.75f, true);
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<File, SVNWCChangeJournal> eldest) {
+            if (size() > MAX_JOURNALS) {
+                eldest.getValue().dispose();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class Comparison {
+
+        private final long myLength;
+        private final long myLastModified;
+        private final File myPristineFile;
+        private final boolean myIsModified;
+
+        public Comparison(long length, long lastModified, File pristineFile, boolean modified) {
+            myLength = length;
+            myLastModified = lastModified;
+            myPristineFile = pristineFile;
+            myIsModified = modified;
+        }
+    }
+}
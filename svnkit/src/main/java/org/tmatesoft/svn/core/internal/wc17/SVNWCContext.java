@@ -68,6 +68,7 @@ import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.internal.wc.admin.SVNChecksumOutputStream;
 import org.tmatesoft.svn.core.internal.wc.admin.SVNTranslator;
 import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb;
+import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.SVNWCDbInfo;
 import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.SVNWCDbKind;
 import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.SVNWCDbLock;
 import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.SVNWCDbOpenMode;
@@ -86,6 +87,7 @@ import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.WCDbWorkQueueInfo;
 import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDb;
 import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDb.DirParsedInfo;
 import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDb.ReposInfo;
+import org.tmatesoft.svn.core.internal.wc17.db.SVNWCDbSubtree;
 import org.tmatesoft.svn.core.internal.wc17.db.Structure;
 import org.tmatesoft.svn.core.internal.wc17.db.StructureFields.AdditionInfo;
 import org.tmatesoft.svn.core.internal.wc17.db.StructureFields.DeletionInfo;
@@ -335,6 +337,8 @@ public class SVNWCContext {
     private Stack<ISVNEventHandler> eventHandler;
     private List<CleanupHandler> cleanupHandlers = new LinkedList<CleanupHandler>();
     private SvnOperation<?> operation;
+    private int workQueueThreadsCount = getDefaultWorkQueueThreadsCount();
+    private SVNWCWorkQueueRunner workQueuePipeline;
 
     public SVNWCContext(ISVNOptions config, ISVNEventHandler eventHandler) {
         this(SVNWCDbOpenMode.ReadWrite, config, true, true, eventHandler);
@@ -356,6 +360,38 @@ public class SVNWCContext {
         this.eventHandler.push(eventHandler);
     }
 
+    /**
+     * Sets the number of threads to translate and remove working files on while running 
+     * the work queue. Queue items are still fetched and marked completed by the calling 
+     * thread within a single transaction; with a single thread everything is done serially.
+     */
+    public void setWorkQueueThreadsCount(int threadsCount) {
+        workQueueThreadsCount = Math.max(1, threadsCount);
+    }
+
+    /**
+     * Starts keeping file work of the work queue of the working copy rooted at <code>wcRootAbsPath</code> 
+     * running in background between {@link #wqRunPipelined(File)} calls. Items stay in the queue
+     * until their work is completed by one of the following runs; {@link #wqRun(File)} completes 
+     * all of them before it returns.
+     */
+    public void beginWorkQueuePipeline(File wcRootAbsPath) {
+        if (workQueuePipeline == null) {
+            workQueuePipeline = new SVNWCWorkQueueRunner(this, wcRootAbsPath, workQueueThreadsCount);
+        }
+    }
+
+    public void endWorkQueuePipeline() {
+        if (workQueuePipeline != null) {
+            workQueuePipeline.dispose();
+            workQueuePipeline = null;
+        }
+    }
+
+    public static int getDefaultWorkQueueThreadsCount() {
+        return Math.max(1, Integer.getInteger("svnkit.wc.wq.threads", 1).intValue());
+    }
+
     public void setOperation(SvnOperation<?> operation) {
         if (isWC17SupportEnabled()) {
             final SvnOperation<?> oldOperation = this.operation;
@@ -392,6 +428,7 @@ public class SVNWCContext {
     }
 
     public void close() {
+        endWorkQueuePipeline();
         if (closeDb) {
             db.close();
         }
@@ -830,7 +867,7 @@ public class SVNWCContext {
         }
     }
 
-    private boolean isGlobalCharsetSpecified() {
+    boolean isGlobalCharsetSpecified() {
         ISVNOptions options = getOptions();
         if (options instanceof DefaultSVNOptions) {
             DefaultSVNOptions defaultOptions = (DefaultSVNOptions) options;
@@ -890,7 +927,7 @@ public class SVNWCContext {
         return info;
     }
 
-    private boolean isSameContents(File file1, File file2) throws SVNException {
+    boolean isSameContents(File file1, File file2) throws SVNException {
         InputStream stream1 = null;
         InputStream stream2 = null;
         try {
@@ -1568,6 +1605,14 @@ public class SVNWCContext {
     }
 
     public void nodeWalkChildren(File localAbspath, ISVNWCNodeHandler nodeHandler, boolean showHidden, SVNDepth walkDepth, Collection<String> changelists) throws SVNException {
+        nodeWalkChildren(localAbspath, nodeHandler, showHidden, walkDepth, changelists, false);
+    }
+
+    /**
+     * When <code>readSubtree</code> is <code>true</code> and walk is recursive, rows of the whole 
+     * tree are read from the working copy database at once; handler should not modify the database then.
+     */
+    public void nodeWalkChildren(File localAbspath, ISVNWCNodeHandler nodeHandler, boolean showHidden, SVNDepth walkDepth, Collection<String> changelists, boolean readSubtree) throws SVNException {
         assert (walkDepth != null && walkDepth.getId() >= SVNDepth.EMPTY.getId() && walkDepth.getId() <= SVNDepth.INFINITY.getId());
         changelists = changelists != null && changelists.size() > 0 ? new HashSet<String>(changelists) : null;
         Structure<NodeInfo> nodeInfo = db.readInfo(localAbspath, NodeInfo.status, NodeInfo.kind);
@@ -1583,7 +1628,11 @@ public class SVNWCContext {
         }
 
         if (kind == SVNWCDbKind.Dir) {
-            walkerHelper(localAbspath, nodeHandler, showHidden, walkDepth, changelists);
+            SVNWCDbSubtree subtree = null;
+            if (readSubtree && walkDepth == SVNDepth.INFINITY) {
+                subtree = db.readSubtree(localAbspath);
+            }
+            walkerHelper(localAbspath, nodeHandler, showHidden, walkDepth, changelists, subtree);
             return;
         }
         SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.NODE_UNKNOWN_KIND, "''{0}'' has an unrecognized node kind", localAbspath);
@@ -1607,19 +1656,37 @@ public class SVNWCContext {
         }
     }
 
-    private void walkerHelper(File dirAbspath, ISVNWCNodeHandler nodeHandler, boolean showHidden, SVNDepth depth, Collection<String> changelists) throws SVNException {
+    private void walkerHelper(File dirAbspath, ISVNWCNodeHandler nodeHandler, boolean showHidden, SVNDepth depth, Collection<String> changelists, SVNWCDbSubtree subtree) throws SVNException {
         if (depth == SVNDepth.EMPTY) {
             return;
         }
-        final Map<String, Structure<WalkerChildInfo>> relChildren = SvnWcDbReader.readWalkerChildrenInfo((SVNWCDb) db, dirAbspath, null);
+        Map<String, SVNWCDbInfo> subtreeChildren = null;
+        if (subtree != null) {
+            DirParsedInfo parsed = ((SVNWCDb) db).parseDir(dirAbspath, Mode.ReadOnly);
+            subtreeChildren = new HashMap<String, SVNWCDbInfo>();
+            if (!subtree.takeChildren(parsed.wcDbDir.getWCRoot(), parsed.localRelPath, subtreeChildren, new HashSet<String>())) {
+                subtreeChildren = null;
+            }
+        }
+        final Map<String, Structure<WalkerChildInfo>> relChildren = subtreeChildren == null ? SvnWcDbReader.readWalkerChildrenInfo((SVNWCDb) db, dirAbspath, null) : null;
 
-        for (final String child : relChildren.keySet()) {
+        for (final String child : subtreeChildren != null ? subtreeChildren.keySet() : relChildren.keySet()) {
             checkCancelled();
 
-            Structure<WalkerChildInfo> childInfo = relChildren.get(child);
-            SVNWCDbStatus childStatus = childInfo.<SVNWCDbStatus>get(WalkerChildInfo.status);
-            SVNWCDbKind childKind = childInfo.<SVNWCDbKind>get(WalkerChildInfo.kind);
-            childInfo.release();
+            final SVNWCDbStatus childStatus;
+            final SVNWCDbKind childKind;
+            String childChangelist = null;
+            if (subtreeChildren != null) {
+                SVNWCDbInfo childInfo = subtreeChildren.get(child);
+                childStatus = childInfo.status;
+                childKind = childInfo.kind;
+                childChangelist = childInfo.changelist;
+            } else {
+                Structure<WalkerChildInfo> childInfo = relChildren.get(child);
+                childStatus = childInfo.<SVNWCDbStatus>get(WalkerChildInfo.status);
+                childKind = childInfo.<SVNWCDbKind>get(WalkerChildInfo.kind);
+                childInfo.release();
+            }
 
             if (!showHidden) {
                 switch (childStatus) {
@@ -1633,7 +1700,13 @@ public class SVNWCContext {
             }
             File childAbspath = SVNFileUtil.createFilePath(dirAbspath, child);
             if (childKind == SVNWCDbKind.File || depth.getId() >= SVNDepth.IMMEDIATES.getId()) {
-                if (matchesChangelist(childAbspath, changelists)) {
+                boolean matches;
+                if (subtreeChildren != null) {
+                    matches = changelists == null || (childChangelist != null && changelists.contains(childChangelist));
+                } else {
+                    matches = matchesChangelist(childAbspath, changelists);
+                }
+                if (matches) {
                     nodeHandler.nodeFound(childAbspath, childKind);
                 }
             }
@@ -1642,7 +1715,7 @@ public class SVNWCContext {
                 if (depth.getId() == SVNDepth.IMMEDIATES.getId()) {
                     depth_below_here = SVNDepth.EMPTY;
                 }
-                walkerHelper(childAbspath, nodeHandler, showHidden, depth_below_here, changelists);
+                walkerHelper(childAbspath, nodeHandler, showHidden, depth_below_here, changelists, subtree);
             }
         }
     }
@@ -3950,30 +4023,58 @@ public class SVNWCContext {
     }
 
     public void wqRun(File dirAbspath) throws SVNException {
+        wqRun(dirAbspath, true);
+    }
+
+    /**
+     * Same as {@link #wqRun(File)}, but when a work queue pipeline is started, file work of
+     * the last items may still be in progress when this method returns.
+     */
+    public void wqRunPipelined(File dirAbspath) throws SVNException {
+        wqRun(dirAbspath, false);
+    }
+
+    private void wqRun(File dirAbspath, boolean waitForCompletion) throws SVNException {
         // SVNDebugLog.getDefaultLog().log(SVNLogType.WC,
         // String.format("work queue run: wcroot='%s'", wcRootAbspath),
         // Level.INFO);
         final File wcRootAbspath = getDb().getWCRoot(dirAbspath);
         final SVNSqlJetDb sDb = db.getSDb(dirAbspath);
         sDb.beginTransaction(SqlJetTransactionMode.WRITE);
+        SVNWCWorkQueueRunner runner = null;
+        boolean disposeRunner = false;
+        if (workQueuePipeline != null && workQueuePipeline.getWCRootAbsPath().equals(wcRootAbspath)) {
+            runner = workQueuePipeline;
+        } else if (workQueueThreadsCount > 1) {
+            runner = new SVNWCWorkQueueRunner(this, wcRootAbspath, workQueueThreadsCount);
+            disposeRunner = true;
+        }
         try {
-            while (true) {
-                checkCancelled();
-                WCDbWorkQueueInfo fetchWorkQueue = db.fetchWorkQueue(dirAbspath);
-                if (fetchWorkQueue.workItem == null) {
-                    break;
+            if (runner != null) {
+                runner.run(dirAbspath, waitForCompletion || disposeRunner);
+            } else {
+                while (true) {
+                    checkCancelled();
+                    WCDbWorkQueueInfo fetchWorkQueue = db.fetchWorkQueue(dirAbspath);
+                    if (fetchWorkQueue.workItem == null) {
+                        break;
+                    }
+                    dispatchWorkItem(wcRootAbspath, fetchWorkQueue.workItem);
+                    db.completedWorkQueue(dirAbspath, fetchWorkQueue.id);
                 }
-                dispatchWorkItem(wcRootAbspath, fetchWorkQueue.workItem);
-                db.completedWorkQueue(dirAbspath, fetchWorkQueue.id);
             }
             sDb.commit();
         } catch(SVNException e) {
             sDb.rollback();
             throw e;
+        } finally {
+            if (disposeRunner) {
+                runner.dispose();
+            }
         }
     }
 
-    private void dispatchWorkItem(File wcRootAbspath, SVNSkel workItem) throws SVNException {
+    void dispatchWorkItem(File wcRootAbspath, SVNSkel workItem) throws SVNException {
         if (!workItem.isAtom()) {
             for (WorkQueueOperation scan : WorkQueueOperation.values()) {
                 if (scan.getOpName().equals(workItem.getChild(0).getValue())) {
@@ -4036,6 +4137,12 @@ public class SVNWCContext {
     public static class RunFileInstall implements RunWorkQueueOperation {
 
         public void runOperation(SVNWCContext ctx, File wcRootAbspath, SVNSkel workItem) throws SVNException {
+            FileInstall install = prepare(ctx, wcRootAbspath, workItem);
+            install.translate();
+            install.finish(ctx);
+        }
+
+        static FileInstall prepare(SVNWCContext ctx, File wcRootAbspath, SVNSkel workItem) throws SVNException {
             File localAbspath = SVNFileUtil.createFilePath(wcRootAbspath, workItem.getChild(1).getValue());
             boolean useCommitTimes = "1".equals(workItem.getChild(2).getValue());
             boolean recordFileInfo = "1".equals(workItem.getChild(3).getValue());
@@ -4055,7 +4162,44 @@ public class SVNWCContext {
             }
 
             TranslateInfo tinfo = ctx.getTranslateInfo(localAbspath, true, true, true, true);
+            return new FileInstall(localAbspath, sourceAbsPath, tinfo, useCommitTimes, recordFileInfo);
+        }
+    }
+
+    /**
+     * Installation of a working file split into the stages that read the working copy 
+     * database ({@link RunFileInstall#prepare(SVNWCContext, File, SVNSkel)} and {@link #finish(SVNWCContext)}) 
+     * and the one that only translates the source file ({@link #translate()}).
+     */
+    static class FileInstall {
+
+        private final File localAbspath;
+        private final File sourceAbsPath;
+        private final TranslateInfo tinfo;
+        private final boolean useCommitTimes;
+        private final boolean recordFileInfo;
+
+        private FileInstall(File localAbspath, File sourceAbsPath, TranslateInfo tinfo, boolean useCommitTimes, boolean recordFileInfo) {
+            this.localAbspath = localAbspath;
+            this.sourceAbsPath = sourceAbsPath;
+            this.tinfo = tinfo;
+            this.useCommitTimes = useCommitTimes;
+            this.recordFileInfo = recordFileInfo;
+        }
+
+        public File getLocalAbsPath() {
+            return localAbspath;
+        }
+
+        public File getSourceAbsPath() {
+            return sourceAbsPath;
+        }
+
+        public void translate() throws SVNException {
             SVNTranslator.translate(sourceAbsPath, localAbspath, tinfo.charset, tinfo.eolStyleInfo.eolStr, tinfo.keywords, tinfo.special, true);
+        }
+
+        public void finish(SVNWCContext ctx) throws SVNException {
             if (tinfo.special) {
                 return;
             }
@@ -0,0 +1,286 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.wc17;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tmatesoft.svn.util.SVNDebugLog;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Watches working copy directories for {@link SVNWCChangeJournal} instances on a single
+ * daemon thread. Synchronization is done with cookie files created in an administrative
+ * directory: once the event of a cookie is seen and all keys signalled so far are processed,
+ * every change made before the cookie was created has been reported. This class uses Java 7
+ * API and is only loaded when journal is enabled.
+ *
+ * <p/>
+ * Polling implementations of the watch service (used by the JDK where the OS has no
+ * native notifications, e.g. on Mac OS X) are not used: they report changes seconds
+ * later, so every sync would time out.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class SVNWCWatchService implements Runnable {
+
+    private static final String COOKIE_PREFIX = "svnkit-watch-";
+    private static final AtomicLong ourCookieCounter = new AtomicLong();
+
+    private static SVNWCWatchService ourInstance;
+
+    private final WatchService myWatchService;
+    private final Map<WatchKey, List<Registration>> myRegistrations;
+    private final Map<File, WatchKey> myKeys;
+    private final Map<String, CountDownLatch> myCookies;
+
+    public static synchronized SVNWCWatchService getInstance() {
+        if (ourInstance == null) {
+            WatchService watchService = null;
+            try {
+                watchService = FileSystems.getDefault().newWatchService();
+            } catch (IOException e) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "Could not create file watch service: " + e.getMessage());
+            } catch (UnsupportedOperationException e) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "File watch service is not supported: " + e.getMessage());
+            }
+            if (watchService != null && watchService.getClass().getName().indexOf("Polling") >= 0) {
+                SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "File watch service is polling, not using it: " + watchService.getClass().getName());
+                try {
+                    watchService.close();
+                } catch (IOException e) {
+                    //
+                }
+                watchService = null;
+            }
+            ourInstance = new SVNWCWatchService(watchService);
+            if (watchService != null) {
+                Thread thread = new Thread(ourInstance, "svnkit-wc-watcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        return ourInstance;
+    }
+
+    private SVNWCWatchService(WatchService watchService) {
+        myWatchService = watchService;
+        myRegistrations = new HashMap<WatchKey, List<Registration>>();
+        myKeys = new HashMap<File, WatchKey>();
+        myCookies = new HashMap<String, CountDownLatch>();
+    }
+
+    public boolean isAvailable() {
+        return myWatchService != null;
+    }
+
+    public boolean register(SVNWCChangeJournal journal, File dir, boolean cookiesDir) {
+        if (myWatchService == null) {
+            return false;
+        }
+        try {
+            synchronized (myRegistrations) {
+                WatchKey key = dir.toPath().register(myWatchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                List<Registration> registrations = myRegistrations.get(key);
+                if (registrations == null) {
+                    registrations = new ArrayList<Registration>(1);
+                    myRegistrations.put(key, registrations);
+                    myKeys.put(dir, key);
+                }
+                for (Registration registration : registrations) {
+                    if (registration.myJournal == journal && registration.myDir.equals(dir)) {
+                        return true;
+                    }
+                }
+                registrations.add(new Registration(journal, dir, cookiesDir));
+            }
+            return true;
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "Could not watch " + dir + ": " + e.getMessage());
+        } catch (RuntimeException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "Could not watch " + dir + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    public void unregister(SVNWCChangeJournal journal) {
+        synchronized (myRegistrations) {
+            for (Iterator<Map.Entry<WatchKey, List<Registration>>> entries = myRegistrations.entrySet().iterator(); entries.hasNext();) {
+                Map.Entry<WatchKey, List<Registration>> entry = entries.next();
+                File dir = null;
+                for (Iterator<Registration> registrations = entry.getValue().iterator(); registrations.hasNext();) {
+                    Registration registration = registrations.next();
+                    dir = registration.myDir;
+                    if (registration.myJournal == journal) {
+                        registrations.remove();
+                    }
+                }
+                if (entry.getValue().isEmpty()) {
+                    entry.getKey().cancel();
+                    entries.remove();
+                    myKeys.remove(dir);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes registration of <code>journal</code> for <code>dir</code>; the directory is
+     * no longer watched when no other journal has registered it.
+     */
+    public void unregister(SVNWCChangeJournal journal, File dir) {
+        synchronized (myRegistrations) {
+            WatchKey key = myKeys.get(dir);
+            List<Registration> registrations = key != null ? myRegistrations.get(key) : null;
+            if (registrations == null) {
+                return;
+            }
+            for (Iterator<Registration> iterator = registrations.iterator(); iterator.hasNext();) {
+                if (iterator.next().myJournal == journal) {
+                    iterator.remove();
+                }
+            }
+            if (registrations.isEmpty()) {
+                key.cancel();
+                myRegistrations.remove(key);
+                myKeys.remove(dir);
+            }
+        }
+    }
+
+    /**
+     * Creates a cookie file in <code>cookiesDir</code> which should be registered before
+     * and waits for its event.
+     *
+     * @return <code>false</code> if the event was not reported within <code>timeout</code>
+     */
+    public boolean sync(File cookiesDir, long timeout) {
+        if (myWatchService == null) {
+            return false;
+        }
+        final String name = COOKIE_PREFIX + ourCookieCounter.incrementAndGet() + ".tmp";
+        final CountDownLatch latch = new CountDownLatch(1);
+        synchronized (myCookies) {
+            myCookies.put(name, latch);
+        }
+        final File cookie = new File(cookiesDir, name);
+        try {
+            if (!cookie.createNewFile()) {
+                return false;
+            }
+            return latch.await(timeout, TimeUnit.MILLISECONDS);
+        } catch (IOException e) {
+            SVNDebugLog.getDefaultLog().logFine(SVNLogType.WC, "Could not create " + cookie + ": " + e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            synchronized (myCookies) {
+                myCookies.remove(name);
+            }
+            cookie.delete();
+        }
+    }
+
+    public void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = myWatchService.take();
+            } catch (InterruptedException e) {
+                continue;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+            final List<CountDownLatch> cookies = new ArrayList<CountDownLatch>();
+            while (key != null) {
+                processKey(key, cookies);
+                key = myWatchService.poll();
+            }
+            for (CountDownLatch cookie : cookies) {
+                cookie.countDown();
+            }
+        }
+    }
+
+    private void processKey(WatchKey key, List<CountDownLatch> cookies) {
+        final List<WatchEvent<?>> events = key.pollEvents();
+        final boolean valid = key.reset();
+        List<Registration> registrations;
+        synchronized (myRegistrations) {
+            registrations = valid ? myRegistrations.get(key) : myRegistrations.remove(key);
+            if (registrations == null) {
+                return;
+            }
+            if (!valid && !registrations.isEmpty()) {
+                myKeys.remove(registrations.get(0).myDir);
+            }
+            registrations = new ArrayList<Registration>(registrations);
+        }
+        boolean overflow = false;
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else if (event.context() instanceof Path) {
+                final String name = ((Path) event.context()).toString();
+                if (name.startsWith(COOKIE_PREFIX)) {
+                    synchronized (myCookies) {
+                        CountDownLatch cookie = myCookies.remove(name);
+                        if (cookie != null) {
+                            cookies.add(cookie);
+                        }
+                    }
+                }
+            }
+        }
+        for (Registration registration : registrations) {
+            if (overflow) {
+                registration.myJournal.overflow();
+            }
+            if (!valid) {
+                registration.myJournal.unwatched(registration.myDir);
+            } else if (!registration.myIsCookiesDir && !events.isEmpty()) {
+                registration.myJournal.changed(registration.myDir);
+            }
+        }
+    }
+
+    private static class Registration {
+
+        private final SVNWCChangeJournal myJournal;
+        private final File myDir;
+        private final boolean myIsCookiesDir;
+
+        public Registration(SVNWCChangeJournal journal, File dir, boolean cookiesDir) {
+            myJournal = journal;
+            myDir = dir;
+            myIsCookiesDir = cookiesDir;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.wc17;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.util.SVNSkel;
+import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.internal.wc17.SVNWCContext.FileInstall;
+import org.tmatesoft.svn.core.internal.wc17.SVNWCContext.RunFileInstall;
+import org.tmatesoft.svn.core.internal.wc17.SVNWCContext.WorkQueueOperation;
+import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.WCDbWorkQueueInfo;
+import org.tmatesoft.svn.util.SVNLogType;
+
+/**
+ * Runs the work queue with file translation of <code>file-install</code> items and removal
+ * of <code>file-remove</code> items done on a fixed number of threads. Everything that
+ * touches the working copy database (fetching items, reading install information, recording
+ * file information and marking items completed) stays in the calling thread, within the
+ * transaction of {@link SVNWCContext#wqRun(File)}.
+ *
+ * <p/>
+ * Consecutive items of these kinds are run concurrently as long as they do not share paths;
+ * any other item waits for all of them to complete first and is run in the calling thread.
+ * Item is marked completed only after its work is done, so an interrupted run leaves the
+ * queue in the same state the serial one does.
+ *
+ * <p/>
+ * A runner may be kept for several runs of the queue (see {@link SVNWCContext#beginWorkQueuePipeline(File)});
+ * a run that does not wait for completion returns while file work of its last items is still
+ * in progress, those items are completed (and removed from the queue) by the next run.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+class SVNWCWorkQueueRunner {
+
+    private static final int BATCH_SIZE = 256;
+    private static final long KEEP_ALIVE_TIME = 10;
+
+    private final SVNWCContext myContext;
+    private final File myWCRootAbsPath;
+    private final int myThreadsCount;
+    private final List<PendingItem> myPendingItems;
+    private final Set<File> myPendingPaths;
+    private ExecutorService myExecutor;
+
+    public SVNWCWorkQueueRunner(SVNWCContext context, File wcRootAbsPath, int threadsCount) {
+        myContext = context;
+        myWCRootAbsPath = wcRootAbsPath;
+        myThreadsCount = threadsCount;
+        myPendingItems = new ArrayList<PendingItem>();
+        myPendingPaths = new HashSet<File>();
+    }
+
+    public File getWCRootAbsPath() {
+        return myWCRootAbsPath;
+    }
+
+    public void run(File dirAbsPath, boolean waitForCompletion) throws SVNException {
+        completePending(dirAbsPath);
+        while (true) {
+            List<WCDbWorkQueueInfo> items = myContext.getDb().fetchWorkQueue(dirAbsPath, BATCH_SIZE);
+            if (items.isEmpty()) {
+                break;
+            }
+            for (WCDbWorkQueueInfo item : items) {
+                myContext.checkCancelled();
+                if (!schedule(dirAbsPath, item)) {
+                    completePending(dirAbsPath);
+                    myContext.dispatchWorkItem(myWCRootAbsPath, item.workItem);
+                    myContext.getDb().completedWorkQueue(dirAbsPath, item.id);
+                }
+            }
+            if (!waitForCompletion && items.size() < BATCH_SIZE) {
+                return;
+            }
+            completePending(dirAbsPath);
+        }
+    }
+
+    public void dispose() {
+        for (PendingItem item : myPendingItems) {
+            try {
+                item.myFuture.get();
+            } catch (InterruptedException e) {
+                break;
+            } catch (ExecutionException e) {
+                //
+            }
+        }
+        myPendingItems.clear();
+        myPendingPaths.clear();
+        if (myExecutor != null) {
+            myExecutor.shutdownNow();
+            myExecutor = null;
+        }
+    }
+
+    private boolean schedule(File dirAbsPath, WCDbWorkQueueInfo item) throws SVNException {
+        final SVNSkel workItem = item.workItem;
+        if (workItem.isAtom() || workItem.getListSize() < 2) {
+            return false;
+        }
+        final String opName = workItem.getChild(0).getValue();
+        if (WorkQueueOperation.FILE_INSTALL.getOpName().equals(opName)) {
+            final FileInstall install = RunFileInstall.prepare(myContext, myWCRootAbsPath, workItem);
+            reservePaths(dirAbsPath, install.getLocalAbsPath(), install.getSourceAbsPath());
+            submit(item.id, install, new Callable<Object>() {
+                public Object call() throws Exception {
+                    install.translate();
+                    return null;
+                }
+            });
+            return true;
+        } else if (WorkQueueOperation.FILE_REMOVE.getOpName().equals(opName)) {
+            final File localAbsPath = SVNFileUtil.createFilePath(myWCRootAbsPath, workItem.getChild(1).getValue());
+            reservePaths(dirAbsPath, localAbsPath, null);
+            submit(item.id, null, new Callable<Object>() {
+                public Object call() throws Exception {
+                    SVNFileUtil.deleteFile(localAbsPath);
+                    return null;
+                }
+            });
+            return true;
+        }
+        return false;
+    }
+
+    private void reservePaths(File dirAbsPath, File path, File otherPath) throws SVNException {
+        if (myPendingPaths.contains(path) || (otherPath != null && myPendingPaths.contains(otherPath))) {
+            completePending(dirAbsPath);
+        }
+        myPendingPaths.add(path);
+        if (otherPath != null) {
+            myPendingPaths.add(otherPath);
+        }
+    }
+
+    private void submit(long id, FileInstall install, Callable<Object> task) {
+        if (myExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(myThreadsCount, myThreadsCount, KEEP_ALIVE_TIME, TimeUnit.SECONDS, 
+                    new LinkedBlockingQueue<Runnable>(), new WorkQueueThreadFactory());
+            executor.allowCoreThreadTimeOut(true);
+            myExecutor = executor;
+        }
+        myPendingItems.add(new PendingItem(id, install, myExecutor.submit(task)));
+    }
+
+    private void completePending(File dirAbsPath) throws SVNException {
+        try {
+            SVNException error = null;
+            for (PendingItem item : myPendingItems) {
+                try {
+                    waitFor(item.myFuture);
+                } catch (SVNException e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            for (PendingItem item : myPendingItems) {
+                if (item.myInstall != null) {
+                    item.myInstall.finish(myContext);
+                }
+                myContext.getDb().completedWorkQueue(dirAbsPath, item.myId);
+            }
+        } finally {
+            myPendingItems.clear();
+            myPendingPaths.clear();
+        }
+    }
+
+    private static void waitFor(Future<?> future) throws SVNException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Operation was interrupted");
+            SVNErrorManager.error(err, e, SVNLogType.WC);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SVNException) {
+                throw (SVNException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            SVNErrorMessage err = SVNErrorMessage.create(SVNErrorCode.UNKNOWN, cause != null ? cause.getMessage() : e.getMessage());
+            SVNErrorManager.error(err, cause != null ? cause : e, SVNLogType.WC);
+        }
+    }
+
+    private static class PendingItem {
+
+        private final long myId;
+        private final FileInstall myInstall;
+        private final Future<?> myFuture;
+
+        public PendingItem(long id, FileInstall install, Future<?> future) {
+            myId = id;
+            myInstall = install;
+            myFuture = future;
+        }
+    }
+
+    private static class WorkQueueThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger ourPoolNumber = new AtomicInteger(1);
+        private final AtomicInteger myThreadNumber = new AtomicInteger(1);
+        private final String myNamePrefix = "svnkit-wq-" + ourPoolNumber.getAndIncrement() + "-thread-";
+
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, myNamePrefix + myThreadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
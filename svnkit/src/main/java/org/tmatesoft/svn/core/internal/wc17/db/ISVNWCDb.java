@@ -1235,6 +1235,12 @@ public interface ISVNWCDb {
     
     void readChildren(File localAbspath, Map<String, SVNWCDbInfo> children, Set<String> conflicts) throws SVNException;
 
+    /**
+     * Reads children of every directory below the directory LOCAL_ABSPATH at once,
+     * in the form {@link #readChildren(File, Map, Set)} returns them.
+     */
+    SVNWCDbSubtree readSubtree(File localAbspath) throws SVNException;
+
     /**
      * Return the basenames of the immediate children of LOCAL_ABSPATH in DB
      * that are conflicted.
@@ -1590,6 +1596,12 @@ public interface ISVNWCDb {
      */
     WCDbWorkQueueInfo fetchWorkQueue(File wcRootAbsPath) throws SVNException;
 
+    /**
+     * Fetches up to <code>maxCount</code> first work items in the order they were 
+     * queued, an empty list is returned when the queue is empty.
+     */
+    List<WCDbWorkQueueInfo> fetchWorkQueue(File wcRootAbsPath, int maxCount) throws SVNException;
+
     class WCDbWorkQueueInfo {
 
         public long id;
@@ -1445,6 +1445,26 @@ public class SVNWCDb implements ISVNWCDb {
         }
     }
 
+    public List<WCDbWorkQueueInfo> fetchWorkQueue(File wcRootAbsPath, int maxCount) throws SVNException {
+        assert (SVNFileUtil.isAbsolute(wcRootAbsPath));
+        List<WCDbWorkQueueInfo> items = new ArrayList<WCDbWorkQueueInfo>();
+        DirParsedInfo parseDir = parseDir(wcRootAbsPath, Mode.ReadOnly);
+        SVNWCDbDir pdh = parseDir.wcDbDir;
+        verifyDirUsable(pdh);
+        SVNSqlJetStatement stmt = pdh.getWCRoot().getSDb().getStatement(SVNWCDbStatements.SELECT_WORK_ITEM);
+        try {
+            while (items.size() < maxCount && stmt.next()) {
+                WCDbWorkQueueInfo info = new WCDbWorkQueueInfo();
+                info.id = stmt.getColumnLong(SVNWCDbSchema.WORK_QUEUE__Fields.id);
+                info.workItem = SVNSkel.parse(stmt.getColumnBlob(SVNWCDbSchema.WORK_QUEUE__Fields.work));
+                items.add(info);
+            }
+            return items;
+        } finally {
+            stmt.reset();
+        }
+    }
+
     public File fromRelPath(File wriAbsPath, File localRelPath) throws SVNException {
         DirParsedInfo parsed = parseDir(wriAbsPath, Mode.ReadOnly);
         File wcRootAbsPath = parsed.wcDbDir.getWCRoot().getAbsPath();
@@ -3066,6 +3086,21 @@ public class SVNWCDb implements ISVNWCDb {
         root.getSDb().runTransaction(gather, SqlJetTransactionMode.READ_ONLY);
     }
 
+    public SVNWCDbSubtree readSubtree(File localAbsPath) throws SVNException {
+        final DirParsedInfo parsed = parseDir(localAbsPath, Mode.ReadOnly);
+        SVNWCDbDir pdh = parsed.wcDbDir;
+
+        verifyDirUsable(pdh);
+
+        GatherSubtree gather = new GatherSubtree();
+        gather.dirRelPath = parsed.localRelPath;
+        gather.wcRoot = pdh.getWCRoot();
+        gather.subtree = new SVNWCDbSubtree(gather.wcRoot, gather.dirRelPath);
+
+        gather.wcRoot.getSDb().runTransaction(gather, SqlJetTransactionMode.READ_ONLY);
+        return gather.subtree;
+    }
+
     private class GatherChildren implements SVNSqlJetTransaction {
 
         Map<String, SVNWCDbInfo> nodes;
@@ -3076,6 +3111,7 @@ public class SVNWCDb implements ISVNWCDb {
 
         public void transaction(SVNSqlJetDb db) throws SqlJetException, SVNException {
             WCDbRepositoryInfo reposInfo = new WCDbRepositoryInfo();
+            int format = db.getDb().getOptions().getUserVersion();
 
             SVNSqlJetStatement stmt = db.getStatement(SVNWCDbStatements.SELECT_NODE_CHILDREN_INFO);
             try {
@@ -3085,93 +3121,7 @@ public class SVNWCDb implements ISVNWCDb {
                 while(haveRow) {
                     File childRelPath = SVNFileUtil.createFilePath(getColumnText(stmt, SVNWCDbSchema.NODES__Fields.local_relpath));
                     String name = SVNFileUtil.getFileName(childRelPath);
-                    GatheredChildItem childItem = (GatheredChildItem) nodes.get(name);
-                    boolean newChild = false;
-                    if (childItem == null) {
-                        newChild = true;
-                        childItem = new GatheredChildItem();
-                    }
-                    long opDepth = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.op_depth);
-
-                    if (newChild || opDepth > childItem.opDepth) {
-                        childItem.opDepth = opDepth;
-                        childItem.kind = getColumnKind(stmt, SVNWCDbSchema.NODES__Fields.kind);
-                        childItem.status = getColumnPresence(stmt);
-                        if (opDepth != 0) {
-                            childItem.incomplete = childItem.status == SVNWCDbStatus.Incomplete;
-                            childItem.status = getWorkingStatus(childItem.status);
-                        }
-                        if (opDepth != 0) {
-                            childItem.revnum = INVALID_REVNUM;
-                            childItem.reposRelpath = null;
-                        } else {
-                            childItem.revnum = getColumnRevNum(stmt, SVNWCDbSchema.NODES__Fields.revision);
-                            childItem.reposRelpath = SVNFileUtil.createFilePath(getColumnText(stmt, SVNWCDbSchema.NODES__Fields.repos_path));
-                        }
-                        if (opDepth != 0 || isColumnNull(stmt, SVNWCDbSchema.NODES__Fields.repos_id)) {
-                            childItem.reposRootUrl = null;
-                            childItem.reposUuid = null;
-                        } else {
-                            long reposId = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.repos_id);
-                            if (reposInfo.rootUrl == null) {
-                                fetchReposInfo(reposInfo, db, reposId);
-                            }
-                            childItem.reposRootUrl = reposInfo.rootUrl;
-                            childItem.reposUuid = reposInfo.uuid;
-                        }
-                        childItem.changedRev = getColumnRevNum(stmt, SVNWCDbSchema.NODES__Fields.changed_revision);
-                        childItem.changedDate = SVNWCUtils.readDate(getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.changed_date));
-                        childItem.changedAuthor = getColumnText(stmt, SVNWCDbSchema.NODES__Fields.changed_author);
-                        if (childItem.kind != SVNWCDbKind.Dir) {
-                            childItem.depth = SVNDepth.UNKNOWN;
-                        } else {
-                            childItem.depth = getColumnDepth(stmt, SVNWCDbSchema.NODES__Fields.depth);
-                            if (newChild) {
-                                childItem.locked = isWCLocked(wcRoot, childRelPath);
-                            }
-                        }
-                        childItem.recordedModTime = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.last_mod_time);
-                        childItem.recordedSize = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.translated_size);
-                        childItem.hasChecksum = !isColumnNull(stmt, SVNWCDbSchema.NODES__Fields.checksum);
-                        childItem.copied = opDepth > 0 && !isColumnNull(stmt, NODES__Fields.repos_path);
-                        childItem.hadProps = !isColumnNull(stmt, SVNWCDbSchema.NODES__Fields.properties) && getColumnBlob(stmt, SVNWCDbSchema.NODES__Fields.properties).length > 2;
-
-                        if (childItem.hadProps) {
-                            SVNProperties properties = getColumnProperties(stmt, SVNWCDbSchema.NODES__Fields.properties);
-                            childItem.special = properties.getSVNPropertyValue(SVNProperty.SPECIAL) != null;
-                        }
-
-                        if (opDepth == 0) {
-                            childItem.opRoot = false;
-                        } else {
-                            childItem.opRoot = opDepth == SVNWCUtils.relpathDepth(childRelPath);
-                        }
-                        childItem.format = db.getDb().getOptions().getUserVersion();
-                        nodes.put(name, childItem);
-                    }
-                    if (opDepth == 0) {
-                        childItem.haveBase = true;
-                        SVNSqlJetStatement lockStmt = stmt.getJoinedStatement(SVNWCDbSchema.LOCK);
-                        if (lockStmt != null && !lockStmt.eof()) {
-                            childItem.lock = new SVNWCDbLock();
-                            childItem.lock.token = getColumnText(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_token);
-                            if (!isColumnNull(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_owner))
-                                childItem.lock.owner = getColumnText(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_owner);
-                            if (!isColumnNull(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_comment))
-                                childItem.lock.comment = getColumnText(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_comment);
-                            if (!isColumnNull(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_date))
-                                childItem.lock.date = SVNWCUtils.readDate(getColumnInt64(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_date));
-                        }
-                        childItem.fileExternal = stmt.getColumnBoolean(NODES__Fields.file_external);
-                    } else {
-                        final File movedToRelpath = getColumnPath(stmt, SVNWCDbSchema.NODES__Fields.moved_to);
-                        if (movedToRelpath != null) {
-                            childItem.movedToAbsPath = SVNFileUtil.createFilePath(wcRoot.getAbsPath(), movedToRelpath);
-                        }
-                        childItem.movedHere = getColumnBoolean(stmt, SVNWCDbSchema.NODES__Fields.moved_here);
-                        childItem.layersCount++;
-                        childItem.haveMoreWork = childItem.layersCount > 1;
-                    }
+                    gatherNodeRow(db, stmt, wcRoot, reposInfo, format, childRelPath, name, nodes);
                     haveRow = stmt.next();
                 }
             } finally {
@@ -3188,33 +3138,165 @@ public class SVNWCDb implements ISVNWCDb {
                     File childRelPath = SVNFileUtil.createFilePath(getColumnText(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.local_relpath));
                     String name = SVNFileUtil.getFileName(childRelPath);
 
-                    GatheredChildItem childItem = (GatheredChildItem) nodes.get(name);
-                    if (childItem == null) {
-                        childItem = new GatheredChildItem();
-                        childItem.status = SVNWCDbStatus.NotPresent;
-                    }
-                    childItem.changelist = getColumnText(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.changelist);
-                    childItem.propsMod = !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.properties);
-                    if (childItem.propsMod) {
-                        SVNProperties properties = getColumnProperties(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.properties);
-                        childItem.special = properties.getSVNPropertyValue(SVNProperty.SPECIAL) != null;
-                    }
+                    gatherActualRow(stmt, name, nodes, conflicts);
+                }
+            } finally {
+                stmt.reset();
+            }
+        }
 
-                    childItem.conflicted = !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_data) || /* data */
-                            !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_old) || /* old */
-                            !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_new) || /* new */
-                            !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_working) || /* working */
-                            !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.prop_reject) || /* prop_reject */
-                            !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.tree_conflict_data) /* tree_conflict_data */;
-                    if (childItem.conflicted) {
-                        conflicts.add(name);
-                    }
+    }
+
+    private class GatherSubtree implements SVNSqlJetTransaction {
+
+        SVNWCDbSubtree subtree;
+
+        File dirRelPath;
+        SVNWCDbRoot wcRoot;
+
+        public void transaction(SVNSqlJetDb db) throws SqlJetException, SVNException {
+            WCDbRepositoryInfo reposInfo = new WCDbRepositoryInfo();
+            int format = db.getDb().getOptions().getUserVersion();
+
+            SVNSqlJetStatement stmt = db.getStatement(SVNWCDbStatements.SELECT_NODES_INFO_RECURSIVE);
+            try {
+                stmt.bindf("is", wcRoot.getWcId(), dirRelPath);
+                while (stmt.next()) {
+                    String childPath = getColumnText(stmt, SVNWCDbSchema.NODES__Fields.local_relpath);
+                    gatherNodeRow(db, stmt, wcRoot, reposInfo, format, SVNFileUtil.createFilePath(childPath), SVNPathUtil.tail(childPath), 
+                            subtree.getChildren(SVNPathUtil.removeTail(childPath)));
                 }
             } finally {
                 stmt.reset();
             }
+            stmt = db.getStatement(SVNWCDbStatements.SELECT_ACTUAL_INFO_RECURSIVE);
+            try {
+                stmt.bindf("is", wcRoot.getWcId(), dirRelPath);
+                while (stmt.next()) {
+                    String childPath = getColumnText(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.local_relpath);
+                    String parentPath = SVNPathUtil.removeTail(childPath);
+                    gatherActualRow(stmt, SVNPathUtil.tail(childPath), subtree.getChildren(parentPath), subtree.getConflicts(parentPath));
+                }
+            } finally {
+                stmt.reset();
+            }
+        }
+
+    }
+
+    private void gatherNodeRow(SVNSqlJetDb db, SVNSqlJetStatement stmt, SVNWCDbRoot wcRoot, WCDbRepositoryInfo reposInfo, 
+            int format, File childRelPath, String name, Map<String, SVNWCDbInfo> nodes) throws SVNException {
+        GatheredChildItem childItem = (GatheredChildItem) nodes.get(name);
+        boolean newChild = false;
+        if (childItem == null) {
+            newChild = true;
+            childItem = new GatheredChildItem();
+        }
+        long opDepth = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.op_depth);
+
+        if (newChild || opDepth > childItem.opDepth) {
+            childItem.opDepth = opDepth;
+            childItem.kind = getColumnKind(stmt, SVNWCDbSchema.NODES__Fields.kind);
+            childItem.status = getColumnPresence(stmt);
+            if (opDepth != 0) {
+                childItem.incomplete = childItem.status == SVNWCDbStatus.Incomplete;
+                childItem.status = getWorkingStatus(childItem.status);
+            }
+            if (opDepth != 0) {
+                childItem.revnum = INVALID_REVNUM;
+                childItem.reposRelpath = null;
+            } else {
+                childItem.revnum = getColumnRevNum(stmt, SVNWCDbSchema.NODES__Fields.revision);
+                childItem.reposRelpath = SVNFileUtil.createFilePath(getColumnText(stmt, SVNWCDbSchema.NODES__Fields.repos_path));
+            }
+            if (opDepth != 0 || isColumnNull(stmt, SVNWCDbSchema.NODES__Fields.repos_id)) {
+                childItem.reposRootUrl = null;
+                childItem.reposUuid = null;
+            } else {
+                long reposId = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.repos_id);
+                if (reposInfo.rootUrl == null) {
+                    fetchReposInfo(reposInfo, db, reposId);
+                }
+                childItem.reposRootUrl = reposInfo.rootUrl;
+                childItem.reposUuid = reposInfo.uuid;
+            }
+            childItem.changedRev = getColumnRevNum(stmt, SVNWCDbSchema.NODES__Fields.changed_revision);
+            childItem.changedDate = SVNWCUtils.readDate(getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.changed_date));
+            childItem.changedAuthor = getColumnText(stmt, SVNWCDbSchema.NODES__Fields.changed_author);
+            if (childItem.kind != SVNWCDbKind.Dir) {
+                childItem.depth = SVNDepth.UNKNOWN;
+            } else {
+                childItem.depth = getColumnDepth(stmt, SVNWCDbSchema.NODES__Fields.depth);
+                if (newChild) {
+                    childItem.locked = isWCLocked(wcRoot, childRelPath);
+                }
+            }
+            childItem.recordedModTime = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.last_mod_time);
+            childItem.recordedSize = getColumnInt64(stmt, SVNWCDbSchema.NODES__Fields.translated_size);
+            childItem.hasChecksum = !isColumnNull(stmt, SVNWCDbSchema.NODES__Fields.checksum);
+            childItem.copied = opDepth > 0 && !isColumnNull(stmt, NODES__Fields.repos_path);
+            childItem.hadProps = !isColumnNull(stmt, SVNWCDbSchema.NODES__Fields.properties) && getColumnBlob(stmt, SVNWCDbSchema.NODES__Fields.properties).length > 2;
+
+            if (childItem.hadProps) {
+                SVNProperties properties = getColumnProperties(stmt, SVNWCDbSchema.NODES__Fields.properties);
+                childItem.special = properties.getSVNPropertyValue(SVNProperty.SPECIAL) != null;
+            }
+
+            if (opDepth == 0) {
+                childItem.opRoot = false;
+            } else {
+                childItem.opRoot = opDepth == SVNWCUtils.relpathDepth(childRelPath);
+            }
+            childItem.format = format;
+            nodes.put(name, childItem);
+        }
+        if (opDepth == 0) {
+            childItem.haveBase = true;
+            SVNSqlJetStatement lockStmt = stmt.getJoinedStatement(SVNWCDbSchema.LOCK);
+            if (lockStmt != null && !lockStmt.eof()) {
+                childItem.lock = new SVNWCDbLock();
+                childItem.lock.token = getColumnText(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_token);
+                if (!isColumnNull(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_owner))
+                    childItem.lock.owner = getColumnText(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_owner);
+                if (!isColumnNull(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_comment))
+                    childItem.lock.comment = getColumnText(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_comment);
+                if (!isColumnNull(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_date))
+                    childItem.lock.date = SVNWCUtils.readDate(getColumnInt64(lockStmt, SVNWCDbSchema.LOCK__Fields.lock_date));
+            }
+            childItem.fileExternal = stmt.getColumnBoolean(NODES__Fields.file_external);
+        } else {
+            final File movedToRelpath = getColumnPath(stmt, SVNWCDbSchema.NODES__Fields.moved_to);
+            if (movedToRelpath != null) {
+                childItem.movedToAbsPath = SVNFileUtil.createFilePath(wcRoot.getAbsPath(), movedToRelpath);
+            }
+            childItem.movedHere = getColumnBoolean(stmt, SVNWCDbSchema.NODES__Fields.moved_here);
+            childItem.layersCount++;
+            childItem.haveMoreWork = childItem.layersCount > 1;
         }
+    }
 
+    private void gatherActualRow(SVNSqlJetStatement stmt, String name, Map<String, SVNWCDbInfo> nodes, Set<String> conflicts) throws SVNException {
+        GatheredChildItem childItem = (GatheredChildItem) nodes.get(name);
+        if (childItem == null) {
+            childItem = new GatheredChildItem();
+            childItem.status = SVNWCDbStatus.NotPresent;
+        }
+        childItem.changelist = getColumnText(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.changelist);
+        childItem.propsMod = !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.properties);
+        if (childItem.propsMod) {
+            SVNProperties properties = getColumnProperties(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.properties);
+            childItem.special = properties.getSVNPropertyValue(SVNProperty.SPECIAL) != null;
+        }
+
+        childItem.conflicted = !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_data) || /* data */
+                !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_old) || /* old */
+                !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_new) || /* new */
+                !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_working) || /* working */
+                !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.prop_reject) || /* prop_reject */
+                !isColumnNull(stmt, SVNWCDbSchema.ACTUAL_NODE__Fields.tree_conflict_data) /* tree_conflict_data */;
+        if (childItem.conflicted) {
+            conflicts.add(name);
+        }
     }
 
     private static class GatheredChildItem extends SVNWCDbInfo {
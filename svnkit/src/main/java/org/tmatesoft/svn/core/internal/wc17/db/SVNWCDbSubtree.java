@@ -0,0 +1,93 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html.
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+package org.tmatesoft.svn.core.internal.wc17.db;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.SVNWCDbInfo;
+
+/**
+ * Children of every directory below a working copy path, read from NODES, ACTUAL_NODE 
+ * and LOCK tables with a single range scan of each. Children of a directory are kept in 
+ * the form {@link ISVNWCDb#readChildren(File, Map, Set)} returns them and are handed 
+ * out once, so that memory is released as a walk goes down the tree.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public class SVNWCDbSubtree {
+
+    private final SVNWCDbRoot myRoot;
+    private final String myRelPath;
+    private final Map<String, Map<String, SVNWCDbInfo>> myChildren;
+    private final Map<String, Set<String>> myConflicts;
+    private final Set<String> myTakenPaths;
+
+    SVNWCDbSubtree(SVNWCDbRoot root, File relPath) {
+        myRoot = root;
+        myRelPath = SVNFileUtil.getFilePath(relPath);
+        myChildren = new HashMap<String, Map<String, SVNWCDbInfo>>();
+        myConflicts = new HashMap<String, Set<String>>();
+        myTakenPaths = new HashSet<String>();
+    }
+
+    public SVNWCDbRoot getRoot() {
+        return myRoot;
+    }
+
+    /**
+     * Moves information about children of the directory to <code>children</code> and
+     * <code>conflicts</code>.
+     *
+     * @return <code>false</code> if the directory does not belong to this subtree or 
+     *         its children were already taken, nothing is changed then
+     */
+    public boolean takeChildren(SVNWCDbRoot root, File dirRelPath, Map<String, SVNWCDbInfo> children, Set<String> conflicts) {
+        String path = dirRelPath != null ? SVNFileUtil.getFilePath(dirRelPath) : "";
+        if (!myRoot.getAbsPath().equals(root.getAbsPath()) || !SVNPathUtil.isAncestor(myRelPath, path) || !myTakenPaths.add(path)) {
+            return false;
+        }
+        Map<String, SVNWCDbInfo> dirChildren = myChildren.remove(path);
+        Set<String> dirConflicts = myConflicts.remove(path);
+        if (dirChildren != null) {
+            children.putAll(dirChildren);
+        }
+        if (dirConflicts != null) {
+            conflicts.addAll(dirConflicts);
+        }
+        return true;
+    }
+
+    Map<String, SVNWCDbInfo> getChildren(String dirRelPath) {
+        Map<String, SVNWCDbInfo> children = myChildren.get(dirRelPath);
+        if (children == null) {
+            children = new HashMap<String, SVNWCDbInfo>();
+            myChildren.put(dirRelPath, children);
+        }
+        return children;
+    }
+
+    Set<String> getConflicts(String dirRelPath) {
+        Set<String> conflicts = myConflicts.get(dirRelPath);
+        if (conflicts == null) {
+            conflicts = new HashSet<String>();
+            myConflicts.put(dirRelPath, conflicts);
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,51 @@
+package org.tmatesoft.svn.core.internal.wc17.db.statement;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.db.SVNSqlJetDb;
+import org.tmatesoft.svn.core.internal.db.SVNSqlJetSelectFieldsStatement;
+
+/**
+ * SELECT local_relpath, changelist, properties, conflict_data
+ * FROM actual_node
+ * WHERE wc_id = ?1 AND IS_STRICT_DESCENDANT_OF(local_relpath, ?2)
+ *
+ */
+public class SVNWCDbSelectActualInfoRecursive extends SVNSqlJetSelectFieldsStatement<SVNWCDbSchema.ACTUAL_NODE__Fields> {
+
+    public SVNWCDbSelectActualInfoRecursive(SVNSqlJetDb sDb) throws SVNException {
+        super(sDb, SVNWCDbSchema.ACTUAL_NODE);
+    }
+
+    @Override
+    protected void defineFields() {
+        fields.add(SVNWCDbSchema.ACTUAL_NODE__Fields.local_relpath);
+        fields.add(SVNWCDbSchema.ACTUAL_NODE__Fields.changelist);
+        fields.add(SVNWCDbSchema.ACTUAL_NODE__Fields.properties);
+        fields.add(SVNWCDbSchema.ACTUAL_NODE__Fields.conflict_data);
+    }
+
+    @Override
+    protected boolean isStrictiDescendant() {
+        return true;
+    }
+
+    @Override
+    protected String getPathScope() {
+        return (String) getBind(2);
+    }
+
+    @Override
+    protected Enum<?> getRowPathField() throws SVNException {
+        return SVNWCDbSchema.ACTUAL_NODE__Fields.local_relpath;
+    }
+
+    @Override
+    protected String getRowPath() throws SVNException {
+        return getColumnString(SVNWCDbSchema.ACTUAL_NODE__Fields.local_relpath);
+    }
+
+    @Override
+    protected Object[] getWhere() throws SVNException {
+        return new Object[] {getBind(1)};
+    }
+}
@@ -0,0 +1,82 @@
+package org.tmatesoft.svn.core.internal.wc17.db.statement;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.db.SVNSqlJetDb;
+import org.tmatesoft.svn.core.internal.db.SVNSqlJetSelectFieldsStatement;
+import org.tmatesoft.svn.core.internal.db.SVNSqlJetSelectStatement;
+import org.tmatesoft.svn.core.internal.db.SVNSqlJetStatement;
+
+/**
+ * SELECT op_depth, nodes.repos_id, nodes.repos_path, presence, kind, revision,
+ *  checksum, translated_size, changed_revision, changed_date, changed_author,
+ * depth, symlink_target, last_mod_time, properties, lock_token, lock_owner,
+ * lock_comment, lock_date, local_relpath, moved_to, moved_here, file_external
+ * FROM nodes
+ * LEFT OUTER JOIN lock ON nodes.repos_id = lock.repos_id
+ * AND nodes.repos_path = lock.repos_relpath
+ * WHERE wc_id = ?1 AND IS_STRICT_DESCENDANT_OF(local_relpath, ?2)
+ * ORDER BY local_relpath, op_depth
+ * 
+ */
+public class SVNWCDbSelectNodesInfoRecursive extends SVNSqlJetSelectStatement {
+    
+    private static class LockStatement extends SVNSqlJetSelectFieldsStatement<SVNWCDbSchema.LOCK__Fields> {
+        
+        public LockStatement(SVNSqlJetDb sDb) throws SVNException {
+            super(sDb, SVNWCDbSchema.LOCK);
+        }
+        protected void defineFields() {
+            fields.add(SVNWCDbSchema.LOCK__Fields.lock_token);
+            fields.add(SVNWCDbSchema.LOCK__Fields.lock_owner);
+            fields.add(SVNWCDbSchema.LOCK__Fields.lock_comment);
+            fields.add(SVNWCDbSchema.LOCK__Fields.lock_date);
+        }
+    }
+
+    private LockStatement lockStatement;
+
+    public SVNWCDbSelectNodesInfoRecursive(SVNSqlJetDb sDb) throws SVNException {
+        super(sDb, SVNWCDbSchema.NODES);
+        lockStatement = new LockStatement(sDb);
+    }
+
+    @Override
+    protected String getPathScope() {
+        return (String) getBind(2);
+    }
+
+    @Override
+    protected boolean isStrictiDescendant() {
+        return true;
+    }
+
+    public boolean next() throws SVNException {
+        lockStatement.reset();
+        final boolean next = super.next();
+        if (next) {
+            lockStatement.bindLong(1, getColumnLong(SVNWCDbSchema.NODES__Fields.repos_id.toString()));
+            lockStatement.bindString(2, getColumnString(SVNWCDbSchema.NODES__Fields.repos_path.toString()));
+            lockStatement.next();
+        }
+        return next;
+    }
+
+    @Override
+    public void reset() throws SVNException {
+        lockStatement.reset();
+        super.reset();
+    }
+
+    @Override
+    public SVNSqlJetStatement getJoinedStatement(String joinedTable) throws SVNException {
+        if (SVNWCDbSchema.LOCK.toString().equalsIgnoreCase(joinedTable)) {
+            return lockStatement;
+        }
+        return super.getJoinedStatement(joinedTable);
+    }
+
+    @Override
+    protected Object[] getWhere() throws SVNException {
+        return new Object[] {getBind(1)};
+    }
+}
@@ -216,6 +216,8 @@ public enum SVNWCDbStatements {
     SELECT_MOVED_DESCENDANTS_SRC(SVNWCDbSelectMovedDescendantsSrc.class),
     FIND_CONFLICT_DESCENDANT(SVNWCDbFindConflictDescendant.class),
     SELECT_MOVED_TO_NODE(SVNWCDbSelectMovedToNode.class),
+    SELECT_NODES_INFO_RECURSIVE(SVNWCDbSelectNodesInfoRecursive.class),
+    SELECT_ACTUAL_INFO_RECURSIVE(SVNWCDbSelectActualInfoRecursive.class),
     //1.7 versions of the requests
     SELECT_ACTUAL_CHILDREN_CONFLICT_17(SVNWCDbSelectActualChildrenConflict17.class),
     SELECT_ACTUAL_CHILDREN_INFO_17(SVNWCDbSelectActualChildrenInfo17.class),
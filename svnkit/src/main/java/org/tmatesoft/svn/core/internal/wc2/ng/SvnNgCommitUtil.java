@@ -231,6 +231,8 @@ public class SvnNgCommitUtil {
         commitStatusWalker.externalsStorage = externalsStorage;
 
         SVNStatusEditor17 editor = new SVNStatusEditor17(localAbsPath, context, context.getOptions(), false, copyModeRelPath != null, depth, commitStatusWalker);
+        editor.setReadSubtree(true);
+        editor.setUseChangeJournal(true);
         editor.walkStatus(localAbsPath, depth, copyModeRelPath != null, false, false, null);
 
 /*
@@ -79,7 +79,7 @@ public class SvnNgGetInfo extends SvnNgOperationRunner<SvnInfo, SvnGetInfo> impl
         }
 
         try {
-            context.nodeWalkChildren(getFirstTarget(), this, getOperation().isFetchExcluded(), depth, getOperation().getApplicableChangelists());
+            context.nodeWalkChildren(getFirstTarget(), this, getOperation().isFetchExcluded(), depth, getOperation().getApplicableChangelists(), true);
         } catch (SVNException e) {
             if (!(e.getErrorMessage().getErrorCode() == SVNErrorCode.WC_PATH_NOT_FOUND && hasRootTreeConflict)) {
                 throw e;
@@ -95,6 +95,7 @@ public class SvnNgGetStatus extends SvnNgOperationRunner<SvnStatus, SvnGetStatus
                 editor = new SVNStatusEditor17(getFirstTarget(), context, 
                         getOperation().getOptions(), getOperation().isReportIgnored(), getOperation().isReportAll(), depth, this);
                 editor.setFileListHook(getOperation().getFileListHook());
+                editor.setWalkThreadsCount(SVNStatusEditor17.getDefaultWalkThreadsCount());
                 checkCancelled();
                 editor.closeEdit();
             } else {
@@ -128,6 +129,9 @@ public class SvnNgGetStatus extends SvnNgOperationRunner<SvnStatus, SvnGetStatus
                     depth,
                     this);
             editor.setFileListHook(getOperation().getFileListHook());
+            editor.setWalkThreadsCount(SVNStatusEditor17.getDefaultWalkThreadsCount());
+            editor.setReadSubtree(true);
+            editor.setUseChangeJournal(true);
             try {
                 editor.walkStatus(getFirstTarget(),
                         depth,
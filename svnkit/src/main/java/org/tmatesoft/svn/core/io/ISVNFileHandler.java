@@ -0,0 +1,53 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+
+package org.tmatesoft.svn.core.io;
+
+import java.io.OutputStream;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperties;
+
+/**
+ * This public interface should be implemented for using within
+ * {@link SVNRepository#getFiles(java.util.Collection, long, boolean, ISVNFileHandler)
+ * SVNRepository.getFiles(Collection, long, boolean, ISVNFileHandler)}. The mentioned
+ * method fetches several files at once and passes each of them to an implementation
+ * of <code>ISVNFileHandler</code> in the order the paths were given.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public interface ISVNFileHandler {
+    /**
+     * Starts receiving of a file.
+     *
+     * @param  path          a path as it was passed to <code>getFiles</code>
+     * @param  revision      the revision the file has been taken at
+     * @param  properties    file properties or <span class="javakeyword">null</span>
+     *                       if they were not requested
+     * @return               an output stream to write the file contents to or
+     *                       <span class="javakeyword">null</span> to skip the contents
+     * @throws SVNException
+     */
+    public OutputStream openFile(String path, long revision, SVNProperties properties) throws SVNException;
+
+    /**
+     * Finishes receiving of a file. The stream returned by {@link #openFile(String, long, SVNProperties)}
+     * is not used after this call.
+     *
+     * @param  path          a path as it was passed to <code>getFiles</code>
+     * @throws SVNException
+     */
+    public void closeFile(String path) throws SVNException;
+
+}
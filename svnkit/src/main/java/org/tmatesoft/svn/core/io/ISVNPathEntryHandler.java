@@ -0,0 +1,39 @@
+/*
+ * ====================================================================
+ * Copyright (c) 2004-2012 TMate Software Ltd.  All rights reserved.
+ *
+ * This software is licensed as described in the file COPYING, which
+ * you should have received as part of this distribution.  The terms
+ * are also available at http://svnkit.com/license.html
+ * If newer versions of this license are posted there, you may use a
+ * newer version instead, at your option.
+ * ====================================================================
+ */
+
+package org.tmatesoft.svn.core.io;
+
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+
+/**
+ * This public interface should be implemented for using within
+ * {@link SVNRepository#info(java.util.Collection, long, ISVNPathEntryHandler)
+ * SVNRepository.info(Collection, long, ISVNPathEntryHandler)}. The mentioned method
+ * gives information about several entries at once and passes it to an implementation
+ * of <code>ISVNPathEntryHandler</code> in the order the paths were given.
+ *
+ * @version 1.3
+ * @author  TMate Software Ltd.
+ */
+public interface ISVNPathEntryHandler {
+    /**
+     * To be implemented for entries handling.
+     *
+     * @param  path          a path as it was passed to <code>info</code>
+     * @param  entry         information about the entry or <span class="javakeyword">null</span>
+     *                       if there's no entry at <code>path</code>
+     * @throws SVNException
+     */
+    public void handlePathEntry(String path, SVNDirEntry entry) throws SVNException;
+
+}
@@ -17,6 +17,7 @@ import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryUtil;
 import org.tmatesoft.svn.core.internal.util.SVNHashMap;
 import org.tmatesoft.svn.core.internal.util.SVNHashSet;
 import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
+import org.tmatesoft.svn.core.internal.util.SVNSpillBuffer;
 import org.tmatesoft.svn.core.internal.wc.SVNErrorManager;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
@@ -125,6 +126,9 @@ public abstract class SVNRepository {
      * Is used as an initialization value in cases, when revision is not defined, often represents HEAD revision
      */
     public static final long INVALID_REVISION = -1L;
+
+    private static final int FILE_BUFFER_BLOCK_SIZE = 8 * 1024;
+    private static final long FILE_BUFFER_MEMORY_SIZE = 1024 * 1024;
         
     protected String myRepositoryUUID;
     protected SVNURL myRepositoryRoot;
@@ -2375,7 +2379,83 @@ public abstract class SVNRepository {
      *                      </ul>
      */
     public abstract SVNDirEntry info(String path, long revision) throws SVNException;
-    
+
+    /**
+     * Gives information about entries located at the specified paths in a particular
+     * revision. This is the same as calling {@link #info(String, long)} for each path,
+     * but protocols that allow it send all the requests before reading the responses,
+     * so the whole batch takes about one network round trip.
+     *
+     * <p>
+     * <code>handler</code> is called once for each path, in the order of <code>paths</code>,
+     * with <span class="javakeyword">null</span> entries for paths that don't exist.
+     *
+     * @param  paths        item paths, relative to the location of this driver or
+     *                      absolute to the repository root
+     * @param  revision     a revision of the entries; defaults to the latest
+     *                      revision (HEAD)
+     * @param  handler      a caller's entries handler
+     * @throws SVNException in the following cases:
+     *                      <ul>
+     *                      <li>a failure occured while connecting to a repository
+     *                      <li>the user authentication failed
+     *                      (see {@link org.tmatesoft.svn.core.SVNAuthenticationException})
+     *                      </ul>
+     * @see                 #info(String, long)
+     */
+    public void info(Collection<String> paths, long revision, ISVNPathEntryHandler handler) throws SVNException {
+        for (String path : paths) {
+            handler.handlePathEntry(path, info(path, revision));
+        }
+    }
+
+    /**
+     * Fetches contents and properties of several files in a particular revision. This is
+     * the same as calling {@link #getFile(String, long, SVNProperties, OutputStream)} for
+     * each path, but protocols that allow it send all the requests before reading the
+     * responses, so the whole batch takes about one network round trip.
+     *
+     * <p>
+     * Files are passed to <code>handler</code> in the order of <code>paths</code>.
+     *
+     * @param  paths            file paths, relative to the location of this driver or
+     *                          absolute to the repository root
+     * @param  revision         a revision of the files; defaults to the latest
+     *                          revision (HEAD)
+     * @param  fetchProperties  whether file properties should be fetched
+     * @param  handler          a caller's files handler
+     * @throws SVNException     in the following cases:
+     *                          <ul>
+     *                          <li>there's no such path in <code>revision</code>
+     *                          <li>a failure occured while connecting to a repository
+     *                          <li>the user authentication failed
+     *                          (see {@link org.tmatesoft.svn.core.SVNAuthenticationException})
+     *                          </ul>
+     * @see                     #getFile(String, long, SVNProperties, OutputStream)
+     */
+    public void getFiles(Collection<String> paths, long revision, boolean fetchProperties, ISVNFileHandler handler) throws SVNException {
+        for (String path : paths) {
+            SVNProperties properties = fetchProperties ? new SVNProperties() : null;
+            // contents are buffered, so that the handler gets the revision and properties first.
+            SVNSpillBuffer buffer = new SVNSpillBuffer(FILE_BUFFER_BLOCK_SIZE, FILE_BUFFER_MEMORY_SIZE);
+            try {
+                long fileRevision = getFile(path, revision, properties, buffer.createOutputStream());
+                OutputStream contents = handler.openFile(path, fileRevision, properties);
+                if (contents != null) {
+                    InputStream bufferStream = buffer.createInputStream();
+                    try {
+                        FSRepositoryUtil.copy(bufferStream, contents, getCanceller());
+                    } finally {
+                        SVNFileUtil.closeFile(bufferStream);
+                    }
+                }
+            } finally {
+                buffer.close();
+            }
+            handler.closeFile(path);
+        }
+    }
+
     /**
 	 * Gets an editor for committing changes to a repository. Having got the editor
      * traverse a local tree of dirs and/or files to be committed, handling them    
@@ -16,8 +16,12 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Iterator;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
 import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNErrorMessage;
 import org.tmatesoft.svn.core.SVNException;
@@ -459,12 +463,36 @@ public class SVNDiffWindow {
      * @since                 1.1
      */
     public void writeTo(OutputStream os, boolean writeHeader, boolean compress) throws IOException {
+        writeTo(os, writeHeader, compress ? 1 : 0, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Formats and writes this window bytes to the specified output stream
+     * in the given svndiff format.
+     * 
+     * <p>
+     * Version 0 windows are not compressed, version 1 windows are compressed with 
+     * zlib using <code>compressionLevel</code>, version 2 windows are compressed 
+     * with LZ4 and <code>compressionLevel</code> is ignored. Parts of a window 
+     * that do not become smaller when compressed are written as is.
+     * 
+     * @param os                an output stream to write the window to
+     * @param writeHeader       if <span class="javakeyword">true</span> 
+     *                          {@link #SVN_HEADER}, {@link #SVN1_HEADER} or 
+     *                          {@link #SVN2_HEADER} is written first, according 
+     *                          to <code>version</code>
+     * @param version           svndiff format version, 0, 1 or 2
+     * @param compressionLevel  zlib compression level for version 1 windows 
+     * @throws IOException
+     */
+    public void writeTo(OutputStream os, boolean writeHeader, int version, int compressionLevel) throws IOException {
         if (writeHeader) {
-            os.write(compress ? SVN1_HEADER : SVN_HEADER);
+            os.write(version == 2 ? SVN2_HEADER : (version == 1 ? SVN1_HEADER : SVN_HEADER));
         }
         if (!hasInstructions()) {
             return;
         }
+        boolean compress = version == 1 || version == 2;
         ByteBuffer offsets = ByteBuffer.allocate(100);
         SVNDiffInstruction.writeLong(offsets, mySourceViewOffset);
         SVNDiffInstruction.writeInt(offsets, mySourceViewLength);
@@ -475,9 +503,14 @@ public class SVNDiffWindow {
         int instLength = 0;
         int dataLength = 0;
         if (compress) {
-            instructions = inflate(myData, myDataOffset, myInstructionsLength);
+            if (version == 2) {
+                instructions = compressLZ4(myData, myDataOffset, myInstructionsLength);
+                newData = compressLZ4(myData, myDataOffset + myInstructionsLength, myNewDataLength);
+            } else {
+                instructions = inflate(myData, myDataOffset, myInstructionsLength, compressionLevel);
+                newData = inflate(myData, myDataOffset + myInstructionsLength, myNewDataLength, compressionLevel);
+            }
             instLength = instructions.remaining();
-            newData = inflate(myData, myDataOffset + myInstructionsLength, myNewDataLength);
             dataLength = newData.remaining();
             SVNDiffInstruction.writeInt(offsets, instLength);
             SVNDiffInstruction.writeInt(offsets, dataLength);
@@ -547,25 +580,30 @@ public class SVNDiffWindow {
         return clone;
     }
     
-    private static ByteBuffer inflate(byte[] src, int offset, int length) throws IOException {
+    private static ByteBuffer inflate(byte[] src, int offset, int length, int compressionLevel) throws IOException {
         final ByteBuffer buffer = ByteBuffer.allocate(length*2 + 2);
         SVNDiffInstruction.writeInt(buffer, length);
         if (length < 512) {
             buffer.put(src, offset, length);
         } else {
-            DeflaterOutputStream out = new DeflaterOutputStream(new OutputStream() {
-                public void write(int b) throws IOException {
-                    buffer.put((byte) (b & 0xFF));
-                }
-                public void write(byte[] b, int off, int len) throws IOException {
-                    buffer.put(b, off, len);
-                }
-                public void write(byte[] b) throws IOException {
-                    write(b, 0, b.length);
-                }
-            });
-            out.write(src, offset, length);
-            out.finish();
+            Deflater deflater = new Deflater(compressionLevel);
+            try {
+                DeflaterOutputStream out = new DeflaterOutputStream(new OutputStream() {
+                    public void write(int b) throws IOException {
+                        buffer.put((byte) (b & 0xFF));
+                    }
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        buffer.put(b, off, len);
+                    }
+                    public void write(byte[] b) throws IOException {
+                        write(b, 0, b.length);
+                    }
+                }, deflater);
+                out.write(src, offset, length);
+                out.finish();
+            } finally {
+                deflater.end();
+            }
             if (buffer.position() >= length) {
                 buffer.clear();
                 SVNDiffInstruction.writeInt(buffer, length);
@@ -575,6 +613,22 @@ public class SVNDiffWindow {
         buffer.flip();
         return buffer;
     }
+
+    private static ByteBuffer compressLZ4(byte[] src, int offset, int length) {
+        LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(compressor.maxCompressedLength(length), length) + 10);
+        SVNDiffInstruction.writeInt(buffer, length);
+        int headerLength = buffer.position();
+        int compressedLength = length > 0 ? compressor.compress(src, offset, length, buffer.array(), headerLength) : 0;
+        if (compressedLength > 0 && compressedLength < length) {
+            buffer.position(headerLength + compressedLength);
+        } else {
+            // compressed bytes of the same length would be read as uncompressed ones.
+            buffer.put(src, offset, length);
+        }
+        buffer.flip();
+        return buffer;
+    }
     
     private class InstructionsIterator implements Iterator {
         
@@ -0,0 +1,416 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.tmatesoft.svn.core.ISVNDirEntryHandler;
+import org.tmatesoft.svn.core.ISVNLogEntryHandler;
+import org.tmatesoft.svn.core.SVNDepth;
+import org.tmatesoft.svn.core.SVNDirEntry;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNLock;
+import org.tmatesoft.svn.core.SVNMergeInfoInheritance;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNProperties;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.BasicAuthenticationManager;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.ISVNFileHandler;
+import org.tmatesoft.svn.core.io.ISVNFileRevisionHandler;
+import org.tmatesoft.svn.core.io.ISVNInheritedPropertiesHandler;
+import org.tmatesoft.svn.core.io.ISVNLocationEntryHandler;
+import org.tmatesoft.svn.core.io.ISVNLocationSegmentHandler;
+import org.tmatesoft.svn.core.io.ISVNLockHandler;
+import org.tmatesoft.svn.core.io.ISVNPathEntryHandler;
+import org.tmatesoft.svn.core.io.ISVNReplayHandler;
+import org.tmatesoft.svn.core.io.ISVNReporterBaton;
+import org.tmatesoft.svn.core.io.ISVNWorkspaceMediator;
+import org.tmatesoft.svn.core.io.SVNCapability;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class BatchRequestsTest {
+
+    private static final List<String> INFO_PATHS = Arrays.asList("file", "directory", "missing", "directory/file", "");
+    private static final List<String> FILE_PATHS = Arrays.asList("directory/file", "file", "directory/empty");
+
+    @Test
+    public void testInfoAndGetFilesOverFile() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testInfoAndGetFilesOverFile", options);
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+            createFixture(url);
+            assertBatchRequests(url);
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testInfoAndGetFilesOverSvn() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+        Assume.assumeTrue(TestUtil.areAllSvnserveOptionsSpecified(options));
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testInfoAndGetFilesOverSvn", options);
+        try {
+            final SVNURL url = sandbox.createSvnRepositoryWithSvnAccess();
+            createFixture(url);
+            assertBatchRequests(url);
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testInfoAndGetFilesOverSvnWithPathAuthz() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+        Assume.assumeTrue(TestUtil.areAllSvnserveOptionsSpecified(options));
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testInfoAndGetFilesOverSvnWithPathAuthz", options);
+        try {
+            final BasicAuthenticationManager authenticationManager = new BasicAuthenticationManager("user", "password");
+            final Map<String, String> loginToPassword = new HashMap<String, String>();
+            loginToPassword.put("user", "password");
+            final SVNURL url = sandbox.createSvnRepositoryWithSvnAccess(loginToPassword);
+            createFixture(url, authenticationManager);
+            // the session starts anonymous, the server asks to authenticate in the middle of the batch.
+            sandbox.writeActiveAuthzContents(url, "[/]\n*=r\nuser=rw\n[/directory]\n*=\nuser=rw\n");
+            assertBatchRequests(url, authenticationManager);
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testInfoAndGetFilesOverDav() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+        Assume.assumeTrue(TestUtil.areAllApacheOptionsSpecified(options));
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testInfoAndGetFilesOverDav", options);
+        try {
+            final SVNURL url = sandbox.createSvnRepositoryWithDavAccess();
+            createFixture(url);
+            assertBatchRequests(url);
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testDefaultGetFilesFetchesEachFileOnce() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testDefaultGetFilesFetchesEachFileOnce", options);
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+            createFixture(url);
+
+            final SVNRepository reference = SVNRepositoryFactory.create(url);
+            final SingleRequestsRepository repository = new SingleRequestsRepository(SVNRepositoryFactory.create(url));
+            try {
+                assertInfo(reference, repository, 1);
+                assertInfo(reference, repository, -1);
+
+                repository.resetGetFileCount();
+                assertGetFiles(reference, repository, 1, true);
+                Assert.assertEquals(FILE_PATHS.size(), repository.getGetFileCount());
+
+                repository.resetGetFileCount();
+                assertGetFiles(reference, repository, -1, false);
+                Assert.assertEquals(FILE_PATHS.size(), repository.getGetFileCount());
+            } finally {
+                reference.closeSession();
+                repository.closeSession();
+            }
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    private static void createFixture(SVNURL url) throws SVNException {
+        createFixture(url, null);
+    }
+
+    private static void createFixture(SVNURL url, ISVNAuthenticationManager authenticationManager) throws SVNException {
+        final CommitBuilder commitBuilder1 = new CommitBuilder(url);
+        commitBuilder1.setAuthenticationManager(authenticationManager);
+        commitBuilder1.addFile("file", "contents".getBytes());
+        commitBuilder1.addFile("directory/file", "directory file contents".getBytes());
+        commitBuilder1.addFile("directory/empty", new byte[0]);
+        commitBuilder1.setFileProperty("directory/file", "fileProperty", SVNPropertyValue.create("fileValue"));
+        commitBuilder1.commit();
+
+        final CommitBuilder commitBuilder2 = new CommitBuilder(url);
+        commitBuilder2.setAuthenticationManager(authenticationManager);
+        commitBuilder2.changeFile("file", "changed contents".getBytes());
+        commitBuilder2.commit();
+    }
+
+    private static void assertBatchRequests(SVNURL url) throws SVNException {
+        assertBatchRequests(url, null);
+    }
+
+    private static void assertBatchRequests(SVNURL url, ISVNAuthenticationManager authenticationManager) throws SVNException {
+        final SVNRepository reference = SVNRepositoryFactory.create(url);
+        final SVNRepository repository = SVNRepositoryFactory.create(url);
+        reference.setAuthenticationManager(authenticationManager);
+        repository.setAuthenticationManager(authenticationManager);
+        try {
+            assertInfo(reference, repository, 1);
+            assertInfo(reference, repository, -1);
+            assertGetFiles(reference, repository, 1, true);
+            assertGetFiles(reference, repository, -1, true);
+            assertGetFiles(reference, repository, 2, false);
+        } finally {
+            reference.closeSession();
+            repository.closeSession();
+        }
+    }
+
+    private static void assertInfo(SVNRepository reference, SVNRepository repository, long revision) throws SVNException {
+        final List<String> paths = new ArrayList<String>();
+        final List<SVNDirEntry> entries = new ArrayList<SVNDirEntry>();
+        repository.info(INFO_PATHS, revision, new ISVNPathEntryHandler() {
+            public void handlePathEntry(String path, SVNDirEntry entry) {
+                paths.add(path);
+                entries.add(entry);
+            }
+        });
+
+        Assert.assertEquals(INFO_PATHS, paths);
+        for (int i = 0; i < INFO_PATHS.size(); i++) {
+            final SVNDirEntry expected = reference.info(INFO_PATHS.get(i), revision);
+            final SVNDirEntry actual = entries.get(i);
+            if (expected == null) {
+                Assert.assertNull(actual);
+                continue;
+            }
+            Assert.assertNotNull(actual);
+            Assert.assertEquals(expected.getKind(), actual.getKind());
+            Assert.assertEquals(expected.getName(), actual.getName());
+            Assert.assertEquals(expected.getRevision(), actual.getRevision());
+            Assert.assertEquals(expected.getSize(), actual.getSize());
+            Assert.assertEquals(expected.getURL(), actual.getURL());
+        }
+        Assert.assertNull(entries.get(INFO_PATHS.indexOf("missing")));
+        Assert.assertEquals(SVNNodeKind.DIR, entries.get(INFO_PATHS.indexOf("directory")).getKind());
+    }
+
+    private static void assertGetFiles(SVNRepository reference, SVNRepository repository, long revision, boolean fetchProperties) throws SVNException {
+        final List<String> paths = new ArrayList<String>();
+        final List<Long> revisions = new ArrayList<Long>();
+        final List<SVNProperties> properties = new ArrayList<SVNProperties>();
+        final List<ByteArrayOutputStream> contents = new ArrayList<ByteArrayOutputStream>();
+        repository.getFiles(FILE_PATHS, revision, fetchProperties, new ISVNFileHandler() {
+            public OutputStream openFile(String path, long fileRevision, SVNProperties fileProperties) {
+                Assert.assertEquals(paths.size(), contents.size());
+                paths.add(path);
+                revisions.add(fileRevision);
+                properties.add(fileProperties);
+                // contents of the first file are not asked for.
+                final ByteArrayOutputStream fileContents = paths.size() > 1 ? new ByteArrayOutputStream() : null;
+                contents.add(fileContents);
+                return fileContents;
+            }
+
+            public void closeFile(String path) {
+                Assert.assertEquals(paths.get(paths.size() - 1), path);
+            }
+        });
+
+        Assert.assertEquals(FILE_PATHS, paths);
+        for (int i = 0; i < FILE_PATHS.size(); i++) {
+            final SVNProperties expectedProperties = new SVNProperties();
+            final ByteArrayOutputStream expectedContents = new ByteArrayOutputStream();
+            final long expectedRevision = reference.getFile(FILE_PATHS.get(i), revision, expectedProperties, expectedContents);
+
+            Assert.assertEquals(expectedRevision, revisions.get(i).longValue());
+            if (fetchProperties) {
+                Assert.assertEquals(expectedProperties.getRegularProperties(), properties.get(i).getRegularProperties());
+            } else {
+                Assert.assertNull(properties.get(i));
+            }
+            if (contents.get(i) != null) {
+                Assert.assertEquals(expectedContents.toString(), contents.get(i).toString());
+            }
+        }
+        if (fetchProperties) {
+            Assert.assertEquals("fileValue", SVNPropertyValue.getPropertyAsString(properties.get(0).getSVNPropertyValue("fileProperty")));
+        }
+    }
+
+    private String getTestName() {
+        return "BatchRequestsTest";
+    }
+
+    /**
+     * Passes single requests to another driver and leaves batch requests to the
+     * default implementations of {@link SVNRepository}.
+     */
+    private static class SingleRequestsRepository extends SVNRepository {
+
+        private final SVNRepository myDelegate;
+        private int myGetFileCount;
+
+        public SingleRequestsRepository(SVNRepository delegate) {
+            super(delegate.getLocation(), null);
+            myDelegate = delegate;
+        }
+
+        public int getGetFileCount() {
+            return myGetFileCount;
+        }
+
+        public void resetGetFileCount() {
+            myGetFileCount = 0;
+        }
+
+        public long getFile(String path, long revision, SVNProperties properties, OutputStream contents) throws SVNException {
+            myGetFileCount++;
+            return myDelegate.getFile(path, revision, properties, contents);
+        }
+
+        public SVNDirEntry info(String path, long revision) throws SVNException {
+            return myDelegate.info(path, revision);
+        }
+
+        public long getLatestRevision() throws SVNException {
+            return myDelegate.getLatestRevision();
+        }
+
+        public SVNNodeKind checkPath(String path, long revision) throws SVNException {
+            return myDelegate.checkPath(path, revision);
+        }
+
+        public void closeSession() {
+            myDelegate.closeSession();
+        }
+
+        public void testConnection() {
+            throw new UnsupportedOperationException();
+        }
+
+        public long getDatedRevision(Date date) {
+            throw new UnsupportedOperationException();
+        }
+
+        public SVNProperties getRevisionProperties(long revision, SVNProperties properties) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void setRevisionPropertyValue(long revision, String propertyName, SVNPropertyValue propertyValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        public SVNPropertyValue getRevisionPropertyValue(long revision, String propertyName) {
+            throw new UnsupportedOperationException();
+        }
+
+        public long getDir(String path, long revision, SVNProperties properties, ISVNDirEntryHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        public long getDir(String path, long revision, SVNProperties properties, int entryFields, ISVNDirEntryHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        public SVNDirEntry getDir(String path, long revision, boolean includeCommitMessages, Collection entries) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void diff(SVNURL url, long targetRevision, long revision, String target, boolean ignoreAncestry, SVNDepth depth, boolean getContents, ISVNReporterBaton reporter, ISVNEditor editor) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void update(SVNURL url, long revision, String target, SVNDepth depth, ISVNReporterBaton reporter, ISVNEditor editor) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void update(long revision, String target, SVNDepth depth, boolean sendCopyFromArgs, ISVNReporterBaton reporter, ISVNEditor editor) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void status(long revision, String target, SVNDepth depth, ISVNReporterBaton reporter, ISVNEditor editor) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void replay(long lowRevision, long revision, boolean sendDeltas, ISVNEditor editor) {
+            throw new UnsupportedOperationException();
+        }
+
+        public ISVNEditor getCommitEditor(String logMessage, Map locks, boolean keepLocks, ISVNWorkspaceMediator mediator) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected ISVNEditor getCommitEditorInternal(Map locks, boolean keepLocks, SVNProperties revProps, ISVNWorkspaceMediator mediator) {
+            throw new UnsupportedOperationException();
+        }
+
+        public SVNLock getLock(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        public SVNLock[] getLocks(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void lock(Map pathsToRevisions, String comment, boolean force, ISVNLockHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void unlock(Map pathToTokens, boolean force, ISVNLockHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean hasCapability(SVNCapability capability) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected void getInheritedPropertiesImpl(String path, long revision, String propertyName, ISVNInheritedPropertiesHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected long getDeletedRevisionImpl(String path, long pegRevision, long endRevision) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected long getLocationSegmentsImpl(String path, long pegRevision, long startRevision, long endRevision, ISVNLocationSegmentHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected int getLocationsImpl(String path, long pegRevision, long[] revisions, ISVNLocationEntryHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected long logImpl(String[] targetPaths, long startRevision, long endRevision, boolean changedPath, boolean strictNode, long limit,
+                               boolean includeMergedRevisions, String[] revisionProperties, ISVNLogEntryHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected int getFileRevisionsImpl(String path, long startRevision, long endRevision, boolean includeMergedRevisions, ISVNFileRevisionHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected Map getMergeInfoImpl(String[] paths, long revision, SVNMergeInfoInheritance inherit, boolean includeDescendants) {
+            throw new UnsupportedOperationException();
+        }
+
+        protected void replayRangeImpl(long startRevision, long endRevision, long lowRevision, boolean sendDeltas, ISVNReplayHandler handler) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
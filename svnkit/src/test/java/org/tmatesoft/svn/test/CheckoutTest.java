@@ -4,8 +4,10 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.tmatesoft.svn.core.SVNDepth;
 import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNProperty;
 import org.tmatesoft.svn.core.SVNPropertyValue;
 import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepository;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.internal.wc.admin.SVNAdminArea16Factory;
 import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb;
@@ -17,9 +19,14 @@ import org.tmatesoft.svn.core.wc.SVNEventAction;
 import org.tmatesoft.svn.core.wc.SVNStatusType;
 import org.tmatesoft.svn.core.wc2.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.OutputStream;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CheckoutTest {
     @Test
@@ -133,6 +140,122 @@ public class CheckoutTest {
         }
     }
 
+    @Test
+    public void testCheckoutFilesWithDeltasOnSingleThreadExecutor() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testCheckoutFilesWithDeltasOnSingleThreadExecutor", options);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            for (int i = 0; i < 16; i++) {
+                commitBuilder.addFile("directory" + (i % 3) + "/file" + i, ("contents" + i + "\n").getBytes());
+            }
+            commitBuilder.commit();
+
+            final Map<String, ByteArrayOutputStream> contents = new HashMap<String, ByteArrayOutputStream>();
+
+            final SVNRepository repository = SVNRepositoryFactory.create(url);
+            Assert.assertTrue(repository instanceof FSRepository);
+            ((FSRepository) repository).setDeltaExecutor(executor);
+            try {
+                repository.checkoutFiles(1, null, new ISVNFileCheckoutTarget() {
+                    public OutputStream getOutputStream(String path) throws SVNException {
+                        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                        contents.put(path, outputStream);
+                        return outputStream;
+                    }
+
+                    public void filePropertyChanged(String path, String name, SVNPropertyValue value) throws SVNException {
+                    }
+                });
+            } finally {
+                repository.closeSession();
+            }
+
+            Assert.assertEquals(16, contents.size());
+            for (int i = 0; i < 16; i++) {
+                Assert.assertEquals("contents" + i + "\n", contents.get("directory" + (i % 3) + "/file" + i).toString());
+            }
+        } finally {
+            executor.shutdownNow();
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testParallelWorkQueueInstallsSameFiles() throws Exception {
+        assertSameFilesInstalled("testParallelWorkQueueInstallsSameFiles", "svnkit.wc.update.pipeline", Boolean.FALSE.toString());
+    }
+
+    @Test
+    public void testPipelinedUpdateInstallsSameFiles() throws Exception {
+        assertSameFilesInstalled("testPipelinedUpdateInstallsSameFiles", "svnkit.wc.update.pipeline", Boolean.TRUE.toString());
+    }
+
+    private void assertSameFilesInstalled(String testName, String propertyName, String propertyValue) throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + "." + testName, options);
+        final String threadsProperty = System.getProperty("svnkit.wc.wq.threads");
+        final String otherProperty = System.getProperty(propertyName);
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+
+            final CommitBuilder commitBuilder1 = new CommitBuilder(url);
+            for (int i = 0; i < 16; i++) {
+                commitBuilder1.addFile("directory/file" + i, ("$Revision$\nline" + i + "\n").getBytes());
+                if (i % 2 == 0) {
+                    commitBuilder1.setFileProperty("directory/file" + i, SVNProperty.EOL_STYLE, SVNPropertyValue.create(SVNProperty.EOL_STYLE_CRLF));
+                    commitBuilder1.setFileProperty("directory/file" + i, SVNProperty.KEYWORDS, SVNPropertyValue.create("Revision"));
+                }
+            }
+            commitBuilder1.commit();
+
+            final CommitBuilder commitBuilder2 = new CommitBuilder(url);
+            for (int i = 0; i < 16; i += 3) {
+                commitBuilder2.changeFile("directory/file" + i, ("$Revision$\nchanged" + i + "\n").getBytes());
+            }
+            commitBuilder2.commit();
+
+            System.setProperty("svnkit.wc.wq.threads", "4");
+            System.setProperty(propertyName, propertyValue);
+            final WorkingCopy parallelWorkingCopy = sandbox.checkoutNewWorkingCopy(url, 1);
+            parallelWorkingCopy.updateToRevision(2);
+            restoreProperty("svnkit.wc.wq.threads", threadsProperty);
+            restoreProperty(propertyName, otherProperty);
+            final WorkingCopy serialWorkingCopy = sandbox.checkoutNewWorkingCopy(url, 2);
+
+            for (int i = 0; i < 16; i++) {
+                final String path = "directory/file" + i;
+                Assert.assertEquals(TestUtil.readFileContentsString(serialWorkingCopy.getFile(path)), 
+                        TestUtil.readFileContentsString(parallelWorkingCopy.getFile(path)));
+            }
+            final Map<File, SvnStatus> statuses = TestUtil.getStatuses(svnOperationFactory, parallelWorkingCopy.getWorkingCopyDirectory());
+            for (SvnStatus status : statuses.values()) {
+                Assert.assertEquals(SVNStatusType.STATUS_NORMAL, status.getNodeStatus());
+            }
+        } finally {
+            restoreProperty("svnkit.wc.wq.threads", threadsProperty);
+            restoreProperty(propertyName, otherProperty);
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
+    private static void restoreProperty(String name, String value) {
+        if (value == null) {
+            System.clearProperty(name);
+        } else {
+            System.setProperty(name, value);
+        }
+    }
+
     private String getTestName() {
         return getClass().getSimpleName();
     }
@@ -1,6 +1,8 @@
 package org.tmatesoft.svn.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.Collection;
 import java.util.Map;
 
 import org.junit.Assert;
@@ -12,9 +14,14 @@ import org.tmatesoft.svn.core.SVNErrorCode;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNLogEntry;
 import org.tmatesoft.svn.core.SVNLogEntryPath;
+import org.tmatesoft.svn.core.SVNNodeKind;
 import org.tmatesoft.svn.core.SVNProperty;
 import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.SVNRevisionProperty;
 import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSCommitQueue;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSWriteLock;
 import org.tmatesoft.svn.core.internal.wc.SVNExternal;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.internal.wc17.SVNWCContext;
@@ -575,6 +582,104 @@ public class CommitTest {
         }
     }
 
+    @Test
+    public void testGroupCommitOfConcurrentCommits() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testGroupCommitOfConcurrentCommits", options);
+        final boolean groupCommitEnabled = FSCommitQueue.isEnabled();
+        final int threadsCount = 8;
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            commitBuilder.addFile("file", "contents".getBytes());
+            commitBuilder.commit();
+
+            FSCommitQueue.setEnabled(true);
+            final FSFS fsfs = new FSFS(new File(url.getPath()));
+            fsfs.open();
+            final long[] revisions = new long[threadsCount];
+            final Throwable[] errors = new Throwable[threadsCount];
+            final Thread[] threads = new Thread[threadsCount];
+            try {
+                final FSCommitQueue queue = FSCommitQueue.getQueue(fsfs);
+                final long requestsCount = queue.getRequestsCount();
+                final long batchesCount = queue.getBatchesCount();
+
+                final FSWriteLock writeLock = FSWriteLock.getWriteLockForDB(fsfs);
+                synchronized (writeLock) {
+                    // all committers queue up while the write lock is busy.
+                    writeLock.lock();
+                    try {
+                        for (int i = 0; i < threadsCount; i++) {
+                            final int index = i;
+                            threads[i] = new Thread(new Runnable() {
+                                public void run() {
+                                    try {
+                                        final CommitBuilder threadCommitBuilder = new CommitBuilder(url);
+                                        threadCommitBuilder.setCommitMessage("commit " + index);
+                                        threadCommitBuilder.addFile("directory" + index + "/file", ("contents " + index).getBytes());
+                                        revisions[index] = threadCommitBuilder.commit().getNewRevision();
+                                    } catch (Throwable th) {
+                                        errors[index] = th;
+                                    }
+                                }
+                            });
+                            threads[i].start();
+                        }
+                        final long deadline = System.currentTimeMillis() + 30 * 1000;
+                        while (queue.getRequestsCount() - requestsCount < threadsCount && System.currentTimeMillis() < deadline) {
+                            Thread.sleep(10);
+                        }
+                        Assert.assertEquals(threadsCount, queue.getRequestsCount() - requestsCount);
+                    } finally {
+                        writeLock.unlock();
+                        FSWriteLock.release(writeLock);
+                    }
+                }
+                for (int i = 0; i < threadsCount; i++) {
+                    threads[i].join(30 * 1000);
+                    if (errors[i] != null) {
+                        throw new AssertionError(errors[i]);
+                    }
+                }
+                // the first leader's batch and one batch of everything that queued up behind it.
+                Assert.assertEquals(2, queue.getBatchesCount() - batchesCount);
+            } finally {
+                fsfs.close();
+            }
+
+            final SVNRepository svnRepository = SVNRepositoryFactory.create(url);
+            try {
+                Assert.assertEquals(1 + threadsCount, svnRepository.getLatestRevision());
+                final boolean[] committed = new boolean[threadsCount + 2];
+                for (int i = 0; i < threadsCount; i++) {
+                    final long revision = revisions[i];
+                    Assert.assertTrue(revision >= 2 && revision <= 1 + threadsCount);
+                    Assert.assertFalse(committed[(int) revision]);
+                    committed[(int) revision] = true;
+
+                    final String path = "directory" + i + "/file";
+                    Assert.assertEquals(SVNNodeKind.NONE, svnRepository.checkPath(path, revision - 1));
+                    final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+                    svnRepository.getFile(path, revision, null, contents);
+                    Assert.assertEquals("contents " + i, contents.toString());
+                    Assert.assertEquals("commit " + i, svnRepository.getRevisionPropertyValue(revision, SVNRevisionProperty.LOG).getString());
+
+                    final Collection logEntries = svnRepository.log(new String[] {""}, null, revision, revision, true, false);
+                    final SVNLogEntry logEntry = (SVNLogEntry) logEntries.iterator().next();
+                    Assert.assertEquals(2, logEntry.getChangedPaths().size());
+                    Assert.assertTrue(logEntry.getChangedPaths().containsKey("/" + path));
+                }
+            } finally {
+                svnRepository.closeSession();
+            }
+        } finally {
+            FSCommitQueue.setEnabled(groupCommitEnabled);
+            sandbox.dispose();
+        }
+    }
+
     private void setIncomplete(SvnOperationFactory svnOperationFactory, File path, long revision, File reposRelpath) throws SVNException {
         SVNWCContext context = new SVNWCContext(svnOperationFactory.getOptions(), svnOperationFactory.getEventHandler());
         try {
@@ -0,0 +1,202 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNCommitInfo;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNPropertyValue;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepository;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.dav.handlers.DAVEditorHandler;
+import org.tmatesoft.svn.core.internal.io.dav.http.IHTTPConnectionFactory;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+public class DAVEditorHandlerTest {
+
+    private static final int FILES_COUNT = 500;
+
+    @Test
+    public void testParallelFetchDrivesEditorBeforeReportIsRead() throws Exception {
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if ("OPTIONS".equals(request.getMethod())) {
+                    TestHttpServer.writeResponse(out, 200, "text/xml",
+                            "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<D:options-response xmlns:D=\"DAV:\"></D:options-response>\n".getBytes());
+                } else if ("GET".equals(request.getMethod())) {
+                    final String name = request.getPath().substring(request.getPath().lastIndexOf('/') + 1);
+                    TestHttpServer.writeResponse(out, 200, "text/plain", ("contents of " + name).getBytes());
+                } else {
+                    TestHttpServer.writeResponse(out, 405, "text/plain", new byte[0]);
+                }
+                return true;
+            }
+        });
+        final DAVRepository repository = (DAVRepository) DAVRepositoryFactory.create(server.getUrl("/repos"));
+        try {
+            final byte[] report = createReport();
+            final CountingInputStream reportStream = new CountingInputStream(report);
+            final RecordingEditor editor = new RecordingEditor(reportStream);
+
+            final DAVEditorHandler handler = new DAVEditorHandler(IHTTPConnectionFactory.DEFAULT, repository, editor,
+                    new HashMap(), true, false, null);
+            handler.setFetchConnectionsCount(2);
+            handler.setMaxRecordedReportSize(4 * 1024);
+            try {
+                final SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+                parserFactory.setNamespaceAware(true);
+                final SAXParser parser = parserFactory.newSAXParser();
+                parser.parse(reportStream, handler);
+            } finally {
+                handler.closeConnection();
+            }
+
+            Assert.assertTrue(editor.isClosed());
+            Assert.assertEquals(FILES_COUNT, editor.getFiles().size());
+            int index = 0;
+            for (Map.Entry<String, String> file : editor.getFiles().entrySet()) {
+                Assert.assertEquals("file" + index, file.getKey());
+                Assert.assertEquals("contents of file" + index, file.getValue());
+                index++;
+            }
+            // the editor is driven while the report is being read, not after all of it is recorded.
+            Assert.assertTrue(editor.getReportPositionAtFirstFile() < report.length / 2);
+        } finally {
+            repository.closeSession();
+            server.stop();
+        }
+    }
+
+    private static byte[] createReport() {
+        final StringBuilder report = new StringBuilder();
+        report.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        report.append("<S:update-report xmlns:S=\"svn:\" xmlns:V=\"http://subversion.tigris.org/xmlns/dav/\" xmlns:D=\"DAV:\" inline-props=\"true\">\n");
+        report.append("<S:target-revision rev=\"1\"/>\n");
+        report.append("<S:open-directory rev=\"0\">\n");
+        report.append("<D:checked-in><D:href>/repos/!svn/ver/1/</D:href></D:checked-in>\n");
+        for (int i = 0; i < FILES_COUNT; i++) {
+            report.append("<S:add-file name=\"file").append(i).append("\">\n");
+            report.append("<D:checked-in><D:href>/repos/!svn/ver/1/file").append(i).append("</D:href></D:checked-in>\n");
+            report.append("</S:add-file>\n");
+        }
+        report.append("</S:open-directory>\n");
+        report.append("</S:update-report>\n");
+        return report.toString().getBytes();
+    }
+
+    private static class CountingInputStream extends ByteArrayInputStream {
+
+        public CountingInputStream(byte[] buffer) {
+            super(buffer);
+        }
+
+        public synchronized int getPosition() {
+            return pos;
+        }
+    }
+
+    private static class RecordingEditor implements ISVNEditor {
+
+        private final CountingInputStream myReportStream;
+        private final Map<String, String> myFiles;
+        private final SVNDeltaProcessor myDeltaProcessor;
+        private ByteArrayOutputStream myContents;
+        private int myReportPositionAtFirstFile = -1;
+        private boolean myIsClosed;
+
+        public RecordingEditor(CountingInputStream reportStream) {
+            myReportStream = reportStream;
+            myFiles = new LinkedHashMap<String, String>();
+            myDeltaProcessor = new SVNDeltaProcessor();
+        }
+
+        public Map<String, String> getFiles() {
+            return myFiles;
+        }
+
+        public int getReportPositionAtFirstFile() {
+            return myReportPositionAtFirstFile;
+        }
+
+        public boolean isClosed() {
+            return myIsClosed;
+        }
+
+        public void targetRevision(long revision) {
+        }
+
+        public void openRoot(long revision) {
+        }
+
+        public void deleteEntry(String path, long revision) {
+        }
+
+        public void absentDir(String path) {
+        }
+
+        public void absentFile(String path) {
+        }
+
+        public void addDir(String path, String copyFromPath, long copyFromRevision) {
+        }
+
+        public void openDir(String path, long revision) {
+        }
+
+        public void changeDirProperty(String name, SVNPropertyValue value) {
+        }
+
+        public void closeDir() {
+        }
+
+        public void addFile(String path, String copyFromPath, long copyFromRevision) {
+            if (myReportPositionAtFirstFile < 0) {
+                myReportPositionAtFirstFile = myReportStream.getPosition();
+            }
+        }
+
+        public void openFile(String path, long revision) {
+        }
+
+        public void changeFileProperty(String path, String propertyName, SVNPropertyValue propertyValue) {
+        }
+
+        public void closeFile(String path, String textChecksum) {
+            myFiles.put(path, myContents != null ? myContents.toString() : null);
+            myContents = null;
+        }
+
+        public SVNCommitInfo closeEdit() {
+            myIsClosed = true;
+            return null;
+        }
+
+        public void abortEdit() {
+        }
+
+        public void applyTextDelta(String path, String baseChecksum) {
+            myContents = new ByteArrayOutputStream();
+            myDeltaProcessor.applyTextDelta(new ByteArrayInputStream(new byte[0]), myContents, false);
+        }
+
+        public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+            return myDeltaProcessor.textDeltaChunk(diffWindow);
+        }
+
+        public void textDeltaEnd(String path) {
+            myDeltaProcessor.textDeltaEnd();
+        }
+    }
+}
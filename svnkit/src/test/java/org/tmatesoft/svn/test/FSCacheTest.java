@@ -0,0 +1,111 @@
+package org.tmatesoft.svn.test;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSCache;
+import org.tmatesoft.svn.core.internal.io.fs.FSEntry;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSRevisionNode;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class FSCacheTest {
+
+    @Test
+    public void testHitsAndMisses() throws Exception {
+        final FSCache cache = new FSCache(1024);
+        final Object value = new Object();
+
+        Assert.assertNull(cache.get("uuid", FSCache.NODE_REVISION, 1, 10, null));
+        cache.put("uuid", FSCache.NODE_REVISION, 1, 10, null, value, 100);
+
+        Assert.assertSame(value, cache.get("uuid", FSCache.NODE_REVISION, 1, 10, null));
+        Assert.assertNull(cache.get("uuid", FSCache.PROPERTIES, 1, 10, null));
+        Assert.assertNull(cache.get("other", FSCache.NODE_REVISION, 1, 10, null));
+
+        Assert.assertEquals(1, cache.getHitsCount());
+        Assert.assertEquals(3, cache.getMissesCount());
+        Assert.assertEquals(100, cache.getSize());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() throws Exception {
+        final FSCache cache = new FSCache(1000);
+        for (int i = 0; i < 4; i++) {
+            cache.put("uuid", FSCache.PATH_NODE, 1, 0, "/path" + i, new Object(), 250);
+        }
+        Assert.assertNotNull(cache.get("uuid", FSCache.PATH_NODE, 1, 0, "/path0"));
+
+        cache.put("uuid", FSCache.PATH_NODE, 1, 0, "/path4", new Object(), 250);
+
+        Assert.assertNotNull(cache.get("uuid", FSCache.PATH_NODE, 1, 0, "/path0"));
+        Assert.assertNull(cache.get("uuid", FSCache.PATH_NODE, 1, 0, "/path1"));
+        Assert.assertEquals(1, cache.getEvictionsCount());
+        Assert.assertEquals(1000, cache.getSize());
+    }
+
+    @Test
+    public void testZeroCapacityDisablesCache() throws Exception {
+        final FSCache cache = new FSCache(0);
+        cache.put("uuid", FSCache.DIR_ENTRIES, 1, 10, null, new Object(), 10);
+
+        Assert.assertNull(cache.get("uuid", FSCache.DIR_ENTRIES, 1, 10, null));
+        Assert.assertEquals(0, cache.getEntriesCount());
+        Assert.assertFalse(cache.accepts(1));
+    }
+
+    @Test
+    public void testValuesLargerThanQuarterOfCapacityAreNotAccepted() throws Exception {
+        final FSCache cache = new FSCache(100);
+        Assert.assertTrue(cache.accepts(25));
+        Assert.assertFalse(cache.accepts(26));
+
+        cache.put("uuid", FSCache.FULLTEXT, 1, 10, null, new byte[26], 26);
+        Assert.assertNull(cache.get("uuid", FSCache.FULLTEXT, 1, 10, null));
+        cache.put("uuid", FSCache.FULLTEXT, 1, 11, null, new byte[25], 25);
+        Assert.assertNotNull(cache.get("uuid", FSCache.FULLTEXT, 1, 11, null));
+    }
+
+    @Test
+    public void testCachedDirEntriesAreNotSharedWithCallers() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getClass().getSimpleName() + ".testCachedDirEntriesAreNotSharedWithCallers", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            final SVNURL url = SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            commitBuilder.addFile("directory/file");
+            commitBuilder.addDirectory("directory/subdirectory");
+            commitBuilder.commit();
+
+            final FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            try {
+                final FSRevisionNode node = fsfs.createRevisionRoot(1).getRevisionNode("/directory");
+                final Map first = fsfs.getDirContents(node);
+                final FSEntry fileEntry = (FSEntry) first.get("file");
+                fileEntry.setName("changed");
+                fileEntry.setType(SVNNodeKind.DIR);
+                first.remove("subdirectory");
+
+                for (int i = 0; i < 2; i++) {
+                    final Map entries = fsfs.getDirContents(node);
+                    Assert.assertEquals(2, entries.size());
+                    Assert.assertEquals("file", ((FSEntry) entries.get("file")).getName());
+                    Assert.assertEquals(SVNNodeKind.FILE, ((FSEntry) entries.get("file")).getType());
+                    Assert.assertNotSame(entries.get("file"), fsfs.getDirContents(node).get("file"));
+                }
+            } finally {
+                fsfs.close();
+            }
+        } finally {
+            sandbox.dispose();
+        }
+    }
+}
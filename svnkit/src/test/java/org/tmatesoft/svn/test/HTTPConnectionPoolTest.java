@@ -0,0 +1,151 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.dav.http.HTTPConnectionPool;
+import org.tmatesoft.svn.core.internal.io.dav.http.IHTTPConnection;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class HTTPConnectionPoolTest {
+
+    @Test
+    public void testSocketIsReusedAfterCompleteResponses() throws Exception {
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                final byte[] body = ("contents of " + request.getPath()).getBytes();
+                if (request.getPath().endsWith("chunked")) {
+                    TestHttpServer.writeChunkedResponse(out, 200, "text/plain", body, 5);
+                } else {
+                    TestHttpServer.writeResponse(out, 200, "text/plain", body);
+                }
+                return true;
+            }
+        });
+        final HTTPConnectionPool pool = new HTTPConnectionPool(null, false, null, 4, 60 * 1000, 1000);
+        try {
+            Assert.assertEquals("contents of /repos/file", get(pool, server, "/repos/file"));
+            Assert.assertEquals("contents of /repos/chunked", get(pool, server, "/repos/chunked"));
+            Assert.assertEquals("contents of /repos/other", get(pool, server, "/repos/other"));
+
+            Assert.assertEquals(1, server.getConnectionsCount());
+            Assert.assertEquals(3, pool.getLeasesCount());
+            Assert.assertEquals(2, pool.getReusedCount());
+            Assert.assertEquals(1, pool.getIdleCount());
+            Assert.assertEquals(0, pool.getLeasedCount());
+        } finally {
+            pool.dispose();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testSocketIsReusedAfterReadErrorResponse() throws Exception {
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if (request.getPath().endsWith("missing")) {
+                    TestHttpServer.writeResponse(out, 404, "text/html", "<html><body>Not Found</body></html>".getBytes());
+                } else {
+                    TestHttpServer.writeResponse(out, 200, "text/plain", ("contents of " + request.getPath()).getBytes());
+                }
+                return true;
+            }
+        });
+        final HTTPConnectionPool pool = new HTTPConnectionPool(null, false, null, 4, 60 * 1000, 1000);
+        try {
+            try {
+                get(pool, server, "/repos/missing");
+                Assert.fail("An exception should be thrown");
+            } catch (SVNException e) {
+                //expected
+            }
+            Assert.assertEquals("contents of /repos/file", get(pool, server, "/repos/file"));
+
+            Assert.assertEquals(1, server.getConnectionsCount());
+            Assert.assertEquals(1, pool.getReusedCount());
+        } finally {
+            pool.dispose();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testSocketWithUnreadResponseBodyIsNotReused() throws Exception {
+        final CountDownLatch clientClosed = new CountDownLatch(1);
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if ("PROPFIND".equals(request.getMethod())) {
+                    final byte[] head = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<D:multistatus xmlns:D=\"DAV:\">".getBytes();
+                    final byte[] tail = "<D:response/></D:multistatus>\n".getBytes();
+                    out.write(("HTTP/1.1 207 Multi-Status\r\nContent-Type: text/xml\r\nContent-Length: " + (head.length + tail.length) + "\r\n\r\n").getBytes());
+                    out.write(head);
+                    out.flush();
+                    try {
+                        // the rest of the body arrives after the client gave up on the response.
+                        clientClosed.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                    out.write(tail);
+                    out.flush();
+                } else {
+                    TestHttpServer.writeResponse(out, 200, "text/plain", ("contents of " + request.getPath()).getBytes());
+                }
+                return true;
+            }
+        });
+        final HTTPConnectionPool pool = new HTTPConnectionPool(null, false, null, 4, 60 * 1000, 1000);
+        try {
+            final SVNRepository repository = DAVRepositoryFactory.create(server.getUrl("/repos"));
+            final IHTTPConnection connection = pool.createHTTPConnection(repository);
+            try {
+                connection.request("PROPFIND", "/repos", null, (StringBuffer) null, 207, 0, null, new DefaultHandler() {
+                    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                        throw new SAXException(new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Handler failed")));
+                    }
+                });
+                Assert.fail("An exception should be thrown");
+            } catch (SVNException e) {
+                //expected
+            } finally {
+                connection.close();
+                repository.closeSession();
+            }
+            Assert.assertEquals(0, pool.getIdleCount());
+            clientClosed.countDown();
+
+            Assert.assertEquals("contents of /repos/file", get(pool, server, "/repos/file"));
+            Assert.assertEquals(2, server.getConnectionsCount());
+            Assert.assertEquals(0, pool.getReusedCount());
+        } finally {
+            clientClosed.countDown();
+            pool.dispose();
+            server.stop();
+        }
+    }
+
+    private static String get(HTTPConnectionPool pool, TestHttpServer server, String path) throws SVNException {
+        final SVNRepository repository = DAVRepositoryFactory.create(server.getUrl("/repos"));
+        final IHTTPConnection connection = pool.createHTTPConnection(repository);
+        try {
+            final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            connection.request("GET", path, null, (StringBuffer) null, 200, 0, contents, null);
+            return contents.toString();
+        } finally {
+            connection.close();
+            repository.closeSession();
+        }
+    }
+}
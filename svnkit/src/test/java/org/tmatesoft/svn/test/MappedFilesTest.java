@@ -0,0 +1,174 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSCache;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSFile;
+import org.tmatesoft.svn.core.internal.io.fs.FSMappedFiles;
+import org.tmatesoft.svn.core.internal.io.fs.FSPacker;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class MappedFilesTest {
+
+    @Test
+    public void testRevisionAndPackFilesAreReadFromMappings() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final boolean wasEnabled = FSMappedFiles.isEnabled();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testRevisionAndPackFilesAreReadFromMappings", options);
+        try {
+            FSMappedFiles.setEnabled(true);
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            final SVNURL url = SVNRepositoryFactory.createLocalRepository(repositoryRoot, null, true,
+                    false, false, false, false, false, true);
+            setMaxFilesPerDirectory(repositoryRoot, 4);
+            for (int i = 1; i <= 10; i++) {
+                commitFileContents(url, i);
+            }
+
+            final File revsDirectory = new File(repositoryRoot, "db/revs");
+            final SVNRepository svnRepository = SVNRepositoryFactory.create(url);
+            try {
+                assertFileContents(svnRepository, 10);
+                Assert.assertTrue(FSMappedFiles.isMapped(new File(revsDirectory, "0/1")));
+                Assert.assertTrue(FSMappedFiles.isMapped(new File(revsDirectory, "2/9")));
+
+                pack(repositoryRoot);
+                // the shard files are replaced by the pack file, their mappings are released.
+                Assert.assertFalse(new File(revsDirectory, "0").exists());
+                Assert.assertFalse(FSMappedFiles.isMapped(new File(revsDirectory, "0/1")));
+                Assert.assertFalse(FSMappedFiles.isMapped(new File(revsDirectory, "1/5")));
+                Assert.assertTrue(FSMappedFiles.isMapped(new File(revsDirectory, "2/9")));
+
+                assertFileContents(svnRepository, 10);
+                assertFileContents(url, 10);
+                Assert.assertTrue(FSMappedFiles.isMapped(new File(revsDirectory, "0.pack/pack")));
+                Assert.assertTrue(FSMappedFiles.isMapped(new File(revsDirectory, "1.pack/pack")));
+
+                commitFileContents(url, 11);
+                commitFileContents(url, 12);
+                pack(repositoryRoot);
+                Assert.assertFalse(FSMappedFiles.isMapped(new File(revsDirectory, "2/9")));
+                assertFileContents(svnRepository, 12);
+                assertFileContents(url, 12);
+                Assert.assertTrue(FSMappedFiles.isMapped(new File(revsDirectory, "2.pack/pack")));
+            } finally {
+                svnRepository.closeSession();
+            }
+        } finally {
+            FSMappedFiles.setEnabled(wasEnabled);
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testChangedFileIsMappedAgain() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final boolean wasEnabled = FSMappedFiles.isEnabled();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testChangedFileIsMappedAgain", options);
+        try {
+            FSMappedFiles.setEnabled(true);
+            final File file = new File(sandbox.createDirectory("directory"), "pack");
+            TestUtil.writeFileContentsString(file, "first contents");
+            Assert.assertEquals("first contents", readMapped(file));
+            Assert.assertTrue(FSMappedFiles.isMapped(file));
+
+            TestUtil.writeFileContentsString(file, "longer second contents");
+            Assert.assertEquals("longer second contents", readMapped(file));
+
+            final long lastModified = file.lastModified();
+            TestUtil.writeFileContentsString(file, "longer third  contents");
+            file.setLastModified(lastModified + 2000);
+            Assert.assertEquals("longer third  contents", readMapped(file));
+
+            FSMappedFiles.release(file.getParentFile());
+            Assert.assertFalse(FSMappedFiles.isMapped(file));
+        } finally {
+            FSMappedFiles.setEnabled(wasEnabled);
+            sandbox.dispose();
+        }
+    }
+
+    private static String readMapped(File file) throws Exception {
+        final FSFile fsFile = FSFile.openReadOnly(file);
+        try {
+            Assert.assertTrue(fsFile.isMapped());
+            final byte[] buffer = new byte[(int) fsFile.size()];
+            int offset = 0;
+            while (offset < buffer.length) {
+                offset += fsFile.read(buffer, offset, buffer.length - offset);
+            }
+            Assert.assertEquals(-1, fsFile.read());
+            return new String(buffer, "UTF-8");
+        } finally {
+            fsFile.close();
+        }
+    }
+
+    private static void assertFileContents(SVNURL url, long youngestRevision) throws SVNException {
+        // nodes and contents are otherwise served from the process wide cache, not from the files.
+        FSCache.getInstance().clear();
+        final SVNRepository svnRepository = SVNRepositoryFactory.create(url);
+        try {
+            assertFileContents(svnRepository, youngestRevision);
+        } finally {
+            svnRepository.closeSession();
+        }
+    }
+
+    private static void assertFileContents(SVNRepository svnRepository, long youngestRevision) throws SVNException {
+        Assert.assertEquals(youngestRevision, svnRepository.getLatestRevision());
+        for (long revision = 1; revision <= youngestRevision; revision++) {
+            final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            svnRepository.getFile("file", revision, null, contents);
+            Assert.assertEquals(createContents(revision), contents.toString());
+        }
+    }
+
+    private static void commitFileContents(SVNURL url, long revision) throws SVNException {
+        final CommitBuilder commitBuilder = new CommitBuilder(url);
+        if (revision == 1) {
+            commitBuilder.addFile("file", createContents(revision).getBytes());
+        } else {
+            commitBuilder.changeFile("file", createContents(revision).getBytes());
+        }
+        commitBuilder.commit();
+    }
+
+    private static String createContents(long revision) {
+        final StringBuilder contents = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            contents.append("line ").append(i).append(i % 10 == 0 ? " of revision " + revision : "").append('\n');
+        }
+        return contents.toString();
+    }
+
+    private static void pack(File repositoryRoot) throws SVNException {
+        final FSFS fsfs = new FSFS(repositoryRoot);
+        fsfs.open();
+        try {
+            new FSPacker(null).pack(fsfs);
+        } finally {
+            fsfs.close();
+        }
+    }
+
+    private static void setMaxFilesPerDirectory(File repositoryRoot, int maxFilesPerDirectory) throws SVNException {
+        final FSFS fsfs = new FSFS(repositoryRoot);
+        fsfs.open();
+        fsfs.writeDBFormat(fsfs.getDBFormat(), maxFilesPerDirectory, true);
+        fsfs.close();
+    }
+
+    private String getTestName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -9,14 +9,19 @@ import org.tmatesoft.svn.core.SVNPropertyValue;
 import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.internal.io.fs.FSFS;
 import org.tmatesoft.svn.core.internal.io.fs.FSFile;
+import org.tmatesoft.svn.core.internal.io.fs.FSHotCopier;
 import org.tmatesoft.svn.core.internal.io.fs.FSPacker;
 import org.tmatesoft.svn.core.internal.wc.SVNConfigFile;
 import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.io.SVNRepository;
 import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
 import org.tmatesoft.svn.core.wc.SVNClientManager;
+import org.tmatesoft.svn.core.wc.SVNEvent;
 import org.tmatesoft.svn.core.wc.SVNRevision;
+import org.tmatesoft.svn.core.wc.admin.ISVNAdminEventHandler;
 import org.tmatesoft.svn.core.wc.admin.ISVNChangeEntryHandler;
+import org.tmatesoft.svn.core.wc.admin.SVNAdminEvent;
+import org.tmatesoft.svn.core.wc.admin.SVNAdminEventAction;
 import org.tmatesoft.svn.core.wc.admin.SVNChangeEntry;
 import org.tmatesoft.svn.core.wc.admin.SVNLookClient;
 import org.tmatesoft.svn.core.wc2.SvnGetProperties;
@@ -24,6 +29,8 @@ import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PackedRevPropsTest {
 
@@ -109,6 +116,65 @@ public class PackedRevPropsTest {
         }
     }
 
+    @Test
+    public void testConcurrentPackNotifiesShardsInOrder() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testConcurrentPackNotifiesShardsInOrder", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            SVNURL url = SVNRepositoryFactory.createLocalRepository(repositoryRoot, null, true,
+                    false, false, false, false, false, true);
+
+            updateMaxFilesPerDirectory(repositoryRoot);
+
+            for (int i = 0; i < 40; i++) {
+                createCommitThatAddsFile(url, "file" + i);
+            }
+
+            final List<String> events = new ArrayList<String>();
+            final FSPacker packer = new FSPacker(new ISVNAdminEventHandler() {
+                public void handleAdminEvent(SVNAdminEvent event, double progress) {
+                    events.add(event.getAction() + ":" + event.getShard());
+                }
+
+                public void handleEvent(SVNEvent event, double progress) {
+                }
+
+                public void checkCancelled() {
+                }
+            });
+            Assert.assertEquals(new FSHotCopier().getThreadsCount(), packer.getThreadsCount());
+            packer.setThreadsCount(3);
+
+            final FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            try {
+                packer.pack(fsfs);
+            } finally {
+                fsfs.close();
+            }
+
+            final List<String> expectedEvents = new ArrayList<String>();
+            for (int shard = 0; shard < 4; shard++) {
+                expectedEvents.add(SVNAdminEventAction.PACK_START + ":" + shard);
+                expectedEvents.add(SVNAdminEventAction.PACK_END + ":" + shard);
+            }
+            Assert.assertEquals(expectedEvents, events);
+
+            final SVNRepository svnRepository = SVNRepositoryFactory.create(url);
+            try {
+                for (int i = 0; i < 40; i++) {
+                    Assert.assertNotNull(svnRepository.info("file" + i, i + 1));
+                }
+            } finally {
+                svnRepository.closeSession();
+            }
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
     @Test
     public void testDeltaSelfRepresentationHeader() throws Exception {
         //SVNKIT-504
@@ -0,0 +1,259 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNErrorMessage;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.dav.DAVConnection;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepository;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepositoryFactory;
+import org.tmatesoft.svn.core.internal.io.dav.http.IHTTPConnectionFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class PipelinedReportTest {
+
+    private static final String OPTIONS_RESPONSE = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<D:options-response xmlns:D=\"DAV:\"></D:options-response>\n";
+
+    private boolean myIsPipelineReports;
+
+    @Before
+    public void setUp() {
+        myIsPipelineReports = DAVRepository.isPipelineReports();
+        DAVRepository.setPipelineReports(true);
+    }
+
+    @After
+    public void tearDown() {
+        DAVRepository.setPipelineReports(myIsPipelineReports);
+    }
+
+    @Test
+    public void testLargeReportIsPassedToHandlerInOrder() throws Exception {
+        final int entriesCount = 50000;
+        final byte[] report = createReport(entriesCount);
+        final CountDownLatch reportSent = new CountDownLatch(1);
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if ("REPORT".equals(request.getMethod())) {
+                    TestHttpServer.writeChunkedResponse(out, 200, "text/xml", report, 8 * 1024);
+                    reportSent.countDown();
+                } else {
+                    writeDefaultResponse(request, out);
+                }
+                return true;
+            }
+        });
+        final DAVRepository repository = (DAVRepository) DAVRepositoryFactory.create(server.getUrl("/repos"));
+        final DAVConnection connection = new DAVConnection(IHTTPConnectionFactory.DEFAULT, repository);
+        try {
+            connection.open(repository);
+            final List<String> entries = new ArrayList<String>();
+            connection.doReport("/repos", new StringBuffer("<S:update-report xmlns:S=\"svn:\"/>"), new DefaultHandler() {
+                private StringBuilder myText;
+
+                public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                    if (entries.isEmpty() && myText == null) {
+                        // the whole response is read while the handler is busy, so that parsed
+                        // events exceed the memory limit and go to the spill buffer. Without
+                        // the reader thread the server could not send it and this would fail.
+                        try {
+                            Assert.assertTrue(reportSent.await(30, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new SAXException(e);
+                        }
+                    }
+                    if ("entry".equals(localName)) {
+                        Assert.assertEquals("svn:", uri);
+                        entries.add(attributes.getValue("name"));
+                        myText = new StringBuilder();
+                    } else {
+                        myText = new StringBuilder();
+                    }
+                }
+
+                public void characters(char[] ch, int start, int length) {
+                    myText.append(ch, start, length);
+                }
+
+                public void endElement(String uri, String localName, String qName) {
+                    if ("entry".equals(localName)) {
+                        Assert.assertEquals(getEntryText(entries.size() - 1), myText.toString());
+                    }
+                }
+            });
+
+            Assert.assertEquals(entriesCount, entries.size());
+            for (int i = 0; i < entriesCount; i++) {
+                Assert.assertEquals("entry" + i, entries.get(i));
+            }
+            Assert.assertEquals("contents of /repos/file", get(connection, "/repos/file"));
+            Assert.assertEquals(1, server.getConnectionsCount());
+        } finally {
+            connection.close();
+            repository.closeSession();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testHandlerErrorIsReported() throws Exception {
+        final byte[] report = createReport(10000);
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if ("REPORT".equals(request.getMethod())) {
+                    TestHttpServer.writeChunkedResponse(out, 200, "text/xml", report, 8 * 1024);
+                } else {
+                    writeDefaultResponse(request, out);
+                }
+                return true;
+            }
+        });
+        final DAVRepository repository = (DAVRepository) DAVRepositoryFactory.create(server.getUrl("/repos"));
+        final DAVConnection connection = new DAVConnection(IHTTPConnectionFactory.DEFAULT, repository);
+        try {
+            connection.open(repository);
+            try {
+                connection.doReport("/repos", new StringBuffer("<S:update-report xmlns:S=\"svn:\"/>"), new DefaultHandler() {
+                    private int myEntriesCount;
+
+                    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+                        if ("entry".equals(localName) && ++myEntriesCount == 100) {
+                            throw new SAXException(new SVNException(SVNErrorMessage.create(SVNErrorCode.CANCELLED, "Handler failed")));
+                        }
+                    }
+                });
+                Assert.fail("An exception should be thrown");
+            } catch (SVNException e) {
+                Assert.assertEquals(SVNErrorCode.CANCELLED, e.getErrorMessage().getRootErrorMessage().getErrorCode());
+            }
+            Assert.assertEquals("contents of /repos/file", get(connection, "/repos/file"));
+        } finally {
+            connection.close();
+            repository.closeSession();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testMalformedResponseErrorIsReported() throws Exception {
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if ("REPORT".equals(request.getMethod())) {
+                    final String report = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n<S:update-report xmlns:S=\"svn:\"><S:entry name=\"entry0\">text</S:broken></S:update-report>\n";
+                    TestHttpServer.writeResponse(out, 200, "text/xml", report.getBytes());
+                } else {
+                    writeDefaultResponse(request, out);
+                }
+                return true;
+            }
+        });
+        final DAVRepository repository = (DAVRepository) DAVRepositoryFactory.create(server.getUrl("/repos"));
+        final DAVConnection connection = new DAVConnection(IHTTPConnectionFactory.DEFAULT, repository);
+        try {
+            connection.open(repository);
+            final List<String> entries = new ArrayList<String>();
+            try {
+                connection.doReport("/repos", new StringBuffer("<S:update-report xmlns:S=\"svn:\"/>"), new DefaultHandler() {
+                    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                        entries.add(localName);
+                    }
+                });
+                Assert.fail("An exception should be thrown");
+            } catch (SVNException e) {
+                Assert.assertEquals(SVNErrorCode.RA_DAV_REQUEST_FAILED, e.getErrorMessage().getRootErrorMessage().getErrorCode());
+                Assert.assertTrue(e.getMessage().contains("REPORT request response failed"));
+            }
+            // events parsed before the error still reach the handler.
+            Assert.assertEquals(2, entries.size());
+        } finally {
+            connection.close();
+            repository.closeSession();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testTruncatedResponseErrorIsReported() throws Exception {
+        final byte[] report = createReport(10000);
+        final TestHttpServer server = TestHttpServer.start(new TestHttpServer.Responder() {
+            public boolean respond(TestHttpServer.Request request, OutputStream out) throws IOException {
+                if ("REPORT".equals(request.getMethod())) {
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/xml\r\nContent-Length: " + report.length + "\r\n\r\n").getBytes("US-ASCII"));
+                    out.write(report, 0, report.length / 2);
+                    out.flush();
+                    return false;
+                }
+                writeDefaultResponse(request, out);
+                return true;
+            }
+        });
+        final DAVRepository repository = (DAVRepository) DAVRepositoryFactory.create(server.getUrl("/repos"));
+        final DAVConnection connection = new DAVConnection(IHTTPConnectionFactory.DEFAULT, repository);
+        try {
+            connection.open(repository);
+            final List<String> entries = new ArrayList<String>();
+            try {
+                connection.doReport("/repos", new StringBuffer("<S:update-report xmlns:S=\"svn:\"/>"), new DefaultHandler() {
+                    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                        entries.add(localName);
+                    }
+                });
+                Assert.fail("An exception should be thrown");
+            } catch (SVNException e) {
+                //expected
+            }
+            Assert.assertTrue(entries.size() > 1);
+            Assert.assertTrue(entries.size() < 10000);
+        } finally {
+            connection.close();
+            repository.closeSession();
+            server.stop();
+        }
+    }
+
+    private static void writeDefaultResponse(TestHttpServer.Request request, OutputStream out) throws IOException {
+        if ("OPTIONS".equals(request.getMethod())) {
+            TestHttpServer.writeResponse(out, 200, "text/xml", OPTIONS_RESPONSE.getBytes());
+        } else {
+            TestHttpServer.writeResponse(out, 200, "text/plain", ("contents of " + request.getPath()).getBytes());
+        }
+    }
+
+    private static String get(DAVConnection connection, String path) throws SVNException {
+        final ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        connection.doGet(path, contents);
+        return contents.toString();
+    }
+
+    private static byte[] createReport(int entriesCount) {
+        final StringBuilder report = new StringBuilder();
+        report.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+        report.append("<S:update-report xmlns:S=\"svn:\">\n");
+        for (int i = 0; i < entriesCount; i++) {
+            report.append("<S:entry name=\"entry").append(i).append("\">").append(getEntryText(i)).append("</S:entry>\n");
+        }
+        report.append("</S:update-report>\n");
+        return report.toString().getBytes();
+    }
+
+    private static String getEntryText(int index) {
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < 64) {
+            text.append("text of entry ").append(index).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,138 @@
+package org.tmatesoft.svn.test;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.sqljet.core.SqlJetException;
+import org.tmatesoft.sqljet.core.table.ISqlJetTransaction;
+import org.tmatesoft.sqljet.core.table.SqlJetDb;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepresentation;
+import org.tmatesoft.svn.core.internal.io.fs.IFSRepresentationCacheManager;
+import org.tmatesoft.svn.core.internal.io.fs.IFSSqlJetTransaction;
+import org.tmatesoft.svn.core.internal.io.fs.repcache.FSRepresentationCacheManager;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class RepresentationCacheTest {
+
+    private static final String HASH = "0123456789abcdef0123456789abcdef01234567";
+    private static final String OTHER_HASH = "76543210fedcba9876543210fedcba9876543210";
+
+    @Test
+    public void testRowInsertedByOtherProcessIsFound() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testRowInsertedByOtherProcessIsFound", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+
+            final FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            try {
+                final IFSRepresentationCacheManager manager = fsfs.getRepositoryCacheManager();
+                Assert.assertNotNull(manager);
+                // the miss builds the in-memory filter of the hashes in the table.
+                Assert.assertNull(lookup(manager, HASH));
+
+                insertExternally(fsfs, HASH, 1, 5);
+
+                final FSRepresentation representation = lookup(manager, HASH);
+                Assert.assertNotNull(representation);
+                Assert.assertEquals(1, representation.getRevision());
+                Assert.assertEquals(5, representation.getItemIndex());
+                Assert.assertNull(lookup(manager, OTHER_HASH));
+            } finally {
+                fsfs.close();
+            }
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testInsertOfRowInsertedByOtherProcess() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testInsertOfRowInsertedByOtherProcess", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+
+            final FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            try {
+                final IFSRepresentationCacheManager manager = fsfs.getRepositoryCacheManager();
+                Assert.assertNull(lookup(manager, HASH));
+                insert(manager, OTHER_HASH, 1, 3);
+
+                insertExternally(fsfs, HASH, 1, 5);
+
+                // the same row is already there, the other rows of the transaction are kept.
+                manager.runWriteTransaction(new IFSSqlJetTransaction() {
+                    public void run() throws SVNException {
+                        manager.insert(createRepresentation(HASH, 1, 5), false);
+                        manager.insert(createRepresentation(HASH, 2, 7), false);
+                        manager.insert(createRepresentation("89abcdef0123456789abcdef0123456789abcdef", 2, 9), false);
+                    }
+                });
+
+                Assert.assertEquals(5, lookup(manager, HASH).getItemIndex());
+                Assert.assertEquals(3, lookup(manager, OTHER_HASH).getItemIndex());
+                Assert.assertEquals(9, lookup(manager, "89abcdef0123456789abcdef0123456789abcdef").getItemIndex());
+            } finally {
+                fsfs.close();
+            }
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    private static FSRepresentation lookup(final IFSRepresentationCacheManager manager, final String hash) throws SVNException {
+        final FSRepresentation[] result = new FSRepresentation[1];
+        manager.runReadTransaction(new IFSSqlJetTransaction() {
+            public void run() throws SVNException {
+                result[0] = manager.getRepresentationByHash(hash);
+            }
+        });
+        return result[0];
+    }
+
+    private static void insert(final IFSRepresentationCacheManager manager, final String hash, final long revision, final long itemIndex) throws SVNException {
+        manager.runWriteTransaction(new IFSSqlJetTransaction() {
+            public void run() throws SVNException {
+                manager.insert(createRepresentation(hash, revision, itemIndex), true);
+            }
+        });
+    }
+
+    private static FSRepresentation createRepresentation(String hash, long revision, long itemIndex) {
+        final FSRepresentation representation = new FSRepresentation();
+        representation.setSHA1HexDigest(hash);
+        representation.setRevision(revision);
+        representation.setItemIndex(itemIndex);
+        representation.setSize(10);
+        representation.setExpandedSize(10);
+        return representation;
+    }
+
+    private static void insertExternally(FSFS fsfs, final String hash, final long revision, final long itemIndex) throws SqlJetException {
+        final SqlJetDb db = SqlJetDb.open(new File(fsfs.getDBRoot(), FSFS.REP_CACHE_DB), true);
+        try {
+            db.runWriteTransaction(new ISqlJetTransaction() {
+                public Object run(SqlJetDb db) throws SqlJetException {
+                    db.getTable(FSRepresentationCacheManager.REP_CACHE_TABLE).insert(hash, revision, itemIndex, 10, 10);
+                    return null;
+                }
+            });
+        } finally {
+            db.close();
+        }
+    }
+
+    private String getTestName() {
+        return "RepresentationCacheTest";
+    }
+}
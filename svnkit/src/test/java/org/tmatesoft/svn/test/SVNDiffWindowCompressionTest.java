@@ -0,0 +1,92 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaReader;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNDeltaConsumer;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaGenerator;
+import org.tmatesoft.svn.core.io.diff.SVNDeltaProcessor;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+public class SVNDiffWindowCompressionTest {
+
+    @Test
+    public void testCompressedWindowsRoundTrip() throws Exception {
+        final Random random = new Random(1);
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < 300 * 1024) {
+            text.append("line ").append(random.nextInt(1000)).append(" of a compressible file\n");
+        }
+        final byte[] compressible = text.toString().getBytes("UTF-8");
+        final byte[] incompressible = new byte[200 * 1024];
+        random.nextBytes(incompressible);
+
+        for (int version = 0; version <= 2; version++) {
+            final byte[] delta = writeDelta(compressible, version, Deflater.BEST_SPEED);
+            Assert.assertArrayEquals(compressible, applyDelta(delta));
+            Assert.assertEquals(version, delta[3]);
+            if (version > 0) {
+                Assert.assertTrue(delta.length < compressible.length / 2);
+            }
+            Assert.assertArrayEquals(incompressible, applyDelta(writeDelta(incompressible, version, Deflater.BEST_COMPRESSION)));
+            Assert.assertArrayEquals(new byte[0], applyDelta(writeDelta(new byte[0], version, Deflater.BEST_COMPRESSION)));
+        }
+    }
+
+    private static byte[] writeDelta(byte[] contents, final int version, final int compressionLevel) throws SVNException {
+        final ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        final boolean[] firstWindow = {true};
+        new SVNDeltaGenerator().sendDelta("file", new ByteArrayInputStream(contents), new ISVNDeltaConsumer() {
+            public void applyTextDelta(String path, String baseChecksum) {
+            }
+
+            public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+                try {
+                    diffWindow.writeTo(delta, firstWindow[0], version, compressionLevel);
+                } catch (IOException e) {
+                    Assert.fail(e.getMessage());
+                }
+                firstWindow[0] = false;
+                return SVNFileUtil.DUMMY_OUT;
+            }
+
+            public void textDeltaEnd(String path) {
+            }
+        }, false);
+        return delta.toByteArray();
+    }
+
+    private static byte[] applyDelta(byte[] delta) throws SVNException {
+        final ByteArrayOutputStream target = new ByteArrayOutputStream();
+        final SVNDeltaProcessor processor = new SVNDeltaProcessor();
+        processor.applyTextDelta(SVNFileUtil.DUMMY_IN, target, false);
+        final SVNDeltaReader reader = new SVNDeltaReader();
+        final ISVNDeltaConsumer consumer = new ISVNDeltaConsumer() {
+            public void applyTextDelta(String path, String baseChecksum) {
+            }
+
+            public OutputStream textDeltaChunk(String path, SVNDiffWindow diffWindow) throws SVNException {
+                return processor.textDeltaChunk(diffWindow);
+            }
+
+            public void textDeltaEnd(String path) {
+            }
+        };
+        // feed the delta in small pieces to cross window boundaries.
+        for (int offset = 0; offset < delta.length; offset += 1000) {
+            reader.nextWindow(delta, offset, Math.min(1000, delta.length - offset), "file", consumer);
+        }
+        reader.reset("file", consumer);
+        processor.textDeltaEnd();
+        return target.toByteArray();
+    }
+}
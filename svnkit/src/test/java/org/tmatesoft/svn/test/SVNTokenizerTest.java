@@ -0,0 +1,171 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNErrorCode;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.internal.io.svn.ISVNTupleHandler;
+import org.tmatesoft.svn.core.internal.io.svn.SVNItem;
+import org.tmatesoft.svn.core.internal.io.svn.SVNReader;
+import org.tmatesoft.svn.core.internal.io.svn.SVNTokenizer;
+import org.tmatesoft.svn.core.internal.io.svn.SVNWriter;
+
+public class SVNTokenizerTest {
+
+    @Test
+    public void testItemsMatchUnbufferedReader() throws Exception {
+        final Random random = new Random(1);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int i = 0; i < 2000; i++) {
+            final byte[] bytes = new byte[i % 100 == 0 ? 16 * 1024 - 1 + random.nextInt(3) : random.nextInt(200)];
+            random.nextBytes(bytes);
+            SVNWriter.write(output, "(w(n(s)b)ww)", new Object[] {"entry-" + i, new Long(random.nextLong() & Long.MAX_VALUE), "path/é" + i, bytes, "true", "false"});
+        }
+        final byte[] data = output.toByteArray();
+
+        final ByteArrayInputStream plain = new ByteArrayInputStream(data);
+        final SVNTokenizer tokenizer = new SVNTokenizer(new ByteArrayInputStream(data));
+        for (int i = 0; i < 2000; i++) {
+            final SVNItem expected = SVNReader.readItem(plain);
+            final SVNItem actual = SVNReader.readItem(tokenizer);
+            Assert.assertEquals(expected.toString(), actual.toString());
+            final List expectedValues = SVNReader.parseTuple("w(n(s)b)ww", expected.getItems(), null);
+            final List actualValues = SVNReader.parseTuple("w(n(s)b)ww", actual.getItems(), null);
+            Assert.assertEquals(expectedValues.get(2), actualValues.get(2));
+            Assert.assertArrayEquals((byte[]) expectedValues.get(3), (byte[]) actualValues.get(3));
+        }
+        Assert.assertEquals(-1, tokenizer.read());
+    }
+
+    @Test
+    public void testStreamedListElements() throws Exception {
+        final StringBuilder response = new StringBuilder("( success ( 12 ( ( 3:foo 3:bar ) ) ( ");
+        for (int i = 0; i < 1000; i++) {
+            response.append("( ").append(String.valueOf(i).length() + 5).append(":entry").append(i).append(" file ").append(i).append(" ) ");
+        }
+        response.append(") extra ) ) ( success ( ) ) ");
+        final byte[] data = response.toString().getBytes("UTF-8");
+
+        final SVNTokenizer tokenizer = new SVNTokenizer(new ByteArrayInputStream(data));
+        final List<String> names = new ArrayList<String>();
+        final List values = SVNReader.parse(tokenizer, "rll", null, "swn", new ISVNTupleHandler() {
+            public void handleTuple(List values) throws SVNException {
+                names.add(SVNReader.getString(values, 0));
+                Assert.assertEquals(names.size() - 1, SVNReader.getLong(values, 2));
+            }
+        });
+        Assert.assertEquals(12, SVNReader.getLong(values, 0));
+        Assert.assertArrayEquals("bar".getBytes("UTF-8"), SVNReader.getProperties(values, 1, null).getBinaryValue("foo"));
+        Assert.assertEquals(1000, names.size());
+        Assert.assertEquals("entry999", names.get(999));
+        Assert.assertEquals(0, SVNReader.parse(tokenizer, "", null).size());
+    }
+
+    @Test
+    public void testStreamedLogEntries() throws Exception {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (int i = 0; i < 50; i++) {
+            final StringBuilder entry = new StringBuilder("( ( ");
+            for (int j = 0; j < i * 20; j++) {
+                final String path = "/trunk/file" + j;
+                entry.append("( ").append(path.length()).append(':').append(path).append(" M ( ) ( 4:file ) ) ");
+            }
+            entry.append(") ").append(i + 1).append(" ( 6:author ) ( ) ( 3:msg ) false false 0 ( ) ) ");
+            output.write(entry.toString().getBytes("UTF-8"));
+        }
+        output.write("done ( success ( ) ) ".getBytes("UTF-8"));
+        final byte[] data = output.toByteArray();
+
+        final InputStream[] streams = {new ByteArrayInputStream(data), new SVNTokenizer(new ByteArrayInputStream(data))};
+        for (int s = 0; s < streams.length; s++) {
+            final InputStream is = streams[s];
+            for (int i = 0; i < 50; i++) {
+                final List<String> paths = new ArrayList<String>();
+                final List values = SVNReader.readTuple(is, "r(?s)(?s)(?s)?ssnl?s", "sw(?sr)?(?s)", new ISVNTupleHandler() {
+                    public void handleTuple(List values) throws SVNException {
+                        Assert.assertEquals("M", SVNReader.getString(values, 1));
+                        Assert.assertEquals("file", SVNReader.getString(values, 4));
+                        paths.add(SVNReader.getString(values, 0));
+                    }
+                }, "done");
+                Assert.assertEquals(i * 20, paths.size());
+                if (i > 0) {
+                    Assert.assertEquals("/trunk/file" + (i * 20 - 1), paths.get(paths.size() - 1));
+                }
+                Assert.assertEquals(i + 1, SVNReader.getLong(values, 0));
+                Assert.assertEquals("author", SVNReader.getString(values, 1));
+                Assert.assertNull(SVNReader.getString(values, 2));
+                Assert.assertEquals("msg", SVNReader.getString(values, 3));
+                Assert.assertFalse(SVNReader.getBoolean(values, 4));
+            }
+            Assert.assertNull(SVNReader.readTuple(is, "r", "s", null, "done"));
+            Assert.assertEquals(0, SVNReader.parse(is, "", null).size());
+        }
+    }
+
+    @Test
+    public void testFailingHandlerLeavesStreamAtNextResponse() throws Exception {
+        final StringBuilder response = new StringBuilder("( success ( 12 ( ) ( ");
+        for (int i = 0; i < 100; i++) {
+            response.append("( ").append(String.valueOf(i).length() + 5).append(":entry").append(i).append(" file ").append(i).append(" ) ");
+        }
+        response.append(") ) ) ( success ( 13 ) ) ");
+        final byte[] data = response.toString().getBytes("UTF-8");
+
+        final SVNTokenizer tokenizer = new SVNTokenizer(new ByteArrayInputStream(data));
+        final List<String> names = new ArrayList<String>();
+        try {
+            SVNReader.parse(tokenizer, "rll", null, "swn", new ISVNTupleHandler() {
+                public void handleTuple(List values) throws SVNException {
+                    names.add(SVNReader.getString(values, 0));
+                    if (names.size() == 10) {
+                        throw new IllegalStateException("handler failed");
+                    }
+                }
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("handler failed", e.getMessage());
+        }
+        Assert.assertEquals(10, names.size());
+        Assert.assertEquals(13, SVNReader.getLong(SVNReader.parse(tokenizer, "r", null), 0));
+    }
+
+    @Test
+    public void testOverflowingStringLengthIsMalformedData() throws Exception {
+        final String[] items = {"( 2147483648:abc ) ", "( 18446744073709551615:abc ) ", "( 99999999999999999999:abc ) "};
+        for (int i = 0; i < items.length; i++) {
+            final byte[] data = items[i].getBytes("UTF-8");
+            try {
+                SVNReader.readItem(new SVNTokenizer(new ByteArrayInputStream(data)));
+                Assert.fail(items[i]);
+            } catch (SVNException e) {
+                Assert.assertEquals(SVNErrorCode.RA_SVN_MALFORMED_DATA, e.getErrorMessage().getErrorCode());
+            }
+            try {
+                SVNReader.readItem(new ByteArrayInputStream(data));
+                Assert.fail(items[i]);
+            } catch (SVNException e) {
+                Assert.assertEquals(SVNErrorCode.RA_SVN_MALFORMED_DATA, e.getErrorMessage().getErrorCode());
+            }
+        }
+    }
+
+    @Test
+    public void testFailureResponse() throws Exception {
+        final byte[] data = "( failure ( ( 160013 14:File not found 0: 0 ) ) ) ".getBytes("UTF-8");
+        try {
+            SVNReader.parse(new SVNTokenizer(new ByteArrayInputStream(data)), "rll", null, "swn", null);
+            Assert.fail();
+        } catch (SVNException e) {
+            Assert.assertEquals(SVNErrorCode.FS_NOT_FOUND, e.getErrorMessage().getErrorCode());
+        }
+    }
+}
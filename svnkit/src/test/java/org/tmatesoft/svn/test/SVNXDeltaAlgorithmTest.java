@@ -0,0 +1,81 @@
+package org.tmatesoft.svn.test;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.internal.delta.SVNXDeltaAlgorithm;
+import org.tmatesoft.svn.core.io.diff.SVNDiffWindow;
+
+public class SVNXDeltaAlgorithmTest {
+
+    @Test
+    public void testEditedText() throws Exception {
+        final Random random = new Random(1);
+        final SVNXDeltaAlgorithm algorithm = new SVNXDeltaAlgorithm();
+        for (int i = 0; i < 50; i++) {
+            final byte[] source = generateText(random, 1 + random.nextInt(100 * 1024));
+            final byte[] target = edit(random, source, random.nextInt(30));
+            assertDeltaRestoresTarget(algorithm, source, target);
+        }
+    }
+
+    @Test
+    public void testBinary() throws Exception {
+        final Random random = new Random(2);
+        final SVNXDeltaAlgorithm algorithm = new SVNXDeltaAlgorithm();
+        for (int i = 0; i < 50; i++) {
+            final byte[] source = new byte[random.nextInt(100 * 1024)];
+            random.nextBytes(source);
+            final byte[] target = i % 5 == 0 ? new byte[random.nextInt(1024)] : edit(random, source, random.nextInt(30));
+            assertDeltaRestoresTarget(algorithm, source, target);
+        }
+    }
+
+    @Test
+    public void testIdenticalContentsProduceNoNewData() throws Exception {
+        final byte[] source = generateText(new Random(3), 64 * 1024);
+        final SVNXDeltaAlgorithm algorithm = new SVNXDeltaAlgorithm();
+        algorithm.computeDelta(source, source.length, source, source.length);
+        Assert.assertEquals(0, algorithm.getNewDataLength());
+        algorithm.reset();
+    }
+
+    private static void assertDeltaRestoresTarget(SVNXDeltaAlgorithm algorithm, byte[] source, byte[] target) {
+        algorithm.computeDelta(source, source.length, target, target.length);
+        final SVNDiffWindow window = new SVNDiffWindow(0, source.length, target.length, algorithm.getInstructionsLength(), algorithm.getNewDataLength());
+        window.setData(algorithm.getData());
+        final byte[] result = new byte[target.length];
+        window.apply(source, result);
+        algorithm.reset();
+        Assert.assertArrayEquals(target, result);
+    }
+
+    private static byte[] generateText(Random random, int length) {
+        final String[] words = {"public ", "static ", "void ", "int ", "return ", "{\n", "}\n", "(", ")", ";\n", "    "};
+        final byte[] text = new byte[length];
+        for (int i = 0; i < length;) {
+            final String word = words[random.nextInt(words.length)];
+            for (int j = 0; j < word.length() && i < length; j++) {
+                text[i++] = (byte) word.charAt(j);
+            }
+        }
+        return text;
+    }
+
+    private static byte[] edit(Random random, byte[] data, int editsCount) {
+        byte[] result = data;
+        for (int i = 0; i < editsCount && result.length > 0; i++) {
+            final int position = random.nextInt(result.length);
+            final int removed = Math.min(result.length - position, random.nextInt(100));
+            final byte[] inserted = new byte[random.nextInt(100)];
+            random.nextBytes(inserted);
+            final byte[] edited = new byte[result.length - removed + inserted.length];
+            System.arraycopy(result, 0, edited, 0, position);
+            System.arraycopy(inserted, 0, edited, position, inserted.length);
+            System.arraycopy(result, position + removed, edited, position + inserted.length, result.length - position - removed);
+            result = edited;
+        }
+        return result;
+    }
+}
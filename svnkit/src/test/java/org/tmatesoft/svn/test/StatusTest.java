@@ -7,16 +7,25 @@ import org.tmatesoft.svn.core.*;
 import org.tmatesoft.svn.core.auth.BasicAuthenticationManager;
 import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
 import org.tmatesoft.svn.core.internal.wc.SVNExternal;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
 import org.tmatesoft.svn.core.internal.wc.admin.SVNAdminAreaFactory;
+import org.tmatesoft.svn.core.internal.wc17.SVNStatusEditor17;
+import org.tmatesoft.svn.core.internal.wc17.SVNWCChangeJournal;
 import org.tmatesoft.svn.core.internal.wc17.SVNWCContext;
 import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb;
+import org.tmatesoft.svn.core.internal.wc17.db.ISVNWCDb.SVNWCDbKind;
 import org.tmatesoft.svn.core.internal.wc2.SvnWcGeneration;
 import org.tmatesoft.svn.core.internal.wc2.compat.SvnCodec;
 import org.tmatesoft.svn.core.wc.*;
 import org.tmatesoft.svn.core.wc2.*;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class StatusTest {
@@ -505,6 +514,255 @@ public class StatusTest {
         }
     }
 
+    @Test
+    public void testParallelWalkReportsSameStatusesInSameOrder() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testParallelWalkReportsSameStatusesInSameOrder", options);
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 8; j++) {
+                    commitBuilder.addFile("directory" + i + "/subdirectory/file" + j, ("contents" + j).getBytes());
+                }
+            }
+            commitBuilder.commit();
+
+            final WorkingCopy workingCopy = sandbox.checkoutNewWorkingCopy(url);
+            TestUtil.writeFileContentsString(workingCopy.getFile("directory0/subdirectory/file1"), "modified");
+            TestUtil.writeFileContentsString(workingCopy.getFile("directory2/subdirectory/file3"), "Contents3");
+            TestUtil.writeFileContentsString(workingCopy.getFile("directory3/subdirectory/unversioned"), "unversioned");
+
+            final List<String> sequentialStatuses = walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1);
+            final List<String> parallelStatuses = walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 4);
+
+            Assert.assertEquals(sequentialStatuses, parallelStatuses);
+            Assert.assertTrue(parallelStatuses.contains(workingCopy.getFile("directory0/subdirectory/file1") + " " + SVNStatusType.STATUS_MODIFIED));
+            Assert.assertTrue(parallelStatuses.contains(workingCopy.getFile("directory2/subdirectory/file3") + " " + SVNStatusType.STATUS_MODIFIED));
+            Assert.assertTrue(parallelStatuses.contains(workingCopy.getFile("directory3/subdirectory/unversioned") + " " + SVNStatusType.STATUS_UNVERSIONED));
+        } finally {
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testChangeJournalReportsChangesBetweenWalks() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testChangeJournalReportsChangesBetweenWalks", options);
+        final boolean journalEnabled = SVNWCChangeJournal.isEnabled();
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            commitBuilder.addFile("directory/file", "contents".getBytes());
+            commitBuilder.addFile("directory/subdirectory/file", "contents".getBytes());
+            commitBuilder.commit();
+
+            final WorkingCopy workingCopy = sandbox.checkoutNewWorkingCopy(url);
+            final File file = workingCopy.getFile("directory/subdirectory/file");
+            final File unversionedFile = workingCopy.getFile("directory/unversioned");
+
+            SVNWCChangeJournal.setEnabled(true);
+            final List<String> cleanStatuses = walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1, true);
+            Assert.assertEquals(walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1, false), cleanStatuses);
+            Assert.assertEquals(cleanStatuses, walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1, true));
+
+            TestUtil.writeFileContentsString(file, "modified");
+            TestUtil.writeFileContentsString(unversionedFile, "unversioned");
+            final List<String> modifiedStatuses = walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1, true);
+            Assert.assertTrue(modifiedStatuses.contains(file + " " + SVNStatusType.STATUS_MODIFIED));
+            Assert.assertTrue(modifiedStatuses.contains(unversionedFile + " " + SVNStatusType.STATUS_UNVERSIONED));
+            Assert.assertEquals(modifiedStatuses, walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1, true));
+
+            TestUtil.writeFileContentsString(file, "contents");
+            SVNFileUtil.deleteFile(unversionedFile);
+            Assert.assertEquals(cleanStatuses, walkStatus(svnOperationFactory, workingCopy.getWorkingCopyDirectory(), 1, true));
+        } finally {
+            SVNWCChangeJournal.setEnabled(journalEnabled);
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testChangeJournalKeepsWatchedDirectoriesBounded() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testChangeJournalKeepsWatchedDirectoriesBounded", options);
+        final boolean journalEnabled = SVNWCChangeJournal.isEnabled();
+        final int maxWatchedDirectories = SVNWCChangeJournal.getMaxWatchedDirectories();
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            for (int i = 0; i < 6; i++) {
+                commitBuilder.addFile("directory" + i + "/file", "contents".getBytes());
+            }
+            commitBuilder.commit();
+
+            final WorkingCopy workingCopy = sandbox.checkoutNewWorkingCopy(url);
+            final File workingCopyDirectory = workingCopy.getWorkingCopyDirectory();
+
+            SVNWCChangeJournal.setEnabled(true);
+            SVNWCChangeJournal.setMaxWatchedDirectories(3);
+            final SVNWCChangeJournal journal = SVNWCChangeJournal.getJournal(workingCopyDirectory);
+            Assume.assumeTrue(journal != null);
+
+            final List<String> cleanStatuses = walkStatus(svnOperationFactory, workingCopyDirectory, 4, false);
+            Assert.assertEquals(cleanStatuses, walkStatus(svnOperationFactory, workingCopyDirectory, 4, true));
+            Assert.assertEquals(3, journal.getWatchedDirectoriesCount());
+            Assert.assertEquals(cleanStatuses, walkStatus(svnOperationFactory, workingCopyDirectory, 4, true));
+
+            for (int i = 0; i < 6; i++) {
+                final File file = workingCopy.getFile("directory" + i + "/file");
+                TestUtil.writeFileContentsString(file, "modified");
+                final List<String> statuses = walkStatus(svnOperationFactory, workingCopyDirectory, 4, true);
+                Assert.assertEquals(walkStatus(svnOperationFactory, workingCopyDirectory, 4, false), statuses);
+                Assert.assertTrue(statuses.contains(file + " " + SVNStatusType.STATUS_MODIFIED));
+                Assert.assertEquals(3, journal.getWatchedDirectoriesCount());
+            }
+        } finally {
+            SVNWCChangeJournal.setMaxWatchedDirectories(maxWatchedDirectories);
+            SVNWCChangeJournal.setEnabled(journalEnabled);
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testSubtreeScanReportsSameStatusesAndInfos() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testSubtreeScanReportsSameStatusesAndInfos", options);
+        try {
+            final SVNURL url = sandbox.createSvnRepository();
+
+            final CommitBuilder commitBuilder = new CommitBuilder(url);
+            commitBuilder.addFile("directory/file");
+            commitBuilder.addFile("directory/subdirectory/file1");
+            commitBuilder.addFile("directory/subdirectory/file2");
+            commitBuilder.addFile("directory/subdirectory/deepdirectory/file");
+            commitBuilder.addFile("other/file");
+            commitBuilder.commit();
+
+            final WorkingCopy workingCopy = sandbox.checkoutNewWorkingCopy(url);
+            final File addedFile = workingCopy.getFile("directory/subdirectory/added");
+            TestUtil.writeFileContentsString(addedFile, "added");
+            workingCopy.add(addedFile);
+            workingCopy.delete(workingCopy.getFile("directory/file"));
+            workingCopy.setProperty(workingCopy.getFile("directory/subdirectory/file1"), "name", SVNPropertyValue.create("value"));
+            TestUtil.writeFileContentsString(workingCopy.getFile("directory/subdirectory/deepdirectory/file"), "modified");
+
+            final SvnSetChangelist setChangelist = svnOperationFactory.createSetChangelist();
+            setChangelist.setChangelistName("changelist");
+            setChangelist.setDepth(SVNDepth.EMPTY);
+            setChangelist.addTarget(SvnTarget.fromFile(addedFile));
+            setChangelist.addTarget(SvnTarget.fromFile(workingCopy.getFile("directory/subdirectory/file1")));
+            setChangelist.run();
+
+            final SvnSetLock setLock = svnOperationFactory.createSetLock();
+            setLock.setSingleTarget(SvnTarget.fromFile(workingCopy.getFile("directory/subdirectory/file2")));
+            setLock.run();
+
+            final File workingCopyDirectory = workingCopy.getWorkingCopyDirectory();
+            final List<String> statuses = walkStatusDetails(svnOperationFactory, workingCopyDirectory, false);
+            Assert.assertEquals(statuses, walkStatusDetails(svnOperationFactory, workingCopyDirectory, true));
+            Assert.assertEquals(11, statuses.size());
+
+            final Collection<String> changelists = Collections.singleton("changelist");
+            Assert.assertEquals(walkNodes(svnOperationFactory, workingCopyDirectory, null, false),
+                    walkNodes(svnOperationFactory, workingCopyDirectory, null, true));
+            final List<File> changelistNodes = walkNodes(svnOperationFactory, workingCopyDirectory, changelists, true);
+            Assert.assertEquals(walkNodes(svnOperationFactory, workingCopyDirectory, changelists, false), changelistNodes);
+            Assert.assertEquals(2, changelistNodes.size());
+
+            final List<File> infoPaths = new ArrayList<File>();
+            final SvnGetInfo getInfo = svnOperationFactory.createGetInfo();
+            getInfo.setSingleTarget(SvnTarget.fromFile(workingCopyDirectory));
+            getInfo.setDepth(SVNDepth.INFINITY);
+            getInfo.setApplicalbeChangelists(changelists);
+            getInfo.setReceiver(new ISvnObjectReceiver<SvnInfo>() {
+                public void receive(SvnTarget target, SvnInfo info) throws SVNException {
+                    Assert.assertEquals("changelist", info.getWcInfo().getChangelist());
+                    infoPaths.add(info.getWcInfo().getPath());
+                }
+            });
+            getInfo.run();
+            Collections.sort(infoPaths);
+            Assert.assertEquals(Arrays.asList(addedFile, workingCopy.getFile("directory/subdirectory/file1")), infoPaths);
+        } finally {
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
+    private List<String> walkStatus(SvnOperationFactory svnOperationFactory, File workingCopyDirectory, int threadsCount) throws SVNException {
+        return walkStatus(svnOperationFactory, workingCopyDirectory, threadsCount, false);
+    }
+
+    private List<String> walkStatus(SvnOperationFactory svnOperationFactory, File workingCopyDirectory, int threadsCount, boolean useChangeJournal) throws SVNException {
+        final List<String> statuses = new ArrayList<String>();
+        final SVNWCContext context = new SVNWCContext(svnOperationFactory.getOptions(), svnOperationFactory.getEventHandler());
+        try {
+            final SVNStatusEditor17 editor = new SVNStatusEditor17(workingCopyDirectory, context, context.getOptions(), false, true, SVNDepth.INFINITY, 
+                    new ISvnObjectReceiver<SvnStatus>() {
+                public void receive(SvnTarget target, SvnStatus status) throws SVNException {
+                    statuses.add(status.getPath() + " " + status.getNodeStatus());
+                }
+            });
+            editor.setWalkThreadsCount(threadsCount);
+            editor.setUseChangeJournal(useChangeJournal);
+            editor.walkStatus(workingCopyDirectory, SVNDepth.INFINITY, true, false, false, null);
+        } finally {
+            context.close();
+        }
+        return statuses;
+    }
+
+    private List<String> walkStatusDetails(SvnOperationFactory svnOperationFactory, File workingCopyDirectory, boolean readSubtree) throws SVNException {
+        final List<String> statuses = new ArrayList<String>();
+        final SVNWCContext context = new SVNWCContext(svnOperationFactory.getOptions(), svnOperationFactory.getEventHandler());
+        try {
+            final SVNStatusEditor17 editor = new SVNStatusEditor17(workingCopyDirectory, context, context.getOptions(), false, true, SVNDepth.INFINITY, 
+                    new ISvnObjectReceiver<SvnStatus>() {
+                public void receive(SvnTarget target, SvnStatus status) throws SVNException {
+                    statuses.add(status.getPath() + " " + status.getNodeStatus() + " " + status.getTextStatus() + " " + status.getPropertiesStatus() + " " +
+                            status.getRevision() + " " + status.getChangedRevision() + " " + status.getChangelist() + " " + 
+                            (status.getLock() != null ? status.getLock().getID() : null) + " " + status.isCopied() + " " + status.getDepth());
+                }
+            });
+            editor.setReadSubtree(readSubtree);
+            editor.walkStatus(workingCopyDirectory, SVNDepth.INFINITY, true, false, false, null);
+        } finally {
+            context.close();
+        }
+        return statuses;
+    }
+
+    private List<File> walkNodes(SvnOperationFactory svnOperationFactory, File workingCopyDirectory, Collection<String> changelists, boolean readSubtree) throws SVNException {
+        final List<File> nodes = new ArrayList<File>();
+        final SVNWCContext context = new SVNWCContext(svnOperationFactory.getOptions(), svnOperationFactory.getEventHandler());
+        try {
+            context.nodeWalkChildren(workingCopyDirectory, new SVNWCContext.ISVNWCNodeHandler() {
+                public void nodeFound(File localAbspath, SVNWCDbKind kind) throws SVNException {
+                    nodes.add(localAbspath);
+                }
+            }, false, SVNDepth.INFINITY, changelists, readSubtree);
+        } finally {
+            context.close();
+        }
+        Collections.sort(nodes);
+        return nodes;
+    }
+
     private String getTestName() {
         return "StatusTest";
     }
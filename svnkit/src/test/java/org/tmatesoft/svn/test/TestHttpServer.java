@@ -0,0 +1,242 @@
+package org.tmatesoft.svn.test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+
+/**
+ * Minimal HTTP/1.1 server that answers requests with a {@link Responder}, for tests of
+ * the HTTP client without Apache. Every accepted connection is served by its own thread
+ * until the client closes it or the responder asks to close it.
+ */
+public class TestHttpServer {
+
+    public interface Responder {
+
+        /**
+         * Writes the whole response to <code>request</code>.
+         *
+         * @return <code>false</code> to close the connection after the response
+         */
+        boolean respond(Request request, OutputStream out) throws IOException;
+    }
+
+    public static class Request {
+
+        private final String method;
+        private final String path;
+        private final Map<String, String> headers;
+        private final byte[] body;
+
+        private Request(String method, String path, Map<String, String> headers, byte[] body) {
+            this.method = method;
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase());
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    public static TestHttpServer start(Responder responder) throws IOException {
+        final TestHttpServer server = new TestHttpServer(responder);
+        server.acceptThread.start();
+        return server;
+    }
+
+    public static void writeResponse(OutputStream out, int code, String contentType, byte[] body) throws IOException {
+        final StringBuilder header = new StringBuilder();
+        header.append("HTTP/1.1 ").append(code).append(code < 300 ? " OK" : " Error").append("\r\n");
+        header.append("Content-Type: ").append(contentType).append("\r\n");
+        header.append("Content-Length: ").append(body.length).append("\r\n");
+        header.append("\r\n");
+        // a single write, so that small responses are not delayed by Nagle's algorithm.
+        final ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write(header.toString().getBytes("US-ASCII"));
+        response.write(body);
+        out.write(response.toByteArray());
+        out.flush();
+    }
+
+    public static void writeChunkedResponse(OutputStream out, int code, String contentType, byte[] body, int chunkSize) throws IOException {
+        final StringBuilder header = new StringBuilder();
+        header.append("HTTP/1.1 ").append(code).append(code < 300 ? " OK" : " Error").append("\r\n");
+        header.append("Content-Type: ").append(contentType).append("\r\n");
+        header.append("Transfer-Encoding: chunked\r\n");
+        header.append("\r\n");
+        out.write(header.toString().getBytes("US-ASCII"));
+        for (int offset = 0; offset < body.length; offset += chunkSize) {
+            final int length = Math.min(chunkSize, body.length - offset);
+            out.write((Integer.toHexString(length) + "\r\n").getBytes("US-ASCII"));
+            out.write(body, offset, length);
+            out.write("\r\n".getBytes("US-ASCII"));
+        }
+        out.write("0\r\n\r\n".getBytes("US-ASCII"));
+        out.flush();
+    }
+
+    private final ServerSocket serverSocket;
+    private final Responder responder;
+    private final Thread acceptThread;
+    private final List<Socket> sockets;
+    private final AtomicInteger connectionsCount;
+    private final AtomicInteger requestsCount;
+
+    private TestHttpServer(Responder responder) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        this.responder = responder;
+        this.sockets = new ArrayList<Socket>();
+        this.connectionsCount = new AtomicInteger();
+        this.requestsCount = new AtomicInteger();
+        this.acceptThread = new Thread(new Runnable() {
+            public void run() {
+                acceptConnections();
+            }
+        }, "test-http-server");
+        this.acceptThread.setDaemon(true);
+    }
+
+    public SVNURL getUrl(String path) throws SVNException {
+        return SVNURL.parseURIEncoded("http://127.0.0.1:" + serverSocket.getLocalPort() + path);
+    }
+
+    public int getConnectionsCount() {
+        return connectionsCount.get();
+    }
+
+    public int getRequestsCount() {
+        return requestsCount.get();
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+        }
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                }
+            }
+            sockets.clear();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            connectionsCount.incrementAndGet();
+            synchronized (sockets) {
+                sockets.add(socket);
+            }
+            final Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    serve(socket);
+                }
+            }, "test-http-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            final InputStream in = new BufferedInputStream(socket.getInputStream());
+            final OutputStream out = socket.getOutputStream();
+            while (true) {
+                final Request request = readRequest(in);
+                if (request == null) {
+                    break;
+                }
+                requestsCount.incrementAndGet();
+                if (!responder.respond(request, out)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            //
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    private static Request readRequest(InputStream in) throws IOException {
+        String requestLine = readLine(in);
+        while (requestLine != null && requestLine.length() == 0) {
+            requestLine = readLine(in);
+        }
+        if (requestLine == null) {
+            return null;
+        }
+        final String[] parts = requestLine.split(" ");
+        final Map<String, String> headers = new HashMap<String, String>();
+        for (String line = readLine(in); line != null && line.length() > 0; line = readLine(in)) {
+            final int index = line.indexOf(':');
+            if (index > 0) {
+                headers.put(line.substring(0, index).trim().toLowerCase(), line.substring(index + 1).trim());
+            }
+        }
+        final String contentLength = headers.get("content-length");
+        final byte[] body = new byte[contentLength != null ? Integer.parseInt(contentLength) : 0];
+        for (int offset = 0; offset < body.length;) {
+            final int read = in.read(body, offset, body.length - offset);
+            if (read < 0) {
+                return null;
+            }
+            offset += read;
+        }
+        return new Request(parts[0], parts.length > 1 ? parts[1] : "/", headers, body);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            final int b = in.read();
+            if (b < 0) {
+                return line.size() > 0 ? line.toString("US-ASCII") : null;
+            } else if (b == '\n') {
+                break;
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString("US-ASCII");
+    }
+}
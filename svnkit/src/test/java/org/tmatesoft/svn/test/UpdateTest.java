@@ -23,6 +23,7 @@ import org.tmatesoft.svn.core.SVNProperty;
 import org.tmatesoft.svn.core.SVNPropertyValue;
 import org.tmatesoft.svn.core.SVNURL;
 import org.tmatesoft.svn.core.internal.db.SVNSqlJetStatement;
+import org.tmatesoft.svn.core.internal.io.dav.DAVRepository;
 import org.tmatesoft.svn.core.internal.io.dav.DAVUtil;
 import org.tmatesoft.svn.core.internal.wc.DefaultSVNOptions;
 import org.tmatesoft.svn.core.internal.wc.SVNExternal;
@@ -255,6 +256,80 @@ public class UpdateTest {
         }
     }
 
+    @Test
+    public void testUpdateWithParallelFetch() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        Assume.assumeTrue(TestUtil.areAllApacheOptionsSpecified(options));
+
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testUpdateWithParallelFetch", options);
+        final int fetchConnectionsCount = DAVRepository.getFetchConnectionsCount();
+        try {
+            final SVNURL url = sandbox.createSvnRepositoryWithDavAccess();
+
+            final CommitBuilder commitBuilder1 = new CommitBuilder(url);
+            for (int i = 0; i < 20; i++) {
+                commitBuilder1.addFile("directory/file" + i, ("contents " + i).getBytes());
+            }
+            commitBuilder1.addFile("deleted", "deleted".getBytes());
+            commitBuilder1.commit();
+
+            final CommitBuilder commitBuilder2 = new CommitBuilder(url);
+            for (int i = 0; i < 20; i += 2) {
+                commitBuilder2.changeFile("directory/file" + i, ("changed contents " + i).getBytes());
+            }
+            for (int i = 0; i < 20; i++) {
+                commitBuilder2.addFile("added/file" + i, ("added contents " + i).getBytes());
+            }
+            commitBuilder2.setFileProperty("added/file0", "fileProperty", SVNPropertyValue.create("fileValue"));
+            commitBuilder2.setDirectoryProperty("added", "directoryProperty", SVNPropertyValue.create("directoryValue"));
+            commitBuilder2.delete("deleted");
+            commitBuilder2.commit();
+
+            DAVRepository.setFetchConnectionsCount(4);
+
+            final File workingCopyDirectory = sandbox.createDirectory("wc");
+            final SvnCheckout checkout = svnOperationFactory.createCheckout();
+            checkout.setSource(SvnTarget.fromURL(url));
+            checkout.setSingleTarget(SvnTarget.fromFile(workingCopyDirectory));
+            checkout.setRevision(SVNRevision.create(1));
+            checkout.run();
+
+            Assert.assertEquals("contents 1", TestUtil.readFileContentsString(new File(workingCopyDirectory, "directory/file1")));
+
+            final SvnUpdate update = svnOperationFactory.createUpdate();
+            update.setSingleTarget(SvnTarget.fromFile(workingCopyDirectory));
+            update.run();
+
+            for (int i = 0; i < 20; i++) {
+                final String contents = (i % 2 == 0 ? "changed contents " : "contents ") + i;
+                Assert.assertEquals(contents, TestUtil.readFileContentsString(new File(workingCopyDirectory, "directory/file" + i)));
+                Assert.assertEquals("added contents " + i, TestUtil.readFileContentsString(new File(workingCopyDirectory, "added/file" + i)));
+            }
+            Assert.assertFalse(new File(workingCopyDirectory, "deleted").exists());
+
+            final SvnGetProperties getProperties = svnOperationFactory.createGetProperties();
+            getProperties.setSingleTarget(SvnTarget.fromFile(new File(workingCopyDirectory, "added/file0")));
+            final SVNProperties fileProperties = getProperties.run();
+            Assert.assertEquals("fileValue", SVNPropertyValue.getPropertyAsString(fileProperties.getSVNPropertyValue("fileProperty")));
+
+            getProperties.setSingleTarget(SvnTarget.fromFile(new File(workingCopyDirectory, "added")));
+            final SVNProperties directoryProperties = getProperties.run();
+            Assert.assertEquals("directoryValue", SVNPropertyValue.getPropertyAsString(directoryProperties.getSVNPropertyValue("directoryProperty")));
+
+            final SvnGetStatus getStatus = svnOperationFactory.createGetStatus();
+            getStatus.setSingleTarget(SvnTarget.fromFile(workingCopyDirectory));
+            getStatus.setDepth(SVNDepth.INFINITY);
+            getStatus.setReportAll(false);
+            Assert.assertEquals(0, getStatus.run(new ArrayList<SvnStatus>()).size());
+        } finally {
+            DAVRepository.setFetchConnectionsCount(fetchConnectionsCount);
+            svnOperationFactory.dispose();
+            sandbox.dispose();
+        }
+    }
+
     @Test
     public void testUpdateAlwaysUpdatesFileTimestamp() throws Exception {
         //SVNKIT-322: file timestamp is updated to some time in past
@@ -0,0 +1,122 @@
+package org.tmatesoft.svn.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.delta.SVNDeltaCombiner;
+import org.tmatesoft.svn.core.internal.io.fs.FSCache;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSWindowPrefetcher;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class WindowPrefetchTest {
+
+    private static final int REVISIONS_COUNT = 12;
+
+    @Test
+    public void testDeltifiedFilesAreReadWithPrefetch() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final int threadsCount = FSWindowPrefetcher.getThreadsCount();
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testDeltifiedFilesAreReadWithPrefetch", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            final SVNURL url = SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+            final List<byte[]> contents = createContents(REVISIONS_COUNT);
+            for (int i = 0; i < contents.size(); i++) {
+                final CommitBuilder commitBuilder = new CommitBuilder(url);
+                if (i == 0) {
+                    commitBuilder.addFile("file", contents.get(i));
+                } else {
+                    commitBuilder.changeFile("file", contents.get(i));
+                }
+                commitBuilder.commit();
+            }
+
+            FSWindowPrefetcher.setThreadsCount(2);
+            final long batchesCount = FSWindowPrefetcher.getScheduledBatchesCount();
+            final FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            try {
+                for (int revision = 1; revision <= REVISIONS_COUNT; revision++) {
+                    Assert.assertArrayEquals("r" + revision, contents.get(revision - 1), readFile(fsfs, revision, -1));
+                }
+                Assert.assertTrue(FSWindowPrefetcher.getScheduledBatchesCount() > batchesCount);
+
+                // a reader that stops early does not wait for the whole chain to be decoded.
+                for (int revision = REVISIONS_COUNT; revision > 1; revision--) {
+                    final byte[] head = readFile(fsfs, revision, 1000);
+                    Assert.assertEquals(1000, head.length);
+                    for (int i = 0; i < head.length; i++) {
+                        Assert.assertEquals(contents.get(revision - 1)[i], head[i]);
+                    }
+                }
+
+                FSWindowPrefetcher.setThreadsCount(0);
+                Assert.assertFalse(FSWindowPrefetcher.isEnabled());
+                Assert.assertArrayEquals(contents.get(REVISIONS_COUNT - 1), readFile(fsfs, REVISIONS_COUNT, -1));
+            } finally {
+                fsfs.close();
+            }
+        } finally {
+            FSWindowPrefetcher.setThreadsCount(threadsCount);
+            sandbox.dispose();
+        }
+    }
+
+    private static byte[] readFile(FSFS fsfs, long revision, int limit) throws SVNException, IOException {
+        // contents of all revisions are otherwise served from the process wide cache.
+        FSCache.getInstance().clear();
+        final InputStream stream = fsfs.createRevisionRoot(revision).getFileStreamForPath(new SVNDeltaCombiner(), "file");
+        try {
+            final ByteArrayOutputStream result = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            while (limit < 0 || result.size() < limit) {
+                final int read = stream.read(buffer, 0, limit < 0 ? buffer.length : Math.min(buffer.length, limit - result.size()));
+                if (read < 0) {
+                    break;
+                }
+                result.write(buffer, 0, read);
+            }
+            return result.toByteArray();
+        } finally {
+            SVNFileUtil.closeFile(stream);
+        }
+    }
+
+    private static List<byte[]> createContents(int revisionsCount) {
+        // larger than one svndiff window, every revision changes lines all over the file.
+        final Random random = new Random(3);
+        final List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 12000; i++) {
+            lines.add("line " + i + " " + Long.toHexString(random.nextLong()) + "\n");
+        }
+        final List<byte[]> contents = new ArrayList<byte[]>();
+        for (int revision = 1; revision <= revisionsCount; revision++) {
+            for (int i = 0; i < 40; i++) {
+                final int index = random.nextInt(lines.size());
+                lines.set(index, "changed in r" + revision + " " + Long.toHexString(random.nextLong()) + "\n");
+            }
+            final StringBuilder text = new StringBuilder();
+            for (String line : lines) {
+                text.append(line);
+            }
+            contents.add(text.toString().getBytes());
+        }
+        return contents;
+    }
+
+    private String getTestName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,129 @@
+package org.tmatesoft.svn.test;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+import org.tmatesoft.svn.core.SVNCommitInfo;
+import org.tmatesoft.svn.core.SVNNodeKind;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.internal.io.fs.FSFS;
+import org.tmatesoft.svn.core.internal.io.fs.FSRepository;
+import org.tmatesoft.svn.core.internal.wc.SVNFileUtil;
+import org.tmatesoft.svn.core.io.ISVNEditor;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+
+public class YoungestRevisionWatcherTest {
+
+    @Test
+    public void testWatcherIsSharedAndForgottenWhenLastFSFSCloses() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testWatcherIsSharedAndForgottenWhenLastFSFSCloses", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            final SVNURL url = SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+            final int watchersCount = FSFS.getYoungestRevisionWatchersCount();
+
+            final FSFS first = new FSFS(repositoryRoot);
+            final FSFS second = new FSFS(repositoryRoot);
+            first.open();
+            second.open();
+            try {
+                Assert.assertEquals(0, first.getYoungestRevision());
+                Assert.assertEquals(0, second.getYoungestRevision());
+                Assert.assertEquals(watchersCount + 1, FSFS.getYoungestRevisionWatchersCount());
+
+                final CommitBuilder commitBuilder = new CommitBuilder(url);
+                commitBuilder.addFile("file");
+                commitBuilder.commit();
+
+                Assert.assertEquals(1, first.getYoungestRevision());
+                first.close();
+                Assert.assertEquals(watchersCount + 1, FSFS.getYoungestRevisionWatchersCount());
+                Assert.assertEquals(1, second.getYoungestRevision());
+
+                second.close();
+                Assert.assertEquals(watchersCount, FSFS.getYoungestRevisionWatchersCount());
+
+                // a closed FSFS that is used again gets a watcher again.
+                Assert.assertEquals(1, first.getYoungestRevision());
+                Assert.assertEquals(watchersCount + 1, FSFS.getYoungestRevisionWatchersCount());
+            } finally {
+                first.close();
+                second.close();
+            }
+            Assert.assertEquals(watchersCount, FSFS.getYoungestRevisionWatchersCount());
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    @Test
+    public void testCommitReadsCurrentFileWrittenByOtherProcess() throws Exception {
+        final TestOptions options = TestOptions.getInstance();
+
+        final Sandbox sandbox = Sandbox.createWithCleanup(getTestName() + ".testCommitReadsCurrentFileWrittenByOtherProcess", options);
+        try {
+            final File repositoryRoot = sandbox.createDirectory("svn.repo");
+            final SVNURL url = SVNRepositoryFactory.createLocalRepository(repositoryRoot, true, false);
+            // another path to the repository gets its own watcher, like another process would.
+            final File link = new File(repositoryRoot.getParentFile(), "svn.repo.link");
+            Assume.assumeTrue(SVNFileUtil.createSymlink(link, repositoryRoot.getAbsolutePath()));
+
+            final FSFS fsfs = new FSFS(repositoryRoot);
+            fsfs.open();
+            final FSRepository repository = (FSRepository) SVNRepositoryFactory.create(url);
+            try {
+                repository.setSharedFSFS(fsfs);
+                Assert.assertEquals(1, addFile(repository, "file1").getNewRevision());
+
+                final File currentFile = fsfs.getCurrentFile();
+                final long lastModified = currentFile.lastModified() - 10 * 1000;
+                Assert.assertTrue(currentFile.setLastModified(lastModified));
+                Assert.assertEquals(1, fsfs.getYoungestRevision());
+
+                final CommitBuilder commitBuilder = new CommitBuilder(SVNURL.fromFile(link));
+                commitBuilder.addFile("file2");
+                Assert.assertEquals(2, commitBuilder.commit().getNewRevision());
+                // the change is not seen yet, as with a watch event that did not arrive.
+                Assert.assertTrue(currentFile.setLastModified(lastModified));
+                Assert.assertEquals(1, fsfs.getYoungestRevision());
+
+                Assert.assertEquals(3, addFile(repository, "file3").getNewRevision());
+            } finally {
+                repository.closeSession();
+                fsfs.close();
+            }
+
+            final SVNRepository checkRepository = SVNRepositoryFactory.create(url);
+            try {
+                Assert.assertEquals(3, checkRepository.getLatestRevision());
+                Assert.assertEquals(SVNNodeKind.FILE, checkRepository.checkPath("file2", 2));
+                Assert.assertEquals(SVNNodeKind.NONE, checkRepository.checkPath("file3", 2));
+                Assert.assertEquals(SVNNodeKind.FILE, checkRepository.checkPath("file1", 3));
+                Assert.assertEquals(SVNNodeKind.FILE, checkRepository.checkPath("file2", 3));
+                Assert.assertEquals(SVNNodeKind.FILE, checkRepository.checkPath("file3", 3));
+            } finally {
+                checkRepository.closeSession();
+            }
+        } finally {
+            sandbox.dispose();
+        }
+    }
+
+    private SVNCommitInfo addFile(SVNRepository repository, String path) throws Exception {
+        final ISVNEditor editor = repository.getCommitEditor("", null);
+        editor.openRoot(-1);
+        editor.addFile(path, null, -1);
+        editor.closeFile(path, null);
+        editor.closeDir();
+        return editor.closeEdit();
+    }
+
+    private String getTestName() {
+        return "YoungestRevisionWatcherTest";
+    }
+}